@@ -0,0 +1,67 @@
+package ru.practicum.shareit.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.shareit.booking.BookingMapper;
+import ru.practicum.shareit.booking.dto.BookingLeanResponseDto;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of a listing page of {@code size} bookings with embedded entities and in the lean form.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookingSerializationBenchmark {
+    @Param({"10", "100"})
+    public int size;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private List<BookingResponseDto> bookings;
+    private List<BookingLeanResponseDto> leanBookings;
+
+    @Setup(Level.Trial)
+    public void init() {
+        LocalDateTime now = LocalDateTime.now();
+        User owner = new User(1L, "owner", "owner@shareit.ru");
+        User booker = new User(2L, "booker", "booker@shareit.ru");
+        bookings = new ArrayList<>();
+        leanBookings = new ArrayList<>();
+        for (long id = 1; id <= size; id++) {
+            Item item = Item.builder()
+                    .id(id)
+                    .name(ShareItState.WORDS[(int) (id % ShareItState.WORDS.length)] + " " + id)
+                    .description("in good condition")
+                    .available(true)
+                    .owner(owner)
+                    .build();
+            Booking booking = new Booking(id, now.plusDays(id), now.plusDays(id + 1), item, booker,
+                    BookingStatus.APPROVED, null);
+            bookings.add(BookingMapper.toBookingResponseDto(booking));
+            leanBookings.add(new BookingLeanResponseDto(id, booking.getStart(), booking.getEnd(),
+                    booking.getStatus(), booker.getId(), booker.getName(), item.getId(), item.getName()));
+        }
+    }
+
+    @Benchmark
+    public byte[] withEntities() throws Exception {
+        return objectMapper.writeValueAsBytes(bookings);
+    }
+
+    @Benchmark
+    public byte[] lean() throws Exception {
+        return objectMapper.writeValueAsBytes(leanBookings);
+    }
+}
@@ -0,0 +1,33 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.service.BookingJPAService;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookingServiceBenchmark {
+    @Param({"ALL", "CURRENT", "PAST", "FUTURE", "WAITING", "REJECTED"})
+    public String state;
+    @Param({"10", "100"})
+    public int size;
+
+    private BookingJPAService bookingService;
+
+    @Setup(Level.Trial)
+    public void init(ShareItState shareIt) {
+        bookingService = shareIt.getBean(BookingJPAService.class);
+    }
+
+    @Benchmark
+    public List<BookingResponseDto> getBookingsByOwner() {
+        return bookingService.getBookingsByOwner(ShareItState.OWNER_ID, state, 0, size);
+    }
+}
@@ -0,0 +1,81 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.store.BookingJPARepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemJPARepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserJPARepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rows per second inserted by saving {@link #ROWS} new entities in one transaction,
+ * compare {@code -p jdbcBatchSize=1,50}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(BulkInsertBenchmark.ROWS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BulkInsertBenchmark {
+    static final int ROWS = 500;
+
+    private TransactionTemplate transactionTemplate;
+    private ItemJPARepository itemJPARepository;
+    private BookingJPARepository bookingJPARepository;
+    private User owner;
+    private User booker;
+    private Item item;
+
+    @Setup(Level.Trial)
+    public void init(ShareItState shareIt) {
+        transactionTemplate = shareIt.getBean(TransactionTemplate.class);
+        itemJPARepository = shareIt.getBean(ItemJPARepository.class);
+        bookingJPARepository = shareIt.getBean(BookingJPARepository.class);
+        UserJPARepository userJPARepository = shareIt.getBean(UserJPARepository.class);
+        owner = userJPARepository.findById(ShareItState.OWNER_ID).orElseThrow();
+        booker = userJPARepository.findById(ShareItState.OWNER_ID + shareIt.owners).orElseThrow();
+        item = itemJPARepository.findById(1L).orElseThrow();
+    }
+
+    @Benchmark
+    public List<Item> insertItems() {
+        List<Item> items = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            items.add(Item.builder()
+                    .name("imported " + i)
+                    .description("from the catalogue")
+                    .available(true)
+                    .owner(owner)
+                    .build());
+        }
+
+        return transactionTemplate.execute(status -> itemJPARepository.saveAll(items));
+    }
+
+    @Benchmark
+    public List<Booking> insertBookings() {
+        LocalDateTime start = LocalDateTime.now().plusYears(1);
+        List<Booking> bookings = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            bookings.add(Booking.builder()
+                    .start(start.plusDays(i))
+                    .end(start.plusDays(i).plusHours(1))
+                    .item(item)
+                    .booker(booker)
+                    .status(BookingStatus.WAITING)
+                    .build());
+        }
+
+        return transactionTemplate.execute(status -> bookingJPARepository.saveAll(bookings));
+    }
+}
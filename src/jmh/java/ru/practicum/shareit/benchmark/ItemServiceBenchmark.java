@@ -0,0 +1,38 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.item.service.ItemJPAService;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ItemServiceBenchmark {
+    @Param({"10", "100"})
+    public int size;
+    @Param({"drill"})
+    public String text;
+
+    private ItemJPAService itemService;
+
+    @Setup(Level.Trial)
+    public void init(ShareItState shareIt) {
+        itemService = shareIt.getBean(ItemJPAService.class);
+    }
+
+    @Benchmark
+    public List<ItemResponseDto> getItemsOfOwner() {
+        return itemService.getItemsOfOwner(ShareItState.OWNER_ID, 0, size);
+    }
+
+    @Benchmark
+    public List<ItemResponseDto> findItemsByText() {
+        return itemService.findItemsByText(text, 0, size);
+    }
+}
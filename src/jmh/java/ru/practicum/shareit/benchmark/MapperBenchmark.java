@@ -0,0 +1,87 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.shareit.booking.BookingMapper;
+import ru.practicum.shareit.booking.dto.BookingItemResponseDto;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.CommentMapper;
+import ru.practicum.shareit.item.ItemMapper;
+import ru.practicum.shareit.item.dto.CommentResponseDto;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping of {@code size} entities without the database.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapperBenchmark {
+    @Param({"10", "100"})
+    public int size;
+
+    private List<Item> items;
+    private List<Booking> bookings;
+    private List<Comment> comments;
+    private BookingItemResponseDto lastBooking;
+    private BookingItemResponseDto nextBooking;
+
+    @Setup(Level.Trial)
+    public void init() {
+        LocalDateTime now = LocalDateTime.now();
+        User owner = new User(1L, "owner", "owner@shareit.ru");
+        User booker = new User(2L, "booker", "booker@shareit.ru");
+        items = new ArrayList<>();
+        bookings = new ArrayList<>();
+        comments = new ArrayList<>();
+        for (long id = 1; id <= size; id++) {
+            Item item = Item.builder()
+                    .id(id)
+                    .name(ShareItState.WORDS[(int) (id % ShareItState.WORDS.length)] + " " + id)
+                    .description("in good condition")
+                    .available(true)
+                    .owner(owner)
+                    .build();
+            items.add(item);
+            bookings.add(new Booking(id, now.plusDays(id), now.plusDays(id + 1), item, booker, BookingStatus.APPROVED,
+                    null));
+            comments.add(new Comment(id, "comment " + id, booker, item, now.minusMinutes(id)));
+        }
+
+        lastBooking = BookingMapper.toBookingItemResponseDto(bookings.get(0));
+        nextBooking = BookingMapper.toBookingItemResponseDto(bookings.get(size - 1));
+    }
+
+    @Benchmark
+    public List<ItemResponseDto> itemMapper() {
+        List<CommentResponseDto> itemComments = CommentMapper.toCommentResponseDtoList(comments.subList(0, 1));
+        List<ItemResponseDto> itemResponseDtos = new ArrayList<>(items.size());
+        for (Item item : items) {
+            itemResponseDtos.add(ItemMapper.toItemResponseDto(item, lastBooking, nextBooking, itemComments));
+        }
+
+        return itemResponseDtos;
+    }
+
+    @Benchmark
+    public List<BookingResponseDto> bookingMapper() {
+        return BookingMapper.toBookingResponseDtoList(bookings);
+    }
+
+    @Benchmark
+    public List<CommentResponseDto> commentMapper() {
+        return CommentMapper.toCommentResponseDtoList(comments);
+    }
+}
@@ -0,0 +1,156 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.ShareItApp;
+import ru.practicum.shareit.item.search.IndexedItemSearchEngine;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Application context on an embedded H2 seeded with {@code owners} owners having {@code itemsPerOwner} items each.
+ * Every item has {@code bookingsPerItem} bookings spread over past, current, future, waiting and rejected ones
+ * and {@code commentsPerItem} comments. The benchmarked owner is {@link #OWNER_ID}.
+ * {@code jdbcBatchSize=1} sends every insert in its own statement as it was with identity ids.
+ */
+@State(Scope.Benchmark)
+public class ShareItState {
+    public static final long OWNER_ID = 1L;
+    static final String[] WORDS = {"drill", "saw", "hammer", "ladder", "spoon", "pram", "tent", "bike"};
+
+    @Param({"10"})
+    public int owners;
+    @Param({"100"})
+    public int itemsPerOwner;
+    @Param({"10"})
+    public int bookingsPerItem;
+    @Param({"5"})
+    public int commentsPerItem;
+    @Param({"jpa"})
+    public String searchEngine;
+    @Param({"0"})
+    public int searchCacheSize;
+    @Param({"50"})
+    public int jdbcBatchSize;
+
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(ShareItApp.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:shareit-benchmark;DB_CLOSE_DELAY=-1",
+                        "shareit.item.search.engine=" + searchEngine,
+                        "shareit.item.search.cache.max-size=" + searchCacheSize,
+                        "spring.jpa.properties.hibernate.jdbc.batch_size=" + jdbcBatchSize,
+                        "logging.level.root=WARN",
+                        "logging.level.ru.practicum.shareit=WARN",
+                        "logging.level.org.springframework.transaction.interceptor=WARN",
+                        "logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN")
+                .run();
+        seed(context.getBean(JdbcTemplate.class));
+
+        ItemSearchEngine itemSearchEngine = context.getBean(ItemSearchEngine.class);
+        if (itemSearchEngine instanceof IndexedItemSearchEngine) {
+            ((IndexedItemSearchEngine) itemSearchEngine).rebuild();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    private void seed(JdbcTemplate jdbcTemplate) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> users = new ArrayList<>();
+        for (long userId = 1; userId <= 2L * owners; userId++) {
+            users.add(new Object[]{userId, "user " + userId, "user" + userId + "@shareit.ru"});
+        }
+        jdbcTemplate.batchUpdate("insert into users (id, name, email) values (?, ?, ?)", users);
+
+        List<Object[]> items = new ArrayList<>();
+        List<Object[]> bookings = new ArrayList<>();
+        List<Object[]> comments = new ArrayList<>();
+        long itemId = 0;
+        long bookingId = 0;
+        long commentId = 0;
+        for (long ownerId = 1; ownerId <= owners; ownerId++) {
+            long bookerId = ownerId % owners + 1 + owners;
+            for (int i = 0; i < itemsPerOwner; i++) {
+                itemId++;
+                items.add(new Object[]{itemId, WORDS[(int) (itemId % WORDS.length)] + " " + itemId,
+                        "a " + WORDS[(int) ((itemId / WORDS.length) % WORDS.length)] + " in good condition",
+                        itemId % 10 != 0, ownerId});
+                for (int j = 0; j < bookingsPerItem; j++) {
+                    bookings.add(toBookingRow(++bookingId, itemId, bookerId, j, now));
+                }
+                for (int j = 0; j < commentsPerItem; j++) {
+                    comments.add(new Object[]{++commentId, "comment " + commentId, bookerId, itemId,
+                            Timestamp.valueOf(now.minusMinutes(j))});
+                }
+            }
+        }
+
+        jdbcTemplate.batchUpdate("insert into items (id, name, description, available, owner) values (?, ?, ?, ?, ?)",
+                items);
+        jdbcTemplate.batchUpdate("insert into bookings (id, start_time, end_time, item, booker, status) " +
+                "values (?, ?, ?, ?, ?, ?)", bookings);
+        jdbcTemplate.batchUpdate("insert into comments (id, text, author, item, created) values (?, ?, ?, ?, ?)",
+                comments);
+
+        restartSequence(jdbcTemplate, "users_seq", users.size());
+        restartSequence(jdbcTemplate, "items_seq", itemId);
+        restartSequence(jdbcTemplate, "bookings_seq", bookingId);
+        restartSequence(jdbcTemplate, "comments_seq", commentId);
+    }
+
+    /**
+     * The pooled optimizer takes the block (value - 50, value], the first one has to start after the seeded ids.
+     */
+    private static void restartSequence(JdbcTemplate jdbcTemplate, String sequence, long lastId) {
+        jdbcTemplate.execute("alter sequence " + sequence + " restart with " + (lastId + 50));
+    }
+
+    private static Object[] toBookingRow(long bookingId, long itemId, long bookerId, int index, LocalDateTime now) {
+        LocalDateTime start;
+        String status;
+        switch (index % 5) {
+            case 0:
+                start = now.minusDays(index + 2);
+                status = "APPROVED";
+                break;
+            case 1:
+                start = now.minusHours(index + 1);
+                status = "APPROVED";
+                break;
+            case 2:
+                start = now.plusDays(index + 1);
+                status = "APPROVED";
+                break;
+            case 3:
+                start = now.plusDays(index + 1);
+                status = "WAITING";
+                break;
+            default:
+                start = now.plusDays(index + 1);
+                status = "REJECTED";
+        }
+
+        return new Object[]{bookingId, Timestamp.valueOf(start), Timestamp.valueOf(start.plusDays(1)),
+                itemId, bookerId, status};
+    }
+}
@@ -1,29 +1,54 @@
 package ru.practicum.shareit.booking;
 
-import lombok.RequiredArgsConstructor;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingListingDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingStatusBatchDto;
+import ru.practicum.shareit.booking.dto.BookingStatusResultDto;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
 import ru.practicum.shareit.booking.service.BookingJPAService;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.util.NdjsonWriter;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import javax.validation.constraints.Size;
+import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * TODO Sprint add-bookings.
  */
 @RestController
-@RequiredArgsConstructor
 @RequestMapping(path = "/bookings")
 @Slf4j
 @Validated
 public class BookingController {
     private final BookingJPAService bookingService;
+    private final ObjectMapper objectMapper;
+    private final boolean embedEntities;
+
+    /**
+     * @param embedEntities listings respond with the whole booker and item as before the lean responses
+     */
+    public BookingController(BookingJPAService bookingService,
+                             ObjectMapper objectMapper,
+                             @Value("${shareit.booking.listing.embed-entities:false}") boolean embedEntities) {
+        this.bookingService = bookingService;
+        this.objectMapper = objectMapper;
+        this.embedEntities = embedEntities;
+    }
 
     @PostMapping
     public BookingResponseDto createBooking(@NotNull @RequestHeader("X-Sharer-User-Id") Long bookerId,
@@ -33,6 +58,15 @@ public class BookingController {
         return bookingService.createBooking(bookingDto, bookerId);
     }
 
+    @PostMapping("/batch")
+    public List<BookingBatchResultDto> createBookings(@NotNull @RequestHeader("X-Sharer-User-Id") Long bookerId,
+                                                      @RequestBody @NotEmpty @Size(max = 100)
+                                                      List<@NotNull BookingDto> bookingDtos) {
+
+        log.info("POST-request: creating batch of {} bookings with userId : {}", bookingDtos.size(), bookerId);
+        return bookingService.createBookings(bookingDtos, bookerId);
+    }
+
     @PatchMapping("/{bookingId}")
     public BookingResponseDto approveBookingStatus(@NotNull @RequestHeader("X-Sharer-User-Id") Long ownerId,
                                                    @RequestParam("approved") Boolean approved,
@@ -43,6 +77,15 @@ public class BookingController {
         return bookingService.approveBookingStatus(approved, bookingId, ownerId);
     }
 
+    @PatchMapping("/batch")
+    public List<BookingStatusResultDto> approveBookingStatuses(@NotNull @RequestHeader("X-Sharer-User-Id") Long ownerId,
+                                                               @RequestParam("approved") Boolean approved,
+                                                               @RequestBody @Valid BookingStatusBatchDto batchDto) {
+
+        log.info("PATCH-request: approving batch {} from userId : {}, and approved:  {}", batchDto, ownerId, approved);
+        return bookingService.approveBookingStatuses(approved, batchDto, ownerId);
+    }
+
     @GetMapping("/{bookingId}")
     public BookingResponseDto getBooking(@NotNull @RequestHeader("X-Sharer-User-Id") Long userId,
                                          @PathVariable Long bookingId) {
@@ -51,28 +94,91 @@ public class BookingController {
     }
 
     @GetMapping("/owner")
-    public List<BookingResponseDto> getByOwner(@NotNull @RequestHeader("X-Sharer-User-Id") Long ownerId,
+    public List<BookingListingDto> getByOwner(@NotNull @RequestHeader("X-Sharer-User-Id") Long ownerId,
+                                              @RequestParam(value = "state",
+                                                      defaultValue = "ALL") String state,
+                                              @PositiveOrZero @RequestParam(
+                                                      value = "from", defaultValue = "0") Integer from,
+                                              @Positive @RequestParam(
+                                                      value = "size", defaultValue = "10") Integer size,
+                                              @RequestParam(value = "cursor", required = false) String cursor,
+                                              HttpServletResponse response
+    ) {
+        log.info("GET-request: get booking collection by owner with id={}, and state={}, from={}, size={}, cursor={}",
+                ownerId, state, from, size, cursor);
+        if (cursor != null) {
+            CursorPage<? extends BookingListingDto> page = embedEntities
+                    ? bookingService.getBookingsByOwnerAfter(ownerId, state, cursor, size)
+                    : bookingService.getLeanBookingsByOwnerAfter(ownerId, state, cursor, size);
+            return Collections.unmodifiableList(page.writeTo(response));
+        }
+
+        return Collections.unmodifiableList(embedEntities
+                ? bookingService.getBookingsByOwner(ownerId, state, from, size)
+                : bookingService.getLeanBookingsByOwner(ownerId, state, from, size));
+    }
+
+    @GetMapping
+    public List<BookingListingDto> getByBooker(@NotNull @RequestHeader("X-Sharer-User-Id") Long bookerId,
                                                @RequestParam(value = "state",
                                                        defaultValue = "ALL") String state,
                                                @PositiveOrZero @RequestParam(
                                                        value = "from", defaultValue = "0") Integer from,
                                                @Positive @RequestParam(
-                                                       value = "size", defaultValue = "10") Integer size
-    ) {
-        log.info("GET-request: get booking collection by owner with id={}, and state={}, from={}, size={}",
-                ownerId, state, from, size);
-        return bookingService.getBookingsByOwner(ownerId, state, from, size);
+                                                       value = "size", defaultValue = "10") Integer size,
+                                               @RequestParam(value = "cursor", required = false) String cursor,
+                                               HttpServletResponse response) {
+        log.info("GET-request: get booking collection by booker with id={} and state={}, cursor={}",
+                bookerId, state, cursor);
+        if (cursor != null) {
+            CursorPage<? extends BookingListingDto> page = embedEntities
+                    ? bookingService.getBookingsByBookerAfter(bookerId, state, cursor, size)
+                    : bookingService.getLeanBookingsByBookerAfter(bookerId, state, cursor, size);
+            return Collections.unmodifiableList(page.writeTo(response));
+        }
+
+        return Collections.unmodifiableList(embedEntities
+                ? bookingService.getBookingsByBooker(bookerId, state, from, size)
+                : bookingService.getLeanBookingsByBooker(bookerId, state, from, size));
     }
 
-    @GetMapping
-    public List<BookingResponseDto> getByBooker(@NotNull @RequestHeader("X-Sharer-User-Id") Long bookerId,
-                                                @RequestParam(value = "state",
-                                                        defaultValue = "ALL") String state,
-                                                @PositiveOrZero @RequestParam(
-                                                        value = "from", defaultValue = "0") Integer from,
-                                                @Positive @RequestParam(
-                                                        value = "size", defaultValue = "10") Integer size) {
-        log.info("GET-request: get booking collection by booker with id={} and state={}", bookerId, state);
-        return bookingService.getBookingsByBooker(bookerId, state, from, size);
+    @GetMapping("/owner/summary")
+    public BookingSummaryDto getSummaryByOwner(@NotNull @RequestHeader("X-Sharer-User-Id") Long ownerId) {
+        log.info("GET-request: get booking counts by state of owner with id={}", ownerId);
+        return bookingService.getBookingSummaryByOwner(ownerId);
+    }
+
+    @GetMapping("/summary")
+    public BookingSummaryDto getSummaryByBooker(@NotNull @RequestHeader("X-Sharer-User-Id") Long bookerId) {
+        log.info("GET-request: get booking counts by state of booker with id={}", bookerId);
+        return bookingService.getBookingSummaryByBooker(bookerId);
+    }
+
+    @GetMapping(value = "/owner", produces = NdjsonWriter.MEDIA_TYPE)
+    public void streamByOwner(@NotNull @RequestHeader("X-Sharer-User-Id") Long ownerId,
+                              @RequestParam(value = "state", defaultValue = "ALL") String state,
+                              HttpServletResponse response) throws IOException {
+        log.info("GET-request: stream all bookings of owner with id={} and state={}", ownerId, state);
+        NdjsonWriter writer = NdjsonWriter.of(response, objectMapper);
+        if (embedEntities) {
+            bookingService.streamBookingsByOwner(ownerId, state, writer::write);
+        } else {
+            bookingService.streamLeanBookingsByOwner(ownerId, state, writer::write);
+        }
+        writer.flush();
+    }
+
+    @GetMapping(produces = NdjsonWriter.MEDIA_TYPE)
+    public void streamByBooker(@NotNull @RequestHeader("X-Sharer-User-Id") Long bookerId,
+                               @RequestParam(value = "state", defaultValue = "ALL") String state,
+                               HttpServletResponse response) throws IOException {
+        log.info("GET-request: stream all bookings of booker with id={} and state={}", bookerId, state);
+        NdjsonWriter writer = NdjsonWriter.of(response, objectMapper);
+        if (embedEntities) {
+            bookingService.streamBookingsByBooker(bookerId, state, writer::write);
+        } else {
+            bookingService.streamLeanBookingsByBooker(bookerId, state, writer::write);
+        }
+        writer.flush();
     }
 }
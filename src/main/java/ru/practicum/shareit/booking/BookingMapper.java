@@ -1,12 +1,19 @@
 package ru.practicum.shareit.booking;
 
+import org.hibernate.Hibernate;
 import org.springframework.stereotype.Component;
 import ru.practicum.shareit.booking.dto.BookingItemResponseDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingEventDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingShortView;
+import ru.practicum.shareit.booking.index.BookingInterval;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingEvent;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.model.User;
 
 import java.util.Collection;
@@ -21,8 +28,8 @@ public class BookingMapper {
                 booking.getStart(),
                 booking.getEnd(),
                 booking.getStatus(),
-                booking.getBooker(),
-                booking.getItem()
+                unproxy(booking.getBooker()),
+                unproxy(booking.getItem())
         );
     }
 
@@ -33,6 +40,32 @@ public class BookingMapper {
         );
     }
 
+    public static BookingItemResponseDto toBookingItemResponseDto(BookingShortView bookingShortView) {
+        return new BookingItemResponseDto(
+                bookingShortView.getId(),
+                bookingShortView.getBookerId()
+        );
+    }
+
+    public static BookingItemResponseDto toBookingItemResponseDto(BookingInterval bookingInterval) {
+        return new BookingItemResponseDto(
+                bookingInterval.getId(),
+                bookingInterval.getBookerId()
+        );
+    }
+
+    public static Booking toBooking(ArchivedBooking archivedBooking) {
+        return Booking.builder()
+                .id(archivedBooking.getId())
+                .start(archivedBooking.getStart())
+                .end(archivedBooking.getEnd())
+                .booker(archivedBooking.getBooker())
+                .item(archivedBooking.getItem())
+                .status(archivedBooking.getStatus())
+                .version(archivedBooking.getVersion())
+                .build();
+    }
+
     public static Booking toBooking(BookingDto bookingDto,
                                     User user, Item item, BookingStatus status) {
         return Booking.builder()
@@ -70,4 +103,57 @@ public class BookingMapper {
         );
     }
 
+    public static BookingEventDto toBookingEventDto(BookingEvent bookingEvent) {
+        return BookingEventDto.builder()
+                .id(bookingEvent.getId())
+                .bookingId(bookingEvent.getBookingId())
+                .itemId(bookingEvent.getItemId())
+                .ownerId(bookingEvent.getOwnerId())
+                .bookerId(bookingEvent.getBookerId())
+                .status(bookingEvent.getStatus())
+                .start(bookingEvent.getStart())
+                .end(bookingEvent.getEnd())
+                .created(bookingEvent.getCreated())
+                .build();
+    }
+
+    public static List<BookingEventDto> toBookingEventDtoList(Collection<BookingEvent> bookingEvents) {
+        return bookingEvents.stream()
+                .map(BookingMapper::toBookingEventDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * The response holds entities which are serialized as they are, so associations not loaded
+     * by the entity graph of the query are loaded here instead of leaking Hibernate proxies.
+     */
+    private static Item unproxy(Item item) {
+        Item loaded = (Item) Hibernate.unproxy(item);
+        if (loaded == null) {
+            return null;
+        }
+
+        User owner = unproxy(loaded.getOwner());
+        ItemRequest request = (ItemRequest) Hibernate.unproxy(loaded.getRequest());
+        if (request != null && request.getRequester() != null) {
+            User requester = unproxy(request.getRequester());
+            request = requester == request.getRequester() ? request : request.toBuilder()
+                    .requester(requester)
+                    .build();
+        }
+
+        if (loaded == item && owner == item.getOwner() && request == item.getRequest()) {
+            return item;
+        }
+
+        return loaded.toBuilder()
+                .owner(owner)
+                .request(request)
+                .build();
+    }
+
+    private static User unproxy(User user) {
+        return (User) Hibernate.unproxy(user);
+    }
+
 }
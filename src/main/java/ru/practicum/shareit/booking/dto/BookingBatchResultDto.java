@@ -0,0 +1,17 @@
+package ru.practicum.shareit.booking.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Result of one entry of a batch: the created booking or the reason it was not created.
+ */
+@Value
+@Builder(toBuilder = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookingBatchResultDto {
+    int index;
+    BookingResponseDto booking;
+    String error;
+}
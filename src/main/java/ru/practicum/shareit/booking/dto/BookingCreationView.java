@@ -0,0 +1,10 @@
+package ru.practicum.shareit.booking.dto;
+
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+public interface BookingCreationView {
+    Item getItem();
+
+    User getBooker();
+}
@@ -0,0 +1,28 @@
+package ru.practicum.shareit.booking.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Builder;
+import lombok.Value;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * A booking change as sent to the sinks. It may be sent more than once, the id tells the repeats.
+ */
+@Value
+@Builder(toBuilder = true)
+public class BookingEventDto {
+    Long id;
+    Long bookingId;
+    Long itemId;
+    Long ownerId;
+    Long bookerId;
+    BookingStatus status;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    LocalDateTime start;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    LocalDateTime end;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    LocalDateTime created;
+}
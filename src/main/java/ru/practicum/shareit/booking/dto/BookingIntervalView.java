@@ -0,0 +1,17 @@
+package ru.practicum.shareit.booking.dto;
+
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+
+public interface BookingIntervalView {
+    Long getId();
+
+    Long getBookerId();
+
+    LocalDateTime getStart();
+
+    LocalDateTime getEnd();
+
+    BookingStatus getStatus();
+}
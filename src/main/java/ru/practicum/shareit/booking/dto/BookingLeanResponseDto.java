@@ -0,0 +1,42 @@
+package ru.practicum.shareit.booking.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Value;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Booking of a listing with only the id and the name of the booker and of the item,
+ * the fields of {@link BookingResponseDto} clients read from the listings.
+ */
+@Value
+public class BookingLeanResponseDto implements BookingListingDto {
+    Long id;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    LocalDateTime start;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    LocalDateTime end;
+    BookingStatus status;
+    Ref booker;
+    Ref item;
+
+    /**
+     * Flat form for the constructor expressions of the listing queries.
+     */
+    public BookingLeanResponseDto(Long id, LocalDateTime start, LocalDateTime end, BookingStatus status,
+                                  Long bookerId, String bookerName, Long itemId, String itemName) {
+        this.id = id;
+        this.start = start;
+        this.end = end;
+        this.status = status;
+        this.booker = new Ref(bookerId, bookerName);
+        this.item = new Ref(itemId, itemName);
+    }
+
+    @Value
+    public static class Ref {
+        Long id;
+        String name;
+    }
+}
@@ -0,0 +1,19 @@
+package ru.practicum.shareit.booking.dto;
+
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Booking of a listing, {@link BookingLeanResponseDto} or with the whole booker and item {@link BookingResponseDto}
+ * as configured by {@code shareit.booking.listing.embed-entities}.
+ */
+public interface BookingListingDto {
+    Long getId();
+
+    LocalDateTime getStart();
+
+    LocalDateTime getEnd();
+
+    BookingStatus getStatus();
+}
@@ -12,7 +12,7 @@ import java.time.LocalDateTime;
 @Builder(toBuilder = true)
 @Value
 @RequiredArgsConstructor
-public class BookingResponseDto {
+public class BookingResponseDto implements BookingListingDto {
     Long id;
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
     LocalDateTime start;
@@ -0,0 +1,22 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Builder;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * WAITING bookings of the owner's items to approve or reject: the given ids,
+ * or all of them (of one item when {@code itemId} is set) when the ids are not given.
+ */
+@Value
+@Builder(toBuilder = true)
+@RequiredArgsConstructor
+public class BookingStatusBatchDto {
+    @Size(min = 1, max = 1000)
+    List<@NotNull Long> bookingIds;
+    Long itemId;
+}
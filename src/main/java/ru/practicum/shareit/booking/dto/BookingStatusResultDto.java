@@ -0,0 +1,17 @@
+package ru.practicum.shareit.booking.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Outcome of approving or rejecting one booking of a batch: the changed booking or the reason it was not changed.
+ */
+@Value
+@Builder(toBuilder = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookingStatusResultDto {
+    Long bookingId;
+    BookingResponseDto booking;
+    String error;
+}
@@ -0,0 +1,20 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Builder;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+
+/**
+ * Numbers of bookings in every {@link ru.practicum.shareit.booking.model.BookingState}.
+ */
+@Value
+@Builder(toBuilder = true)
+@RequiredArgsConstructor
+public class BookingSummaryDto {
+    long all;
+    long current;
+    long past;
+    long future;
+    long waiting;
+    long rejected;
+}
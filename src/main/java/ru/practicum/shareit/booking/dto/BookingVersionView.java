@@ -0,0 +1,11 @@
+package ru.practicum.shareit.booking.dto;
+
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+public interface BookingVersionView {
+    Long getId();
+
+    BookingStatus getStatus();
+
+    Long getVersion();
+}
@@ -0,0 +1,167 @@
+package ru.practicum.shareit.booking.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.BookingMapper;
+import ru.practicum.shareit.booking.dto.BookingEventDto;
+import ru.practicum.shareit.booking.model.BookingEvent;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.store.BookingEventJPARepository;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Sends the events of {@code booking_events} to every {@link BookingEventSink} in id order,
+ * {@code shareit.booking.events.batch-size} events per read, and deletes the delivered ones.
+ * Ids follow the order of the changes within one instance only, so the creation of a booking changed
+ * in the batch is sent before the change even when it has a greater id.
+ * When an item's events fail, its later events wait for the next run, so the events of an item are delivered
+ * in order and at least once. Metrics: {@code shareit.booking.events.delivered} and
+ * {@code shareit.booking.events.failed} (events left for the next run).
+ */
+@Component
+@Slf4j
+public class BookingEventDispatcher {
+    private final BookingEventJPARepository bookingEventJPARepository;
+    private final List<BookingEventSink> sinks;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Counter deliveredCounter;
+    private final Counter failedCounter;
+
+    public BookingEventDispatcher(BookingEventJPARepository bookingEventJPARepository,
+                                  List<BookingEventSink> sinks,
+                                  TransactionTemplate transactionTemplate,
+                                  @Value("${shareit.booking.events.batch-size:100}") int batchSize,
+                                  MeterRegistry meterRegistry) {
+        this.bookingEventJPARepository = bookingEventJPARepository;
+        this.sinks = sinks;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.deliveredCounter = Counter.builder("shareit.booking.events.delivered")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("shareit.booking.events.failed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return number of delivered events
+     */
+    @Scheduled(cron = "${shareit.booking.events.dispatch-cron:* * * * * *}")
+    public synchronized int dispatch() {
+        Set<Long> failedItemIds = new HashSet<>();
+        Set<Long> pulledIds = new HashSet<>();
+        int delivered = 0;
+        long lastId = 0;
+        List<BookingEvent> batch;
+        do {
+            batch = bookingEventJPARepository.findAllByIdGreaterThanOrderById(lastId, PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            lastId = batch.get(batch.size() - 1).getId();
+            List<Long> deliveredIds = send(withCreationsOfChangedBookings(batch, lastId, pulledIds), failedItemIds);
+            if (!deliveredIds.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status ->
+                        bookingEventJPARepository.deleteAllByIdIn(deliveredIds));
+            }
+            delivered += deliveredIds.size();
+        } while (batch.size() == batchSize);
+
+        if (delivered > 0 || !failedItemIds.isEmpty()) {
+            log.info("{} booking events are delivered, events of items with ids={} are left for the next run",
+                    delivered, failedItemIds);
+        }
+        return delivered;
+    }
+
+    /**
+     * Puts the creations of the bookings changed in the batch, read after it, before their changes.
+     *
+     * @param pulledIds ids of the creations put into earlier batches, skipped when they are read
+     */
+    private List<BookingEvent> withCreationsOfChangedBookings(List<BookingEvent> batch, long lastId,
+                                                              Set<Long> pulledIds) {
+        List<BookingEvent> events = new ArrayList<>();
+        Set<Long> changedBookingIds = new HashSet<>();
+        for (BookingEvent event : batch) {
+            if (pulledIds.remove(event.getId())) {
+                continue;
+            }
+
+            events.add(event);
+            if (event.getStatus() != BookingStatus.WAITING) {
+                changedBookingIds.add(event.getBookingId());
+            }
+        }
+
+        if (changedBookingIds.isEmpty()) {
+            return events;
+        }
+
+        Map<Long, BookingEvent> creations = bookingEventJPARepository
+                .findAllByBookingIdInAndStatusAndIdGreaterThan(changedBookingIds, BookingStatus.WAITING, lastId).stream()
+                .collect(Collectors.toMap(BookingEvent::getBookingId, Function.identity()));
+        if (creations.isEmpty()) {
+            return events;
+        }
+
+        List<BookingEvent> ordered = new ArrayList<>();
+        for (BookingEvent event : events) {
+            BookingEvent creation = creations.get(event.getBookingId());
+            if (creation != null && event.getStatus() != BookingStatus.WAITING) {
+                ordered.add(creation);
+                pulledIds.add(creation.getId());
+            }
+            ordered.add(event);
+        }
+
+        return ordered;
+    }
+
+    /**
+     * @return ids of the events delivered to every sink
+     */
+    private List<Long> send(List<BookingEvent> batch, Set<Long> failedItemIds) {
+        Map<Long, List<BookingEvent>> eventsOfItems = new LinkedHashMap<>();
+        for (BookingEvent event : batch) {
+            eventsOfItems.computeIfAbsent(event.getItemId(), itemId -> new ArrayList<>()).add(event);
+        }
+
+        List<Long> deliveredIds = new ArrayList<>();
+        for (Map.Entry<Long, List<BookingEvent>> eventsOfItem : eventsOfItems.entrySet()) {
+            Long itemId = eventsOfItem.getKey();
+            List<BookingEvent> events = eventsOfItem.getValue();
+            if (failedItemIds.contains(itemId)) {
+                failedCounter.increment(events.size());
+                continue;
+            }
+
+            List<BookingEventDto> eventDtos = BookingMapper.toBookingEventDtoList(events);
+            try {
+                for (BookingEventSink sink : sinks) {
+                    sink.send(eventDtos);
+                }
+            } catch (RuntimeException e) {
+                log.error("BookingEventSink: events of item with id={} are not delivered: {}", itemId, e.getMessage());
+                failedItemIds.add(itemId);
+                failedCounter.increment(events.size());
+                continue;
+            }
+
+            events.forEach(event -> deliveredIds.add(event.getId()));
+            deliveredCounter.increment(events.size());
+        }
+
+        return deliveredIds;
+    }
+}
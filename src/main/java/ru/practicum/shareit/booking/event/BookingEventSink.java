@@ -0,0 +1,16 @@
+package ru.practicum.shareit.booking.event;
+
+import ru.practicum.shareit.booking.dto.BookingEventDto;
+
+import java.util.List;
+
+/**
+ * Receiver of booking events from {@link BookingEventDispatcher}, every bean of the type gets every event.
+ */
+public interface BookingEventSink {
+    /**
+     * @param events events of one item in the order of the changes
+     * @throws RuntimeException when the events are not delivered, they are sent again later
+     */
+    void send(List<BookingEventDto> events);
+}
@@ -0,0 +1,53 @@
+package ru.practicum.shareit.booking.event;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingEvent;
+import ru.practicum.shareit.booking.store.BookingEventJPARepository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Writes the changes of bookings to {@code booking_events} in the transaction of the change, without reading
+ * or locking the items: creations take no lock, approvals lock the item themselves. The ids of the events
+ * come from a pooled sequence, so they follow the order of the changes of an item within one instance only.
+ * The creation of a booking is committed before its status can change, and {@link BookingEventDispatcher}
+ * delivers it first even when the change got the smaller id on another instance.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookingOutbox {
+    private final BookingEventJPARepository bookingEventJPARepository;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void add(Booking booking) {
+        addAll(List.of(booking));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void addAll(Collection<Booking> bookings) {
+        if (bookings.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        bookingEventJPARepository.saveAll(bookings.stream()
+                .map(booking -> BookingEvent.builder()
+                        .bookingId(booking.getId())
+                        .itemId(booking.getItem().getId())
+                        .ownerId(booking.getItem().getOwner().getId())
+                        .bookerId(booking.getBooker().getId())
+                        .status(booking.getStatus())
+                        .start(booking.getStart())
+                        .end(booking.getEnd())
+                        .created(now)
+                        .build())
+                .collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,23 @@
+package ru.practicum.shareit.booking.event;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.BookingEventDto;
+
+import java.util.List;
+
+/**
+ * Publishes booking events to the {@code @EventListener}s of {@link BookingEventDto} of the application.
+ * A listener throwing an exception gets the events again.
+ */
+@Component
+@RequiredArgsConstructor
+public class InProcessBookingEventSink implements BookingEventSink {
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    @Override
+    public void send(List<BookingEventDto> events) {
+        events.forEach(applicationEventPublisher::publishEvent);
+    }
+}
@@ -0,0 +1,38 @@
+package ru.practicum.shareit.booking.event;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+import ru.practicum.shareit.booking.dto.BookingEventDto;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Posts the events of an item as a JSON array to {@code shareit.booking.events.webhook.url},
+ * a response other than 2xx fails the delivery.
+ */
+@Component
+@ConditionalOnProperty(name = "shareit.booking.events.webhook.url")
+public class WebhookBookingEventSink implements BookingEventSink {
+    private final RestTemplate restTemplate;
+    private final URI url;
+
+    public WebhookBookingEventSink(RestTemplateBuilder restTemplateBuilder,
+                                   @Value("${shareit.booking.events.webhook.url}") URI url,
+                                   @Value("${shareit.booking.events.webhook.timeout:5s}") Duration timeout) {
+        this.restTemplate = restTemplateBuilder
+                .setConnectTimeout(timeout)
+                .setReadTimeout(timeout)
+                .build();
+        this.url = url;
+    }
+
+    @Override
+    public void send(List<BookingEventDto> events) {
+        restTemplate.postForEntity(url, events, Void.class);
+    }
+}
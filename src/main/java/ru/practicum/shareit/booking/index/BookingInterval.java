@@ -0,0 +1,23 @@
+package ru.practicum.shareit.booking.index;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+@Value
+public class BookingInterval {
+    static final Comparator<BookingInterval> BY_START = Comparator.comparing(BookingInterval::getStart)
+            .thenComparing(BookingInterval::getId);
+    static final Comparator<BookingInterval> BY_END = Comparator.comparing(BookingInterval::getEnd)
+            .thenComparing(BookingInterval::getId);
+
+    Long id;
+    Long bookerId;
+    LocalDateTime start;
+    LocalDateTime end;
+
+    public boolean overlaps(LocalDateTime otherStart, LocalDateTime otherEnd) {
+        return start.isBefore(otherEnd) && end.isAfter(otherStart);
+    }
+}
@@ -0,0 +1,150 @@
+package ru.practicum.shareit.booking.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.BookingIntervalView;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.store.BookingJPARepository;
+import ru.practicum.shareit.util.TransactionHooks;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * In-memory interval trees of APPROVED and WAITING bookings of recently used items.
+ * Bookings of an item are loaded on the first lookup; saved bookings are applied after commit.
+ * The least recently used items are dropped when there are more than {@code shareit.booking.index.max-items}.
+ */
+@Component
+@Slf4j
+public class BookingIntervalIndex {
+    private static final List<BookingStatus> INDEXED_STATUSES = List.of(BookingStatus.APPROVED, BookingStatus.WAITING);
+
+    private final BookingJPARepository bookingJPARepository;
+    private final int maxItems;
+    private final LinkedHashMap<Long, ItemBookings> items = new LinkedHashMap<>(16, 0.75f, true);
+    private long writes;
+
+    public BookingIntervalIndex(BookingJPARepository bookingJPARepository,
+                                @Value("${shareit.booking.index.max-items:10000}") int maxItems) {
+        this.bookingJPARepository = bookingJPARepository;
+        this.maxItems = maxItems;
+    }
+
+    /**
+     * @return the approved booking started at or before the moment with the latest end
+     */
+    public Optional<BookingInterval> findLastApproved(Long itemId, LocalDateTime now) {
+        return query(itemId, bookings -> bookings.approved.findLastStartedBefore(now));
+    }
+
+    /**
+     * @return the approved booking starting at or after the moment with the earliest start
+     */
+    public Optional<BookingInterval> findNextApproved(Long itemId, LocalDateTime now) {
+        return query(itemId, bookings -> bookings.approved.findFirstStartingFrom(now));
+    }
+
+    /**
+     * @return approved bookings intersecting [start, end) ordered by start
+     */
+    public List<BookingInterval> findOverlappingApproved(Long itemId, LocalDateTime start, LocalDateTime end) {
+        return query(itemId, bookings -> bookings.approved.findOverlapping(start, end));
+    }
+
+    /**
+     * @return approved and waiting bookings intersecting [start, end) ordered by start
+     */
+    public List<BookingInterval> findOverlapping(Long itemId, LocalDateTime start, LocalDateTime end) {
+        return query(itemId, bookings -> {
+            List<BookingInterval> overlapping = new ArrayList<>(bookings.approved.findOverlapping(start, end));
+            overlapping.addAll(bookings.waiting.findOverlapping(start, end));
+            overlapping.sort(BookingInterval.BY_START);
+            return overlapping;
+        });
+    }
+
+    public void onBookingSaved(Booking booking) {
+        Long itemId = booking.getItem().getId();
+        BookingStatus status = booking.getStatus();
+        BookingInterval interval = new BookingInterval(booking.getId(), booking.getBooker().getId(),
+                booking.getStart(), booking.getEnd());
+        TransactionHooks.afterCommit(() -> apply(itemId, interval, status));
+    }
+
+    private synchronized void apply(Long itemId, BookingInterval interval, BookingStatus status) {
+        writes++;
+        ItemBookings bookings = items.get(itemId);
+        if (bookings != null) {
+            bookings.put(interval, status);
+        }
+    }
+
+    private <T> T query(Long itemId, Function<ItemBookings, T> query) {
+        long version;
+        synchronized (this) {
+            ItemBookings bookings = items.get(itemId);
+            if (bookings != null) {
+                return query.apply(bookings);
+            }
+            version = writes;
+        }
+
+        ItemBookings loaded = load(itemId);
+        synchronized (this) {
+            // bookings saved while loading may be missing from the loaded ones, so they are used only once
+            if (version == writes && !items.containsKey(itemId)) {
+                items.put(itemId, loaded);
+                evictLeastRecentlyUsed();
+            }
+
+            return query.apply(items.getOrDefault(itemId, loaded));
+        }
+    }
+
+    private ItemBookings load(Long itemId) {
+        ItemBookings bookings = new ItemBookings();
+        for (BookingIntervalView view : bookingJPARepository.findIntervalsByItemIdAndStatusIn(itemId, INDEXED_STATUSES)) {
+            bookings.put(new BookingInterval(view.getId(), view.getBookerId(), view.getStart(), view.getEnd()),
+                    view.getStatus());
+        }
+
+        log.debug("loaded {} bookings of item with id={} to the index", bookings.statuses.size(), itemId);
+        return bookings;
+    }
+
+    private void evictLeastRecentlyUsed() {
+        Iterator<ItemBookings> eldest = items.values().iterator();
+        while (items.size() > maxItems) {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    private static class ItemBookings {
+        final BookingIntervalTree approved = new BookingIntervalTree();
+        final BookingIntervalTree waiting = new BookingIntervalTree();
+        final Map<Long, BookingStatus> statuses = new HashMap<>();
+        final Map<Long, BookingInterval> intervals = new HashMap<>();
+
+        void put(BookingInterval interval, BookingStatus status) {
+            BookingInterval previous = intervals.remove(interval.getId());
+            if (previous != null) {
+                treeOf(statuses.remove(interval.getId())).remove(previous);
+            }
+
+            if (INDEXED_STATUSES.contains(status)) {
+                intervals.put(interval.getId(), interval);
+                statuses.put(interval.getId(), status);
+                treeOf(status).add(interval);
+            }
+        }
+
+        BookingIntervalTree treeOf(BookingStatus status) {
+            return status == BookingStatus.APPROVED ? approved : waiting;
+        }
+    }
+}
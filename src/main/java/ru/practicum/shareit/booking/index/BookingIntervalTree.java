@@ -0,0 +1,217 @@
+package ru.practicum.shareit.booking.index;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * AVL tree of booking intervals ordered by start and id. Every node also keeps the interval
+ * with the latest end in its subtree, so both the last started booking and overlapping bookings
+ * are found without visiting subtrees that can not contain them. Not thread-safe.
+ */
+public class BookingIntervalTree {
+    private Node root;
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public void add(BookingInterval interval) {
+        root = insert(root, interval);
+    }
+
+    public void remove(BookingInterval interval) {
+        root = delete(root, interval);
+    }
+
+    /**
+     * @return the interval with the latest end (then the greatest id) among intervals started at or before the time
+     */
+    public Optional<BookingInterval> findLastStartedBefore(LocalDateTime time) {
+        BookingInterval last = null;
+        Node node = root;
+        while (node != null) {
+            if (node.interval.getStart().isAfter(time)) {
+                node = node.left;
+            } else {
+                last = latest(last, node.interval);
+                if (node.left != null) {
+                    last = latest(last, node.left.latest);
+                }
+                node = node.right;
+            }
+        }
+
+        return Optional.ofNullable(last);
+    }
+
+    /**
+     * @return the interval with the earliest start (then the least id) among intervals starting at or after the time
+     */
+    public Optional<BookingInterval> findFirstStartingFrom(LocalDateTime time) {
+        BookingInterval first = null;
+        Node node = root;
+        while (node != null) {
+            if (node.interval.getStart().isBefore(time)) {
+                node = node.right;
+            } else {
+                first = node.interval;
+                node = node.left;
+            }
+        }
+
+        return Optional.ofNullable(first);
+    }
+
+    /**
+     * @return intervals intersecting [start, end) ordered by start and id
+     */
+    public List<BookingInterval> findOverlapping(LocalDateTime start, LocalDateTime end) {
+        List<BookingInterval> overlapping = new ArrayList<>();
+        collectOverlapping(root, start, end, overlapping);
+        return overlapping;
+    }
+
+    private static void collectOverlapping(Node node, LocalDateTime start, LocalDateTime end,
+                                           List<BookingInterval> overlapping) {
+        if (node == null || !node.latest.getEnd().isAfter(start)) {
+            return;
+        }
+
+        collectOverlapping(node.left, start, end, overlapping);
+        if (!node.interval.getStart().isBefore(end)) {
+            return;
+        }
+
+        if (node.interval.overlaps(start, end)) {
+            overlapping.add(node.interval);
+        }
+        collectOverlapping(node.right, start, end, overlapping);
+    }
+
+    private Node insert(Node node, BookingInterval interval) {
+        if (node == null) {
+            size++;
+            return new Node(interval);
+        }
+
+        int cmp = BookingInterval.BY_START.compare(interval, node.interval);
+        if (cmp < 0) {
+            node.left = insert(node.left, interval);
+        } else if (cmp > 0) {
+            node.right = insert(node.right, interval);
+        } else {
+            node.interval = interval;
+        }
+
+        return balance(node);
+    }
+
+    private Node delete(Node node, BookingInterval interval) {
+        if (node == null) {
+            return null;
+        }
+
+        int cmp = BookingInterval.BY_START.compare(interval, node.interval);
+        if (cmp < 0) {
+            node.left = delete(node.left, interval);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, interval);
+        } else {
+            size--;
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            node.interval = successor.interval;
+            size++;
+            node.right = delete(node.right, successor.interval);
+        }
+
+        return balance(node);
+    }
+
+    private static Node balance(Node node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        node.latest = node.interval;
+        if (node.left != null) {
+            node.latest = latest(node.latest, node.left.latest);
+        }
+        if (node.right != null) {
+            node.latest = latest(node.latest, node.right.latest);
+        }
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static BookingInterval latest(BookingInterval first, BookingInterval second) {
+        if (first == null) {
+            return second;
+        }
+
+        return BookingInterval.BY_END.compare(first, second) >= 0 ? first : second;
+    }
+
+    private static class Node {
+        BookingInterval interval;
+        BookingInterval latest;
+        Node left;
+        Node right;
+        int height;
+
+        Node(BookingInterval interval) {
+            this.interval = interval;
+            this.latest = interval;
+            this.height = 1;
+        }
+    }
+}
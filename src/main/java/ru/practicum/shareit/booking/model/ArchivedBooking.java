@@ -0,0 +1,55 @@
+package ru.practicum.shareit.booking.model;
+
+import lombok.*;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A {@link Booking} moved to the archive table, read only.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+@Entity
+@NamedEntityGraph(name = ArchivedBooking.ITEM_AND_BOOKER_GRAPH,
+        attributeNodes = {
+                @NamedAttributeNode(value = "item", subgraph = "item"),
+                @NamedAttributeNode("booker")
+        },
+        subgraphs = {
+                @NamedSubgraph(name = "item", attributeNodes = {
+                        @NamedAttributeNode("owner"),
+                        @NamedAttributeNode(value = "request", subgraph = "request")
+                }),
+                @NamedSubgraph(name = "request", attributeNodes = @NamedAttributeNode("requester"))
+        })
+@Table(name = "bookings_archive")
+public class ArchivedBooking {
+    /**
+     * Loads the item with its owner and request and the booker by the same select as the booking.
+     */
+    public static final String ITEM_AND_BOOKER_GRAPH = "ArchivedBooking.itemAndBooker";
+
+    @Id
+    @Column(name = "id", nullable = false)
+    private Long id;
+    @Column(name = "start_time", nullable = false)
+    private LocalDateTime start;
+    @Column(name = "end_time", nullable = false)
+    private LocalDateTime end;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "item", referencedColumnName = "id", nullable = false)
+    private Item item;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "booker", referencedColumnName = "id", nullable = false)
+    private User booker;
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status")
+    private BookingStatus status;
+    @Column(name = "version", nullable = false)
+    private Long version;
+}
@@ -12,23 +12,44 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Builder(toBuilder = true)
 @Entity
+@NamedEntityGraph(name = Booking.ITEM_AND_BOOKER_GRAPH,
+        attributeNodes = {
+                @NamedAttributeNode(value = "item", subgraph = "item"),
+                @NamedAttributeNode("booker")
+        },
+        subgraphs = {
+                @NamedSubgraph(name = "item", attributeNodes = {
+                        @NamedAttributeNode("owner"),
+                        @NamedAttributeNode(value = "request", subgraph = "request")
+                }),
+                @NamedSubgraph(name = "request", attributeNodes = @NamedAttributeNode("requester"))
+        })
 @Table(name = "bookings")
 public class Booking {
+    /**
+     * Loads the item with its owner and request and the booker by the same select as the booking.
+     */
+    public static final String ITEM_AND_BOOKER_GRAPH = "Booking.itemAndBooker";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bookings_seq")
+    @SequenceGenerator(name = "bookings_seq", sequenceName = "bookings_seq", allocationSize = 50)
     @Column(name = "id", nullable = false)
     private Long id;
     @Column(name = "start_time", nullable = false)
     private LocalDateTime start;
     @Column(name = "end_time", nullable = false)
     private LocalDateTime end;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "item", referencedColumnName = "id", nullable = false)
     private Item item;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "booker", referencedColumnName = "id", nullable = false)
     private User booker;
     @Enumerated(EnumType.STRING)
     @Column(name = "status")
     private BookingStatus status;
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
 }
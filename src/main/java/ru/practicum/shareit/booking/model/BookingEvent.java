@@ -0,0 +1,41 @@
+package ru.practicum.shareit.booking.model;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A change of a booking waiting in the outbox to be sent to the sinks, written in the transaction of the change.
+ * The status is the one the booking got: WAITING for a created booking.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+@Entity
+@Table(name = "booking_events")
+public class BookingEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "booking_events_seq")
+    @SequenceGenerator(name = "booking_events_seq", sequenceName = "booking_events_seq", allocationSize = 50)
+    @Column(name = "id", nullable = false)
+    private Long id;
+    @Column(name = "booking_id", nullable = false)
+    private Long bookingId;
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+    @Column(name = "booker_id", nullable = false)
+    private Long bookerId;
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private BookingStatus status;
+    @Column(name = "start_time", nullable = false)
+    private LocalDateTime start;
+    @Column(name = "end_time", nullable = false)
+    private LocalDateTime end;
+    @Column(name = "created", nullable = false)
+    private LocalDateTime created;
+}
@@ -0,0 +1,75 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.store.ArchivedBookingJPARepository;
+import ru.practicum.shareit.booking.store.BookingJPARepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Moves approved, rejected and canceled bookings ended more than {@code shareit.booking.archive.horizon} ago
+ * from {@code bookings} to {@code bookings_archive}, {@code shareit.booking.archive.batch-size} bookings
+ * per transaction. Their status never changes again. The last started approved booking of every item
+ * stays in {@code bookings}. Waiting bookings stay as well; the expiry job cancels them once their start has passed.
+ */
+@Component
+@Slf4j
+public class BookingArchiver {
+    private static final List<BookingStatus> CLOSED_STATUSES = List.of(BookingStatus.REJECTED, BookingStatus.CANCELED);
+
+    private final BookingJPARepository bookingJPARepository;
+    private final ArchivedBookingJPARepository archivedBookingJPARepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration horizon;
+    private final int batchSize;
+
+    public BookingArchiver(BookingJPARepository bookingJPARepository,
+                           ArchivedBookingJPARepository archivedBookingJPARepository,
+                           TransactionTemplate transactionTemplate,
+                           @Value("${shareit.booking.archive.horizon:365d}") Duration horizon,
+                           @Value("${shareit.booking.archive.batch-size:1000}") int batchSize) {
+        this.bookingJPARepository = bookingJPARepository;
+        this.archivedBookingJPARepository = archivedBookingJPARepository;
+        this.transactionTemplate = transactionTemplate;
+        this.horizon = horizon;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @return number of moved bookings
+     */
+    @Scheduled(cron = "${shareit.booking.archive.cron:0 30 3 * * *}")
+    public int archive() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime cutoff = now.minus(horizon);
+        int moved = 0;
+        int batch;
+        do {
+            batch = transactionTemplate.execute(status -> moveBatch(cutoff, now));
+            moved += batch;
+        } while (batch == batchSize);
+
+        log.info("{} bookings ended before {} are moved to the archive", moved, cutoff);
+        return moved;
+    }
+
+    private int moveBatch(LocalDateTime cutoff, LocalDateTime now) {
+        List<Long> bookingIds = bookingJPARepository.findArchivableIds(BookingStatus.APPROVED, CLOSED_STATUSES, cutoff, now,
+                PageRequest.of(0, batchSize));
+        if (bookingIds.isEmpty()) {
+            return 0;
+        }
+
+        archivedBookingJPARepository.copyFromBookings(bookingIds);
+        bookingJPARepository.deleteAllByIdIn(bookingIds);
+        return bookingIds.size();
+    }
+}
@@ -0,0 +1,82 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.BookingItemIntervalView;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.store.BookingJPARepository;
+import ru.practicum.shareit.exception.ItemNotAvailableException;
+import ru.practicum.shareit.item.model.Item;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Rejects bookings intersecting an approved booking of the same item by an indexed overlap query.
+ * Only approving locks the item row till the end of the transaction,
+ * so concurrent approvals of one item see each other's approved bookings while creations take no lock:
+ * a waiting booking racing an approval is checked again when it is approved.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BookingConflictDetector {
+    private final BookingJPARepository bookingJPARepository;
+    private final EntityManager entityManager;
+
+    public void checkNoApprovedOverlap(Item item, LocalDateTime start, LocalDateTime end) {
+        if (bookingJPARepository.existsOverlapping(item.getId(), BookingStatus.APPROVED, start, end)) {
+            throwConflict(item, start, end);
+        }
+    }
+
+    /**
+     * {@link #checkNoApprovedOverlap} for a booking being approved: the item row is locked before the query.
+     */
+    public void lockAndCheckNoApprovedOverlap(Item item, LocalDateTime start, LocalDateTime end) {
+        entityManager.lock(item, LockModeType.PESSIMISTIC_WRITE);
+        if (bookingJPARepository.existsOverlapping(item.getId(), BookingStatus.APPROVED, start, end)) {
+            throwConflict(item, start, end);
+        }
+    }
+
+    /**
+     * Batch form of {@link #checkNoApprovedOverlap}, approvals lock the items before the call:
+     * approved bookings of all the items intersecting [from, to) are loaded by one query.
+     */
+    public ConflictCheck loadApprovedOverlaps(Collection<Long> itemIds, LocalDateTime from, LocalDateTime to) {
+        if (itemIds.isEmpty()) {
+            return (item, start, end) -> {
+            };
+        }
+
+        Map<Long, List<BookingItemIntervalView>> approved = bookingJPARepository
+                .findOverlappingIntervalsOfItems(itemIds, BookingStatus.APPROVED, from, to).stream()
+                .collect(Collectors.groupingBy(BookingItemIntervalView::getItemId));
+        return (item, start, end) -> {
+            for (BookingItemIntervalView interval : approved.getOrDefault(item.getId(), List.of())) {
+                if (interval.getStart().isBefore(end) && interval.getEnd().isAfter(start)) {
+                    throwConflict(item, interval.getStart(), interval.getEnd());
+                }
+            }
+        };
+    }
+
+    private void throwConflict(Item item, LocalDateTime start, LocalDateTime end) {
+        String message = String.format("the item with id: %d is already booked from %s to %s",
+                item.getId(), start, end);
+        log.error("ItemNotAvailableException: " + message);
+        throw new ItemNotAvailableException(message);
+    }
+
+    @FunctionalInterface
+    public interface ConflictCheck {
+        void checkNoApprovedOverlap(Item item, LocalDateTime start, LocalDateTime end);
+    }
+}
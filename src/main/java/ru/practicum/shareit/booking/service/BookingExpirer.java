@@ -0,0 +1,123 @@
+package ru.practicum.shareit.booking.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookingVersionView;
+import ru.practicum.shareit.booking.event.BookingOutbox;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.store.BookingJPARepository;
+import ru.practicum.shareit.item.storage.ItemJPARepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Cancels WAITING bookings whose start has passed, {@code shareit.booking.expiry.batch-size} bookings per
+ * transaction: the earliest ones are read from the (status, start_time) index and canceled by one update.
+ * Canceled bookings leave the range of WAITING bookings, so every batch starts from its head again.
+ * Metrics: {@code shareit.booking.expiry.canceled} and {@code shareit.booking.expiry.batch} (time of a batch).
+ */
+@Component
+@Slf4j
+public class BookingExpirer {
+    private final BookingJPARepository bookingJPARepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final BookingOutbox bookingOutbox;
+    private final ItemJPARepository itemJPARepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Counter canceledCounter;
+    private final Timer batchTimer;
+
+    public BookingExpirer(BookingJPARepository bookingJPARepository,
+                          BookingIntervalIndex bookingIntervalIndex,
+                          BookingOutbox bookingOutbox,
+                          ItemJPARepository itemJPARepository,
+                          TransactionTemplate transactionTemplate,
+                          @Value("${shareit.booking.expiry.batch-size:500}") int batchSize,
+                          MeterRegistry meterRegistry) {
+        this.bookingJPARepository = bookingJPARepository;
+        this.bookingIntervalIndex = bookingIntervalIndex;
+        this.bookingOutbox = bookingOutbox;
+        this.itemJPARepository = itemJPARepository;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.canceledCounter = Counter.builder("shareit.booking.expiry.canceled")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("shareit.booking.expiry.batch")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return number of canceled bookings
+     */
+    @Scheduled(cron = "${shareit.booking.expiry.cron:0 */5 * * * *}")
+    public int expire() {
+        LocalDateTime now = LocalDateTime.now();
+        int canceled = 0;
+        Batch batch;
+        do {
+            batch = batchTimer.record(() -> transactionTemplate.execute(status -> cancelBatch(now)));
+            canceled += batch.canceled;
+        } while (batch.selected == batchSize);
+
+        log.info("{} WAITING bookings started before {} are canceled", canceled, now);
+        return canceled;
+    }
+
+    private Batch cancelBatch(LocalDateTime now) {
+        List<Booking> stale = bookingJPARepository.findAllByStatusAndStartIsBeforeOrderByStart(BookingStatus.WAITING,
+                now, PageRequest.of(0, batchSize));
+        if (stale.isEmpty()) {
+            return new Batch(0, 0);
+        }
+
+        // the same lock order as changing bookings by their owners: items first
+        itemJPARepository.findAllByIdInOrderById(stale.stream()
+                .map(booking -> booking.getItem().getId())
+                .collect(Collectors.toSet()));
+        List<Long> staleIds = stale.stream().map(Booking::getId).collect(Collectors.toList());
+        List<Booking> canceled = stale;
+        if (bookingJPARepository.updateStatusesByIdIn(staleIds, BookingStatus.WAITING, BookingStatus.CANCELED)
+                < staleIds.size()) {
+            // approved or rejected by the owner since they were read
+            Set<Long> canceledIds = bookingJPARepository.findVersionsByIdIn(staleIds).stream()
+                    .filter(view -> view.getStatus() == BookingStatus.CANCELED)
+                    .map(BookingVersionView::getId)
+                    .collect(Collectors.toSet());
+            canceled = stale.stream()
+                    .filter(booking -> canceledIds.contains(booking.getId()))
+                    .collect(Collectors.toList());
+        }
+
+        // waiting bookings are not shown in item views, so they are left as they are
+        for (Booking booking : canceled) {
+            booking.setStatus(BookingStatus.CANCELED);
+            bookingIntervalIndex.onBookingSaved(booking);
+        }
+        bookingOutbox.addAll(canceled);
+        canceledCounter.increment(canceled.size());
+        return new Batch(stale.size(), canceled.size());
+    }
+
+    private static class Batch {
+        final int selected;
+        final int canceled;
+
+        Batch(int selected, int canceled) {
+            this.selected = selected;
+            this.canceled = canceled;
+        }
+    }
+}
@@ -1,18 +1,70 @@
 package ru.practicum.shareit.booking.service;
 
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingLeanResponseDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingStatusBatchDto;
+import ru.practicum.shareit.booking.dto.BookingStatusResultDto;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+import ru.practicum.shareit.pagination.CursorPage;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface BookingJPAService {
     BookingResponseDto createBooking(BookingDto bookingDto, Long bookerId);
 
+    /**
+     * Creates the bookings which pass the same checks as {@link #createBooking}, the rest are reported as errors.
+     *
+     * @return results in the order of the entries
+     */
+    List<BookingBatchResultDto> createBookings(List<BookingDto> bookingDtos, Long bookerId);
+
     BookingResponseDto approveBookingStatus(Boolean approved, Long bookingId, Long ownerId);
 
+    /**
+     * Approves or rejects WAITING bookings of the owner's items by one update, at most 1000 per call.
+     * A booking is not approved when it overlaps an approved booking or a booking approved earlier in the batch.
+     *
+     * @return outcome of every requested id, or of every WAITING booking found when the ids are not given
+     */
+    List<BookingStatusResultDto> approveBookingStatuses(Boolean approved, BookingStatusBatchDto batchDto,
+                                                        Long ownerId);
+
     BookingResponseDto getBooking(Long bookingId, Long userId);
 
     List<BookingResponseDto> getBookingsByOwner(Long userId, String state, Integer from, Integer size);
 
     List<BookingResponseDto> getBookingsByBooker(Long bookerId, String state, Integer from, Integer size);
+
+    CursorPage<BookingResponseDto> getBookingsByOwnerAfter(Long ownerId, String state, String cursor, Integer size);
+
+    CursorPage<BookingResponseDto> getBookingsByBookerAfter(Long bookerId, String state, String cursor, Integer size);
+
+    /**
+     * {@link #getBookingsByOwner} with only the id and the name of the booker and of the item.
+     */
+    List<BookingLeanResponseDto> getLeanBookingsByOwner(Long ownerId, String state, Integer from, Integer size);
+
+    List<BookingLeanResponseDto> getLeanBookingsByBooker(Long bookerId, String state, Integer from, Integer size);
+
+    CursorPage<BookingLeanResponseDto> getLeanBookingsByOwnerAfter(Long ownerId, String state,
+                                                                   String cursor, Integer size);
+
+    CursorPage<BookingLeanResponseDto> getLeanBookingsByBookerAfter(Long bookerId, String state,
+                                                                    String cursor, Integer size);
+
+    BookingSummaryDto getBookingSummaryByOwner(Long ownerId);
+
+    BookingSummaryDto getBookingSummaryByBooker(Long bookerId);
+
+    void streamBookingsByOwner(Long ownerId, String state, Consumer<BookingResponseDto> consumer);
+
+    void streamBookingsByBooker(Long bookerId, String state, Consumer<BookingResponseDto> consumer);
+
+    void streamLeanBookingsByOwner(Long ownerId, String state, Consumer<BookingLeanResponseDto> consumer);
+
+    void streamLeanBookingsByBooker(Long bookerId, String state, Consumer<BookingLeanResponseDto> consumer);
 }
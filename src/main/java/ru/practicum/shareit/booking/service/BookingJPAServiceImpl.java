@@ -6,25 +6,40 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import ru.practicum.shareit.booking.BookingMapper;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingCreationView;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingLeanResponseDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingStatusBatchDto;
+import ru.practicum.shareit.booking.dto.BookingStatusResultDto;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+import ru.practicum.shareit.booking.dto.BookingVersionView;
+import ru.practicum.shareit.booking.event.BookingOutbox;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.store.ArchivedBookingJPARepository;
+import ru.practicum.shareit.booking.store.BookingFilter;
 import ru.practicum.shareit.booking.store.BookingJPARepository;
 import ru.practicum.shareit.exception.*;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.ItemViewProjection;
 import ru.practicum.shareit.item.storage.ItemJPARepository;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserJPARepository;
 
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.Collection;
-import java.util.List;
-import java.util.Objects;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static ru.practicum.shareit.booking.model.BookingStatus.*;
 
@@ -32,44 +47,202 @@ import static ru.practicum.shareit.booking.model.BookingStatus.*;
 @RequiredArgsConstructor
 @Slf4j
 public class BookingJPAServiceImpl implements BookingJPAService {
+    private static final int STREAM_FETCH_SIZE = 100;
+    private static final int MAX_STATUS_BATCH_SIZE = 1000;
 
     private final BookingJPARepository bookingJPARepository;
+    private final ArchivedBookingJPARepository archivedBookingJPARepository;
     private final ItemJPARepository itemJPARepository;
     private final UserJPARepository userJPARepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final ItemViewProjection itemViewProjection;
+    private final BookingConflictDetector bookingConflictDetector;
+    private final BookingOutbox bookingOutbox;
 
     @Override
     @Transactional
     public BookingResponseDto createBooking(BookingDto bookingDto, Long bookerId) {
         validateDateAndTime(bookingDto.getStart(), bookingDto.getEnd());
-        Item item = getItemOrThrow(bookingDto.getItemId());
+        BookingCreationView creationView = getCreationViewOrThrow(bookingDto.getItemId(), bookerId);
+        Item item = creationView.getItem();
         checkIsItemAvailable(item);
-        User owner = getUserOrThrow(bookerId);
+        User booker = getBookerOrThrow(creationView, bookerId);
         checkIsNotOwnerOrThrow(item, bookerId);
+        bookingConflictDetector.checkNoApprovedOverlap(item, bookingDto.getStart(), bookingDto.getEnd());
 
-        Booking booking = BookingMapper.toBooking(bookingDto, owner, item, BookingStatus.WAITING);
+        Booking booking = BookingMapper.toBooking(bookingDto, booker, item, BookingStatus.WAITING);
         Booking savedBooking = bookingJPARepository.save(booking);
+        bookingIntervalIndex.onBookingSaved(savedBooking);
+        itemViewProjection.onBookingSaved(savedBooking);
+        bookingOutbox.add(savedBooking);
         log.info(String.format("booking is completed: ", savedBooking));
 
         return BookingMapper.toBookingResponseDto(savedBooking);
     }
 
+    @Override
+    @Transactional
+    public List<BookingBatchResultDto> createBookings(List<BookingDto> bookingDtos, Long bookerId) {
+        User booker = getUserOrThrow(bookerId);
+        Set<Long> itemIds = bookingDtos.stream()
+                .map(BookingDto::getItemId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        // no lock, as for a single booking: only approving locks the items
+        Map<Long, Item> items = itemJPARepository.findAllById(itemIds).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+
+        BookingBatchResultDto[] results = new BookingBatchResultDto[bookingDtos.size()];
+        List<Integer> accepted = new ArrayList<>();
+        for (int i = 0; i < bookingDtos.size(); i++) {
+            BookingDto bookingDto = bookingDtos.get(i);
+            try {
+                validateDateAndTime(bookingDto.getStart(), bookingDto.getEnd());
+                Item item = getItemOrThrow(items, bookingDto.getItemId());
+                checkIsItemAvailable(item);
+                checkIsNotOwnerOrThrow(item, bookerId);
+                accepted.add(i);
+            } catch (ValidationException | InvalidLocalDateTimeException | ItemNotExistException
+                     | ItemNotAvailableException | AccessIsDeniedException e) {
+                results[i] = toBatchError(i, e);
+            }
+        }
+
+        List<Booking> bookings = new ArrayList<>();
+        List<Integer> created = new ArrayList<>();
+        if (!accepted.isEmpty()) {
+            BookingConflictDetector.ConflictCheck conflicts = bookingConflictDetector.loadApprovedOverlaps(
+                    accepted.stream().map(i -> bookingDtos.get(i).getItemId()).collect(Collectors.toSet()),
+                    accepted.stream().map(i -> bookingDtos.get(i).getStart()).min(Comparator.naturalOrder()).get(),
+                    accepted.stream().map(i -> bookingDtos.get(i).getEnd()).max(Comparator.naturalOrder()).get());
+            for (Integer i : accepted) {
+                BookingDto bookingDto = bookingDtos.get(i);
+                Item item = items.get(bookingDto.getItemId());
+                try {
+                    conflicts.checkNoApprovedOverlap(item, bookingDto.getStart(), bookingDto.getEnd());
+                    bookings.add(BookingMapper.toBooking(bookingDto, booker, item, BookingStatus.WAITING));
+                    created.add(i);
+                } catch (ItemNotAvailableException e) {
+                    results[i] = toBatchError(i, e);
+                }
+            }
+        }
+
+        List<Booking> savedBookings = bookingJPARepository.saveAll(bookings);
+        bookingOutbox.addAll(savedBookings);
+        for (int j = 0; j < savedBookings.size(); j++) {
+            Booking savedBooking = savedBookings.get(j);
+            bookingIntervalIndex.onBookingSaved(savedBooking);
+            itemViewProjection.onBookingSaved(savedBooking);
+            results[created.get(j)] = BookingBatchResultDto.builder()
+                    .index(created.get(j))
+                    .booking(BookingMapper.toBookingResponseDto(savedBooking))
+                    .build();
+        }
+
+        log.info("batch of bookings is completed: created {} of {}", savedBookings.size(), bookingDtos.size());
+        return Arrays.asList(results);
+    }
+
     @Override
     @Transactional
     public BookingResponseDto approveBookingStatus(Boolean approved, Long bookingId, Long ownerId) {
         Booking booking = validateItemOwnerAndGetBooking(ownerId, bookingId);
         checkIfBookingStatusIsWaiting(booking);
         BookingStatus bookingStatus = getBookingStatusByApproved(approved);
+        if (bookingStatus == APPROVED) {
+            bookingConflictDetector.lockAndCheckNoApprovedOverlap(booking.getItem(), booking.getStart(),
+                    booking.getEnd());
+        } else {
+            // the same lock order as approving: the item first
+            itemJPARepository.findAllByIdInOrderById(Set.of(booking.getItem().getId()));
+        }
+        if (bookingJPARepository.updateStatus(bookingId, ownerId, WAITING, bookingStatus) == 0) {
+            String message = "you can not change booking status: it was changed by another request";
+            log.error("ItemNotAvailableException: " + message);
+            throw new ItemNotAvailableException(message);
+        }
         booking.setStatus(bookingStatus);
 
-        bookingJPARepository.save(booking);
+        bookingIntervalIndex.onBookingSaved(booking);
+        itemViewProjection.onBookingSaved(booking);
+        bookingOutbox.add(booking);
         log.info("after approving process the booking: {}", booking);
         return BookingMapper.toBookingResponseDto(booking);
     }
 
+    @Override
+    @Transactional
+    public List<BookingStatusResultDto> approveBookingStatuses(Boolean approved, BookingStatusBatchDto batchDto,
+                                                               Long ownerId) {
+        getUserOrThrow(ownerId);
+        BookingStatus bookingStatus = getBookingStatusByApproved(approved);
+        BookingFilter filter = BookingFilter.builder()
+                .ownerId(ownerId)
+                .state(BookingState.WAITING)
+                .now(LocalDateTime.now())
+                .itemId(batchDto.getItemId())
+                .bookingIds(batchDto.getBookingIds())
+                .build();
+        List<Booking> waiting = new ArrayList<>(bookingJPARepository.findBookings(filter,
+                PageRequest.of(0, MAX_STATUS_BATCH_SIZE)));
+        waiting.sort(Comparator.comparing(Booking::getId));
+
+        Map<Long, String> errors = new HashMap<>();
+        List<Booking> changing = waiting;
+        if (!waiting.isEmpty()) {
+            // the same lock order as approving one booking: items first
+            itemJPARepository.findAllByIdInOrderById(waiting.stream()
+                    .map(booking -> booking.getItem().getId())
+                    .collect(Collectors.toSet()));
+            if (bookingStatus == APPROVED) {
+                changing = selectApprovable(waiting, errors);
+            }
+        }
+
+        List<Long> changingIds = changing.stream().map(Booking::getId).collect(Collectors.toList());
+        Set<Long> changedIds = new HashSet<>(changingIds);
+        if (!changingIds.isEmpty()
+                && bookingJPARepository.updateStatuses(changingIds, ownerId, WAITING, bookingStatus) < changingIds.size()) {
+            changedIds = findChangedIds(changing, bookingStatus);
+        }
+
+        Map<Long, BookingStatusResultDto> results = new LinkedHashMap<>();
+        List<Booking> changed = new ArrayList<>();
+        for (Booking booking : changing) {
+            if (changedIds.contains(booking.getId())) {
+                booking.setStatus(bookingStatus);
+                bookingIntervalIndex.onBookingSaved(booking);
+                itemViewProjection.onBookingSaved(booking);
+                changed.add(booking);
+                results.put(booking.getId(), BookingStatusResultDto.builder()
+                        .bookingId(booking.getId())
+                        .booking(BookingMapper.toBookingResponseDto(booking))
+                        .build());
+            } else {
+                errors.put(booking.getId(), "you can not change booking status: it was changed by another request");
+            }
+        }
+
+        bookingOutbox.addAll(changed);
+        log.info("status {} is set to {} bookings of owner with id={}", bookingStatus, results.size(), ownerId);
+        List<Long> requestedIds = batchDto.getBookingIds() == null
+                ? waiting.stream().map(Booking::getId).collect(Collectors.toList())
+                : batchDto.getBookingIds();
+        return requestedIds.stream()
+                .distinct()
+                .map(bookingId -> results.getOrDefault(bookingId, BookingStatusResultDto.builder()
+                        .bookingId(bookingId)
+                        .error(errors.getOrDefault(bookingId,
+                                "there is no WAITING booking with id: " + bookingId + " of items of the owner"))
+                        .build()))
+                .collect(Collectors.toList());
+    }
+
     @Override
     @Transactional(readOnly = true)
     public BookingResponseDto getBooking(Long bookingId, Long userId) {
-        Booking booking = getBookingOrThrow(bookingId);
+        Booking booking = getBookingOrArchivedOrThrow(bookingId);
         User user = getUserOrThrow(userId);
         if (isBooker(user, booking) || isOwner(user.getId(), booking.getItem())) {
             BookingResponseDto bookingResponseDto = BookingMapper.toBookingResponseDto(booking);
@@ -85,102 +258,279 @@ public class BookingJPAServiceImpl implements BookingJPAService {
     @Transactional(readOnly = true)
     public List<BookingResponseDto> getBookingsByOwner(Long ownerId, String state, Integer from, Integer size) {
         getUserOrThrow(ownerId);
-        BookingState bookingState = getBookingStateOrThrow(state);
-        LocalDateTime now = LocalDateTime.now();
-        Collection<Booking> ownerBookings;
-        int page = from / size;
-        Pageable pageRequest = PageRequest.of(page, size);
+        BookingFilter filter = BookingFilter.builder()
+                .ownerId(ownerId)
+                .state(getBookingStateOrThrow(state))
+                .now(LocalDateTime.now())
+                .build();
+        return findBookings(filter, from, size);
+    }
 
-        switch (bookingState) {
-            case ALL:
-                ownerBookings = bookingJPARepository.findAllByItemOwnerIdOrderByStartDesc(ownerId, pageRequest);
-                break;
-
-            case PAST:
-                ownerBookings = bookingJPARepository
-                        .findAllByItemOwnerIdAndEndIsBeforeOrderByStartDesc(ownerId, now, pageRequest);
-                break;
-
-            case CURRENT:
-                ownerBookings = bookingJPARepository
-                        .findAllByItemOwnerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(ownerId, now, now, pageRequest);
-                break;
-
-            case FUTURE:
-                ownerBookings = bookingJPARepository
-                        .findAllByItemOwnerIdAndStartIsAfterOrderByStartDesc(ownerId, now, pageRequest);
-                break;
-
-            case REJECTED:
-                List<BookingStatus> rejectedStatuses = List.of(REJECTED, CANCELED);
-                ownerBookings = bookingJPARepository
-                        .findAllByItemOwnerIdAndStatusInOrderByStartDesc(ownerId, rejectedStatuses, pageRequest);
-                break;
-
-            case WAITING:
-                ownerBookings = bookingJPARepository
-                        .findAllByItemOwnerIdAndStatusOrderByStartDesc(ownerId, WAITING, pageRequest);
-                break;
-            default:
-                String message = "Unknown state: UNSUPPORTED_STATUS";
-                log.error("UnsupportedStatusException: " + message);
-                throw new UnsupportedStatusException(message);
-        }
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookingResponseDto> getBookingsByBooker(Long bookerId, String state, Integer from, Integer size) {
+        getUserOrThrow(bookerId);
+        BookingFilter filter = BookingFilter.builder()
+                .bookerId(bookerId)
+                .state(getBookingStateOrThrow(state))
+                .now(LocalDateTime.now())
+                .build();
+        return findBookings(filter, from, size);
+    }
 
-        log.info("provided list of bookings with size={}", ownerBookings.size());
-        return BookingMapper.toBookingResponseDtoList(ownerBookings);
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<BookingResponseDto> getBookingsByOwnerAfter(Long ownerId, String state,
+                                                                  String cursor, Integer size) {
+        getUserOrThrow(ownerId);
+        BookingFilter filter = BookingFilter.builder()
+                .ownerId(ownerId)
+                .state(getBookingStateOrThrow(state))
+                .now(LocalDateTime.now())
+                .build();
+        return findBookingsAfter(filter, cursor, size);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<BookingResponseDto> getBookingsByBooker(Long bookerId, String state, Integer from, Integer size) {
+    public CursorPage<BookingResponseDto> getBookingsByBookerAfter(Long bookerId, String state,
+                                                                   String cursor, Integer size) {
+        getUserOrThrow(bookerId);
+        BookingFilter filter = BookingFilter.builder()
+                .bookerId(bookerId)
+                .state(getBookingStateOrThrow(state))
+                .now(LocalDateTime.now())
+                .build();
+        return findBookingsAfter(filter, cursor, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookingLeanResponseDto> getLeanBookingsByOwner(Long ownerId, String state,
+                                                               Integer from, Integer size) {
+        getUserOrThrow(ownerId);
+        return findLeanBookings(ownerFilter(ownerId, state), from, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookingLeanResponseDto> getLeanBookingsByBooker(Long bookerId, String state,
+                                                                Integer from, Integer size) {
         getUserOrThrow(bookerId);
-        BookingState bookingState = getBookingStateOrThrow(state);
-        LocalDateTime now = LocalDateTime.now();
-        Collection<Booking> bookerBookings;
-        int page  = from / size;
+        return findLeanBookings(bookerFilter(bookerId, state), from, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<BookingLeanResponseDto> getLeanBookingsByOwnerAfter(Long ownerId, String state,
+                                                                          String cursor, Integer size) {
+        getUserOrThrow(ownerId);
+        return findLeanBookingsAfter(ownerFilter(ownerId, state), cursor, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<BookingLeanResponseDto> getLeanBookingsByBookerAfter(Long bookerId, String state,
+                                                                           String cursor, Integer size) {
+        getUserOrThrow(bookerId);
+        return findLeanBookingsAfter(bookerFilter(bookerId, state), cursor, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BookingSummaryDto getBookingSummaryByOwner(Long ownerId) {
+        getUserOrThrow(ownerId);
+        BookingFilter filter = BookingFilter.builder()
+                .ownerId(ownerId)
+                .state(BookingState.ALL)
+                .now(LocalDateTime.now())
+                .build();
+        BookingSummaryDto summary = bookingJPARepository.countBookingsByState(filter);
+        log.info("provided booking summary of owner with id={}: {}", ownerId, summary);
+        return summary;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BookingSummaryDto getBookingSummaryByBooker(Long bookerId) {
+        getUserOrThrow(bookerId);
+        BookingFilter filter = BookingFilter.builder()
+                .bookerId(bookerId)
+                .state(BookingState.ALL)
+                .now(LocalDateTime.now())
+                .build();
+        BookingSummaryDto summary = bookingJPARepository.countBookingsByState(filter);
+        log.info("provided booking summary of booker with id={}: {}", bookerId, summary);
+        return summary;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamBookingsByOwner(Long ownerId, String state, Consumer<BookingResponseDto> consumer) {
+        getUserOrThrow(ownerId);
+        BookingFilter filter = BookingFilter.builder()
+                .ownerId(ownerId)
+                .state(getBookingStateOrThrow(state))
+                .now(LocalDateTime.now())
+                .build();
+        streamBookings(filter, consumer);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamBookingsByBooker(Long bookerId, String state, Consumer<BookingResponseDto> consumer) {
+        getUserOrThrow(bookerId);
+        BookingFilter filter = BookingFilter.builder()
+                .bookerId(bookerId)
+                .state(getBookingStateOrThrow(state))
+                .now(LocalDateTime.now())
+                .build();
+        streamBookings(filter, consumer);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamLeanBookingsByOwner(Long ownerId, String state, Consumer<BookingLeanResponseDto> consumer) {
+        getUserOrThrow(ownerId);
+        streamLeanBookings(ownerFilter(ownerId, state), consumer);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamLeanBookingsByBooker(Long bookerId, String state, Consumer<BookingLeanResponseDto> consumer) {
+        getUserOrThrow(bookerId);
+        streamLeanBookings(bookerFilter(bookerId, state), consumer);
+    }
+
+    private BookingFilter ownerFilter(Long ownerId, String state) {
+        return BookingFilter.builder()
+                .ownerId(ownerId)
+                .state(getBookingStateOrThrow(state))
+                .now(LocalDateTime.now())
+                .build();
+    }
+
+    private BookingFilter bookerFilter(Long bookerId, String state) {
+        return BookingFilter.builder()
+                .bookerId(bookerId)
+                .state(getBookingStateOrThrow(state))
+                .now(LocalDateTime.now())
+                .build();
+    }
+
+    private void streamBookings(BookingFilter filter, Consumer<BookingResponseDto> consumer) {
+        try (Stream<Booking> bookings = bookingJPARepository.streamBookings(filter, STREAM_FETCH_SIZE)) {
+            bookings.map(BookingMapper::toBookingResponseDto)
+                    .forEach(consumer);
+        }
+
+        log.info("streamed bookings by filter: {}", filter);
+    }
+
+    private List<BookingResponseDto> findBookings(BookingFilter filter, Integer from, Integer size) {
+        int page = from / size;
         Pageable pageRequest = PageRequest.of(page, size);
+        List<Booking> bookings = bookingJPARepository.findBookings(filter, pageRequest);
+
+        log.info("provided list of bookings with size={}", bookings.size());
+        return BookingMapper.toBookingResponseDtoList(bookings);
+    }
+
+    private CursorPage<BookingResponseDto> findBookingsAfter(BookingFilter filter, String cursor, Integer size) {
+        Cursor after = Cursor.decodeWithTime(cursor).orElse(null);
+        List<Booking> bookings = bookingJPARepository.findBookings(filter, after, size + 1);
+        CursorPage<Booking> page = CursorPage.of(bookings, size,
+                booking -> Cursor.of(booking.getStart(), booking.getId()));
+
+        log.info("provided page of bookings with size={}", page.getContent().size());
+        return page.map(BookingMapper::toBookingResponseDtoList);
+    }
 
-        switch (bookingState) {
-            case ALL:
-                bookerBookings = bookingJPARepository.findAllByBookerIdOrderByStartDesc(bookerId, pageRequest);
-                break;
-
-            case PAST:
-                bookerBookings = bookingJPARepository
-                        .findAllByBookerIdAndEndIsBeforeOrderByStartDesc(bookerId, now, pageRequest);
-                break;
-
-            case CURRENT:
-                bookerBookings = bookingJPARepository
-                        .findAllByBookerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(bookerId, now, now, pageRequest);
-                break;
-
-            case FUTURE:
-                bookerBookings = bookingJPARepository
-                        .findAllByBookerIdAndStartIsAfterOrderByStartDesc(bookerId, now, pageRequest);
-                break;
-
-            case REJECTED:
-                List<BookingStatus> rejectedStatuses = List.of(REJECTED, CANCELED);
-                bookerBookings = bookingJPARepository
-                        .findAllByBookerIdAndStatusInOrderByStartDesc(bookerId, rejectedStatuses, pageRequest);
-                break;
-
-            case WAITING:
-                bookerBookings = bookingJPARepository
-                        .findAllByBookerIdAndStatusOrderByStartDesc(bookerId, WAITING, pageRequest);
-                break;
-
-            default:
-                String message = "Unknown state: UNSUPPORTED_STATUS";
-                log.error("UnsupportedStatusException: " + message);
-                throw new UnsupportedStatusException(message);
+    private void streamLeanBookings(BookingFilter filter, Consumer<BookingLeanResponseDto> consumer) {
+        try (Stream<BookingLeanResponseDto> bookings = bookingJPARepository.streamLeanBookings(filter,
+                STREAM_FETCH_SIZE)) {
+            bookings.forEach(consumer);
         }
 
-        log.info("provided list of bookings with size={}", bookerBookings.size());
-        return BookingMapper.toBookingResponseDtoList(bookerBookings);
+        log.info("streamed lean bookings by filter: {}", filter);
+    }
+
+    private List<BookingLeanResponseDto> findLeanBookings(BookingFilter filter, Integer from, Integer size) {
+        List<BookingLeanResponseDto> bookings = bookingJPARepository.findLeanBookings(filter,
+                PageRequest.of(from / size, size));
+
+        log.info("provided list of lean bookings with size={}", bookings.size());
+        return bookings;
+    }
+
+    private CursorPage<BookingLeanResponseDto> findLeanBookingsAfter(BookingFilter filter, String cursor,
+                                                                     Integer size) {
+        Cursor after = Cursor.decodeWithTime(cursor).orElse(null);
+        CursorPage<BookingLeanResponseDto> page = CursorPage.of(
+                bookingJPARepository.findLeanBookings(filter, after, size + 1), size,
+                booking -> Cursor.of(booking.getStart(), booking.getId()));
+
+        log.info("provided page of lean bookings with size={}", page.getContent().size());
+        return page;
+    }
+
+    /**
+     * Bookings in id order which overlap neither an approved booking of their item nor a booking selected before.
+     */
+    private List<Booking> selectApprovable(List<Booking> waiting, Map<Long, String> errors) {
+        BookingConflictDetector.ConflictCheck conflicts = bookingConflictDetector.loadApprovedOverlaps(
+                waiting.stream().map(booking -> booking.getItem().getId()).collect(Collectors.toSet()),
+                waiting.stream().map(Booking::getStart).min(Comparator.naturalOrder()).get(),
+                waiting.stream().map(Booking::getEnd).max(Comparator.naturalOrder()).get());
+        Map<Long, List<Booking>> selectedOfItems = new HashMap<>();
+        List<Booking> approvable = new ArrayList<>();
+        for (Booking booking : waiting) {
+            List<Booking> selected = selectedOfItems.computeIfAbsent(booking.getItem().getId(), id -> new ArrayList<>());
+            Optional<Booking> overlapping = selected.stream()
+                    .filter(other -> other.getStart().isBefore(booking.getEnd())
+                            && other.getEnd().isAfter(booking.getStart()))
+                    .findFirst();
+            try {
+                conflicts.checkNoApprovedOverlap(booking.getItem(), booking.getStart(), booking.getEnd());
+                if (overlapping.isPresent()) {
+                    String message = String.format("the booking overlaps the booking with id: %d approved in the batch",
+                            overlapping.get().getId());
+                    log.error("ItemNotAvailableException: " + message);
+                    throw new ItemNotAvailableException(message);
+                }
+                selected.add(booking);
+                approvable.add(booking);
+            } catch (ItemNotAvailableException e) {
+                errors.put(booking.getId(), e.getMessage());
+            }
+        }
 
+        return approvable;
+    }
+
+    /**
+     * Ids of the bookings moved to the status by the update of this transaction, not by a concurrent one.
+     */
+    private Set<Long> findChangedIds(List<Booking> bookings, BookingStatus status) {
+        Map<Long, BookingVersionView> versions = bookingJPARepository.findVersionsByIdIn(bookings.stream()
+                        .map(Booking::getId)
+                        .collect(Collectors.toList())).stream()
+                .collect(Collectors.toMap(BookingVersionView::getId, Function.identity()));
+        return bookings.stream()
+                .filter(booking -> {
+                    BookingVersionView version = versions.get(booking.getId());
+                    return version != null && version.getStatus() == status
+                            && version.getVersion() == booking.getVersion() + 1;
+                })
+                .map(Booking::getId)
+                .collect(Collectors.toSet());
+    }
+
+    private static BookingBatchResultDto toBatchError(int index, RuntimeException e) {
+        return BookingBatchResultDto.builder()
+                .index(index)
+                .error(e.getMessage())
+                .build();
     }
 
     private BookingState getBookingStateOrThrow(String state) {
@@ -232,6 +582,18 @@ public class BookingJPAServiceImpl implements BookingJPAService {
         }
     }
 
+    private Booking getBookingOrArchivedOrThrow(Long bookingId) {
+        Optional<Booking> bookingOpt = bookingJPARepository.findById(bookingId)
+                .or(() -> archivedBookingJPARepository.findById(bookingId).map(BookingMapper::toBooking));
+        if (bookingOpt.isEmpty()) {
+            String message = "there is no booking with id: " + bookingId;
+            log.error("BookingIsNotExistException: " + message);
+            throw new BookingIsNotExistException(message);
+        }
+
+        return bookingOpt.get();
+    }
+
     private Booking getBookingOrThrow(Long bookingId) {
         Optional<Booking> bookingOpt = bookingJPARepository.findById(bookingId);
         if (bookingOpt.isEmpty()) {
@@ -276,15 +638,39 @@ public class BookingJPAServiceImpl implements BookingJPAService {
         return Objects.equals(ownerId, item.getOwner().getId());
     }
 
-    private Item getItemOrThrow(Long itemId) {
-        Optional<Item> itemOpt = itemJPARepository.findById(itemId);
-        if (itemOpt.isEmpty()) {
+    /**
+     * The item and the booker of a new booking are loaded by one query.
+     */
+    private BookingCreationView getCreationViewOrThrow(Long itemId, Long bookerId) {
+        Optional<BookingCreationView> creationViewOpt = bookingJPARepository.findCreationView(itemId, bookerId);
+        if (creationViewOpt.isEmpty()) {
+            String message = "there is no item with id: " + itemId;
+            log.error("ItemNotExistException: " + message);
+            throw new ItemNotExistException(message);
+        }
+
+        return creationViewOpt.get();
+    }
+
+    private User getBookerOrThrow(BookingCreationView creationView, Long bookerId) {
+        if (creationView.getBooker() == null) {
+            String message = "there is no user with id: " + bookerId;
+            log.error("UserNotExistException: " + message);
+            throw new UserNotExistException(message);
+        }
+
+        return creationView.getBooker();
+    }
+
+    private Item getItemOrThrow(Map<Long, Item> items, Long itemId) {
+        Item item = items.get(itemId);
+        if (item == null) {
             String message = "there is no item with id: " + itemId;
             log.error("ItemNotExistException: " + message);
             throw new ItemNotExistException(message);
         }
 
-        return itemOpt.get();
+        return item;
     }
 
     private void checkIfBookingStatusIsWaiting(Booking booking) {
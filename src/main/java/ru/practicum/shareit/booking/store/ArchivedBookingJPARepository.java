@@ -0,0 +1,32 @@
+package ru.practicum.shareit.booking.store;
+
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+
+@Repository
+public interface ArchivedBookingJPARepository extends JpaRepository<ArchivedBooking, Long> {
+    @Override
+    @EntityGraph(ArchivedBooking.ITEM_AND_BOOKER_GRAPH)
+    Optional<ArchivedBooking> findById(Long id);
+
+    boolean existsByItemIdAndBookerIdAndStatusAndStartIsBefore(Long itemId,
+                                                               Long bookerId,
+                                                               BookingStatus status,
+                                                               LocalDateTime now);
+
+    @Modifying
+    @Query(value = "insert into bookings_archive (id, start_time, end_time, item, booker, status, version) " +
+            "select id, start_time, end_time, item, booker, status, version from bookings where id in :bookingIds",
+            nativeQuery = true)
+    int copyFromBookings(@Param("bookingIds") Collection<Long> bookingIds);
+}
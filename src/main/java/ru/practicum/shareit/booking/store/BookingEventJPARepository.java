@@ -0,0 +1,25 @@
+package ru.practicum.shareit.booking.store;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.model.BookingEvent;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BookingEventJPARepository extends JpaRepository<BookingEvent, Long> {
+    List<BookingEvent> findAllByIdGreaterThanOrderById(Long lastId, Pageable pageRequest);
+
+    List<BookingEvent> findAllByBookingIdInAndStatusAndIdGreaterThan(Collection<Long> bookingIds,
+                                                                     BookingStatus status, Long lastId);
+
+    @Modifying
+    @Query("delete from BookingEvent e where e.id in :eventIds")
+    int deleteAllByIdIn(@Param("eventIds") Collection<Long> eventIds);
+}
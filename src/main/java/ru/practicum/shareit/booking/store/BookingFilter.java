@@ -0,0 +1,23 @@
+package ru.practicum.shareit.booking.store;
+
+import lombok.Builder;
+import lombok.Value;
+import ru.practicum.shareit.booking.model.BookingState;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Bookings of the items of {@code ownerId} or of {@code bookerId} in the given state at the moment {@code now},
+ * optionally narrowed to one item or to the given ids.
+ */
+@Value
+@Builder(toBuilder = true)
+public class BookingFilter {
+    Long ownerId;
+    Long bookerId;
+    BookingState state;
+    LocalDateTime now;
+    Long itemId;
+    Collection<Long> bookingIds;
+}
@@ -1,62 +1,42 @@
 package ru.practicum.shareit.booking.store;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.dto.BookingCreationView;
+import ru.practicum.shareit.booking.dto.BookingIntervalView;
+import ru.practicum.shareit.booking.dto.BookingItemIntervalView;
+import ru.practicum.shareit.booking.dto.BookingShortView;
+import ru.practicum.shareit.booking.dto.BookingVersionView;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface BookingJPARepository extends JpaRepository<Booking, Long> {
-    List<Booking> findAllByItemOwnerIdOrderByStartDesc(Long ownerId, Pageable pageRequest);
-
-    List<Booking> findAllByItemOwnerIdAndEndIsBeforeOrderByStartDesc(Long ownerId,
-                                                                     LocalDateTime now,
-                                                                     Pageable pageRequest);
-
-    List<Booking> findAllByItemOwnerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(Long ownerId,
-                                                                                    LocalDateTime now,
-                                                                                    LocalDateTime anotherNow,
-                                                                                    Pageable pageRequest);
-
-    List<Booking> findAllByItemOwnerIdAndStartIsAfterOrderByStartDesc(Long ownerId,
-                                                                      LocalDateTime now,
-                                                                      Pageable pageRequest);
-
-    List<Booking> findAllByItemOwnerIdAndStatusInOrderByStartDesc(Long ownerId,
-                                                                  List<BookingStatus> rejectedStatuses,
-                                                                  Pageable pageRequest);
-
-    List<Booking> findAllByItemOwnerIdAndStatusOrderByStartDesc(Long ownerId,
-                                                                BookingStatus bookingStatus,
-                                                                Pageable pageRequest);
-
-    List<Booking> findAllByBookerIdOrderByStartDesc(Long bookerId, Pageable pageRequest);
-
-    List<Booking> findAllByBookerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(Long bookerId,
-                                                                                 LocalDateTime now,
-                                                                                 LocalDateTime anotherNow,
-                                                                                 Pageable pageRequest);
-
-    List<Booking> findAllByBookerIdAndEndIsBeforeOrderByStartDesc(Long bookerId,
-                                                                  LocalDateTime now,
-                                                                  Pageable pageRequest);
-
-    List<Booking> findAllByBookerIdAndStartIsAfterOrderByStartDesc(Long bookerId,
-                                                                   LocalDateTime now,
-                                                                   Pageable pageRequest);
-
-    List<Booking> findAllByBookerIdAndStatusInOrderByStartDesc(Long bookerId,
-                                                               List<BookingStatus> rejectedStatuses,
-                                                               Pageable pageRequest);
-
-    List<Booking> findAllByBookerIdAndStatusOrderByStartDesc(Long bookerId,
-                                                             BookingStatus bookingStatus,
-                                                             Pageable pageRequest);
+public interface BookingJPARepository extends JpaRepository<Booking, Long>, BookingQueryRepository {
+    @Override
+    @EntityGraph(Booking.ITEM_AND_BOOKER_GRAPH)
+    Optional<Booking> findById(Long id);
+
+    /**
+     * The item with its owner and request, as the response of a new booking shows them, and the booker.
+     * Empty if there is no item, the booker is null if there is no such user.
+     */
+    @Query("select i as item, u as booker from Item i " +
+            "join fetch i.owner " +
+            "left join fetch i.request r " +
+            "left join fetch r.requester " +
+            "left join User u on u.id = ?2 " +
+            "where i.id = ?1")
+    Optional<BookingCreationView> findCreationView(Long itemId, Long bookerId);
 
     Optional<Booking> findFirstByItemIdAndStatusAndStartIsBeforeOrStartEqualsOrderByEndDesc(Long itemId,
                                                                                             BookingStatus bookingStatus,
@@ -68,8 +48,140 @@ public interface BookingJPARepository extends JpaRepository<Booking, Long> {
                                                                                          LocalDateTime now,
                                                                                          LocalDateTime anotherNow);
 
+    /**
+     * Changes the status only if it is still {@code expected} and the item of the booking belongs to the owner.
+     *
+     * @return number of updated bookings, 0 or 1
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Booking b set b.status = :status, b.version = b.version + 1 " +
+            "where b.id = :bookingId and b.status = :expected " +
+            "and b.item.id in (select i.id from Item i where i.owner.id = :ownerId)")
+    int updateStatus(@Param("bookingId") Long bookingId,
+                     @Param("ownerId") Long ownerId,
+                     @Param("expected") BookingStatus expected,
+                     @Param("status") BookingStatus status);
+
+    /**
+     * Set-based form of {@link #updateStatus} for many bookings of the owner's items.
+     *
+     * @return number of updated bookings
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Booking b set b.status = :status, b.version = b.version + 1 " +
+            "where b.id in :bookingIds and b.status = :expected " +
+            "and b.item.id in (select i.id from Item i where i.owner.id = :ownerId)")
+    int updateStatuses(@Param("bookingIds") Collection<Long> bookingIds,
+                       @Param("ownerId") Long ownerId,
+                       @Param("expected") BookingStatus expected,
+                       @Param("status") BookingStatus status);
+
+    /**
+     * Form of {@link #updateStatuses} for bookings of any items.
+     *
+     * @return number of updated bookings
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Booking b set b.status = :status, b.version = b.version + 1 " +
+            "where b.id in :bookingIds and b.status = :expected")
+    int updateStatusesByIdIn(@Param("bookingIds") Collection<Long> bookingIds,
+                             @Param("expected") BookingStatus expected,
+                             @Param("status") BookingStatus status);
+
+    List<Booking> findAllByStatusAndStartIsBeforeOrderByStart(BookingStatus status,
+                                                              LocalDateTime time,
+                                                              Pageable pageRequest);
+
+    @Query("select b.id as id, b.status as status, b.version as version from Booking b where b.id in :bookingIds")
+    List<BookingVersionView> findVersionsByIdIn(@Param("bookingIds") Collection<Long> bookingIds);
+
+    /**
+     * Bookings in a final status finished before the cutoff except the last started approved booking of every item,
+     * so last bookings of items are always read from this table.
+     */
+    @Query("select b.id from Booking b " +
+            "where b.end < :cutoff and (b.status in :closed or (b.status = :approved and exists (select b2.id " +
+            "from Booking b2 where b2.item = b.item and b2.status = :approved and b2.start <= :now " +
+            "and b2.end > b.end))) " +
+            "order by b.id")
+    List<Long> findArchivableIds(@Param("approved") BookingStatus approved,
+                                 @Param("closed") Collection<BookingStatus> closed,
+                                 @Param("cutoff") LocalDateTime cutoff,
+                                 @Param("now") LocalDateTime now,
+                                 Pageable pageRequest);
+
+    @Modifying
+    @Query("delete from Booking b where b.id in :bookingIds")
+    int deleteAllByIdIn(@Param("bookingIds") Collection<Long> bookingIds);
+
+    @Query("select count(b) > 0 from Booking b " +
+            "where b.item.id = :itemId and b.status = :status and b.start < :end and b.end > :start")
+    boolean existsOverlapping(@Param("itemId") Long itemId,
+                              @Param("status") BookingStatus status,
+                              @Param("start") LocalDateTime start,
+                              @Param("end") LocalDateTime end);
+
+    @Query("select b.item.id as itemId, b.start as start, b.end as end from Booking b " +
+            "where b.item.id in :itemIds and b.status = :status and b.start < :end and b.end > :start")
+    List<BookingItemIntervalView> findOverlappingIntervalsOfItems(@Param("itemIds") Collection<Long> itemIds,
+                                                                  @Param("status") BookingStatus status,
+                                                                  @Param("start") LocalDateTime start,
+                                                                  @Param("end") LocalDateTime end);
+
+    @Query("select b.item.id as itemId, b.start as start, b.end as end from Booking b " +
+            "where b.item.id in :itemIds and b.status in :statuses and b.start < :end and b.end > :start " +
+            "order by b.item.id, b.start")
+    List<BookingItemIntervalView> findOverlappingIntervalsOfItemsInStatuses(
+            @Param("itemIds") Collection<Long> itemIds,
+            @Param("statuses") Collection<BookingStatus> statuses,
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end);
+
     List<Booking> findAllByItemIdAndBookerIdAndStatusAndStartIsBefore(Long itemId,
                                                                       Long userId,
                                                                       BookingStatus bookingStatus,
                                                                       LocalDateTime now);
+
+    @Query("select b.id as id, b.booker.id as bookerId, b.start as start, b.end as end, b.status as status " +
+            "from Booking b " +
+            "where b.item.id = ?1 and b.status in ?2")
+    List<BookingIntervalView> findIntervalsByItemIdAndStatusIn(Long itemId, Collection<BookingStatus> statuses);
+
+    @Query("select b.id as id, b.booker.id as bookerId, b.start as start, b.end as end, b.status as status " +
+            "from Booking b " +
+            "where b.item.id = ?1 and b.status = ?2 and b.start <= ?3 " +
+            "order by b.end desc, b.id desc")
+    List<BookingIntervalView> findLastIntervalsByItemIdAndStatus(Long itemId,
+                                                                 BookingStatus status,
+                                                                 LocalDateTime now,
+                                                                 Pageable pageRequest);
+
+    @Query("select b.id as id, b.booker.id as bookerId, b.start as start, b.end as end, b.status as status " +
+            "from Booking b " +
+            "where b.item.id = ?1 and b.status = ?2 and b.start >= ?3 " +
+            "order by b.start, b.id")
+    List<BookingIntervalView> findNextIntervalsByItemIdAndStatus(Long itemId,
+                                                                 BookingStatus status,
+                                                                 LocalDateTime now,
+                                                                 Pageable pageRequest);
+
+    @Query(value = "select t.item_id as itemId, t.booking_id as id, t.booker_id as bookerId from (" +
+            "select b.item as item_id, b.id as booking_id, b.booker as booker_id, " +
+            "row_number() over (partition by b.item order by b.end_time desc, b.id desc) as rn " +
+            "from bookings b " +
+            "where b.item in (:itemIds) and b.status = 'APPROVED' and b.start_time <= :now) t " +
+            "where t.rn = 1 " +
+            "order by t.item_id", nativeQuery = true)
+    List<BookingShortView> findLastApprovedBookingsOfItems(@Param("itemIds") Collection<Long> itemIds,
+                                                           @Param("now") LocalDateTime now);
+
+    @Query(value = "select t.item_id as itemId, t.booking_id as id, t.booker_id as bookerId from (" +
+            "select b.item as item_id, b.id as booking_id, b.booker as booker_id, " +
+            "row_number() over (partition by b.item order by b.start_time, b.id) as rn " +
+            "from bookings b " +
+            "where b.item in (:itemIds) and b.status = 'APPROVED' and b.start_time >= :now) t " +
+            "where t.rn = 1 " +
+            "order by t.item_id", nativeQuery = true)
+    List<BookingShortView> findNextApprovedBookingsOfItems(@Param("itemIds") Collection<Long> itemIds,
+                                                           @Param("now") LocalDateTime now);
 }
@@ -0,0 +1,58 @@
+package ru.practicum.shareit.booking.store;
+
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.booking.dto.BookingLeanResponseDto;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.pagination.Cursor;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Bookings of an owner or a booker in a {@link ru.practicum.shareit.booking.model.BookingState} are read by one query
+ * built from the {@link BookingFilter}. Every state is served by an index of {@code schema.sql}:
+ * (booker, start_time desc) for bookers and (item, ...) indexes joined from (owner) of items for owners.
+ * ALL, PAST and REJECTED bookings are merged with {@code bookings_archive} when the page reaches the archived ones.
+ */
+public interface BookingQueryRepository {
+    /**
+     * Offset page of bookings ordered by start and id descending.
+     */
+    List<Booking> findBookings(BookingFilter filter, Pageable pageRequest);
+
+    /**
+     * Keyset page of bookings ordered by start and id descending.
+     *
+     * @param after start and id of the last booking of the previous page, {@code null} for the first page
+     */
+    List<Booking> findBookings(BookingFilter filter, Cursor after, int limit);
+
+    /**
+     * All bookings matching the filter ordered by start and id descending, read with the given fetch size.
+     * Returned bookings are detached every {@code fetchSize} rows, so the stream must be consumed row by row
+     * and closed by the caller.
+     */
+    Stream<Booking> streamBookings(BookingFilter filter, int fetchSize);
+
+    /**
+     * {@link #findBookings(BookingFilter, Pageable)} as lean responses selected by a constructor expression.
+     */
+    List<BookingLeanResponseDto> findLeanBookings(BookingFilter filter, Pageable pageRequest);
+
+    /**
+     * {@link #findBookings(BookingFilter, Cursor, int)} as lean responses selected by a constructor expression.
+     */
+    List<BookingLeanResponseDto> findLeanBookings(BookingFilter filter, Cursor after, int limit);
+
+    /**
+     * {@link #streamBookings} as lean responses selected by a constructor expression.
+     */
+    Stream<BookingLeanResponseDto> streamLeanBookings(BookingFilter filter, int fetchSize);
+
+    /**
+     * Numbers of bookings matching the filter in every state at the moment of the filter, counted by one
+     * aggregate query; the state of the filter is ignored.
+     */
+    BookingSummaryDto countBookingsByState(BookingFilter filter);
+}
@@ -0,0 +1,517 @@
+package ru.practicum.shareit.booking.store;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.booking.BookingMapper;
+import ru.practicum.shareit.booking.dto.BookingLeanResponseDto;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.Cursor;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+@RequiredArgsConstructor
+public class BookingQueryRepositoryImpl implements BookingQueryRepository {
+    // in the order of the counts selected by countBookingsByState
+    private static final List<BookingState> SUMMARY_STATES = List.of(BookingState.ALL, BookingState.CURRENT,
+            BookingState.PAST, BookingState.FUTURE, BookingState.WAITING, BookingState.REJECTED);
+
+    private final EntityManager entityManager;
+    private final Rows<Booking> bookingRows = new BookingRows();
+    private final Rows<BookingLeanResponseDto> leanRows = new LeanRows();
+
+    @Override
+    public List<Booking> findBookings(BookingFilter filter, Pageable pageRequest) {
+        return findPage(bookingRows, filter, null, (int) pageRequest.getOffset(), pageRequest.getPageSize());
+    }
+
+    @Override
+    public List<Booking> findBookings(BookingFilter filter, Cursor after, int limit) {
+        return findPage(bookingRows, filter, after, 0, limit);
+    }
+
+    @Override
+    public Stream<Booking> streamBookings(BookingFilter filter, int fetchSize) {
+        return streamRows(bookingRows, filter, fetchSize);
+    }
+
+    @Override
+    public List<BookingLeanResponseDto> findLeanBookings(BookingFilter filter, Pageable pageRequest) {
+        return findPage(leanRows, filter, null, (int) pageRequest.getOffset(), pageRequest.getPageSize());
+    }
+
+    @Override
+    public List<BookingLeanResponseDto> findLeanBookings(BookingFilter filter, Cursor after, int limit) {
+        return findPage(leanRows, filter, after, 0, limit);
+    }
+
+    @Override
+    public Stream<BookingLeanResponseDto> streamLeanBookings(BookingFilter filter, int fetchSize) {
+        return streamRows(leanRows, filter, fetchSize);
+    }
+
+    @Override
+    public BookingSummaryDto countBookingsByState(BookingFilter filter) {
+        BookingFilter allStates = filter.toBuilder().state(BookingState.ALL).build();
+        long[] counts = countByState(Booking.class, allStates);
+        long[] archived = countByState(ArchivedBooking.class, allStates);
+
+        return BookingSummaryDto.builder()
+                .all(counts[0] + archived[0])
+                .current(counts[1] + archived[1])
+                .past(counts[2] + archived[2])
+                .future(counts[3] + archived[3])
+                .waiting(counts[4] + archived[4])
+                .rejected(counts[5] + archived[5])
+                .build();
+    }
+
+    /**
+     * Rows started after the newest archived booking come before every archived one, so only the older rows
+     * of {@code bookings} are merged with the archive. These are few: the archiver leaves behind only
+     * the last booking of every item and bookings not yet finished long enough.
+     */
+    private <R> List<R> findPage(Rows<R> rows, BookingFilter filter, Cursor after, int offset, int limit) {
+        List<R> page = rows.select(Booking.class, filter, after, offset, limit);
+        if (!mayBeArchived(filter.getState())) {
+            return page;
+        }
+
+        Optional<LocalDateTime> maxArchivedStart = findMaxArchivedStart(filter);
+        if (maxArchivedStart.isEmpty()
+                || (page.size() == limit && rows.startOf(page.get(page.size() - 1)).isAfter(maxArchivedStart.get()))) {
+            return page;
+        }
+
+        if (offset == 0) {
+            return Stream.concat(page.stream(), rows.select(ArchivedBooking.class, filter, after, 0, limit).stream())
+                    .sorted(rows.newestFirst())
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        }
+
+        return findPageMergingArchive(rows, filter, offset, limit, page, maxArchivedStart.get());
+    }
+
+    /**
+     * The page at a non-zero offset reads O(older rows of bookings + limit) rows whatever the offset is:
+     * the offset in the archive is at least the offset among the rows started at or before the newest
+     * archived start minus the number of the older rows of {@code bookings}.
+     */
+    private <R> List<R> findPageMergingArchive(Rows<R> rows, BookingFilter filter, int offset, int limit,
+                                               List<R> page, LocalDateTime maxArchivedStart) {
+        List<R> result = page.stream()
+                .filter(row -> rows.startOf(row).isAfter(maxArchivedStart))
+                .collect(Collectors.toList());
+        int remaining = limit - result.size();
+        long[] newerAndOlder = countStartedAfter(filter, maxArchivedStart);
+        int olderOffset = (int) Math.max(0, offset - newerAndOlder[0]);
+        int older = (int) Math.min(newerAndOlder[1], Integer.MAX_VALUE - limit);
+        int archiveOffset = Math.max(0, olderOffset - older);
+
+        // positions of rows preceding the first archived one may be wrong, but all of them are before the page
+        List<R> merged = Stream.concat(
+                        rows.select(Booking.class, filter, Cursor.of(maxArchivedStart, Long.MAX_VALUE), 0,
+                                Math.min(older, olderOffset + remaining)).stream(),
+                        rows.select(ArchivedBooking.class, filter, null, archiveOffset, older + remaining).stream())
+                .sorted(rows.newestFirst())
+                .collect(Collectors.toList());
+        int from = Math.min(olderOffset - archiveOffset, merged.size());
+        result.addAll(merged.subList(from, Math.min(from + remaining, merged.size())));
+        return result;
+    }
+
+    private <R> Stream<R> streamRows(Rows<R> rows, BookingFilter filter, int fetchSize) {
+        Stream<R> bookings = rows.stream(Booking.class, filter, fetchSize);
+        if (!mayBeArchived(filter.getState()) || findMaxArchivedStart(filter).isEmpty()) {
+            return bookings;
+        }
+
+        return mergeSorted(bookings, rows.stream(ArchivedBooking.class, filter, fetchSize), rows.newestFirst());
+    }
+
+    /**
+     * Query of the rows of the table matching the filter after the cursor, ordered by start and id descending.
+     */
+    private <T, R> TypedQuery<R> createQuery(Class<T> type, Class<R> resultType, Projection<T, R> projection,
+                                             BookingFilter filter, Cursor after) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<R> query = cb.createQuery(resultType);
+        Root<T> booking = query.from(type);
+        Path<LocalDateTime> start = booking.get("start");
+        Path<Long> id = booking.get("id");
+        Join<T, Item> item = projection.joinItem(booking);
+
+        List<Predicate> predicates = toPredicates(cb, booking, item, filter);
+        if (after != null) {
+            predicates.add(cb.or(
+                    cb.lessThan(start, after.getTime()),
+                    cb.and(cb.equal(start, after.getTime()), cb.lessThan(id, after.getId()))));
+        }
+
+        query.select(projection.select(cb, booking, item))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.desc(start), cb.desc(id));
+
+        return entityManager.createQuery(query);
+    }
+
+    private static <R> List<R> select(TypedQuery<R> query, int offset, int limit) {
+        return query
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private <R> Stream<R> stream(TypedQuery<R> query, int fetchSize) {
+        int[] streamed = {0};
+        return query
+                .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .getResultStream()
+                .peek(row -> {
+                    // the row is fully loaded, the earlier ones are no longer referenced by the stream
+                    if (++streamed[0] % fetchSize == 0) {
+                        entityManager.clear();
+                    }
+                });
+    }
+
+    /**
+     * Fetches what {@link Booking#ITEM_AND_BOOKER_GRAPH} does, but by inner joins where the association
+     * is required; the filter on the owner of the item is put on the fetched item.
+     */
+    private static <T> Projection<T, T> withItemAndBooker() {
+        return new Projection<>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Join<T, Item> joinItem(Root<T> booking) {
+                // the fetches of Hibernate are joins as well
+                Join<T, Item> item = (Join<T, Item>) booking.<T, Item>fetch("item");
+                item.fetch("owner");
+                item.fetch("request", JoinType.LEFT).fetch("requester", JoinType.LEFT);
+                return item;
+            }
+
+            @Override
+            public Selection<T> select(CriteriaBuilder cb, Root<T> booking, Join<T, Item> item) {
+                booking.fetch("booker");
+                return booking;
+            }
+        };
+    }
+
+    private static <T> Projection<T, BookingLeanResponseDto> toLean() {
+        return new Projection<>() {
+            @Override
+            public Join<T, Item> joinItem(Root<T> booking) {
+                return booking.join("item");
+            }
+
+            @Override
+            public Selection<BookingLeanResponseDto> select(CriteriaBuilder cb, Root<T> booking, Join<T, Item> item) {
+                Join<T, ?> booker = booking.join("booker");
+                return cb.construct(BookingLeanResponseDto.class,
+                        booking.get("id"),
+                        booking.get("start"),
+                        booking.get("end"),
+                        booking.get("status"),
+                        booker.get("id"),
+                        booker.get("name"),
+                        item.get("id"),
+                        item.get("name"));
+            }
+        };
+    }
+
+    /**
+     * @return counts of the rows of the table matching the filter in every state of {@link #SUMMARY_STATES}
+     */
+    private long[] countByState(Class<?> type, BookingFilter filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<?> booking = query.from(type);
+
+        List<Selection<?>> counts = new ArrayList<>();
+        for (BookingState state : SUMMARY_STATES) {
+            List<Predicate> statePredicates = toStatePredicates(cb, booking, state, filter.getNow());
+            counts.add(statePredicates.isEmpty()
+                    ? cb.count(booking)
+                    : cb.sum(cb.<Long>selectCase()
+                    .when(cb.and(statePredicates.toArray(new Predicate[0])), 1L)
+                    .otherwise(0L)));
+        }
+
+        query.multiselect(counts)
+                .where(toPredicates(cb, booking, booking.get("item"), filter).toArray(new Predicate[0]));
+        Tuple row = entityManager.createQuery(query).getSingleResult();
+
+        long[] result = new long[SUMMARY_STATES.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = toCount(row.get(i));
+        }
+
+        return result;
+    }
+
+    /**
+     * @return numbers of the rows of {@code bookings} matching the filter started after the time and not
+     */
+    private long[] countStartedAfter(BookingFilter filter, LocalDateTime time) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Booking> booking = query.from(Booking.class);
+
+        query.multiselect(
+                        cb.sum(cb.<Long>selectCase()
+                                .when(cb.greaterThan(booking.get("start"), time), 1L)
+                                .otherwise(0L)),
+                        cb.count(booking))
+                .where(toPredicates(cb, booking, booking.get("item"), filter).toArray(new Predicate[0]));
+        Tuple row = entityManager.createQuery(query).getSingleResult();
+
+        long newer = toCount(row.get(0));
+        return new long[]{newer, toCount(row.get(1)) - newer};
+    }
+
+    /**
+     * Archived bookings are finished long ago and not waiting, so other states never read the archive.
+     */
+    private static boolean mayBeArchived(BookingState state) {
+        return state == BookingState.ALL || state == BookingState.PAST || state == BookingState.REJECTED;
+    }
+
+    private Optional<LocalDateTime> findMaxArchivedStart(BookingFilter filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<LocalDateTime> query = cb.createQuery(LocalDateTime.class);
+        Root<ArchivedBooking> booking = query.from(ArchivedBooking.class);
+
+        query.select(cb.greatest(booking.<LocalDateTime>get("start")))
+                .where(toPredicates(cb, booking, booking.get("item"), filter).toArray(new Predicate[0]));
+
+        return Optional.ofNullable(entityManager.createQuery(query).getSingleResult());
+    }
+
+    private static <R> Stream<R> mergeSorted(Stream<R> first, Stream<R> second, Comparator<R> order) {
+        Iterator<R> firstIterator = first.iterator();
+        Iterator<R> secondIterator = second.iterator();
+        Iterator<R> merged = new Iterator<>() {
+            private R firstHead = nextOrNull(firstIterator);
+            private R secondHead = nextOrNull(secondIterator);
+
+            @Override
+            public boolean hasNext() {
+                return firstHead != null || secondHead != null;
+            }
+
+            @Override
+            public R next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                R next;
+                if (secondHead == null || (firstHead != null && order.compare(firstHead, secondHead) <= 0)) {
+                    next = firstHead;
+                    firstHead = nextOrNull(firstIterator);
+                } else {
+                    next = secondHead;
+                    secondHead = nextOrNull(secondIterator);
+                }
+
+                return next;
+            }
+        };
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED), false)
+                .onClose(first::close)
+                .onClose(second::close);
+    }
+
+    private static <T> T nextOrNull(Iterator<T> iterator) {
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    private static long toCount(Object value) {
+        // sum of no rows is null
+        return value == null ? 0L : ((Number) value).longValue();
+    }
+
+    /**
+     * @param item the item of the booking, the join of the listing query so that items are joined once
+     */
+    private static List<Predicate> toPredicates(CriteriaBuilder cb, Root<?> booking, Path<Item> item,
+                                                BookingFilter filter) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.getOwnerId() != null) {
+            predicates.add(cb.equal(item.get("owner").get("id"), filter.getOwnerId()));
+        }
+
+        if (filter.getBookerId() != null) {
+            predicates.add(cb.equal(booking.get("booker").get("id"), filter.getBookerId()));
+        }
+
+        if (filter.getItemId() != null) {
+            predicates.add(cb.equal(item.get("id"), filter.getItemId()));
+        }
+
+        if (filter.getBookingIds() != null) {
+            predicates.add(booking.get("id").in(filter.getBookingIds()));
+        }
+
+        predicates.addAll(toStatePredicates(cb, booking, filter.getState(), filter.getNow()));
+        return predicates;
+    }
+
+    private static List<Predicate> toStatePredicates(CriteriaBuilder cb, Root<?> booking,
+                                                     BookingState state, LocalDateTime now) {
+        Path<LocalDateTime> start = booking.get("start");
+        Path<LocalDateTime> end = booking.get("end");
+        Path<BookingStatus> status = booking.get("status");
+
+        List<Predicate> predicates = new ArrayList<>();
+        switch (state) {
+            case PAST:
+                predicates.add(cb.lessThan(end, now));
+                break;
+
+            case CURRENT:
+                predicates.add(cb.lessThan(start, now));
+                predicates.add(cb.greaterThan(end, now));
+                break;
+
+            case FUTURE:
+                predicates.add(cb.greaterThan(start, now));
+                break;
+
+            case REJECTED:
+                predicates.add(status.in(BookingStatus.REJECTED, BookingStatus.CANCELED));
+                break;
+
+            case WAITING:
+                predicates.add(cb.equal(status, BookingStatus.WAITING));
+                break;
+
+            default:
+                break;
+        }
+
+        return predicates;
+    }
+
+    /**
+     * Selection of a listing query and the join of the item it is built on, shared with the filter.
+     */
+    private interface Projection<T, R> {
+        Join<T, Item> joinItem(Root<T> booking);
+
+        Selection<R> select(CriteriaBuilder cb, Root<T> booking, Join<T, Item> item);
+    }
+
+    /**
+     * Rows of a listing read from {@code bookings} or {@code bookings_archive} ordered by start and id descending.
+     */
+    private interface Rows<R> {
+        List<R> select(Class<?> type, BookingFilter filter, Cursor after, int offset, int limit);
+
+        Stream<R> stream(Class<?> type, BookingFilter filter, int fetchSize);
+
+        LocalDateTime startOf(R row);
+
+        Long idOf(R row);
+
+        default Comparator<R> newestFirst() {
+            return Comparator.comparing(this::startOf)
+                    .thenComparing(this::idOf)
+                    .reversed();
+        }
+    }
+
+    /**
+     * Entities with the item, its owner and request and the booker fetched by the same select.
+     */
+    private class BookingRows implements Rows<Booking> {
+        @Override
+        public List<Booking> select(Class<?> type, BookingFilter filter, Cursor after, int offset, int limit) {
+            if (type == ArchivedBooking.class) {
+                return BookingQueryRepositoryImpl.select(createQuery(ArchivedBooking.class, ArchivedBooking.class,
+                                withItemAndBooker(), filter, after), offset, limit).stream()
+                        .map(BookingMapper::toBooking)
+                        .collect(Collectors.toList());
+            }
+
+            return BookingQueryRepositoryImpl.select(createQuery(Booking.class, Booking.class,
+                    withItemAndBooker(), filter, after), offset, limit);
+        }
+
+        @Override
+        public Stream<Booking> stream(Class<?> type, BookingFilter filter, int fetchSize) {
+            if (type == ArchivedBooking.class) {
+                return BookingQueryRepositoryImpl.this.stream(createQuery(ArchivedBooking.class,
+                                ArchivedBooking.class, withItemAndBooker(), filter, null),
+                        fetchSize).map(BookingMapper::toBooking);
+            }
+
+            return BookingQueryRepositoryImpl.this.stream(createQuery(Booking.class, Booking.class,
+                    withItemAndBooker(), filter, null), fetchSize);
+        }
+
+        @Override
+        public LocalDateTime startOf(Booking booking) {
+            return booking.getStart();
+        }
+
+        @Override
+        public Long idOf(Booking booking) {
+            return booking.getId();
+        }
+    }
+
+    /**
+     * Responses built by a constructor expression from the columns they show, no entity is loaded.
+     */
+    private class LeanRows implements Rows<BookingLeanResponseDto> {
+        @Override
+        public List<BookingLeanResponseDto> select(Class<?> type, BookingFilter filter, Cursor after,
+                                                   int offset, int limit) {
+            return BookingQueryRepositoryImpl.select(createQuery(type, BookingLeanResponseDto.class,
+                    toLean(), filter, after), offset, limit);
+        }
+
+        @Override
+        public Stream<BookingLeanResponseDto> stream(Class<?> type, BookingFilter filter, int fetchSize) {
+            return BookingQueryRepositoryImpl.this.stream(createQuery(type, BookingLeanResponseDto.class,
+                    toLean(), filter, null), fetchSize);
+        }
+
+        @Override
+        public LocalDateTime startOf(BookingLeanResponseDto booking) {
+            return booking.getStart();
+        }
+
+        @Override
+        public Long idOf(BookingLeanResponseDto booking) {
+            return booking.getId();
+        }
+    }
+}
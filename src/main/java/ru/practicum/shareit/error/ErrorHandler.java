@@ -1,6 +1,7 @@
 package ru.practicum.shareit.error;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -42,6 +43,12 @@ public class ErrorHandler {
         return new ErrorResponse("an object is already exist");
     }
 
+    @ExceptionHandler({ObjectOptimisticLockingFailureException.class})
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponse handleConcurrentUpdateError(final RuntimeException e) {
+        return new ErrorResponse("the object was changed by another request, try again");
+    }
+
     @ExceptionHandler({AttempToUpdateNotYourItemException.class, AccessIsDeniedException.class})
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public ErrorResponse handleEmptyObjectPassingError(final RuntimeException e) {
@@ -24,6 +24,19 @@ public class CommentMapper {
                 .build();
     }
 
+    /**
+     * For a comment whose author is not loaded.
+     */
+    public static CommentResponseDto toCommentResponseDto(Comment comment, String authorName) {
+        return CommentResponseDto.builder()
+                .id(comment.getId())
+                .text(comment.getText())
+                .authorName(authorName)
+                .itemId(comment.getItem() == null ? null : comment.getItem().getId())
+                .created(comment.getCreated())
+                .build();
+    }
+
     public static CommentResponseDto toCommentResponseDto(CommentRequestDto commentDto) {
         return CommentResponseDto.builder()
                 .id(commentDto.getId())
@@ -1,19 +1,29 @@
 package ru.practicum.shareit.item;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.item.dto.CommentRequestDto;
 import ru.practicum.shareit.item.dto.CommentResponseDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemResponseDto;
 import ru.practicum.shareit.item.service.ItemJPAService;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.util.NdjsonWriter;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import javax.validation.constraints.Size;
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -22,8 +32,10 @@ import java.util.List;
 @Slf4j
 @Validated
 public class ItemController {
+    private static final int MAX_AVAILABILITY_ITEMS = 100;
 
     private final ItemJPAService itemService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     public ItemDto createItem(@NotNull @RequestHeader("X-Sharer-User-Id") Long ownerId,
@@ -52,21 +64,89 @@ public class ItemController {
                                                  @PositiveOrZero @RequestParam(
                                                          value = "from", defaultValue = "0") Integer from,
                                                  @Positive @RequestParam(
-                                                         value = "size", defaultValue = "10") Integer size) {
-        log.info("GET-request: get items of owner request from user with id={}, from={}, size={}",
-                ownerId, from, size);
+                                                         value = "size", defaultValue = "10") Integer size,
+                                                 @RequestParam(value = "cursor", required = false) String cursor,
+                                                 HttpServletResponse response) {
+        log.info("GET-request: get items of owner request from user with id={}, from={}, size={}, cursor={}",
+                ownerId, from, size, cursor);
+        if (cursor != null) {
+            CursorPage<ItemResponseDto> page = itemService.getItemsOfOwnerAfter(ownerId, cursor, size);
+            return page.writeTo(response);
+        }
+
         return itemService.getItemsOfOwner(ownerId, from, size);
     }
 
     @GetMapping("/search")
     public List<ItemResponseDto> searchItems(@NotNull @RequestParam String text,
                                              @PositiveOrZero @RequestParam(value = "from", defaultValue = "0") Integer from,
-                                             @Positive @RequestParam(value = "size", defaultValue = "10") Integer size) {
-        log.info("GET-request: find items by substring={} in the name or the description, from={}, size={}",
-                text, from, size);
+                                             @Positive @RequestParam(value = "size", defaultValue = "10") Integer size,
+                                             @RequestParam(value = "cursor", required = false) String cursor,
+                                             HttpServletResponse response) {
+        log.info("GET-request: find items by substring={} in the name or the description, from={}, size={}, cursor={}",
+                text, from, size, cursor);
+        if (cursor != null) {
+            CursorPage<ItemResponseDto> page = itemService.findItemsByTextAfter(text, cursor, size);
+            return page.writeTo(response);
+        }
+
         return itemService.findItemsByText(text, from, size);
     }
 
+    @GetMapping(produces = NdjsonWriter.MEDIA_TYPE)
+    public void streamItemsOfOwner(@NotNull @RequestHeader("X-Sharer-User-Id") Long ownerId,
+                                   HttpServletResponse response) throws IOException {
+        log.info("GET-request: stream all items of owner with id={}", ownerId);
+        NdjsonWriter writer = NdjsonWriter.of(response, objectMapper);
+        itemService.streamItemsOfOwner(ownerId, writer::write);
+        writer.flush();
+    }
+
+    @GetMapping(value = "/search", produces = NdjsonWriter.MEDIA_TYPE)
+    public void streamItemsByText(@NotNull @RequestParam String text,
+                                  HttpServletResponse response) throws IOException {
+        log.info("GET-request: stream all items with substring={} in the name or the description", text);
+        NdjsonWriter writer = NdjsonWriter.of(response, objectMapper);
+        itemService.streamItemsByText(text, writer::write);
+        writer.flush();
+    }
+
+    @GetMapping("/{itemId}/availability")
+    public ItemAvailabilityDto getAvailability(@NotNull @PathVariable Long itemId,
+                                               @NotNull @RequestParam("from")
+                                               @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                               @NotNull @RequestParam("to")
+                                               @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        log.info("GET-request: get free intervals of item with id={} from {} to {}", itemId, from, to);
+        return itemService.getAvailability(List.of(itemId), from, to).get(0);
+    }
+
+    @GetMapping("/availability")
+    public List<ItemAvailabilityDto> getAvailabilityOfItems(@NotEmpty @Size(max = MAX_AVAILABILITY_ITEMS)
+                                                            @RequestParam("ids") List<Long> itemIds,
+                                                            @NotNull @RequestParam("from")
+                                                            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                            LocalDateTime from,
+                                                            @NotNull @RequestParam("to")
+                                                            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                            LocalDateTime to) {
+        log.info("GET-request: get free intervals of items with ids={} from {} to {}", itemIds, from, to);
+        return itemService.getAvailability(itemIds, from, to);
+    }
+
+    @GetMapping("/{itemId}/comments")
+    public List<CommentResponseDto> getComments(@NotNull @RequestHeader("X-Sharer-User-Id") Long userId,
+                                                @NotNull @PathVariable Long itemId,
+                                                @RequestParam(value = "cursor", required = false) String cursor,
+                                                @Positive @RequestParam(
+                                                        value = "size", defaultValue = "10") Integer size,
+                                                HttpServletResponse response) {
+        log.info("GET-request: get comments of item with id={} from user with id={}, cursor={}, size={}",
+                itemId, userId, cursor, size);
+        CursorPage<CommentResponseDto> page = itemService.getComments(itemId, cursor, size);
+        return page.writeTo(response);
+    }
+
     @PostMapping("/{itemId}/comment")
     public CommentResponseDto addComment(@NotNull @RequestHeader("X-Sharer-User-Id") Long userId,
                                          @NotNull @PathVariable Long itemId,
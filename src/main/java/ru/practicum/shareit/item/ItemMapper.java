@@ -6,6 +6,7 @@ import ru.practicum.shareit.item.dto.CommentResponseDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemResponseDto;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemView;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.model.User;
 
@@ -44,7 +45,8 @@ public class ItemMapper {
                 null,
                 null,
                 null,
-                Collections.emptyList()
+                Collections.emptyList(),
+                0L
         );
     }
 
@@ -52,6 +54,14 @@ public class ItemMapper {
                                                     BookingItemResponseDto lastBooking,
                                                     BookingItemResponseDto nextBooking,
                                                     List<CommentResponseDto> comments) {
+        return toItemResponseDto(item, lastBooking, nextBooking, comments, (long) comments.size());
+    }
+
+    public static ItemResponseDto toItemResponseDto(Item item,
+                                                    BookingItemResponseDto lastBooking,
+                                                    BookingItemResponseDto nextBooking,
+                                                    List<CommentResponseDto> latestComments,
+                                                    Long commentCount) {
         return new ItemResponseDto(
                 item.getId(),
                 item.getName(),
@@ -60,7 +70,25 @@ public class ItemMapper {
                 lastBooking,
                 nextBooking,
                 item.getRequest() == null ? null : item.getRequest().getId(),
-                comments
+                latestComments,
+                commentCount
+        );
+    }
+
+    public static ItemResponseDto toItemResponseDto(ItemView itemView,
+                                                    BookingItemResponseDto lastBooking,
+                                                    BookingItemResponseDto nextBooking,
+                                                    List<CommentResponseDto> latestComments) {
+        return new ItemResponseDto(
+                itemView.getItemId(),
+                itemView.getName(),
+                itemView.getDescription(),
+                itemView.getAvailable(),
+                lastBooking,
+                nextBooking,
+                itemView.getRequestId(),
+                latestComments,
+                itemView.getCommentCount()
         );
     }
 
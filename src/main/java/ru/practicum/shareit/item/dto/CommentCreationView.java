@@ -0,0 +1,11 @@
+package ru.practicum.shareit.item.dto;
+
+public interface CommentCreationView {
+    String getAuthorName();
+
+    Long getItemId();
+
+    Long getOwnerId();
+
+    Boolean getBooked();
+}
@@ -0,0 +1,24 @@
+package ru.practicum.shareit.item.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Intervals of the requested period in which the item has no approved or waiting bookings.
+ */
+@Value
+public class ItemAvailabilityDto {
+    Long itemId;
+    List<Slot> free;
+
+    @Value
+    public static class Slot {
+        @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+        LocalDateTime start;
+        @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+        LocalDateTime end;
+    }
+}
@@ -24,4 +24,5 @@ public class ItemResponseDto {
     BookingItemResponseDto nextBooking;
     Long requestId;
     List<CommentResponseDto> comments;
+    Long commentCount;
 }
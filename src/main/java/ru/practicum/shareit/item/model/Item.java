@@ -14,7 +14,8 @@ import javax.persistence.*;
 @Table(name = "items")
 public class Item {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "items_seq")
+    @SequenceGenerator(name = "items_seq", sequenceName = "items_seq", allocationSize = 50)
     @Column(name = "id", nullable = false)
     Long id;
     @Column(name = "name", nullable = false)
@@ -23,10 +24,10 @@ public class Item {
     String description;
     @Column(name = "available", nullable = false)
     Boolean available;
-    @ManyToOne()
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "owner", referencedColumnName = "id", nullable = false)
     User owner;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "request", referencedColumnName = "id")
     ItemRequest request;
 
@@ -0,0 +1,46 @@
+package ru.practicum.shareit.item.model;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Denormalized row of an item with everything {@code GET /items/{itemId}} needs except the comment texts.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+@Entity
+@Table(name = "item_views")
+public class ItemView {
+    @Id
+    @Column(name = "item_id", nullable = false)
+    Long itemId;
+    @Column(name = "name", nullable = false)
+    String name;
+    @Column(name = "description", nullable = false)
+    String description;
+    @Column(name = "available", nullable = false)
+    Boolean available;
+    @Column(name = "owner_id", nullable = false)
+    Long ownerId;
+    @Column(name = "request_id")
+    Long requestId;
+    @Column(name = "last_booking_id")
+    Long lastBookingId;
+    @Column(name = "last_booker_id")
+    Long lastBookerId;
+    @Column(name = "next_booking_id")
+    Long nextBookingId;
+    @Column(name = "next_booker_id")
+    Long nextBookerId;
+    /**
+     * Start of the next booking: from this moment the stored last and next bookings may be outdated.
+     */
+    @Column(name = "bookings_valid_until")
+    LocalDateTime bookingsValidUntil;
+    @Column(name = "comment_count", nullable = false)
+    Long commentCount;
+}
@@ -0,0 +1,117 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.dto.ItemTextView;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemJPARepository;
+import ru.practicum.shareit.util.TransactionHooks;
+
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Base for search engines answering from an in-memory index of available items.
+ * The index is built on startup and changed after commit of every item write;
+ * the page of matching ids is loaded from the database with a single query.
+ */
+@Slf4j
+public abstract class IndexedItemSearchEngine implements ItemSearchEngine {
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    protected final ItemJPARepository itemJPARepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    protected IndexedItemSearchEngine(ItemJPARepository itemJPARepository) {
+        this.itemJPARepository = itemJPARepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            clearIndex();
+            long lastId = 0L;
+            int indexedItems = 0;
+            List<ItemTextView> batch;
+            do {
+                batch = itemJPARepository.findAvailableItemTexts(lastId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+                for (ItemTextView item : batch) {
+                    addToIndex(item.getId(), item.getName(), item.getDescription());
+                    lastId = item.getId();
+                }
+                indexedItems += batch.size();
+            } while (batch.size() == REBUILD_BATCH_SIZE);
+            log.info("{} is built, number of items={}", getClass().getSimpleName(), indexedItems);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Item> search(String text, Pageable pageRequest) {
+        int offset = Math.toIntExact(pageRequest.getOffset());
+        List<Long> matchIds;
+        lock.readLock().lock();
+        try {
+            matchIds = findMatchesAfter(text, 0L, offset + pageRequest.getPageSize());
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return itemJPARepository.findAllByIdInOrder(matchIds.subList(Math.min(offset, matchIds.size()),
+                matchIds.size()));
+    }
+
+    @Override
+    public List<Item> searchAfter(String text, Long lastId, int limit) {
+        List<Long> pageIds;
+        lock.readLock().lock();
+        try {
+            pageIds = findMatchesAfter(text, lastId, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return itemJPARepository.findAllByIdInOrder(pageIds);
+    }
+
+    @Override
+    public void onItemSaved(Item item) {
+        Long itemId = item.getId();
+        boolean available = Boolean.TRUE.equals(item.getAvailable());
+        String name = item.getName();
+        String description = item.getDescription();
+        TransactionHooks.afterCommit(() -> reindex(itemId, available, name, description));
+    }
+
+    protected abstract void clearIndex();
+
+    protected abstract void addToIndex(Long itemId, String name, String description);
+
+    protected abstract void removeFromIndex(Long itemId);
+
+    /**
+     * Called under the read lock. The sorted posting lists are entered at the first id after {@code lastId}
+     * and walked only till {@code limit} matches are found, so a page costs about its own size.
+     *
+     * @return ids greater than {@code lastId} of at most {@code limit} matching items in ascending order
+     */
+    protected abstract List<Long> findMatchesAfter(String text, Long lastId, int limit);
+
+    private void reindex(Long itemId, boolean available, String name, String description) {
+        lock.writeLock().lock();
+        try {
+            removeFromIndex(itemId);
+            if (available) {
+                addToIndex(itemId, name, description);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.storage.ItemJPARepository;
+
+import java.util.*;
+import java.util.function.BiPredicate;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps an in-memory inverted index from the words of names and descriptions of available items
+ * to item ids. Every word of the search text must be a prefix of some word of the item.
+ */
+@Component
+@ConditionalOnProperty(name = "shareit.item.search.engine", havingValue = "inverted-index")
+public class InvertedIndexItemSearchEngine extends IndexedItemSearchEngine {
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final NavigableMap<String, NavigableSet<Long>> postings = new TreeMap<>();
+    private final Map<Long, Set<String>> termsOfItems = new HashMap<>();
+
+    public InvertedIndexItemSearchEngine(ItemJPARepository itemJPARepository) {
+        super(itemJPARepository);
+    }
+
+    @Override
+    protected void clearIndex() {
+        postings.clear();
+        termsOfItems.clear();
+    }
+
+    @Override
+    protected void addToIndex(Long itemId, String name, String description) {
+        Set<String> terms = tokenize(name, description);
+        termsOfItems.put(itemId, terms);
+        for (String term : terms) {
+            postings.computeIfAbsent(term, key -> new TreeSet<>()).add(itemId);
+        }
+    }
+
+    @Override
+    protected void removeFromIndex(Long itemId) {
+        Set<String> terms = termsOfItems.remove(itemId);
+        if (terms == null) {
+            return;
+        }
+
+        for (String term : terms) {
+            NavigableSet<Long> itemIds = postings.get(term);
+            itemIds.remove(itemId);
+            if (itemIds.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    /**
+     * Walks the union of the posting lists of the rarest query word from {@code lastId}
+     * and keeps the items found in a posting list of every other word.
+     */
+    @Override
+    protected List<Long> findMatchesAfter(String text, Long lastId, int limit) {
+        List<Collection<NavigableSet<Long>>> postingsOfTerms = new ArrayList<>();
+        for (String queryTerm : tokenize(text)) {
+            Collection<NavigableSet<Long>> postingsOfTerm = findByPrefix(queryTerm);
+            if (postingsOfTerm.isEmpty()) {
+                return List.of();
+            }
+            postingsOfTerms.add(postingsOfTerm);
+        }
+
+        if (postingsOfTerms.isEmpty()) {
+            return List.of();
+        }
+
+        postingsOfTerms.sort(Comparator.comparingInt(postingsOfTerm -> postingsOfTerm.stream()
+                .mapToInt(Set::size)
+                .sum()));
+        List<Long> matches = new ArrayList<>();
+        Iterator<Long> candidates = new UnionIterator(postingsOfTerms.get(0), lastId);
+        while (matches.size() < limit && candidates.hasNext()) {
+            Long itemId = candidates.next();
+            if (postingsOfTerms.stream()
+                    .skip(1)
+                    .allMatch(postingsOfTerm -> postingsOfTerm.stream().anyMatch(ids -> ids.contains(itemId)))) {
+                matches.add(itemId);
+            }
+        }
+
+        return matches;
+    }
+
+    @Override
+    public BiPredicate<String, String> matcher(String text) {
+        Set<String> queryTerms = tokenize(text);
+        return (name, description) -> {
+            Set<String> terms = tokenize(name, description);
+            return !queryTerms.isEmpty() && queryTerms.stream()
+                    .allMatch(queryTerm -> terms.stream().anyMatch(term -> term.startsWith(queryTerm)));
+        };
+    }
+
+    private Collection<NavigableSet<Long>> findByPrefix(String prefix) {
+        return postings.subMap(prefix, true, prefix + Character.MAX_VALUE, true).values();
+    }
+
+    static Set<String> tokenize(String... texts) {
+        Set<String> terms = new HashSet<>();
+        for (String text : texts) {
+            if (text == null) {
+                continue;
+            }
+
+            for (String term : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+                if (!term.isEmpty()) {
+                    terms.add(term);
+                }
+            }
+        }
+
+        return terms;
+    }
+
+    /**
+     * Ids greater than {@code lastId} of any of the sets in ascending order, each once.
+     */
+    private static class UnionIterator implements Iterator<Long> {
+        private final PriorityQueue<Head> heads = new PriorityQueue<>(Comparator.comparing(Head::getItemId));
+
+        UnionIterator(Collection<NavigableSet<Long>> sets, Long lastId) {
+            for (NavigableSet<Long> itemIds : sets) {
+                advance(itemIds.tailSet(lastId, false).iterator());
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public Long next() {
+            if (heads.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+
+            Long itemId = heads.peek().getItemId();
+            while (!heads.isEmpty() && heads.peek().getItemId().equals(itemId)) {
+                advance(heads.poll().getRest());
+            }
+            return itemId;
+        }
+
+        private void advance(Iterator<Long> itemIds) {
+            if (itemIds.hasNext()) {
+                heads.add(new Head(itemIds.next(), itemIds));
+            }
+        }
+    }
+
+    @Value
+    private static class Head {
+        Long itemId;
+        Iterator<Long> rest;
+    }
+}
@@ -0,0 +1,31 @@
+package ru.practicum.shareit.item.search;
+
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.List;
+import java.util.function.BiPredicate;
+
+/**
+ * Finds available items whose name or description match the search text.
+ * The implementation is chosen by the {@code shareit.item.search.engine} property.
+ */
+public interface ItemSearchEngine {
+    List<Item> search(String text, Pageable pageRequest);
+
+    /**
+     * Keyset page of matching items ordered by id.
+     */
+    List<Item> searchAfter(String text, Long lastId, int limit);
+
+    void onItemSaved(Item item);
+
+    /**
+     * Tells by the name and the description of an available item whether the text finds it,
+     * by default as the infix {@link LikePattern} of the text matching the name or the description.
+     */
+    default BiPredicate<String, String> matcher(String text) {
+        LikePattern pattern = LikePattern.of(text);
+        return (name, description) -> pattern.matches(name) || pattern.matches(description);
+    }
+}
@@ -0,0 +1,210 @@
+package ru.practicum.shareit.item.search;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.util.TransactionHooks;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.function.BiPredicate;
+
+/**
+ * Bounded LRU cache of item search result pages (ids of found items) keyed by the lowercased text and the page.
+ * An item write drops exactly the entries whose text finds the item before or after the write,
+ * matched by the rules of the configured {@link ItemSearchEngine}.
+ * Metrics: {@code shareit.item.search.cache.requests} (result=hit|miss),
+ * {@code shareit.item.search.cache.evictions} (cause=size|expired|invalidated) and {@code shareit.item.search.cache.size}.
+ */
+@Component
+public class ItemSearchResultCache {
+    /**
+     * Number of the latest item writes remembered to check results being put against them.
+     */
+    private static final int RECENT_WRITES_LIMIT = 1000;
+
+    private final ItemSearchEngine itemSearchEngine;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Deque<Write> recentWrites = new ArrayDeque<>();
+    private long version;
+    private long forgottenVersion;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter sizeEvictions;
+    private final Counter expirations;
+    private final Counter invalidations;
+
+    public ItemSearchResultCache(ItemSearchEngine itemSearchEngine,
+                                 @Value("${shareit.item.search.cache.max-size:1000}") int maxSize,
+                                 @Value("${shareit.item.search.cache.ttl:60s}") Duration ttl,
+                                 MeterRegistry meterRegistry) {
+        this.itemSearchEngine = itemSearchEngine;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.hits = requestCounter(meterRegistry, "hit");
+        this.misses = requestCounter(meterRegistry, "miss");
+        this.sizeEvictions = evictionCounter(meterRegistry, "size");
+        this.expirations = evictionCounter(meterRegistry, "expired");
+        this.invalidations = evictionCounter(meterRegistry, "invalidated");
+        Gauge.builder("shareit.item.search.cache.size", this, ItemSearchResultCache::size)
+                .register(meterRegistry);
+    }
+
+    public synchronized Optional<List<Long>> get(String text, Pageable pageRequest) {
+        Key key = toKey(text, pageRequest);
+        Entry entry = entries.get(key);
+        if (entry != null && entry.getExpiresAt() - System.nanoTime() <= 0) {
+            entries.remove(key);
+            expirations.increment();
+            entry = null;
+        }
+
+        if (entry == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+
+        hits.increment();
+        return Optional.of(entry.getItemIds());
+    }
+
+    /**
+     * Version of the cache content, must be taken before the search whose result is going to be cached.
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Caches the result unless an item found by the text was written since {@code version} was taken:
+     * such a result could have been read before the write. Writes of other items do not prevent caching.
+     */
+    public synchronized void put(String text, Pageable pageRequest, List<Long> itemIds, long version) {
+        if (maxSize <= 0) {
+            return;
+        }
+
+        BiPredicate<String, String> matcher = itemSearchEngine.matcher(text);
+        if (isWrittenSince(version, matcher)) {
+            return;
+        }
+
+        entries.put(toKey(text, pageRequest), new Entry(matcher, List.copyOf(itemIds), System.nanoTime() + ttlNanos));
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (entries.size() > maxSize) {
+            eldest.next();
+            eldest.remove();
+            sizeEvictions.increment();
+        }
+    }
+
+    public void onItemSaved(@Nullable Item previous, Item saved) {
+        List<ItemText> texts = new ArrayList<>();
+        addSearchableTexts(previous, texts);
+        addSearchableTexts(saved, texts);
+        if (!texts.isEmpty()) {
+            TransactionHooks.afterCommit(() -> invalidateMatching(texts));
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private synchronized void invalidateMatching(List<ItemText> texts) {
+        recentWrites.addLast(new Write(++version, texts));
+        if (recentWrites.size() > RECENT_WRITES_LIMIT) {
+            forgottenVersion = recentWrites.removeFirst().getVersion();
+        }
+
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (matchesAny(iterator.next().getMatcher(), texts)) {
+                iterator.remove();
+                invalidations.increment();
+            }
+        }
+    }
+
+    private boolean isWrittenSince(long version, BiPredicate<String, String> matcher) {
+        // writes no longer remembered might have found the text
+        if (version < forgottenVersion) {
+            return true;
+        }
+
+        Iterator<Write> latestFirst = recentWrites.descendingIterator();
+        while (latestFirst.hasNext()) {
+            Write write = latestFirst.next();
+            if (write.getVersion() <= version) {
+                return false;
+            }
+
+            if (matchesAny(matcher, write.getTexts())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean matchesAny(BiPredicate<String, String> matcher, List<ItemText> texts) {
+        return texts.stream().anyMatch(text -> matcher.test(text.getName(), text.getDescription()));
+    }
+
+    private static void addSearchableTexts(@Nullable Item item, List<ItemText> texts) {
+        if (item != null && Boolean.TRUE.equals(item.getAvailable())) {
+            texts.add(new ItemText(item.getName(), item.getDescription()));
+        }
+    }
+
+    private static Key toKey(String text, Pageable pageRequest) {
+        return new Key(LikePattern.normalize(text), pageRequest.getOffset(), pageRequest.getPageSize());
+    }
+
+    private static Counter requestCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("shareit.item.search.cache.requests")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static Counter evictionCounter(MeterRegistry meterRegistry, String cause) {
+        return Counter.builder("shareit.item.search.cache.evictions")
+                .tag("cause", cause)
+                .register(meterRegistry);
+    }
+
+    @Data
+    private static class Key {
+        private final String text;
+        private final long offset;
+        private final int size;
+    }
+
+    @Data
+    private static class Entry {
+        private final BiPredicate<String, String> matcher;
+        private final List<Long> itemIds;
+        private final long expiresAt;
+    }
+
+    @Data
+    private static class ItemText {
+        private final String name;
+        private final String description;
+    }
+
+    @Data
+    private static class Write {
+        private final long version;
+        private final List<ItemText> texts;
+    }
+}
@@ -0,0 +1,33 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemJPARepository;
+
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.item.search.engine", havingValue = "jpa", matchIfMissing = true)
+public class JpaItemSearchEngine implements ItemSearchEngine {
+
+    private final ItemJPARepository itemJPARepository;
+
+    @Override
+    public List<Item> search(String text, Pageable pageRequest) {
+        return itemJPARepository.searchItemBySubstring(text, pageRequest);
+    }
+
+    @Override
+    public List<Item> searchAfter(String text, Long lastId, int limit) {
+        return itemJPARepository.searchItemBySubstringAfter(text, lastId, PageRequest.of(0, limit));
+    }
+
+    @Override
+    public void onItemSaved(Item item) {
+    }
+}
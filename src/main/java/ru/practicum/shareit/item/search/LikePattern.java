@@ -0,0 +1,72 @@
+package ru.practicum.shareit.item.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * The search text of {@code lower(x) like lower(concat('%', text, '%'))}: '%' and '_' are wildcards,
+ * '\' escapes the next character and the match is case-insensitive.
+ */
+public final class LikePattern {
+    private static final char ESCAPE = '\\';
+
+    private final Pattern regex;
+    private final List<String> literals;
+
+    private LikePattern(Pattern regex, List<String> literals) {
+        this.regex = regex;
+        this.literals = literals;
+    }
+
+    public static LikePattern of(String text) {
+        String query = normalize(text);
+        StringBuilder regex = new StringBuilder();
+        List<String> literals = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (c == ESCAPE && i + 1 < query.length()) {
+                literal.append(query.charAt(++i));
+            } else if (c == '%' || c == '_') {
+                appendLiteral(regex, literals, literal);
+                regex.append(c == '%' ? ".*" : ".");
+            } else {
+                literal.append(c);
+            }
+        }
+        appendLiteral(regex, literals, literal);
+
+        return new LikePattern(Pattern.compile(regex.toString(), Pattern.DOTALL), literals);
+    }
+
+    public static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Literal runs of the text between wildcards, every match contains all of them.
+     */
+    public List<String> getLiterals() {
+        return literals;
+    }
+
+    public boolean matchesNormalized(String normalizedValue) {
+        return regex.matcher(normalizedValue).find();
+    }
+
+    public boolean matches(String value) {
+        return value != null && matchesNormalized(normalize(value));
+    }
+
+    private static void appendLiteral(StringBuilder regex, List<String> literals, StringBuilder literal) {
+        if (literal.length() == 0) {
+            return;
+        }
+
+        literals.add(literal.toString());
+        regex.append(Pattern.quote(literal.toString()));
+        literal.setLength(0);
+    }
+}
@@ -0,0 +1,114 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.storage.ItemJPARepository;
+
+import java.util.*;
+
+/**
+ * Answers the same infix queries as {@link ItemJPARepository#searchItemBySubstring} from a trigram index:
+ * posting lists of the trigrams of the search text are intersected and every candidate is verified
+ * against the lowercased name and description with the {@link LikePattern} of the text.
+ */
+@Component
+@ConditionalOnProperty(name = "shareit.item.search.engine", havingValue = "ngram")
+public class NgramItemSearchEngine extends IndexedItemSearchEngine {
+    private static final int GRAM_LENGTH = 3;
+
+    private final Map<String, NavigableSet<Long>> postings = new HashMap<>();
+    private final NavigableMap<Long, ItemText> texts = new TreeMap<>();
+
+    public NgramItemSearchEngine(ItemJPARepository itemJPARepository) {
+        super(itemJPARepository);
+    }
+
+    @Override
+    protected void clearIndex() {
+        postings.clear();
+        texts.clear();
+    }
+
+    @Override
+    protected void addToIndex(Long itemId, String name, String description) {
+        ItemText itemText = new ItemText(LikePattern.normalize(name), LikePattern.normalize(description));
+        texts.put(itemId, itemText);
+        for (String gram : itemText.grams()) {
+            postings.computeIfAbsent(gram, key -> new TreeSet<>()).add(itemId);
+        }
+    }
+
+    @Override
+    protected void removeFromIndex(Long itemId) {
+        ItemText itemText = texts.remove(itemId);
+        if (itemText == null) {
+            return;
+        }
+
+        for (String gram : itemText.grams()) {
+            NavigableSet<Long> itemIds = postings.get(gram);
+            itemIds.remove(itemId);
+            if (itemIds.isEmpty()) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    /**
+     * Walks the shortest posting list from {@code lastId}, or all the items when the text has no trigram,
+     * and keeps the candidates found in every other posting list whose text matches the pattern.
+     */
+    @Override
+    protected List<Long> findMatchesAfter(String text, Long lastId, int limit) {
+        LikePattern pattern = LikePattern.of(text);
+        Set<String> queryGrams = new HashSet<>();
+        pattern.getLiterals().forEach(literal -> addGrams(literal, queryGrams));
+
+        List<NavigableSet<Long>> postingLists = new ArrayList<>();
+        for (String gram : queryGrams) {
+            NavigableSet<Long> itemIds = postings.get(gram);
+            if (itemIds == null) {
+                return List.of();
+            }
+            postingLists.add(itemIds);
+        }
+
+        postingLists.sort(Comparator.comparingInt(Set::size));
+        NavigableSet<Long> shortest = postingLists.isEmpty() ? texts.navigableKeySet() : postingLists.get(0);
+        List<Long> matches = new ArrayList<>();
+        Iterator<Long> candidates = shortest.tailSet(lastId, false).iterator();
+        while (matches.size() < limit && candidates.hasNext()) {
+            Long itemId = candidates.next();
+            if (postingLists.stream().allMatch(itemIds -> itemIds.contains(itemId))
+                    && texts.get(itemId).matches(pattern)) {
+                matches.add(itemId);
+            }
+        }
+
+        return matches;
+    }
+
+    private static void addGrams(String text, Set<String> grams) {
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM_LENGTH));
+        }
+    }
+
+    @Value
+    private static class ItemText {
+        String name;
+        String description;
+
+        Set<String> grams() {
+            Set<String> grams = new HashSet<>();
+            addGrams(name, grams);
+            addGrams(description, grams);
+            return grams;
+        }
+
+        boolean matches(LikePattern pattern) {
+            return pattern.matchesNormalized(name) || pattern.matchesNormalized(description);
+        }
+    }
+}
@@ -2,10 +2,14 @@ package ru.practicum.shareit.item.service;
 
 import ru.practicum.shareit.item.dto.CommentRequestDto;
 import ru.practicum.shareit.item.dto.CommentResponseDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.pagination.CursorPage;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ItemJPAService {
     ItemDto createItem(ItemDto itemDto, Long ownerId);
@@ -18,5 +22,17 @@ public interface ItemJPAService {
 
     List<ItemResponseDto> findItemsByText(String text, Integer from, Integer size);
 
+    CursorPage<ItemResponseDto> getItemsOfOwnerAfter(Long ownerId, String cursor, Integer size);
+
+    CursorPage<ItemResponseDto> findItemsByTextAfter(String text, String cursor, Integer size);
+
+    void streamItemsOfOwner(Long ownerId, Consumer<ItemResponseDto> consumer);
+
+    void streamItemsByText(String text, Consumer<ItemResponseDto> consumer);
+
     CommentResponseDto addComment(Long userId, Long itemId, CommentRequestDto commentRequestDto);
+
+    CursorPage<CommentResponseDto> getComments(Long itemId, String cursor, Integer size);
+
+    List<ItemAvailabilityDto> getAvailability(List<Long> itemIds, LocalDateTime from, LocalDateTime to);
 }
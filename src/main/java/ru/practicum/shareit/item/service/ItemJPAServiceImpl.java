@@ -6,21 +6,32 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import ru.practicum.shareit.booking.BookingMapper;
+import ru.practicum.shareit.booking.dto.BookingItemIntervalView;
 import ru.practicum.shareit.booking.dto.BookingItemResponseDto;
+import ru.practicum.shareit.booking.dto.BookingShortView;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.store.BookingJPARepository;
 import ru.practicum.shareit.exception.*;
 import ru.practicum.shareit.item.CommentMapper;
 import ru.practicum.shareit.item.ItemMapper;
+import ru.practicum.shareit.item.dto.CommentCreationView;
 import ru.practicum.shareit.item.dto.CommentRequestDto;
 import ru.practicum.shareit.item.dto.CommentResponseDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareit.item.dto.ItemAvailableView;
+import ru.practicum.shareit.item.dto.ItemCreationView;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemResponseDto;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemView;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.item.search.ItemSearchResultCache;
 import ru.practicum.shareit.item.storage.CommentJPARepository;
 import ru.practicum.shareit.item.storage.ItemJPARepository;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.store.ItemRequestJPARepository;
 import ru.practicum.shareit.user.storage.UserJPARepository;
@@ -28,46 +39,71 @@ import ru.practicum.shareit.user.model.User;
 
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class ItemJPAServiceImpl implements ItemJPAService {
+    /**
+     * Number of the latest comments embedded into an item response, the rest are served by {@link #getComments}.
+     */
+    static final int LATEST_COMMENTS_COUNT = 10;
+    private static final int STREAM_CHUNK_SIZE = 100;
+    private static final List<BookingStatus> OCCUPYING_STATUSES = List.of(BookingStatus.APPROVED, BookingStatus.WAITING);
 
     private final ItemJPARepository itemJPARepository;
     private final UserJPARepository userJPARepository;
     private final BookingJPARepository bookingJPARepository;
     private final CommentJPARepository commentJPARepository;
     private final ItemRequestJPARepository itemRequestJPARepository;
+    private final ItemSearchEngine itemSearchEngine;
+    private final ItemSearchResultCache itemSearchResultCache;
+    private final ItemViewProjection itemViewProjection;
+    private final EntityManager entityManager;
 
     @Override
     @Transactional
     public ItemDto createItem(ItemDto itemDto, Long ownerId) {
-        User owner = getUserOrThrow(ownerId);
-        ItemRequest itemRequest = getItemRequestOrThrow(itemDto);
+        ItemCreationView creationView = getItemCreationViewOrThrow(itemDto, ownerId);
+        User owner = userJPARepository.getReferenceById(creationView.getOwnerId());
+        ItemRequest itemRequest = creationView.getRequestId() == null
+                ? null
+                : itemRequestJPARepository.getReferenceById(creationView.getRequestId());
         Item item = ItemMapper.toItem(itemDto, owner, itemRequest);
 
         Item savedItem = itemJPARepository.save(item);
-        log.info("Saved the item: {}", savedItem);
+        itemSearchEngine.onItemSaved(savedItem);
+        itemSearchResultCache.onItemSaved(null, savedItem);
+        itemViewProjection.onItemCreated(savedItem);
+        log.info("Saved the item with id={} of the owner with id={}", savedItem.getId(), ownerId);
         return ItemMapper.toItemDto(savedItem);
     }
 
-    private ItemRequest getItemRequestOrThrow(ItemDto itemDto) {
-        if (itemDto.getRequestId() == null) {
-            return null;
+    /**
+     * The owner and the request are checked by one query, the item refers to them by proxies which are not loaded.
+     */
+    private ItemCreationView getItemCreationViewOrThrow(ItemDto itemDto, Long ownerId) {
+        Optional<ItemCreationView> creationViewOpt = itemJPARepository
+                .findCreationView(ownerId, itemDto.getRequestId());
+        if (creationViewOpt.isEmpty()) {
+            String message = "there is no user with id: " + ownerId;
+            log.error("UserNotExistException: " + message);
+            throw new UserNotExistException(message);
         }
 
-        Optional<ItemRequest> itemRequestOpt = itemRequestJPARepository.findById(itemDto.getRequestId());
-        if (itemRequestOpt.isEmpty()) {
+        if (itemDto.getRequestId() != null && creationViewOpt.get().getRequestId() == null) {
             String message = "there is no item request with id: " + itemDto.getRequestId();
             log.error("ItemRequestNotExistException: " + message);
             throw new ItemRequestNotExistException("there is no item with id: " + itemDto.getRequestId());
         }
 
-        return itemRequestOpt.get();
+        return creationViewOpt.get();
     }
 
     @Override
@@ -75,6 +111,7 @@ public class ItemJPAServiceImpl implements ItemJPAService {
     public ItemDto updateItem(ItemDto itemDto, Long ownerId, Long itemId) {
         User owner = getUserOrThrow(ownerId);
         Item item = getItemOrThrow(itemId);
+        Item previousItem = item.toBuilder().build();
 
         Item updatedItem = updateValidFields(item, itemDto);
         if (!(isOwner(updatedItem, ownerId))) {
@@ -84,24 +121,32 @@ public class ItemJPAServiceImpl implements ItemJPAService {
         }
 
         itemJPARepository.save(updatedItem);
+        itemSearchEngine.onItemSaved(updatedItem);
+        itemSearchResultCache.onItemSaved(previousItem, updatedItem);
+        itemViewProjection.onItemUpdated(updatedItem);
         log.info("Updated the item: {}", updatedItem);
         return ItemMapper.toItemDto(updatedItem);
     }
 
+    /**
+     * Served from the {@link ItemView} of the item, comment texts are read only if it has any.
+     */
     @Override
     @Transactional(readOnly = true)
     public ItemResponseDto getItemById(Long userId, Long itemId) {
-        Item item = getItemOrThrow(itemId);
-        LocalDateTime now = LocalDateTime.now();
+        ItemView itemView = getItemViewOrThrow(itemId);
         BookingItemResponseDto lastBooking = null;
         BookingItemResponseDto nextBooking = null;
-        if (Objects.equals(item.getOwner().getId(), userId)) {
-            lastBooking = getLastBooking(itemId, now);
-            nextBooking = getNextBooking(itemId, now);
+        if (Objects.equals(itemView.getOwnerId(), userId)) {
+            lastBooking = toBookingItemResponseDto(itemView.getLastBookingId(), itemView.getLastBookerId());
+            nextBooking = toBookingItemResponseDto(itemView.getNextBookingId(), itemView.getNextBookerId());
         }
 
-        List<CommentResponseDto> commentsDto = getCommentsByItemId(itemId);
-        ItemResponseDto itemResponseDto = ItemMapper.toItemResponseDto(item, lastBooking, nextBooking, commentsDto);
+        List<Comment> comments = itemView.getCommentCount() == 0
+                ? Collections.emptyList()
+                : getLatestCommentsByItemId(itemId);
+        ItemResponseDto itemResponseDto = ItemMapper.toItemResponseDto(itemView, lastBooking, nextBooking,
+                CommentMapper.toCommentResponseDtoList(comments));
         log.info("Provided info to user with id={}, about the item={}", userId, itemResponseDto);
         return itemResponseDto;
     }
@@ -112,14 +157,7 @@ public class ItemJPAServiceImpl implements ItemJPAService {
         int page = from / size;
         Pageable pageRequest = PageRequest.of(page, size);
         List<Item> items = itemJPARepository.findAllByOwnerId(ownerId, pageRequest);
-        Map<Item, List<Comment>> commentsTable = getCommentOfItems(items);
-        List<ItemResponseDto> itemResponseDtos = items.stream()
-                .map(item -> toItemResponseDto(
-                        item,
-                        commentsTable.getOrDefault(item, Collections.emptyList()),
-                        LocalDateTime.now()
-                ))
-                .collect(Collectors.toList());
+        List<ItemResponseDto> itemResponseDtos = toItemResponseDtoList(items);
 
         log.info("Provided info to owner with id={}, about his/her items, number of items={}",
                 ownerId, itemResponseDtos.size());
@@ -137,64 +175,301 @@ public class ItemJPAServiceImpl implements ItemJPAService {
         int page = from / size;
         Pageable pageRequest = PageRequest.of(page, size);
 
-        List<Item> items = itemJPARepository.searchItemBySubstring(text, pageRequest);
-        Map<Item, List<Comment>> commentsTable = getCommentOfItems(items);
-        List<ItemResponseDto> itemResponseDtos = items.stream()
-                .map(item -> toItemResponseDto(
-                        item,
-                        commentsTable.getOrDefault(item, Collections.emptyList()),
-                        LocalDateTime.now()
-                ))
-                .collect(Collectors.toList());
+        List<Item> items = searchItems(text, pageRequest);
+        List<ItemResponseDto> itemResponseDtos = toItemResponseDtoList(items);
 
         log.info("Provided info with list of items, number of items={}", itemResponseDtos.size());
         return itemResponseDtos;
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<ItemResponseDto> getItemsOfOwnerAfter(Long ownerId, String cursor, Integer size) {
+        Long lastId = Cursor.decode(cursor).map(Cursor::getId).orElse(0L);
+        List<Item> items = itemJPARepository
+                .findAllByOwnerIdAndIdGreaterThanOrderById(ownerId, lastId, PageRequest.of(0, size + 1));
+        CursorPage<Item> page = CursorPage.of(items, size, item -> Cursor.of(item.getId()));
+
+        log.info("Provided info to owner with id={}, about his/her items, number of items={}",
+                ownerId, page.getContent().size());
+        return page.map(this::toItemResponseDtoList);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<ItemResponseDto> findItemsByTextAfter(String text, String cursor, Integer size) {
+        if (text.isBlank()) {
+            log.info("Provided empty list");
+            return new CursorPage<>(new ArrayList<>(), null);
+        }
+
+        Long lastId = Cursor.decode(cursor).map(Cursor::getId).orElse(0L);
+        List<Item> items = itemSearchEngine.searchAfter(text, lastId, size + 1);
+        CursorPage<Item> page = CursorPage.of(items, size, item -> Cursor.of(item.getId()));
+
+        log.info("Provided info with list of items, number of items={}", page.getContent().size());
+        return page.map(this::toItemResponseDtoList);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamItemsOfOwner(Long ownerId, Consumer<ItemResponseDto> consumer) {
+        Pageable chunk = PageRequest.of(0, STREAM_CHUNK_SIZE);
+        streamItems(lastId -> itemJPARepository.findAllByOwnerIdAndIdGreaterThanOrderById(ownerId, lastId, chunk),
+                consumer);
+        log.info("Streamed items of owner with id={}", ownerId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamItemsByText(String text, Consumer<ItemResponseDto> consumer) {
+        if (text.isBlank()) {
+            log.info("Streamed empty list");
+            return;
+        }
+
+        streamItems(lastId -> itemSearchEngine.searchAfter(text, lastId, STREAM_CHUNK_SIZE), consumer);
+        log.info("Streamed items found by text={}", text);
+    }
+
+    /**
+     * Reads items in chunks by id, the persistence context is cleared after every chunk is consumed.
+     */
+    private void streamItems(LongFunction<List<Item>> chunkAfter, Consumer<ItemResponseDto> consumer) {
+        long lastId = 0L;
+        List<Item> items;
+        do {
+            items = chunkAfter.apply(lastId);
+            toItemResponseDtoList(items).forEach(consumer);
+            if (!items.isEmpty()) {
+                lastId = items.get(items.size() - 1).getId();
+            }
+
+            entityManager.clear();
+        } while (items.size() == STREAM_CHUNK_SIZE);
+    }
+
+    private List<Item> searchItems(String text, Pageable pageRequest) {
+        Optional<List<Long>> cachedItemIds = itemSearchResultCache.get(text, pageRequest);
+        if (cachedItemIds.isPresent()) {
+            return itemJPARepository.findAllByIdInOrder(cachedItemIds.get());
+        }
+
+        long cacheVersion = itemSearchResultCache.getVersion();
+        List<Item> items = itemSearchEngine.search(text, pageRequest);
+        List<Long> itemIds = items.stream()
+                .map(Item::getId)
+                .collect(Collectors.toList());
+        itemSearchResultCache.put(text, pageRequest, itemIds, cacheVersion);
+        return items;
+    }
+
     @Override
     @Transactional
     public CommentResponseDto addComment(Long userId, Long itemId, CommentRequestDto commentRequestDto) {
-        User author = getUserOrThrow(userId);
-        Item item = getItemOrThrow(itemId);
-        if (isOwner(item, userId)) {
+        CommentCreationView creationView = getCommentCreationViewOrThrow(userId, itemId);
+        if (Objects.equals(creationView.getOwnerId(), userId)) {
             String message = "it's forbidden to comment your own item";
             log.error("ValidationException: " + message);
             throw new ValidationException(message);
         }
 
-        validAccessToAddComment(userId, itemId);
-        Comment comment = CommentMapper.toComment(commentRequestDto, author, item);
+        if (!creationView.getBooked()) {
+            String message = "it's forbidden to comment item you've never booked";
+            log.error("ValidationException: " + message);
+            throw new ValidationException("it's forbidden to comment item you've never booked");
+        }
+
+        Comment comment = CommentMapper.toComment(commentRequestDto,
+                userJPARepository.getReferenceById(userId), itemJPARepository.getReferenceById(itemId));
         Comment savedComment = commentJPARepository.save(comment);
-        log.info("Created the comment with authorId={}, itemId={}, and comment={}", userId, itemId, savedComment);
-        return CommentMapper.toCommentResponseDto(savedComment);
+        itemViewProjection.onCommentAdded(savedComment);
+        log.info("Created the comment with authorId={}, itemId={}, and id={}", userId, itemId, savedComment.getId());
+        return CommentMapper.toCommentResponseDto(savedComment, creationView.getAuthorName());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<CommentResponseDto> getComments(Long itemId, String cursor, Integer size) {
+        if (!itemJPARepository.existsById(itemId)) {
+            String message = "there is no item with id: " + itemId;
+            log.error("ItemNotExistException: " + message);
+            throw new ItemNotExistException(message);
+        }
+
+        Pageable pageRequest = PageRequest.of(0, size + 1);
+        List<Comment> comments = Cursor.decodeWithTime(cursor)
+                .map(after -> commentJPARepository
+                        .findAllByItemIdBefore(itemId, after.getTime(), after.getId(), pageRequest))
+                .orElseGet(() -> commentJPARepository.findAllByItemIdOrderByCreatedDescIdDesc(itemId, pageRequest));
+        CursorPage<Comment> page = CursorPage.of(comments, size,
+                comment -> Cursor.of(comment.getCreated(), comment.getId()));
+
+        log.info("Provided comments of the item with id={}, number of comments={}", itemId, page.getContent().size());
+        return page.map(CommentMapper::toCommentResponseDtoList);
+    }
+
+    /**
+     * Free intervals of [from, to) of every item, the past and items not available for booking are never free.
+     * Approved and waiting bookings of all the items are read by one range query ordered by item and start.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<ItemAvailabilityDto> getAvailability(List<Long> itemIds, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            String message = "incorrect date and time for the start and the end of the period";
+            log.error("InvalidLocalDateTimeException: " + message);
+            throw new InvalidLocalDateTimeException(message);
+        }
+
+        List<Long> distinctIds = itemIds.stream()
+                .distinct()
+                .collect(Collectors.toList());
+        Map<Long, Boolean> available = itemJPARepository.findAvailableViews(distinctIds).stream()
+                .collect(Collectors.toMap(ItemAvailableView::getId, ItemAvailableView::getAvailable));
+        for (Long itemId : distinctIds) {
+            if (!available.containsKey(itemId)) {
+                String message = "there is no item with id: " + itemId;
+                log.error("ItemNotExistException: " + message);
+                throw new ItemNotExistException(message);
+            }
+        }
+
+        // items not available for booking have no free time, createBooking rejects them
+        List<Long> availableIds = distinctIds.stream()
+                .filter(itemId -> Boolean.TRUE.equals(available.get(itemId)))
+                .collect(Collectors.toList());
+        LocalDateTime start = latest(from, LocalDateTime.now());
+        Map<Long, List<BookingItemIntervalView>> busy = start.isBefore(to) && !availableIds.isEmpty()
+                ? bookingJPARepository.findOverlappingIntervalsOfItemsInStatuses(availableIds,
+                        OCCUPYING_STATUSES, start, to).stream()
+                .collect(Collectors.groupingBy(BookingItemIntervalView::getItemId))
+                : Collections.emptyMap();
+        List<ItemAvailabilityDto> availability = distinctIds.stream()
+                .map(itemId -> new ItemAvailabilityDto(itemId, Boolean.TRUE.equals(available.get(itemId))
+                        ? getFreeSlots(busy.getOrDefault(itemId, List.of()), start, to)
+                        : List.of()))
+                .collect(Collectors.toList());
+
+        log.info("Provided availability of items with ids={} from {} to {}", distinctIds, from, to);
+        return availability;
+    }
+
+    /**
+     * @param busy intervals ordered by start, they may overlap each other
+     */
+    private static List<ItemAvailabilityDto.Slot> getFreeSlots(List<BookingItemIntervalView> busy,
+                                                             LocalDateTime from, LocalDateTime to) {
+        List<ItemAvailabilityDto.Slot> free = new ArrayList<>();
+        LocalDateTime freeFrom = from;
+        for (BookingItemIntervalView interval : busy) {
+            if (interval.getStart().isAfter(freeFrom)) {
+                free.add(new ItemAvailabilityDto.Slot(freeFrom, interval.getStart()));
+            }
+            freeFrom = latest(freeFrom, interval.getEnd());
+        }
+
+        if (freeFrom.isBefore(to)) {
+            free.add(new ItemAvailabilityDto.Slot(freeFrom, to));
+        }
+
+        return free;
+    }
+
+    private static LocalDateTime latest(LocalDateTime first, LocalDateTime second) {
+        return first.isAfter(second) ? first : second;
+    }
+
+    /**
+     * The author, the item with its owner and a past approved booking of the item by the author
+     * are checked by one query, the comment refers to the author and the item by proxies which are not loaded.
+     */
+    private CommentCreationView getCommentCreationViewOrThrow(Long userId, Long itemId) {
+        Optional<CommentCreationView> creationViewOpt = commentJPARepository
+                .findCreationView(userId, itemId, BookingStatus.APPROVED, LocalDateTime.now());
+        if (creationViewOpt.isEmpty()) {
+            String message = "there is no user with id: " + userId;
+            log.error("UserNotExistException: " + message);
+            throw new UserNotExistException(message);
+        }
+
+        if (creationViewOpt.get().getItemId() == null) {
+            String message = "there is no item with id: " + itemId;
+            log.error("ItemNotExistException: " + message);
+            throw new ItemNotExistException("there is no item with id: " + itemId);
+        }
+
+        return creationViewOpt.get();
     }
 
-    private void validAccessToAddComment(Long userId, Long itemId) {
+    private List<ItemResponseDto> toItemResponseDtoList(List<Item> items) {
         LocalDateTime now = LocalDateTime.now();
-        BookingStatus bookingStatus = BookingStatus.APPROVED;
-        List<Booking> bookings = bookingJPARepository
-                .findAllByItemIdAndBookerIdAndStatusAndStartIsBefore(itemId, userId, bookingStatus, now);
+        List<Long> itemIds = items.stream()
+                .map(Item::getId)
+                .collect(Collectors.toList());
+        Map<Long, List<Comment>> commentsTable = getLatestCommentsOfItems(itemIds);
+        Map<Long, Long> commentCounts = getCommentCounts(commentsTable);
+        Map<Long, BookingItemResponseDto> lastBookings = getLastBookings(itemIds, now);
+        Map<Long, BookingItemResponseDto> nextBookings = getNextBookings(itemIds, now);
 
-        if (bookings.isEmpty()) {
-            String message = "it's forbidden to comment item you've never booked";
-            log.error("ValidationException: " + message);
-            throw new ValidationException("it's forbidden to comment item you've never booked");
+        return items.stream()
+                .map(item -> ItemMapper.toItemResponseDto(
+                        item,
+                        lastBookings.get(item.getId()),
+                        nextBookings.get(item.getId()),
+                        CommentMapper.toCommentResponseDtoList(
+                                commentsTable.getOrDefault(item.getId(), Collections.emptyList())),
+                        commentCounts.getOrDefault(item.getId(), 0L)
+                ))
+                .collect(Collectors.toList());
+    }
+
+    private Map<Long, BookingItemResponseDto> getLastBookings(List<Long> itemIds, LocalDateTime now) {
+        if (itemIds.isEmpty()) {
+            return Collections.emptyMap();
         }
+
+        return bookingJPARepository.findLastApprovedBookingsOfItems(itemIds, now).stream()
+                .collect(Collectors.toMap(BookingShortView::getItemId, BookingMapper::toBookingItemResponseDto));
     }
 
-    private ItemResponseDto toItemResponseDto(Item item, List<Comment> comments, LocalDateTime now) {
-        BookingItemResponseDto lastBooking = getLastBooking(item.getId(), now);
-        BookingItemResponseDto nextBooking = getNextBooking(item.getId(), now);
-        List<CommentResponseDto> commentsDto = CommentMapper.toCommentResponseDtoList(comments);
+    private Map<Long, BookingItemResponseDto> getNextBookings(List<Long> itemIds, LocalDateTime now) {
+        if (itemIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
 
-        return ItemMapper.toItemResponseDto(item, lastBooking, nextBooking, commentsDto);
+        return bookingJPARepository.findNextApprovedBookingsOfItems(itemIds, now).stream()
+                .collect(Collectors.toMap(BookingShortView::getItemId, BookingMapper::toBookingItemResponseDto));
     }
 
-    private Map<Item, List<Comment>> getCommentOfItems(List<Item> items) {
-        List<Comment> comments = commentJPARepository.findAllByItemIn(items);
+    private Map<Long, List<Comment>> getLatestCommentsOfItems(List<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
 
-        return comments.stream()
-                .collect(Collectors.groupingBy(Comment::getItem));
+        return commentJPARepository.findLatestCommentsOfItems(itemIds, LATEST_COMMENTS_COUNT).stream()
+                .collect(Collectors.groupingBy(comment -> comment.getItem().getId()));
+    }
+
+    /**
+     * Items with fewer comments than the limit got all of them, only the others need to be counted.
+     */
+    private Map<Long, Long> getCommentCounts(Map<Long, List<Comment>> commentsTable) {
+        Map<Long, Long> commentCounts = new HashMap<>();
+        List<Long> truncatedItemIds = new ArrayList<>();
+        commentsTable.forEach((itemId, comments) -> {
+            commentCounts.put(itemId, (long) comments.size());
+            if (comments.size() >= LATEST_COMMENTS_COUNT) {
+                truncatedItemIds.add(itemId);
+            }
+        });
+
+        if (!truncatedItemIds.isEmpty()) {
+            commentJPARepository.countCommentsOfItems(truncatedItemIds)
+                    .forEach(count -> commentCounts.put(count.getItemId(), count.getCount()));
+        }
+
+        return commentCounts;
     }
 
     private User getUserOrThrow(Long userId) {
@@ -208,30 +483,18 @@ public class ItemJPAServiceImpl implements ItemJPAService {
         return userOpt.get();
     }
 
-    private BookingItemResponseDto getLastBooking(Long itemId, LocalDateTime now) {
-        return bookingJPARepository
-                .findFirstByItemIdAndStatusAndStartIsBeforeOrStartEqualsOrderByEndDesc(itemId,
-                        BookingStatus.APPROVED,
-                        now,
-                        now)
-                .map(BookingMapper::toBookingItemResponseDto)
-                .orElse(null);
-    }
-
-    private BookingItemResponseDto getNextBooking(Long itemId, LocalDateTime now) {
-        return bookingJPARepository
-                .findFirstByItemIdAndStatusAndStartIsAfterOrStartEqualsOrderByStart(itemId,
-                        BookingStatus.APPROVED,
-                        now,
-                        now)
-                .map(BookingMapper::toBookingItemResponseDto)
-                .orElse(null);
+    private static BookingItemResponseDto toBookingItemResponseDto(Long bookingId, Long bookerId) {
+        return bookingId == null ? null : new BookingItemResponseDto(bookingId, bookerId);
     }
 
-    private List<CommentResponseDto> getCommentsByItemId(Long itemId) {
-        List<Comment> comments = commentJPARepository.findAllByItemId(itemId);
-
-        return CommentMapper.toCommentResponseDtoList(comments);
+    /**
+     * @return the latest comments of the item in chronological order
+     */
+    private List<Comment> getLatestCommentsByItemId(Long itemId) {
+        List<Comment> comments = new ArrayList<>(commentJPARepository
+                .findAllByItemIdOrderByCreatedDescIdDesc(itemId, PageRequest.of(0, LATEST_COMMENTS_COUNT)));
+        Collections.reverse(comments);
+        return comments;
     }
 
     private Item updateValidFields(Item item, ItemDto newItem) {
@@ -258,6 +521,17 @@ public class ItemJPAServiceImpl implements ItemJPAService {
         return Objects.equals(item.getOwner().getId(), ownerId);
     }
 
+    private ItemView getItemViewOrThrow(Long itemId) {
+        Optional<ItemView> itemViewOpt = itemViewProjection.getItemView(itemId, LocalDateTime.now());
+        if (itemViewOpt.isEmpty()) {
+            String message = "there is no item with id: " + itemId;
+            log.error("ItemNotExistException: " + message);
+            throw new ItemNotExistException(message);
+        }
+
+        return itemViewOpt.get();
+    }
+
     private Item getItemOrThrow(Long itemId) {
         Optional<Item> itemOpt = itemJPARepository.findById(itemId);
         if (itemOpt.isEmpty()) {
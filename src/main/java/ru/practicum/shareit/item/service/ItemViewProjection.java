@@ -0,0 +1,155 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.BookingIntervalView;
+import ru.practicum.shareit.booking.index.BookingInterval;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.store.BookingJPARepository;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemView;
+import ru.practicum.shareit.item.storage.CommentJPARepository;
+import ru.practicum.shareit.item.storage.ItemJPARepository;
+import ru.practicum.shareit.item.storage.ItemViewJPARepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Maintains {@link ItemView} rows in the transaction of every write changing them.
+ * Item columns, booking columns and the comment count are written by separate updates;
+ * booking columns are recomputed under a lock of the row, so concurrent approvals are not lost.
+ * Last and next bookings also change with time: once the start of the next booking has come,
+ * reads take them from the {@link BookingIntervalIndex} until the next booking write of the item.
+ * Reads never write.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ItemViewProjection {
+    private static final Pageable FIRST = PageRequest.of(0, 1);
+
+    private final ItemViewJPARepository itemViewJPARepository;
+    private final ItemJPARepository itemJPARepository;
+    private final BookingJPARepository bookingJPARepository;
+    private final CommentJPARepository commentJPARepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
+
+    public Optional<ItemView> getItemView(Long itemId, LocalDateTime now) {
+        Optional<ItemView> view = itemViewJPARepository.findById(itemId);
+        if (view.isEmpty()) {
+            // items saved bypassing the services
+            return itemJPARepository.findById(itemId).map(item -> withIndexedBookings(withItem(ItemView.builder(), item)
+                    .commentCount(commentJPARepository.countByItemId(itemId))
+                    .build(), now));
+        }
+
+        LocalDateTime validUntil = view.get().getBookingsValidUntil();
+        if (validUntil != null && !now.isBefore(validUntil)) {
+            return Optional.of(withIndexedBookings(view.get(), now));
+        }
+
+        return view;
+    }
+
+    public void onItemCreated(Item item) {
+        itemViewJPARepository.save(withItem(ItemView.builder(), item)
+                .commentCount(0L)
+                .build());
+    }
+
+    public void onItemUpdated(Item item) {
+        int updated = itemViewJPARepository.updateItemColumns(item.getId(), item.getName(), item.getDescription(),
+                item.getAvailable(), item.getOwner().getId(), requestIdOf(item));
+        if (updated == 0) {
+            rebuild(item, LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Only approved bookings are shown as the last and the next ones, so a new waiting booking changes nothing.
+     */
+    public void onBookingSaved(Booking booking) {
+        if (booking.getStatus() == BookingStatus.WAITING) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Long itemId = booking.getItem().getId();
+        if (itemViewJPARepository.findByIdForUpdate(itemId).isEmpty()) {
+            rebuild(booking.getItem(), now);
+            return;
+        }
+
+        ItemView bookings = withBookings(ItemView.builder().itemId(itemId).build(), now);
+        itemViewJPARepository.updateBookingColumns(itemId, bookings.getLastBookingId(), bookings.getLastBookerId(),
+                bookings.getNextBookingId(), bookings.getNextBookerId(), bookings.getBookingsValidUntil());
+    }
+
+    public void onCommentAdded(Comment comment) {
+        if (itemViewJPARepository.incrementCommentCount(comment.getItem().getId()) == 0) {
+            rebuild(comment.getItem(), LocalDateTime.now());
+        }
+    }
+
+    private ItemView rebuild(Item item, LocalDateTime now) {
+        ItemView view = withItem(ItemView.builder(), item)
+                .commentCount(commentJPARepository.countByItemId(item.getId()))
+                .build();
+        log.debug("rebuilt the view of the item with id={}", item.getId());
+        return itemViewJPARepository.save(withBookings(view, now));
+    }
+
+    private ItemView withBookings(ItemView view, LocalDateTime now) {
+        Optional<BookingIntervalView> last = first(bookingJPARepository
+                .findLastIntervalsByItemIdAndStatus(view.getItemId(), BookingStatus.APPROVED, now, FIRST));
+        Optional<BookingIntervalView> next = first(bookingJPARepository
+                .findNextIntervalsByItemIdAndStatus(view.getItemId(), BookingStatus.APPROVED, now, FIRST));
+
+        return view.toBuilder()
+                .lastBookingId(last.map(BookingIntervalView::getId).orElse(null))
+                .lastBookerId(last.map(BookingIntervalView::getBookerId).orElse(null))
+                .nextBookingId(next.map(BookingIntervalView::getId).orElse(null))
+                .nextBookerId(next.map(BookingIntervalView::getBookerId).orElse(null))
+                .bookingsValidUntil(next.map(BookingIntervalView::getStart).orElse(null))
+                .build();
+    }
+
+    private ItemView withIndexedBookings(ItemView view, LocalDateTime now) {
+        Optional<BookingInterval> last = bookingIntervalIndex.findLastApproved(view.getItemId(), now);
+        Optional<BookingInterval> next = bookingIntervalIndex.findNextApproved(view.getItemId(), now);
+
+        return view.toBuilder()
+                .lastBookingId(last.map(BookingInterval::getId).orElse(null))
+                .lastBookerId(last.map(BookingInterval::getBookerId).orElse(null))
+                .nextBookingId(next.map(BookingInterval::getId).orElse(null))
+                .nextBookerId(next.map(BookingInterval::getBookerId).orElse(null))
+                .bookingsValidUntil(next.map(BookingInterval::getStart).orElse(null))
+                .build();
+    }
+
+    private static ItemView.ItemViewBuilder withItem(ItemView.ItemViewBuilder builder, Item item) {
+        return builder
+                .itemId(item.getId())
+                .name(item.getName())
+                .description(item.getDescription())
+                .available(item.getAvailable())
+                .ownerId(item.getOwner().getId())
+                .requestId(requestIdOf(item));
+    }
+
+    private static Long requestIdOf(Item item) {
+        return item.getRequest() == null ? null : item.getRequest().getId();
+    }
+
+    private static <T> Optional<T> first(List<T> list) {
+        return list.stream().findFirst();
+    }
+}
@@ -1,14 +1,60 @@
 package ru.practicum.shareit.item.storage;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.dto.CommentCountView;
+import ru.practicum.shareit.item.dto.CommentCreationView;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface CommentJPARepository extends JpaRepository<Comment, Long> {
 
     List<Comment> findAllByItemId(Long itemId);
 
     List<Comment> findAllByItemIn(List<Item> items);
+
+    long countByItemId(Long itemId);
+
+    List<Comment> findAllByItemIdOrderByCreatedDescIdDesc(Long itemId, Pageable pageRequest);
+
+    @Query("select c from Comment c " +
+            "where c.item.id = ?1 and (c.created < ?2 or (c.created = ?2 and c.id < ?3)) " +
+            "order by c.created desc, c.id desc")
+    List<Comment> findAllByItemIdBefore(Long itemId, LocalDateTime created, Long id, Pageable pageRequest);
+
+    @Query(value = "select c.id, c.text, c.author, c.item, c.created from (" +
+            "select cm.*, row_number() over (partition by cm.item order by cm.created desc, cm.id desc) as rn " +
+            "from comments cm " +
+            "where cm.item in (:itemIds)) c " +
+            "where c.rn <= :limit " +
+            "order by c.item, c.created, c.id", nativeQuery = true)
+    List<Comment> findLatestCommentsOfItems(@Param("itemIds") Collection<Long> itemIds, @Param("limit") int limit);
+
+    @Query("select c.item.id as itemId, count(c.id) as count from Comment c " +
+            "where c.item.id in ?1 " +
+            "group by c.item.id")
+    List<CommentCountView> countCommentsOfItems(Collection<Long> itemIds);
+
+    /**
+     * Empty if there is no author, the item id is null if there is no such item. The booking of the item
+     * by the author is looked for among the bookings and the archived bookings.
+     */
+    @Query("select u.name as authorName, i.id as itemId, i.owner.id as ownerId, " +
+            "case when exists (select b.id from Booking b " +
+            "where b.item.id = ?2 and b.booker.id = ?1 and b.status = ?3 and b.start < ?4) " +
+            "or exists (select a.id from ArchivedBooking a " +
+            "where a.item.id = ?2 and a.booker.id = ?1 and a.status = ?3 and a.start < ?4) " +
+            "then true else false end as booked " +
+            "from User u left join Item i on i.id = ?2 " +
+            "where u.id = ?1")
+    Optional<CommentCreationView> findCreationView(Long authorId, Long itemId, BookingStatus status,
+                                                   LocalDateTime before);
 }
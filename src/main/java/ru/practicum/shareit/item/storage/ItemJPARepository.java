@@ -2,23 +2,79 @@ package ru.practicum.shareit.item.storage;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.item.dto.ItemAvailableView;
+import ru.practicum.shareit.item.dto.ItemCreationView;
+import ru.practicum.shareit.item.dto.ItemTextView;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.model.ItemRequest;
 
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Repository
 public interface ItemJPARepository extends JpaRepository<Item, Long> {
     List<Item> findAllByOwnerId(Long ownerId, Pageable pageRequest);
 
+    List<Item> findAllByOwnerIdAndIdGreaterThanOrderById(Long ownerId, Long lastId, Pageable pageRequest);
+
     @Query("select i from Item i " +
             "where i.available = true and ((lower(i.name)) like lower(concat('%', ?1, '%')) " +
-            "or lower(i.description) like lower(concat('%', ?1, '%')))")
+            "or lower(i.description) like lower(concat('%', ?1, '%'))) " +
+            "order by i.id")
     List<Item> searchItemBySubstring(String text, Pageable pageRequest);
 
+    @Query("select i from Item i " +
+            "where i.available = true and ((lower(i.name)) like lower(concat('%', ?1, '%')) " +
+            "or lower(i.description) like lower(concat('%', ?1, '%'))) and i.id > ?2 " +
+            "order by i.id")
+    List<Item> searchItemBySubstringAfter(String text, Long lastId, Pageable pageRequest);
+
+    @Query("select i.id as id, i.name as name, i.description as description from Item i " +
+            "where i.available = true and i.id > ?1 " +
+            "order by i.id")
+    List<ItemTextView> findAvailableItemTexts(Long lastId, Pageable pageRequest);
+
+    @Query("select i.id as id, i.available as available from Item i where i.id in ?1")
+    List<ItemAvailableView> findAvailableViews(Collection<Long> ids);
+
+    /**
+     * Empty if there is no owner, the request id is null if there is no such request.
+     */
+    @Query("select u.id as ownerId, r.id as requestId from User u " +
+            "left join ItemRequest r on r.id = ?2 " +
+            "where u.id = ?1")
+    Optional<ItemCreationView> findCreationView(Long ownerId, Long requestId);
+
     List<Item> findAllByRequestId(Long requestId);
 
+    /**
+     * Loads the items locking their rows till the end of the transaction, in id order to avoid deadlocks.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<Item> findAllByIdInOrderById(Collection<Long> ids);
+
     List<Item> findAllByRequestIn(List<ItemRequest> requests);
+
+    default List<Item> findAllByIdInOrder(List<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<Long, Item> items = findAllById(itemIds).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        return itemIds.stream()
+                .map(items::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
 }
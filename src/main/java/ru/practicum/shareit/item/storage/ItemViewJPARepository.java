@@ -0,0 +1,43 @@
+package ru.practicum.shareit.item.storage;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.item.model.ItemView;
+
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Item columns, booking columns and the comment count of a view are written by separate updates,
+ * so concurrent writes of different parts do not overwrite each other.
+ */
+@Repository
+public interface ItemViewJPARepository extends JpaRepository<ItemView, Long> {
+
+    /**
+     * Locks the row till the end of the transaction: bookings read after it include those committed meanwhile.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select v from ItemView v where v.itemId = ?1")
+    Optional<ItemView> findByIdForUpdate(Long itemId);
+
+    @Modifying
+    @Query("update ItemView v set v.name = ?2, v.description = ?3, v.available = ?4, v.ownerId = ?5, " +
+            "v.requestId = ?6 where v.itemId = ?1")
+    int updateItemColumns(Long itemId, String name, String description, Boolean available, Long ownerId,
+                          Long requestId);
+
+    @Modifying
+    @Query("update ItemView v set v.lastBookingId = ?2, v.lastBookerId = ?3, v.nextBookingId = ?4, " +
+            "v.nextBookerId = ?5, v.bookingsValidUntil = ?6 where v.itemId = ?1")
+    int updateBookingColumns(Long itemId, Long lastBookingId, Long lastBookerId, Long nextBookingId,
+                             Long nextBookerId, LocalDateTime bookingsValidUntil);
+
+    @Modifying
+    @Query("update ItemView v set v.commentCount = v.commentCount + 1 where v.itemId = ?1")
+    int incrementCommentCount(Long itemId);
+}
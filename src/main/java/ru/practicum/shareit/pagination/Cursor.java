@@ -0,0 +1,77 @@
+package ru.practicum.shareit.pagination;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import ru.practicum.shareit.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Position after the last row of a page in keyset pagination: the sort key of the row and its id.
+ * Clients get it as an opaque string and pass it back unchanged to get the next page.
+ */
+@Value
+@Slf4j
+public class Cursor {
+    private static final String SEPARATOR = ",";
+
+    LocalDateTime time;
+    Long id;
+
+    public static Cursor of(Long id) {
+        return new Cursor(null, id);
+    }
+
+    public static Cursor of(LocalDateTime time, Long id) {
+        return new Cursor(time, id);
+    }
+
+    /**
+     * @return cursor of a listing sorted by id, or empty for the first page when the value is blank
+     */
+    public static Optional<Cursor> decode(String value) {
+        return decode(value, false);
+    }
+
+    /**
+     * @return cursor of a listing sorted by time and id, or empty for the first page when the value is blank
+     */
+    public static Optional<Cursor> decodeWithTime(String value) {
+        return decode(value, true);
+    }
+
+    public String encode() {
+        String value = time == null ? String.valueOf(id) : time + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Optional<Cursor> decode(String value, boolean withTime) {
+        if (value == null || value.isBlank()) {
+            return Optional.empty();
+        }
+
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8)
+                    .split(SEPARATOR, -1);
+            if (parts.length != (withTime ? 2 : 1)) {
+                throw invalidCursor(value);
+            }
+
+            return Optional.of(withTime
+                    ? of(LocalDateTime.parse(parts[0]), Long.valueOf(parts[1]))
+                    : of(Long.valueOf(parts[0])));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw invalidCursor(value);
+        }
+    }
+
+    private static ValidationException invalidCursor(String value) {
+        String message = "invalid cursor: " + value;
+        log.error("ValidationException: " + message);
+        return new ValidationException(message);
+    }
+}
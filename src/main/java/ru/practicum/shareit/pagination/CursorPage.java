@@ -0,0 +1,46 @@
+package ru.practicum.shareit.pagination;
+
+import lombok.Value;
+
+import javax.servlet.http.HttpServletResponse;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Page of a keyset paginated listing with the cursor of the next page, {@code null} on the last page.
+ */
+@Value
+public class CursorPage<T> {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    List<T> content;
+    String nextCursor;
+
+    /**
+     * @param rows rows after the cursor, fetched with the limit of {@code size + 1}
+     *             so that an extra row tells there is a next page
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, Cursor> cursorOf) {
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null);
+        }
+
+        List<T> content = rows.subList(0, size);
+        return new CursorPage<>(content, cursorOf.apply(content.get(size - 1)).encode());
+    }
+
+    public <R> CursorPage<R> map(Function<List<T>, List<R>> mapper) {
+        return new CursorPage<>(mapper.apply(content), nextCursor);
+    }
+
+    /**
+     * Sends the next cursor in the {@value NEXT_CURSOR_HEADER} header and returns the content as the body.
+     */
+    public List<T> writeTo(HttpServletResponse response) {
+        if (nextCursor != null) {
+            response.setHeader(NEXT_CURSOR_HEADER, nextCursor);
+        }
+
+        return content;
+    }
+}
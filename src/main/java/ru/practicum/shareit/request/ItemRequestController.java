@@ -6,10 +6,12 @@ import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestResponseDto;
 import ru.practicum.shareit.request.service.ItemRequestJPAService;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Positive;
@@ -54,9 +56,17 @@ public class ItemRequestController {
                                                     @PositiveOrZero @RequestParam(
                                                             value = "from", defaultValue = "0") Integer from,
                                                     @Positive @RequestParam(
-                                                            value = "size", defaultValue = "10") Integer size) {
-        log.info("GET-request: reqquest info about other item requests from userId={}, with from={}, and size={}",
-                requesterId, from, size);
+                                                            value = "size", defaultValue = "10") Integer size,
+                                                    @RequestParam(value = "cursor", required = false) String cursor,
+                                                    HttpServletResponse response) {
+        log.info("GET-request: reqquest info about other item requests from userId={}, with from={}, size={}, cursor={}",
+                requesterId, from, size, cursor);
+        if (cursor != null) {
+            CursorPage<ItemRequestResponseDto> page =
+                    itemRequestJPAService.getAllOtherRequestsAfter(requesterId, cursor, size);
+            return page.writeTo(response);
+        }
+
         return itemRequestJPAService.getAllOtherRequests(requesterId, from, size);
     }
 
@@ -1,6 +1,7 @@
 package ru.practicum.shareit.request.service;
 
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.request.dto.ItemRequestResponseDto;
 
 import java.util.List;
@@ -13,4 +14,6 @@ public interface ItemRequestJPAService {
     ItemRequestResponseDto getRequestById(Long requesterId, Long requestId);
 
     List<ItemRequestResponseDto> getAllOtherRequests(Long requesterId, Integer from, Integer size);
+
+    CursorPage<ItemRequestResponseDto> getAllOtherRequestsAfter(Long requesterId, String cursor, Integer size);
 }
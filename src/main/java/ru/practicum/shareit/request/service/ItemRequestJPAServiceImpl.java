@@ -12,6 +12,8 @@ import ru.practicum.shareit.exception.ItemRequestNotExistException;
 import ru.practicum.shareit.exception.UserNotExistException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.storage.ItemJPARepository;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.request.ItemRequestMapper;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestResponseDto;
@@ -78,14 +80,36 @@ public class ItemRequestJPAServiceImpl implements ItemRequestJPAService {
         List<ItemRequest> itemRequests = itemRequestJpaRepository
                 .findAllByRequesterIdIsNotOrderByCreatedDesc(requesterId, pageRequest);
 
-        Map<ItemRequest, List<Item>> requests = getItemsOfItemRequest(itemRequests);
+        List<ItemRequestResponseDto> requestResponseDtos = toItemRequestResponseDtoList(itemRequests);
+        logItemRequestList(requestResponseDtos);
+        return requestResponseDtos;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<ItemRequestResponseDto> getAllOtherRequestsAfter(Long requesterId, String cursor, Integer size) {
+        getUserOrThrow(requesterId);
+        Optional<Cursor> after = Cursor.decodeWithTime(cursor);
+        Pageable pageRequest = PageRequest.of(0, size + 1);
+
+        List<ItemRequest> itemRequests = after.isEmpty()
+                ? itemRequestJpaRepository.findAllByRequesterIdIsNotOrderByCreatedDescIdDesc(requesterId, pageRequest)
+                : itemRequestJpaRepository.findAllByRequesterIdIsNotBefore(requesterId,
+                after.get().getTime(), after.get().getId(), pageRequest);
+        CursorPage<ItemRequestResponseDto> page = CursorPage
+                .of(itemRequests, size, request -> Cursor.of(request.getCreated(), request.getId()))
+                .map(this::toItemRequestResponseDtoList);
+
+        logItemRequestList(page.getContent());
+        return page;
+    }
 
-        List<ItemRequestResponseDto> requestResponseDtos = itemRequests.stream()
+    private List<ItemRequestResponseDto> toItemRequestResponseDtoList(List<ItemRequest> itemRequests) {
+        Map<ItemRequest, List<Item>> requests = getItemsOfItemRequest(itemRequests);
+        return itemRequests.stream()
                 .map(item -> ItemRequestMapper
                         .toItemRequestResponseDto(item, requests.getOrDefault(item, Collections.emptyList())))
                 .collect(Collectors.toList());
-        logItemRequestList(requestResponseDtos);
-        return requestResponseDtos;
     }
 
     private void logItemRequestList(List<ItemRequestResponseDto> resultItemRequests) {
@@ -1,10 +1,12 @@
 package ru.practicum.shareit.request.store;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import ru.practicum.shareit.request.model.ItemRequest;
 import org.springframework.data.domain.Pageable;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -13,4 +15,14 @@ public interface ItemRequestJPARepository extends JpaRepository<ItemRequest, Lon
     List<ItemRequest> findAllByRequesterIdOrderByCreatedDesc(Long requesterId);
 
     List<ItemRequest> findAllByRequesterIdIsNotOrderByCreatedDesc(Long requester, Pageable pageRequest);
+
+    List<ItemRequest> findAllByRequesterIdIsNotOrderByCreatedDescIdDesc(Long requester, Pageable pageRequest);
+
+    @Query("select r from ItemRequest r " +
+            "where r.requester.id <> ?1 and (r.created < ?2 or (r.created = ?2 and r.id < ?3)) " +
+            "order by r.created desc, r.id desc")
+    List<ItemRequest> findAllByRequesterIdIsNotBefore(Long requester,
+                                                      LocalDateTime created,
+                                                      Long id,
+                                                      Pageable pageRequest);
 }
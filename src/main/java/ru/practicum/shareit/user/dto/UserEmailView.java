@@ -0,0 +1,7 @@
+package ru.practicum.shareit.user.dto;
+
+public interface UserEmailView {
+    Long getId();
+
+    String getEmail();
+}
@@ -0,0 +1,72 @@
+package ru.practicum.shareit.user.index;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter of strings: {@link #mightContain} is false only for strings never added,
+ * and true for a string never added with about the false positive rate the filter is sized for.
+ * The bit positions are derived from a 64-bit FNV-1a hash split into two halves. Thread-safe.
+ */
+public class EmailBloomFilter {
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+
+    public EmailBloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        this.bits = Math.max(64, (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+        this.hashes = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+        this.words = new AtomicLongArray(Math.toIntExact((bits + 63) / 64));
+    }
+
+    public void add(String value) {
+        long hash = hash(value);
+        long first = (int) hash;
+        long second = (int) (hash >>> 32);
+        for (int i = 1; i <= hashes; i++) {
+            long bit = index(first + i * second);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = words.get(word);
+            } while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    public boolean mightContain(String value) {
+        long hash = hash(value);
+        long first = (int) hash;
+        long second = (int) (hash >>> 32);
+        for (int i = 1; i <= hashes; i++) {
+            long bit = index(first + i * second);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public long bitSize() {
+        return bits;
+    }
+
+    public int hashCount() {
+        return hashes;
+    }
+
+    private long index(long combined) {
+        return (combined & Long.MAX_VALUE) % bits;
+    }
+
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+
+        return hash;
+    }
+}
@@ -0,0 +1,107 @@
+package ru.practicum.shareit.user.index;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.user.dto.UserEmailView;
+import ru.practicum.shareit.user.storage.UserJPARepository;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Optional {@link EmailBloomFilter} of the normalized emails of all users, loaded on startup
+ * and extended by every saved email, so most checks of a free email never reach the database.
+ * Emails of deleted users and old emails stay in the filter and only cost a database check.
+ * Emails saved by another instance are not seen, so the filter is for a single instance;
+ * {@code shareit.user.email-filter.expected-emails=0} disables it.
+ * Metrics: {@code shareit.user.email-filter.checks} (result=absent|maybe).
+ */
+@Component
+@Slf4j
+public class UserEmailIndex {
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    private final UserJPARepository userJPARepository;
+    private final EmailBloomFilter filter;
+    private volatile boolean loaded;
+
+    private final Counter absent;
+    private final Counter maybe;
+
+    public UserEmailIndex(UserJPARepository userJPARepository,
+                          @Value("${shareit.user.email-filter.expected-emails:0}") long expectedEmails,
+                          @Value("${shareit.user.email-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                          MeterRegistry meterRegistry) {
+        this.userJPARepository = userJPARepository;
+        this.filter = expectedEmails > 0 ? new EmailBloomFilter(expectedEmails, falsePositiveRate) : null;
+        this.absent = checkCounter(meterRegistry, "absent");
+        this.maybe = checkCounter(meterRegistry, "maybe");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (filter == null) {
+            return;
+        }
+
+        long lastId = 0L;
+        int loadedEmails = 0;
+        List<UserEmailView> batch;
+        do {
+            batch = userJPARepository.findEmails(lastId, PageRequest.of(0, LOAD_BATCH_SIZE));
+            for (UserEmailView user : batch) {
+                filter.add(normalize(user.getEmail()));
+                lastId = user.getId();
+            }
+            loadedEmails += batch.size();
+        } while (batch.size() == LOAD_BATCH_SIZE);
+        loaded = true;
+        log.info("email filter is loaded, number of emails={}, bits={}, hashes={}",
+                loadedEmails, filter.bitSize(), filter.hashCount());
+    }
+
+    /**
+     * @return false only if no user has the email in any case; always true while the filter is disabled or loading
+     */
+    public boolean mightExist(String email) {
+        if (filter == null || !loaded) {
+            return true;
+        }
+
+        if (filter.mightContain(normalize(email))) {
+            maybe.increment();
+            return true;
+        }
+
+        absent.increment();
+        return false;
+    }
+
+    /**
+     * Called with every saved email before commit: a rolled back email is only a false positive.
+     */
+    public void add(String email) {
+        if (filter != null) {
+            filter.add(normalize(email));
+        }
+    }
+
+    /**
+     * Through upper case first: emails equal by the upper() of the query must get the same key.
+     */
+    private static String normalize(String email) {
+        return email.trim().toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+    }
+
+    private static Counter checkCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("shareit.user.email-filter.checks")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -2,9 +2,12 @@ package ru.practicum.shareit.user.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import ru.practicum.shareit.exception.UserAlreadyExistException;
 import ru.practicum.shareit.exception.UserNotExistException;
+import ru.practicum.shareit.user.index.UserEmailIndex;
 import ru.practicum.shareit.user.storage.UserJPARepository;
 import ru.practicum.shareit.user.UserMapper;
 import ru.practicum.shareit.user.dto.UserDto;
@@ -14,6 +17,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -22,14 +26,16 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 @Slf4j
 public class UserJPAServiceImpl implements UserJPAService {
+    private static final String EMAIL_CONSTRAINT = "unique_user_email";
 
     private final UserJPARepository userJPARepository;
+    private final UserEmailIndex userEmailIndex;
 
     @Override
     @Transactional
     public UserDto createUser(UserDto userDto) {
         User user = UserMapper.toUser(userDto);
-        User savedUser = userJPARepository.save(user);
+        User savedUser = saveOrThrow(user);
         userDto = UserMapper.toUserDto(savedUser);
         log.info("Created USER={}", userDto);
         return userDto;
@@ -65,12 +71,12 @@ public class UserJPAServiceImpl implements UserJPAService {
         }
         if (newEmail != null && !newEmail.isBlank()) {
             if (!Objects.equals(fetchedUser.getEmail(), userDto.getEmail())) {
-                emailAlreadyExistValidation(userDto.getId(), newEmail);
+                emailAlreadyExistValidation(userId, newEmail);
                 fetchedUser = fetchedUser.toBuilder().email(newEmail).build();
             }
         }
 
-        userJPARepository.save(fetchedUser);
+        saveOrThrow(fetchedUser);
         log.info("USER with id={} was UPDATED: {}", fetchedUser.getId(), fetchedUser);
 
         return UserMapper.toUserDto(fetchedUser);
@@ -84,18 +90,56 @@ public class UserJPAServiceImpl implements UserJPAService {
         log.info("user with id={} was deleted", userId);
     }
 
+    /**
+     * On update emails differing only in case are the same email; creation keeps the exact,
+     * case-sensitive unique_user_email as before. The filter answers most checks of a free email,
+     * the rest are answered by an indexed query.
+     */
     private void emailAlreadyExistValidation(Long userId, String email) {
-        List<User> storedUser = userJPARepository.findAll().stream()
-                .filter(user1 -> !user1.getId().equals(userId) && user1.getEmail().equals(email))
-                .collect(Collectors.toList());
-
-        if (storedUser.size() > 0) {
-            String message = "user is ALREADY exist with email: " + email;
-            log.error("UserAlreadyExistException: " + message);
-            throw new UserAlreadyExistException(message);
+        if (userEmailIndex.mightExist(email) && userJPARepository.existsByEmailIgnoreCaseAndIdNot(email, userId)) {
+            throwEmailAlreadyExist(email);
         }
     }
 
+    /**
+     * Flushed at once, so a concurrent request taking the same email fails here on unique_user_email
+     * the same way as the check does.
+     */
+    private User saveOrThrow(User user) {
+        userEmailIndex.add(user.getEmail());
+        try {
+            return userJPARepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            if (isEmailConstraintViolation(e)) {
+                throwEmailAlreadyExist(user.getEmail());
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Inserts sent in a JDBC batch come without the constraint name, then it is looked up
+     * in the messages of the driver exceptions.
+     */
+    private static boolean isEmailConstraintViolation(DataIntegrityViolationException e) {
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            String name = cause instanceof ConstraintViolationException
+                    ? ((ConstraintViolationException) cause).getConstraintName()
+                    : cause.getMessage();
+            if (name != null && name.toLowerCase(Locale.ROOT).contains(EMAIL_CONSTRAINT)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void throwEmailAlreadyExist(String email) {
+        String message = "user is ALREADY exist with email: " + email;
+        log.error("UserAlreadyExistException: " + message);
+        throw new UserAlreadyExistException(message);
+    }
+
     private User getUserOrThrow(Long userId) {
         Optional<User> fetchedUserOpt = userJPARepository.findById(userId);
         if (fetchedUserOpt.isEmpty()) {
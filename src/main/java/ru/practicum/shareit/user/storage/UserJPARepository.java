@@ -1,9 +1,23 @@
 package ru.practicum.shareit.user.storage;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.user.dto.UserEmailView;
 import ru.practicum.shareit.user.model.User;
 
+import java.util.List;
+
 @Repository
 public interface UserJPARepository extends JpaRepository<User, Long> {
+    /**
+     * Compares {@code upper(email)}, served on PostgreSQL by the expression index idx_users_email_upper.
+     */
+    boolean existsByEmailIgnoreCaseAndIdNot(String email, Long id);
+
+    @Query("select u.id as id, u.email as email from User u " +
+            "where u.id > ?1 " +
+            "order by u.id")
+    List<UserEmailView> findEmails(Long lastId, Pageable pageRequest);
 }
@@ -0,0 +1,48 @@
+package ru.practicum.shareit.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes values to the response body one JSON document per line as they are produced.
+ * Nothing is sent before the first value, so an exception thrown earlier is still answered with an error status.
+ */
+public class NdjsonWriter {
+    public static final String MEDIA_TYPE = "application/x-ndjson";
+
+    private final JsonGenerator generator;
+    private final ObjectWriter writer;
+
+    private NdjsonWriter(JsonGenerator generator, ObjectWriter writer) {
+        this.generator = generator;
+        this.writer = writer;
+    }
+
+    public static NdjsonWriter of(HttpServletResponse response, ObjectMapper objectMapper) throws IOException {
+        response.setContentType(MEDIA_TYPE);
+        JsonGenerator generator = objectMapper.getFactory()
+                .createGenerator(response.getOutputStream())
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .setRootValueSeparator(null);
+        return new NdjsonWriter(generator, objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE));
+    }
+
+    public void write(Object value) {
+        try {
+            writer.writeValue(generator, value);
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void flush() throws IOException {
+        generator.flush();
+    }
+}
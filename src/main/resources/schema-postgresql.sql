@@ -0,0 +1,15 @@
+-- tables filled before ids were taken from sequences: move every sequence behind the largest id,
+-- the next block handed out by the pooled optimizer is (max id, max id + 50]
+SELECT setval('users_seq', t.max_id) FROM (SELECT MAX(id) AS max_id FROM users) t
+WHERE t.max_id >= (SELECT last_value FROM users_seq);
+SELECT setval('requests_seq', t.max_id) FROM (SELECT MAX(id) AS max_id FROM requests) t
+WHERE t.max_id >= (SELECT last_value FROM requests_seq);
+SELECT setval('items_seq', t.max_id) FROM (SELECT MAX(id) AS max_id FROM items) t
+WHERE t.max_id >= (SELECT last_value FROM items_seq);
+SELECT setval('bookings_seq', t.max_id) FROM (SELECT MAX(id) AS max_id FROM bookings) t
+WHERE t.max_id >= (SELECT last_value FROM bookings_seq);
+SELECT setval('comments_seq', t.max_id) FROM (SELECT MAX(id) AS max_id FROM comments) t
+WHERE t.max_id >= (SELECT last_value FROM comments_seq);
+-- email checks of updates compare upper(email), the case-sensitive unique_user_email index cannot serve them;
+-- not unique, so existing emails differing only in case do not stop the startup
+CREATE INDEX IF NOT EXISTS idx_users_email_upper ON users (upper(email));
@@ -1,3 +1,11 @@
+-- ids are taken by Hibernate in blocks of allocationSize = INCREMENT BY, so inserts can be batched
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS requests_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS items_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS bookings_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS comments_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS booking_events_seq START WITH 1 INCREMENT BY 50;
+
 CREATE TABLE IF NOT EXISTS users
 (
     id    BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
@@ -40,11 +48,57 @@ CREATE TABLE IF NOT EXISTS bookings
     item       BIGINT                                  NOT NULL,
     booker     BIGINT                                  NOT NULL,
     status     booking_status                          NOT NULL,
+    version    BIGINT                                  NOT NULL DEFAULT 0,
     CONSTRAINT pk_booking PRIMARY KEY (id),
     CONSTRAINT fk_booker FOREIGN KEY (booker) references users (id) ON DELETE CASCADE,
     CONSTRAINT fk_item_booking FOREIGN KEY (item) references items (id) ON DELETE CASCADE
 );
 
+-- bookings created before optimistic locking
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+CREATE INDEX IF NOT EXISTS idx_bookings_item_status_start ON bookings (item, status, start_time, end_time);
+CREATE INDEX IF NOT EXISTS idx_bookings_item_end ON bookings (item, end_time);
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_start ON bookings (booker, start_time DESC);
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_status_start ON bookings (booker, status, start_time DESC);
+CREATE INDEX IF NOT EXISTS idx_items_owner ON items (owner);
+
+-- approved, rejected and canceled bookings finished long ago, moved out of bookings by BookingArchiver
+CREATE TABLE IF NOT EXISTS bookings_archive
+(
+    id         BIGINT         NOT NULL,
+    start_time TIMESTAMP      NOT NULL,
+    end_time   TIMESTAMP      NOT NULL,
+    item       BIGINT         NOT NULL,
+    booker     BIGINT         NOT NULL,
+    status     booking_status NOT NULL,
+    version    BIGINT         NOT NULL,
+    CONSTRAINT pk_booking_archive PRIMARY KEY (id),
+    CONSTRAINT fk_booker_archive FOREIGN KEY (booker) references users (id) ON DELETE CASCADE,
+    CONSTRAINT fk_item_booking_archive FOREIGN KEY (item) references items (id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_bookings_status_end ON bookings (status, end_time);
+CREATE INDEX IF NOT EXISTS idx_bookings_status_start ON bookings (status, start_time);
+CREATE INDEX IF NOT EXISTS idx_bookings_archive_start ON bookings_archive (start_time);
+CREATE INDEX IF NOT EXISTS idx_bookings_archive_item_start ON bookings_archive (item, start_time DESC);
+CREATE INDEX IF NOT EXISTS idx_bookings_archive_booker_start ON bookings_archive (booker, start_time DESC);
+
+-- changes of bookings not yet sent by BookingEventDispatcher, no foreign keys: events outlive their rows
+CREATE TABLE IF NOT EXISTS booking_events
+(
+    id         BIGINT         NOT NULL,
+    booking_id BIGINT         NOT NULL,
+    item_id    BIGINT         NOT NULL,
+    owner_id   BIGINT         NOT NULL,
+    booker_id  BIGINT         NOT NULL,
+    status     booking_status NOT NULL,
+    start_time TIMESTAMP      NOT NULL,
+    end_time   TIMESTAMP      NOT NULL,
+    created    TIMESTAMP      NOT NULL,
+    CONSTRAINT pk_booking_event PRIMARY KEY (id)
+);
+
 CREATE TABLE IF NOT EXISTS comments
 (
     id      BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
@@ -56,3 +110,31 @@ CREATE TABLE IF NOT EXISTS comments
     CONSTRAINT fk_author FOREIGN KEY (author) references users (id) ON DELETE CASCADE,
     CONSTRAINT fk_item_comment FOREIGN KEY (item) references items (id) ON DELETE CASCADE
 );
+
+CREATE INDEX IF NOT EXISTS idx_comments_item_created ON comments (item, created);
+
+CREATE TABLE IF NOT EXISTS item_views
+(
+    item_id              BIGINT        NOT NULL,
+    name                 VARCHAR(100)  NOT NULL,
+    description          VARCHAR(1000) NOT NULL,
+    available            BOOLEAN       NOT NULL,
+    owner_id             BIGINT        NOT NULL,
+    request_id           BIGINT,
+    last_booking_id      BIGINT,
+    last_booker_id       BIGINT,
+    next_booking_id      BIGINT,
+    next_booker_id       BIGINT,
+    bookings_valid_until TIMESTAMP,
+    comment_count        BIGINT        NOT NULL,
+    CONSTRAINT pk_item_view PRIMARY KEY (item_id),
+    CONSTRAINT fk_item_view FOREIGN KEY (item_id) references items (id) ON DELETE CASCADE
+);
+
+-- views of items created before the table, their bookings are computed on the first read
+INSERT INTO item_views (item_id, name, description, available, owner_id, request_id, bookings_valid_until,
+                        comment_count)
+SELECT i.id, i.name, i.description, i.available, i.owner, i.request, TIMESTAMP '1970-01-01 00:00:00',
+       (SELECT COUNT(*) FROM comments c WHERE c.item = i.id)
+FROM items i
+WHERE NOT EXISTS (SELECT 1 FROM item_views v WHERE v.item_id = i.id);
@@ -0,0 +1,85 @@
+package ru.practicum.shareit.booking.controller;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.BookingController;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.service.BookingJPAService;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.util.NdjsonWriter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = BookingController.class)
+@AutoConfigureMockMvc
+@TestPropertySource(properties = "shareit.booking.listing.embed-entities=true")
+public class BookingControllerEmbeddedEntitiesTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @MockBean
+    private BookingJPAService bookingJPAService;
+
+    String header = "X-Sharer-User-Id";
+    Long userId = 1L;
+
+    @Test
+    @SneakyThrows
+    public void getByOwner_IsStatusOk_RespondWithWholeBookerAndItem() {
+        BookingResponseDto bookingDto = BookingResponseDto.builder()
+                .id(1L)
+                .start(LocalDateTime.of(2030, 1, 1, 1, 1, 1))
+                .end(LocalDateTime.of(2030, 2, 1, 1, 1, 1))
+                .status(BookingStatus.WAITING)
+                .booker(User.builder()
+                        .id(2L)
+                        .name("Peter")
+                        .email("peter@yandex.ru")
+                        .build())
+                .item(Item.builder()
+                        .id(1L)
+                        .name("spoon")
+                        .build())
+                .build();
+
+        when(bookingJPAService.getBookingsByOwner(userId, "ALL", 0, 10))
+                .thenReturn(List.of(bookingDto));
+
+        mockMvc.perform(get("/bookings/owner")
+                        .header(header, userId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$.[0].booker.email", is("peter@yandex.ru")))
+                .andExpect(jsonPath("$.[0].item.name", is("spoon")));
+
+        verify(bookingJPAService).getBookingsByOwner(userId, "ALL", 0, 10);
+        verify(bookingJPAService, never()).getLeanBookingsByOwner(anyLong(), anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    @SneakyThrows
+    public void getByBooker_WhenAcceptIsNdjson_IsStatusOk_InvokeStreamOfWholeBookings() {
+        mockMvc.perform(get("/bookings")
+                        .header(header, userId)
+                        .accept(NdjsonWriter.MEDIA_TYPE))
+                .andExpect(status().isOk());
+
+        verify(bookingJPAService).streamBookingsByBooker(eq(userId), eq("ALL"), any());
+        verify(bookingJPAService, never()).streamLeanBookingsByBooker(anyLong(), anyString(), any());
+    }
+}
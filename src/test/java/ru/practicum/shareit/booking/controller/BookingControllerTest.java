@@ -13,15 +13,23 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.booking.BookingController;
 import ru.practicum.shareit.booking.BookingMapper;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingLeanResponseDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingStatusBatchDto;
+import ru.practicum.shareit.booking.dto.BookingStatusResultDto;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.service.BookingJPAService;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.util.NdjsonWriter;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasSize;
@@ -168,6 +176,54 @@ public class BookingControllerTest {
         verify(bookingJPAService, Mockito.never()).createBooking(invalidBookingDto, userId);
     }
 
+    @Test
+    @SneakyThrows
+    public void createBookings_StatusIsOk_ReturnResultOfEveryEntry() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 1, 1, 1);
+        List<BookingDto> bookingDtos = List.of(
+                BookingDto.builder().start(start).end(start.plusDays(1)).itemId(1L).build(),
+                BookingDto.builder().start(start).end(start.plusDays(1)).itemId(99L).build());
+        BookingResponseDto bookingResponseDto = BookingResponseDto.builder()
+                .id(1L)
+                .start(start)
+                .end(start.plusDays(1))
+                .status(BookingStatus.WAITING)
+                .build();
+
+        when(bookingJPAService.createBookings(bookingDtos, userId))
+                .thenReturn(List.of(
+                        BookingBatchResultDto.builder().index(0).booking(bookingResponseDto).build(),
+                        BookingBatchResultDto.builder().index(1).error("there is no item with id: 99").build()));
+
+        mockMvc.perform(post("/bookings/batch")
+                        .header(header, userId)
+                        .contentType(jsonType)
+                        .content(objectMapper.writeValueAsString(bookingDtos)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].index", is(0)))
+                .andExpect(jsonPath("$[0].booking.id", is(1)))
+                .andExpect(jsonPath("$[0].error").doesNotExist())
+                .andExpect(jsonPath("$[1].index", is(1)))
+                .andExpect(jsonPath("$[1].booking").doesNotExist())
+                .andExpect(jsonPath("$[1].error", is("there is no item with id: 99")));
+
+        verify(bookingJPAService, times(1)).createBookings(bookingDtos, userId);
+    }
+
+    @Test
+    @SneakyThrows
+    public void createBookings_WhenListIsEmpty_StatusIsBadRequest_NotInvokeService() {
+
+        mockMvc.perform(post("/bookings/batch")
+                        .header(header, userId)
+                        .contentType(jsonType)
+                        .content("[]"))
+                .andExpect(status().isBadRequest());
+
+        verify(bookingJPAService, Mockito.never()).createBookings(any(), any());
+    }
+
     @Test
     @SneakyThrows
     public void approveBookingStatus_StatusIsOk_InvokeService() {
@@ -275,6 +331,81 @@ public class BookingControllerTest {
         verify(bookingJPAService, never()).approveBookingStatus(anyBoolean(), anyLong(), anyLong());
     }
 
+    @Test
+    @SneakyThrows
+    public void approveBookingStatuses_StatusIsOk_ReturnOutcomeOfEveryId() {
+        BookingStatusBatchDto batchDto = BookingStatusBatchDto.builder()
+                .bookingIds(List.of(1L, 2L))
+                .build();
+        BookingResponseDto bookingResponseDto = BookingResponseDto.builder()
+                .id(1L)
+                .status(BookingStatus.APPROVED)
+                .build();
+
+        when(bookingJPAService.approveBookingStatuses(true, batchDto, userId))
+                .thenReturn(List.of(
+                        BookingStatusResultDto.builder().bookingId(1L).booking(bookingResponseDto).build(),
+                        BookingStatusResultDto.builder().bookingId(2L).error("not waiting").build()));
+
+        mockMvc.perform(patch("/bookings/batch")
+                        .header(header, userId)
+                        .param("approved", "true")
+                        .contentType(jsonType)
+                        .content(objectMapper.writeValueAsString(batchDto)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].bookingId", is(1)))
+                .andExpect(jsonPath("$[0].booking.status", is("APPROVED")))
+                .andExpect(jsonPath("$[1].bookingId", is(2)))
+                .andExpect(jsonPath("$[1].error", is("not waiting")));
+
+        verify(bookingJPAService, times(1)).approveBookingStatuses(true, batchDto, userId);
+    }
+
+    @Test
+    @SneakyThrows
+    public void approveBookingStatuses_WhenIdsAreEmpty_StatusIsBadRequest_NotInvokeService() {
+
+        mockMvc.perform(patch("/bookings/batch")
+                        .header(header, userId)
+                        .param("approved", "false")
+                        .contentType(jsonType)
+                        .content("{\"bookingIds\": []}"))
+                .andExpect(status().isBadRequest());
+
+        verify(bookingJPAService, Mockito.never()).approveBookingStatuses(any(), any(), any());
+    }
+
+    @Test
+    @SneakyThrows
+    public void getSummaryByOwnerAndByBooker_StatusIsOk_InvokeService() {
+        BookingSummaryDto summary = BookingSummaryDto.builder()
+                .all(5)
+                .current(1)
+                .past(1)
+                .future(3)
+                .waiting(1)
+                .rejected(1)
+                .build();
+
+        when(bookingJPAService.getBookingSummaryByOwner(userId)).thenReturn(summary);
+        when(bookingJPAService.getBookingSummaryByBooker(userId)).thenReturn(summary.toBuilder().all(0).build());
+
+        mockMvc.perform(get("/bookings/owner/summary")
+                        .header(header, userId))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(summary)))
+                .andExpect(jsonPath("$.future", is(3)));
+        mockMvc.perform(get("/bookings/summary")
+                        .header(header, userId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.all", is(0)));
+
+        verify(bookingJPAService, times(1)).getBookingSummaryByOwner(userId);
+        verify(bookingJPAService, times(1)).getBookingSummaryByBooker(userId);
+        verify(bookingJPAService, Mockito.never()).getBooking(any(), any());
+    }
+
     @Test
     @SneakyThrows
     public void getBooking_StatusIsOk_InvokeService() {
@@ -338,24 +469,16 @@ public class BookingControllerTest {
         LocalDateTime start = LocalDateTime.of(2030, 1, 1, 1, 1, 1);
         LocalDateTime end = LocalDateTime.of(2030, 2, 1, 1, 1, 1);
 
-        BookingResponseDto bookingDto1 = BookingResponseDto.builder()
-                .id(bookingId1)
-                .start(start)
-                .end(end)
-                .status(BookingStatus.APPROVED)
-                .build();
-        BookingResponseDto bookingDto2 = BookingResponseDto.builder()
-                .id(bookingId2)
-                .start(start.plusHours(3L))
-                .end(end.plusDays(1))
-                .status(BookingStatus.WAITING)
-                .build();
+        BookingLeanResponseDto bookingDto1 = new BookingLeanResponseDto(bookingId1, start, end, BookingStatus.APPROVED,
+                2L, "Peter", 1L, "spoon");
+        BookingLeanResponseDto bookingDto2 = new BookingLeanResponseDto(bookingId2, start.plusHours(3L), end.plusDays(1),
+                BookingStatus.WAITING, 3L, "Oleg", 1L, "spoon");
 
-        List<BookingResponseDto> bookingResponseDtoList = List.of(bookingDto1, bookingDto2);
+        List<BookingLeanResponseDto> bookingResponseDtoList = List.of(bookingDto1, bookingDto2);
 
         String expectedBookingListString = objectMapper.writeValueAsString(bookingResponseDtoList);
 
-        when(bookingJPAService.getBookingsByOwner(userId, "APPROVED", 0, 10))
+        when(bookingJPAService.getLeanBookingsByOwner(userId, "APPROVED", 0, 10))
                 .thenReturn(bookingResponseDtoList);
 
         String result = mockMvc.perform(get("/bookings/owner")
@@ -369,6 +492,8 @@ public class BookingControllerTest {
                 .andExpect(jsonPath("$.[0].start", is(bookingDto1.getStart().toString())))
                 .andExpect(jsonPath("$.[0].end", is(bookingDto1.getEnd().toString())))
                 .andExpect(jsonPath("$.[0].status", is(bookingDto1.getStatus().toString())))
+                .andExpect(jsonPath("$.[0].booker.name", is(bookingDto1.getBooker().getName())))
+                .andExpect(jsonPath("$.[0].item.name", is(bookingDto1.getItem().getName())))
                 .andExpect(jsonPath("$.[1].id", is(bookingDto2.getId()), Long.class))
                 .andExpect(jsonPath("$.[1].start", is(bookingDto2.getStart().toString())))
                 .andExpect(jsonPath("$.[1].end", is(bookingDto2.getEnd().toString())))
@@ -378,11 +503,79 @@ public class BookingControllerTest {
                 .getContentAsString();
 
         verify(bookingJPAService)
-                .getBookingsByOwner(userId, stateValue, Integer.valueOf(fromValue), Integer.valueOf(sizeValue));
+                .getLeanBookingsByOwner(userId, stateValue, Integer.valueOf(fromValue), Integer.valueOf(sizeValue));
 
         assertThat(result, is(expectedBookingListString));
     }
 
+    @Test
+    @SneakyThrows
+    public void getByOwner_WhenCursorIsEmpty_IsStatusOk_InvokeServiceForFirstPage() {
+        BookingLeanResponseDto bookingDto = new BookingLeanResponseDto(1L, LocalDateTime.of(2030, 1, 1, 1, 1, 1),
+                LocalDateTime.of(2030, 2, 1, 1, 1, 1), BookingStatus.WAITING, 2L, "Peter", 1L, "spoon");
+
+        when(bookingJPAService.getLeanBookingsByOwnerAfter(userId, "ALL", "", 10))
+                .thenReturn(new CursorPage<>(List.of(bookingDto), null));
+
+        mockMvc.perform(get("/bookings/owner")
+                        .header(header, userId)
+                        .param("cursor", ""))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(CursorPage.NEXT_CURSOR_HEADER))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$.[0].id", is(bookingDto.getId()), Long.class));
+
+        verify(bookingJPAService).getLeanBookingsByOwnerAfter(userId, "ALL", "", 10);
+        verify(bookingJPAService, never()).getLeanBookingsByOwner(anyLong(), anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    @SneakyThrows
+    @SuppressWarnings("unchecked")
+    public void getByOwner_WhenAcceptIsNdjson_IsStatusOk_WriteEveryBookingOnItsLine() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 1, 1, 1);
+        LocalDateTime end = LocalDateTime.of(2030, 2, 1, 1, 1, 1);
+        BookingLeanResponseDto bookingDto1 = new BookingLeanResponseDto(1L, start, end, BookingStatus.APPROVED,
+                2L, "Peter", 1L, "spoon");
+        BookingLeanResponseDto bookingDto2 = new BookingLeanResponseDto(2L, start, end, BookingStatus.WAITING,
+                2L, "Peter", 1L, "spoon");
+
+        doAnswer(invocation -> {
+            Consumer<BookingLeanResponseDto> consumer = invocation.getArgument(2);
+            consumer.accept(bookingDto1);
+            consumer.accept(bookingDto2);
+            return null;
+        }).when(bookingJPAService).streamLeanBookingsByOwner(eq(userId), eq("APPROVED"), any());
+
+        String result = mockMvc.perform(get("/bookings/owner")
+                        .header(header, userId)
+                        .param("state", "APPROVED")
+                        .accept(NdjsonWriter.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(NdjsonWriter.MEDIA_TYPE))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        verify(bookingJPAService, never()).getLeanBookingsByOwner(anyLong(), anyString(), anyInt(), anyInt());
+        assertThat(result, is(objectMapper.writeValueAsString(bookingDto1) + "\n"
+                + objectMapper.writeValueAsString(bookingDto2) + "\n"));
+    }
+
+    @Test
+    @SneakyThrows
+    public void getByBooker_WhenAcceptIsNdjson_IsStatusOk_InvokeStreamWithDefaultState() {
+        mockMvc.perform(get("/bookings")
+                        .header(header, userId)
+                        .accept(NdjsonWriter.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(NdjsonWriter.MEDIA_TYPE))
+                .andExpect(content().string(""));
+
+        verify(bookingJPAService).streamLeanBookingsByBooker(eq(userId), eq("ALL"), any());
+        verify(bookingJPAService, never()).getLeanBookingsByBooker(anyLong(), anyString(), anyInt(), anyInt());
+    }
+
     @Test
     @SneakyThrows
     public void getByOwner_WhenFromIsNegative_IsStatusBadRequest_NotInvokeService() {
@@ -402,7 +595,7 @@ public class BookingControllerTest {
                         .param(size, sizeValue))
                 .andExpect(status().isBadRequest());
 
-        verify(bookingJPAService, never()).getBookingsByOwner(anyLong(), anyString(), anyInt(), anyInt());
+        verify(bookingJPAService, never()).getLeanBookingsByOwner(anyLong(), anyString(), anyInt(), anyInt());
     }
 
     @Test
@@ -423,7 +616,7 @@ public class BookingControllerTest {
                         .param(size, sizeValue))
                 .andExpect(status().isInternalServerError());
 
-        verify(bookingJPAService, never()).getBookingsByOwner(anyLong(), anyString(), anyInt(), anyInt());
+        verify(bookingJPAService, never()).getLeanBookingsByOwner(anyLong(), anyString(), anyInt(), anyInt());
     }
 
     @Test
@@ -445,7 +638,7 @@ public class BookingControllerTest {
                         .param(size, invalidSizeValue))
                 .andExpect(status().isBadRequest());
 
-        verify(bookingJPAService, never()).getBookingsByOwner(anyLong(), anyString(), anyInt(), anyInt());
+        verify(bookingJPAService, never()).getLeanBookingsByOwner(anyLong(), anyString(), anyInt(), anyInt());
     }
 
     @Test
@@ -468,7 +661,7 @@ public class BookingControllerTest {
                         .param(size, invalidSizeValue))
                 .andExpect(status().isBadRequest());
 
-        verify(bookingJPAService, never()).getBookingsByOwner(anyLong(), anyString(), anyInt(), anyInt());
+        verify(bookingJPAService, never()).getLeanBookingsByOwner(anyLong(), anyString(), anyInt(), anyInt());
     }
 
     @Test
@@ -490,7 +683,7 @@ public class BookingControllerTest {
                         .param(size, invalidSizeValue))
                 .andExpect(status().isInternalServerError());
 
-        verify(bookingJPAService, never()).getBookingsByOwner(anyLong(), anyString(), anyInt(), anyInt());
+        verify(bookingJPAService, never()).getLeanBookingsByOwner(anyLong(), anyString(), anyInt(), anyInt());
     }
 
     @Test
@@ -510,24 +703,16 @@ public class BookingControllerTest {
         LocalDateTime start = LocalDateTime.of(2030, 1, 1, 1, 1, 1);
         LocalDateTime end = LocalDateTime.of(2030, 2, 1, 1, 1, 1);
 
-        BookingResponseDto bookingDto1 = BookingResponseDto.builder()
-                .id(bookingId1)
-                .start(start)
-                .end(end)
-                .status(BookingStatus.APPROVED)
-                .build();
-        BookingResponseDto bookingDto2 = BookingResponseDto.builder()
-                .id(bookingId2)
-                .start(start.plusHours(3L))
-                .end(end.plusDays(1))
-                .status(BookingStatus.WAITING)
-                .build();
+        BookingLeanResponseDto bookingDto1 = new BookingLeanResponseDto(bookingId1, start, end, BookingStatus.APPROVED,
+                2L, "Peter", 1L, "spoon");
+        BookingLeanResponseDto bookingDto2 = new BookingLeanResponseDto(bookingId2, start.plusHours(3L), end.plusDays(1),
+                BookingStatus.WAITING, 3L, "Oleg", 1L, "spoon");
 
-        List<BookingResponseDto> bookingResponseDtoList = List.of(bookingDto1, bookingDto2);
+        List<BookingLeanResponseDto> bookingResponseDtoList = List.of(bookingDto1, bookingDto2);
 
         String expectedBookingsListString = objectMapper.writeValueAsString(bookingResponseDtoList);
 
-        when(bookingJPAService.getBookingsByBooker(userId, "APPROVED", 0, 10))
+        when(bookingJPAService.getLeanBookingsByBooker(userId, "APPROVED", 0, 10))
                 .thenReturn(bookingResponseDtoList);
 
         String result = mockMvc.perform(get("/bookings")
@@ -541,6 +726,8 @@ public class BookingControllerTest {
                 .andExpect(jsonPath("$.[0].start", is(bookingDto1.getStart().toString())))
                 .andExpect(jsonPath("$.[0].end", is(bookingDto1.getEnd().toString())))
                 .andExpect(jsonPath("$.[0].status", is(bookingDto1.getStatus().toString())))
+                .andExpect(jsonPath("$.[0].booker.name", is(bookingDto1.getBooker().getName())))
+                .andExpect(jsonPath("$.[0].item.name", is(bookingDto1.getItem().getName())))
                 .andExpect(jsonPath("$.[1].id", is(bookingDto2.getId()), Long.class))
                 .andExpect(jsonPath("$.[1].start", is(bookingDto2.getStart().toString())))
                 .andExpect(jsonPath("$.[1].end", is(bookingDto2.getEnd().toString())))
@@ -550,7 +737,7 @@ public class BookingControllerTest {
                 .getContentAsString();
 
         verify(bookingJPAService)
-                .getBookingsByBooker(userId, stateValue, Integer.valueOf(fromValue), Integer.valueOf(sizeValue));
+                .getLeanBookingsByBooker(userId, stateValue, Integer.valueOf(fromValue), Integer.valueOf(sizeValue));
 
         assertThat(result, is(expectedBookingsListString));
     }
@@ -574,7 +761,7 @@ public class BookingControllerTest {
                         .param(size, sizeValue))
                 .andExpect(status().isBadRequest());
 
-        verify(bookingJPAService, never()).getBookingsByBooker(anyLong(), anyString(), anyInt(), anyInt());
+        verify(bookingJPAService, never()).getLeanBookingsByBooker(anyLong(), anyString(), anyInt(), anyInt());
     }
 
     @Test
@@ -595,7 +782,7 @@ public class BookingControllerTest {
                         .param(size, sizeValue))
                 .andExpect(status().isInternalServerError());
 
-        verify(bookingJPAService, never()).getBookingsByBooker(anyLong(), anyString(), anyInt(), anyInt());
+        verify(bookingJPAService, never()).getLeanBookingsByBooker(anyLong(), anyString(), anyInt(), anyInt());
     }
 
     @Test
@@ -617,7 +804,7 @@ public class BookingControllerTest {
                         .param(size, invalidSizeValue))
                 .andExpect(status().isBadRequest());
 
-        verify(bookingJPAService, never()).getBookingsByBooker(anyLong(), anyString(), anyInt(), anyInt());
+        verify(bookingJPAService, never()).getLeanBookingsByBooker(anyLong(), anyString(), anyInt(), anyInt());
     }
 
     @Test
@@ -640,7 +827,7 @@ public class BookingControllerTest {
                         .param(size, invalidSizeValue))
                 .andExpect(status().isBadRequest());
 
-        verify(bookingJPAService, never()).getBookingsByBooker(anyLong(), anyString(), anyInt(), anyInt());
+        verify(bookingJPAService, never()).getLeanBookingsByBooker(anyLong(), anyString(), anyInt(), anyInt());
     }
 
     @Test
@@ -662,6 +849,7 @@ public class BookingControllerTest {
                         .param(size, invalidSizeValue))
                 .andExpect(status().isInternalServerError());
 
-        verify(bookingJPAService, never()).getBookingsByBooker(anyLong(), anyString(), anyInt(), anyInt());
+        verify(bookingJPAService, never()).getLeanBookingsByBooker(anyLong(), anyString(), anyInt(), anyInt());
     }
+
 }
@@ -0,0 +1,227 @@
+package ru.practicum.shareit.booking.event;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingEventDto;
+import ru.practicum.shareit.booking.model.BookingEvent;
+import ru.practicum.shareit.booking.service.BookingJPAService;
+import ru.practicum.shareit.booking.store.BookingEventJPARepository;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemJPAService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserJPAService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+public class BookingEventDispatcherTest {
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final List<List<Map<String, Object>>> WEBHOOK_REQUESTS = new CopyOnWriteArrayList<>();
+    private static final AtomicInteger WEBHOOK_STATUS = new AtomicInteger(200);
+    private static final HttpServer WEBHOOK = startWebhook();
+
+    @Autowired
+    UserJPAService userService;
+    @Autowired
+    ItemJPAService itemService;
+    @Autowired
+    BookingJPAService bookingService;
+    @Autowired
+    BookingEventJPARepository bookingEventJPARepository;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    List<BookingEventDto> published = new CopyOnWriteArrayList<>();
+    BookingEventDispatcher bookingEventDispatcher;
+
+    Long ownerId = 1L;
+    Long bookerId = 2L;
+    Long spoonId = 1L;
+    Long forkId = 2L;
+    LocalDateTime start = LocalDateTime.now().plusDays(1);
+
+    @BeforeEach
+    public void init() {
+        WEBHOOK_REQUESTS.clear();
+        WEBHOOK_STATUS.set(200);
+        WebhookBookingEventSink webhookSink = new WebhookBookingEventSink(new RestTemplateBuilder(),
+                URI.create("http://localhost:" + WEBHOOK.getAddress().getPort() + "/booking-events"),
+                Duration.ofSeconds(5));
+        bookingEventDispatcher = new BookingEventDispatcher(bookingEventJPARepository,
+                List.of(new InProcessBookingEventSink(event -> published.add((BookingEventDto) event)), webhookSink), transactionTemplate, 100,
+                new SimpleMeterRegistry());
+        userService.createUser(UserDto.builder()
+                .name("Peter")
+                .email("Peter@yandex.ru")
+                .build());
+        userService.createUser(UserDto.builder()
+                .name("Oleg")
+                .email("Oleg@yandex.ru")
+                .build());
+        itemService.createItem(ItemDto.builder()
+                .name("a spoon")
+                .description("new")
+                .available(true)
+                .build(), ownerId);
+        itemService.createItem(ItemDto.builder()
+                .name("a fork")
+                .description("old")
+                .available(true)
+                .build(), ownerId);
+    }
+
+    @AfterAll
+    public static void stopWebhook() {
+        WEBHOOK.stop(0);
+    }
+
+    @Test
+    public void dispatch_sendEventsOfEveryItemInOrderToListenersAndWebhook_andDeleteThem() {
+
+        Long firstSpoonBookingId = createBooking(spoonId, 0);
+        Long forkBookingId = createBooking(forkId, 0);
+        Long secondSpoonBookingId = createBooking(spoonId, 2);
+        bookingService.approveBookingStatus(true, firstSpoonBookingId, ownerId);
+        bookingService.approveBookingStatus(false, secondSpoonBookingId, ownerId);
+
+        assertEquals(5, bookingEventDispatcher.dispatch());
+
+        assertEquals(List.of(
+                        firstSpoonBookingId + "/WAITING", secondSpoonBookingId + "/WAITING",
+                        firstSpoonBookingId + "/APPROVED", secondSpoonBookingId + "/REJECTED"),
+                toKeys(published, spoonId));
+        assertEquals(List.of(forkBookingId + "/WAITING"), toKeys(published, forkId));
+        assertEquals(List.of(4, 1), WEBHOOK_REQUESTS.stream().map(List::size).collect(Collectors.toList()));
+        assertEquals(List.of(
+                        firstSpoonBookingId + "/WAITING/1/2", secondSpoonBookingId + "/WAITING/1/2",
+                        firstSpoonBookingId + "/APPROVED/1/2", secondSpoonBookingId + "/REJECTED/1/2"),
+                WEBHOOK_REQUESTS.get(0).stream()
+                        .map(event -> event.get("bookingId") + "/" + event.get("status") + "/"
+                                + event.get("ownerId") + "/" + event.get("bookerId"))
+                        .collect(Collectors.toList()));
+        assertEquals(0L, bookingEventJPARepository.count());
+        assertEquals(0, bookingEventDispatcher.dispatch());
+    }
+
+    @Test
+    public void dispatch_whenWebhookFails_keepEventsOfItemForNextRun_andDeliverThemAgainInOrder() {
+
+        Long spoonBookingId = createBooking(spoonId, 0);
+        Long forkBookingId = createBooking(forkId, 0);
+        bookingService.approveBookingStatus(true, spoonBookingId, ownerId);
+        WEBHOOK_STATUS.set(500);
+
+        assertEquals(0, bookingEventDispatcher.dispatch());
+        assertEquals(3L, bookingEventJPARepository.count());
+
+        WEBHOOK_STATUS.set(200);
+        Long secondForkBookingId = createBooking(forkId, 2);
+
+        assertEquals(4, bookingEventDispatcher.dispatch());
+        assertEquals(0L, bookingEventJPARepository.count());
+        // the in-process sink gets the events before the webhook, so it gets them once more after its failure
+        assertEquals(List.of(spoonBookingId + "/WAITING", spoonBookingId + "/APPROVED",
+                        spoonBookingId + "/WAITING", spoonBookingId + "/APPROVED"),
+                toKeys(published, spoonId));
+        assertEquals(List.of(forkBookingId + "/WAITING", forkBookingId + "/WAITING", secondForkBookingId + "/WAITING"),
+                toKeys(published, forkId));
+    }
+
+    @Test
+    public void dispatch_whenChangeOfBookingGotSmallerIdOnOtherInstance_sendCreationOfBookingFirst() {
+
+        Long spoonBookingId = createBooking(spoonId, 0);
+        bookingService.approveBookingStatus(true, spoonBookingId, ownerId);
+        // as if the approval took its id from a block of another instance handed out before the creation's one
+        transactionTemplate.executeWithoutResult(status -> {
+            List<BookingEvent> events = bookingEventJPARepository.findAll(Sort.by("id"));
+            bookingEventJPARepository.deleteAll(events);
+            bookingEventJPARepository.flush();
+            bookingEventJPARepository.save(events.get(1).toBuilder().id(null).build());
+            bookingEventJPARepository.save(events.get(0).toBuilder().id(null).build());
+        });
+        BookingEventDispatcher oneByOne = new BookingEventDispatcher(bookingEventJPARepository,
+                List.of(new InProcessBookingEventSink(event -> published.add((BookingEventDto) event))),
+                transactionTemplate, 1, new SimpleMeterRegistry());
+
+        assertEquals(2, oneByOne.dispatch());
+
+        assertEquals(List.of(spoonBookingId + "/WAITING", spoonBookingId + "/APPROVED"), toKeys(published, spoonId));
+        assertEquals(0L, bookingEventJPARepository.count());
+    }
+
+    @Test
+    public void createBooking_whenTransactionIsRolledBack_writeNoEvent() {
+
+        transactionTemplate.executeWithoutResult(status -> {
+            createBooking(spoonId, 0);
+            status.setRollbackOnly();
+        });
+
+        assertEquals(0L, bookingEventJPARepository.count());
+        assertEquals(0, bookingEventDispatcher.dispatch());
+        assertEquals(List.of(), published);
+    }
+
+    private Long createBooking(Long itemId, int daysAfterStart) {
+        return bookingService.createBooking(BookingDto.builder()
+                .start(start.plusDays(daysAfterStart))
+                .end(start.plusDays(daysAfterStart + 1))
+                .itemId(itemId)
+                .build(), bookerId).getId();
+    }
+
+    private static List<String> toKeys(List<BookingEventDto> events, Long itemId) {
+        return events.stream()
+                .filter(event -> event.getItemId().equals(itemId))
+                .map(event -> event.getBookingId() + "/" + event.getStatus())
+                .collect(Collectors.toList());
+    }
+
+    @SneakyThrows
+    private static HttpServer startWebhook() {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/booking-events", exchange -> {
+            try (InputStream body = exchange.getRequestBody()) {
+                int status = WEBHOOK_STATUS.get();
+                if (status == 200) {
+                    WEBHOOK_REQUESTS.add(JSON.readValue(body, new TypeReference<>() {
+                    }));
+                }
+                exchange.sendResponseHeaders(status, -1);
+            } catch (IOException e) {
+                exchange.sendResponseHeaders(400, -1);
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+        return server;
+    }
+}
@@ -0,0 +1,140 @@
+package ru.practicum.shareit.booking.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.dto.BookingIntervalView;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.store.BookingJPARepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingIntervalIndexTest {
+    @Mock
+    private BookingJPARepository bookingRepository;
+
+    private BookingIntervalIndex index;
+    private Item item;
+    private User booker;
+    private LocalDateTime now;
+
+    @BeforeEach
+    public void init() {
+        index = new BookingIntervalIndex(bookingRepository, 1);
+        item = Item.builder().id(1L).build();
+        booker = User.builder().id(2L).build();
+        now = LocalDateTime.of(2030, 1, 1, 12, 0);
+    }
+
+    @Test
+    public void findLastApproved_loadBookingsOfItemOnlyOnce() {
+        when(bookingRepository.findIntervalsByItemIdAndStatusIn(eq(1L), any()))
+                .thenReturn(List.of(
+                        toView(1L, now.minusDays(2), now.minusDays(1), BookingStatus.APPROVED),
+                        toView(2L, now.minusHours(1), now.plusHours(1), BookingStatus.WAITING),
+                        toView(3L, now.plusDays(1), now.plusDays(2), BookingStatus.APPROVED)));
+
+        Optional<BookingInterval> last = index.findLastApproved(1L, now);
+        Optional<BookingInterval> next = index.findNextApproved(1L, now);
+
+        assertEquals(1L, last.orElseThrow().getId());
+        assertEquals(3L, next.orElseThrow().getId());
+        verify(bookingRepository, times(1)).findIntervalsByItemIdAndStatusIn(eq(1L), any());
+    }
+
+    @Test
+    public void onBookingSaved_whenItemIsLoaded_applyStatusChangeWithoutReloading() {
+        when(bookingRepository.findIntervalsByItemIdAndStatusIn(eq(1L), any()))
+                .thenReturn(List.of(toView(3L, now.plusDays(1), now.plusDays(2), BookingStatus.WAITING)));
+        Booking booking = Booking.builder()
+                .id(3L)
+                .start(now.plusDays(1))
+                .end(now.plusDays(2))
+                .item(item)
+                .booker(booker)
+                .status(BookingStatus.WAITING)
+                .build();
+        assertEquals(Optional.empty(), index.findNextApproved(1L, now));
+
+        index.onBookingSaved(booking.toBuilder().status(BookingStatus.APPROVED).build());
+
+        assertEquals(3L, index.findNextApproved(1L, now).orElseThrow().getId());
+
+        index.onBookingSaved(booking.toBuilder().status(BookingStatus.REJECTED).build());
+
+        assertEquals(Optional.empty(), index.findNextApproved(1L, now));
+        assertEquals(Collections.emptyList(), index.findOverlapping(1L, now, now.plusDays(3)));
+        verify(bookingRepository, times(1)).findIntervalsByItemIdAndStatusIn(eq(1L), any());
+    }
+
+    @Test
+    public void findOverlappingApproved_ignoreWaitingBookings() {
+        when(bookingRepository.findIntervalsByItemIdAndStatusIn(eq(1L), any()))
+                .thenReturn(List.of(
+                        toView(1L, now.minusDays(2), now.plusDays(1), BookingStatus.WAITING),
+                        toView(2L, now.minusHours(1), now.plusHours(1), BookingStatus.APPROVED),
+                        toView(3L, now.plusDays(1), now.plusDays(2), BookingStatus.APPROVED)));
+
+        List<BookingInterval> overlapping = index.findOverlappingApproved(1L, now, now.plusDays(1));
+
+        assertEquals(1, overlapping.size());
+        assertEquals(2L, overlapping.get(0).getId());
+    }
+
+    @Test
+    public void findOverlapping_whenMoreItemsThanMaxItems_reloadEvictedItem() {
+        when(bookingRepository.findIntervalsByItemIdAndStatusIn(anyLong(), any()))
+                .thenReturn(Collections.emptyList());
+
+        index.findOverlapping(1L, now, now.plusDays(1));
+        index.findOverlapping(2L, now, now.plusDays(1));
+        index.findOverlapping(1L, now, now.plusDays(1));
+
+        verify(bookingRepository, times(2)).findIntervalsByItemIdAndStatusIn(eq(1L), any());
+        verify(bookingRepository, times(1)).findIntervalsByItemIdAndStatusIn(eq(2L), any());
+    }
+
+    private BookingIntervalView toView(Long id, LocalDateTime start, LocalDateTime end, BookingStatus status) {
+        return new BookingIntervalView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Long getBookerId() {
+                return booker.getId();
+            }
+
+            @Override
+            public LocalDateTime getStart() {
+                return start;
+            }
+
+            @Override
+            public LocalDateTime getEnd() {
+                return end;
+            }
+
+            @Override
+            public BookingStatus getStatus() {
+                return status;
+            }
+        };
+    }
+}
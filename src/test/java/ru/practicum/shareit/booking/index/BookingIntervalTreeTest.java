@@ -0,0 +1,100 @@
+package ru.practicum.shareit.booking.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class BookingIntervalTreeTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+    @Test
+    public void findLastStartedBefore_returnStartedIntervalWithLatestEnd() {
+        BookingIntervalTree tree = new BookingIntervalTree();
+        BookingInterval longPast = interval(1L, 0, 10);
+        BookingInterval shortRecent = interval(2L, 5, 6);
+        tree.add(longPast);
+        tree.add(shortRecent);
+        tree.add(interval(3L, 8, 20));
+
+        assertEquals(Optional.of(longPast), tree.findLastStartedBefore(at(7)));
+        assertEquals(Optional.empty(), tree.findLastStartedBefore(at(-1)));
+    }
+
+    @Test
+    public void findFirstStartingFrom_returnIntervalWithEarliestStart() {
+        BookingIntervalTree tree = new BookingIntervalTree();
+        BookingInterval next = interval(2L, 5, 6);
+        tree.add(interval(1L, 0, 10));
+        tree.add(next);
+        tree.add(interval(3L, 8, 20));
+
+        assertEquals(Optional.of(next), tree.findFirstStartingFrom(at(5)));
+        assertEquals(Optional.empty(), tree.findFirstStartingFrom(at(9)));
+    }
+
+    @Test
+    public void remove_whenIntervalIsRemoved_itIsNotFoundAnyMore() {
+        BookingIntervalTree tree = new BookingIntervalTree();
+        BookingInterval interval = interval(1L, 0, 10);
+        tree.add(interval);
+
+        tree.remove(interval);
+
+        assertEquals(0, tree.size());
+        assertEquals(Optional.empty(), tree.findLastStartedBefore(at(5)));
+        assertEquals(List.of(), tree.findOverlapping(at(0), at(10)));
+    }
+
+    @Test
+    public void queries_returnSameResultsAsFullScan_afterRandomInsertsAndRemovals() {
+        Random random = new Random(7);
+        BookingIntervalTree tree = new BookingIntervalTree();
+        List<BookingInterval> intervals = new ArrayList<>();
+        for (long id = 1; id <= 2000; id++) {
+            if (!intervals.isEmpty() && random.nextInt(4) == 0) {
+                BookingInterval removed = intervals.remove(random.nextInt(intervals.size()));
+                tree.remove(removed);
+            }
+
+            int start = random.nextInt(500);
+            BookingInterval interval = interval(id, start, start + 1 + random.nextInt(30));
+            intervals.add(interval);
+            tree.add(interval);
+        }
+
+        assertEquals(intervals.size(), tree.size());
+        for (int i = 0; i < 300; i++) {
+            LocalDateTime time = at(random.nextInt(540) - 10);
+            LocalDateTime end = time.plusHours(random.nextInt(20));
+
+            assertEquals(intervals.stream()
+                            .filter(interval -> !interval.getStart().isAfter(time))
+                            .max(BookingInterval.BY_END),
+                    tree.findLastStartedBefore(time));
+            assertEquals(intervals.stream()
+                            .filter(interval -> !interval.getStart().isBefore(time))
+                            .min(BookingInterval.BY_START),
+                    tree.findFirstStartingFrom(time));
+            assertEquals(intervals.stream()
+                            .filter(interval -> interval.overlaps(time, end))
+                            .sorted(BookingInterval.BY_START)
+                            .collect(Collectors.toList()),
+                    tree.findOverlapping(time, end));
+        }
+    }
+
+    private static BookingInterval interval(Long id, int startHour, int endHour) {
+        return new BookingInterval(id, 100L, at(startHour), at(endHour));
+    }
+
+    private static LocalDateTime at(int hour) {
+        return BASE.plusHours(hour);
+    }
+}
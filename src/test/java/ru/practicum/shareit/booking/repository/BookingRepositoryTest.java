@@ -4,35 +4,68 @@ import org.assertj.core.api.AssertionsForClassTypes;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.booking.BookingMapper;
+import ru.practicum.shareit.booking.dto.BookingIntervalView;
+import ru.practicum.shareit.booking.dto.BookingItemIntervalView;
+import ru.practicum.shareit.booking.dto.BookingLeanResponseDto;
+import ru.practicum.shareit.booking.dto.BookingShortView;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.store.ArchivedBookingJPARepository;
+import ru.practicum.shareit.booking.store.BookingFilter;
 import ru.practicum.shareit.booking.store.BookingJPARepository;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.storage.ItemJPARepository;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.store.ItemRequestJPARepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserJPARepository;
 
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @DataJpaTest
 @DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
 public class BookingRepositoryTest {
+    // a page of bookings with items, owners, requests and bookers by one select, plus the archive check
+    private static final long LISTING_STATEMENT_BUDGET = 2;
 
     @Autowired
     BookingJPARepository bookingJPARepository;
     @Autowired
+    ArchivedBookingJPARepository archivedBookingJPARepository;
+    @Autowired
     UserJPARepository userJPARepository;
     @Autowired
     ItemJPARepository itemJPARepository;
+    @Autowired
+    ItemRequestJPARepository itemRequestJPARepository;
+    @Autowired
+    EntityManager entityManager;
 
     User owner;
     User booker;
@@ -107,9 +140,9 @@ public class BookingRepositoryTest {
     }
 
     @Test
-    public void findAllByItemOwnerIdOrderByStartDesc() {
+    public void findBookings_ofOwnerInStateAll() {
         List<Booking> result = bookingJPARepository
-                .findAllByItemOwnerIdOrderByStartDesc(ownerId, page);
+                .findBookings(ownerFilter(BookingState.ALL), page);
 
         AssertionsForClassTypes.assertThat(result).asList()
                 .hasSize(5)
@@ -123,10 +156,9 @@ public class BookingRepositoryTest {
     }
 
     @Test
-    public void findAllByItemOwnerIdAndEndIsBeforeOrderByStartDesc() {
-        LocalDateTime now = LocalDateTime.now();
+    public void findBookings_ofOwnerInStatePast() {
         List<Booking> result = bookingJPARepository
-                .findAllByItemOwnerIdAndEndIsBeforeOrderByStartDesc(ownerId, now, page);
+                .findBookings(ownerFilter(BookingState.PAST), page);
 
         AssertionsForClassTypes.assertThat(result).asList()
                 .hasSize(1)
@@ -137,10 +169,9 @@ public class BookingRepositoryTest {
     }
 
     @Test
-    public void findAllByItemOwnerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc() {
-        LocalDateTime now = LocalDateTime.now();
+    public void findBookings_ofOwnerInStateCurrent() {
         List<Booking> result = bookingJPARepository
-                .findAllByItemOwnerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(ownerId, now, now, page);
+                .findBookings(ownerFilter(BookingState.CURRENT), page);
 
         AssertionsForClassTypes.assertThat(result).asList()
                 .hasSize(1)
@@ -151,11 +182,9 @@ public class BookingRepositoryTest {
     }
 
     @Test
-    public void findAllByItemOwnerIdAndStartIsAfterOrderByStartDesc() {
-
-        LocalDateTime now = LocalDateTime.now();
+    public void findBookings_ofOwnerInStateFuture() {
         List<Booking> result = bookingJPARepository
-                .findAllByItemOwnerIdAndStartIsAfterOrderByStartDesc(ownerId, now, page);
+                .findBookings(ownerFilter(BookingState.FUTURE), page);
 
         AssertionsForClassTypes.assertThat(result).asList()
                 .hasSize(3)
@@ -167,11 +196,9 @@ public class BookingRepositoryTest {
     }
 
     @Test
-    public void findAllByItemOwnerIdAndStatusInOrderByStartDesc() {
-
-        List<BookingStatus> notApprovedStatus = List.of(BookingStatus.REJECTED, BookingStatus.CANCELED);
+    public void findBookings_ofOwnerInStateRejected() {
         List<Booking> result = bookingJPARepository
-                .findAllByItemOwnerIdAndStatusInOrderByStartDesc(ownerId, notApprovedStatus, page);
+                .findBookings(ownerFilter(BookingState.REJECTED), page);
 
         AssertionsForClassTypes.assertThat(result).asList()
                 .hasSize(1)
@@ -182,9 +209,9 @@ public class BookingRepositoryTest {
     }
 
     @Test
-    public void findAllByItemOwnerIdAndStatusOrderByStartDesc() {
+    public void findBookings_ofOwnerInStateWaiting() {
         List<Booking> result = bookingJPARepository
-                .findAllByItemOwnerIdAndStatusOrderByStartDesc(ownerId, BookingStatus.WAITING, page);
+                .findBookings(ownerFilter(BookingState.WAITING), page);
 
         AssertionsForClassTypes.assertThat(result).asList()
                 .hasSize(1)
@@ -196,10 +223,10 @@ public class BookingRepositoryTest {
     }
 
     @Test
-    public void findAllByBookerIdOrderByStartDesc() {
+    public void findBookings_ofBookerInStateAll() {
 
         List<Booking> result = bookingJPARepository
-                .findAllByBookerIdOrderByStartDesc(bookerId, page);
+                .findBookings(bookerFilter(BookingState.ALL), page);
 
         AssertionsForClassTypes.assertThat(result).asList()
                 .hasSize(5)
@@ -213,11 +240,9 @@ public class BookingRepositoryTest {
     }
 
     @Test
-    public void findAllByBookerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc() {
-
-        LocalDateTime now = LocalDateTime.now();
+    public void findBookings_ofBookerInStateCurrent() {
         List<Booking> result = bookingJPARepository
-                .findAllByBookerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(bookerId, now, now, page);
+                .findBookings(bookerFilter(BookingState.CURRENT), page);
 
         AssertionsForClassTypes.assertThat(result).asList()
                 .hasSize(1)
@@ -229,12 +254,9 @@ public class BookingRepositoryTest {
     }
 
     @Test
-    public void findAllByBookerIdAndEndIsBeforeOrderByStartDesc() {
-
-        LocalDateTime now = LocalDateTime.now();
-
+    public void findBookings_ofBookerInStatePast() {
         List<Booking> result = bookingJPARepository
-                .findAllByBookerIdAndEndIsBeforeOrderByStartDesc(bookerId, now, page);
+                .findBookings(bookerFilter(BookingState.PAST), page);
 
         AssertionsForClassTypes.assertThat(result).asList()
                 .hasSize(1)
@@ -244,11 +266,9 @@ public class BookingRepositoryTest {
     }
 
     @Test
-    public void findAllByBookerIdAndStartIsAfterOrderByStartDesc() {
-
-        LocalDateTime now = LocalDateTime.now();
+    public void findBookings_ofBookerInStateFuture() {
         List<Booking> result = bookingJPARepository
-                .findAllByBookerIdAndStartIsAfterOrderByStartDesc(bookerId, now, page);
+                .findBookings(bookerFilter(BookingState.FUTURE), page);
 
         AssertionsForClassTypes.assertThat(result).asList()
                 .hasSize(3)
@@ -260,11 +280,9 @@ public class BookingRepositoryTest {
     }
 
     @Test
-    public void findAllByBookerIdAndStatusInOrderByStartDesc() {
-
-        List<BookingStatus> notApprovedStatus = List.of(BookingStatus.REJECTED, BookingStatus.CANCELED);
+    public void findBookings_ofBookerInStateRejected() {
         List<Booking> result = bookingJPARepository
-                .findAllByBookerIdAndStatusInOrderByStartDesc(bookerId, notApprovedStatus, page);
+                .findBookings(bookerFilter(BookingState.REJECTED), page);
 
         AssertionsForClassTypes.assertThat(result).asList()
                 .hasSize(1)
@@ -274,10 +292,10 @@ public class BookingRepositoryTest {
     }
 
     @Test
-    public void findAllByBookerIdAndStatusOrderByStartDesc() {
+    public void findBookings_ofBookerInStateWaiting() {
 
         List<Booking> result = bookingJPARepository
-                .findAllByBookerIdAndStatusOrderByStartDesc(bookerId, BookingStatus.WAITING, page);
+                .findBookings(bookerFilter(BookingState.WAITING), page);
 
         AssertionsForClassTypes.assertThat(result).asList()
                 .hasSize(1)
@@ -335,6 +353,525 @@ public class BookingRepositoryTest {
                 .endsWith(currentBooking);
     }
 
+    @Test
+    public void findLastApprovedBookingsOfItems() {
+
+        LocalDateTime now = LocalDateTime.now();
+        Item anotherItem = itemJPARepository.save(item.toBuilder().id(null).name("fork").build());
+
+        List<BookingShortView> result = bookingJPARepository
+                .findLastApprovedBookingsOfItems(List.of(itemId, anotherItem.getId()), now);
+
+        AssertionsForClassTypes.assertThat(result).asList().hasSize(1);
+        assertThat(result.get(0))
+                .hasFieldOrPropertyWithValue("itemId", itemId)
+                .hasFieldOrPropertyWithValue("id", currentBooking.getId())
+                .hasFieldOrPropertyWithValue("bookerId", bookerId);
+    }
+
+    @Test
+    public void findNextApprovedBookingsOfItems() {
+
+        LocalDateTime now = LocalDateTime.now();
+        Item anotherItem = itemJPARepository.save(item.toBuilder().id(null).name("fork").build());
+        Booking anotherItemBooking = bookingJPARepository.save(approvedBooking.toBuilder()
+                .id(null)
+                .item(anotherItem)
+                .build());
+
+        List<BookingShortView> result = bookingJPARepository
+                .findNextApprovedBookingsOfItems(List.of(itemId, anotherItem.getId()), now);
+
+        AssertionsForClassTypes.assertThat(result).asList().hasSize(2);
+        assertThat(result.get(0))
+                .hasFieldOrPropertyWithValue("itemId", itemId)
+                .hasFieldOrPropertyWithValue("id", approvedBooking.getId())
+                .hasFieldOrPropertyWithValue("bookerId", bookerId);
+        assertThat(result.get(1))
+                .hasFieldOrPropertyWithValue("itemId", anotherItem.getId())
+                .hasFieldOrPropertyWithValue("id", anotherItemBooking.getId())
+                .hasFieldOrPropertyWithValue("bookerId", bookerId);
+    }
+
+    @Test
+    public void findIntervalsByItemIdAndStatusIn() {
+
+        List<BookingIntervalView> result = bookingJPARepository
+                .findIntervalsByItemIdAndStatusIn(itemId, List.of(BookingStatus.WAITING));
+
+        AssertionsForClassTypes.assertThat(result).asList().hasSize(1);
+        assertThat(result.get(0))
+                .hasFieldOrPropertyWithValue("id", waitingBooking.getId())
+                .hasFieldOrPropertyWithValue("bookerId", bookerId)
+                .hasFieldOrPropertyWithValue("start", waitingBooking.getStart())
+                .hasFieldOrPropertyWithValue("end", waitingBooking.getEnd())
+                .hasFieldOrPropertyWithValue("status", BookingStatus.WAITING);
+    }
+
+    @Test
+    public void findOverlappingIntervalsOfItemsInStatuses_returnIntervalsOrderedByItemAndStart_byIndexOfItem() {
+
+        List<BookingStatus> statuses = List.of(BookingStatus.APPROVED, BookingStatus.WAITING);
+        LocalDateTime start = LocalDateTime.of(2029, 12, 31, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2030, 1, 2, 0, 0);
+
+        List<BookingItemIntervalView> result = bookingJPARepository
+                .findOverlappingIntervalsOfItemsInStatuses(List.of(itemId, itemId + 1), statuses, start, end);
+        List<String> plans = explain(() -> bookingJPARepository
+                .findOverlappingIntervalsOfItemsInStatuses(List.of(itemId, itemId + 1), statuses, start, end));
+
+        AssertionsForClassTypes.assertThat(result.stream()
+                        .map(interval -> interval.getItemId() + "/" + interval.getStart())
+                        .collect(Collectors.toList())).asList()
+                .containsExactly(itemId + "/" + currentBooking.getStart(), itemId + "/" + waitingBooking.getStart(),
+                        itemId + "/" + approvedBooking.getStart());
+        AssertionsForClassTypes.assertThat(plans).asList().hasSize(1);
+        assertThat(plans.get(0))
+                .containsPattern("\"BOOKINGS\" \"\\w+\"\\s+/\\* PUBLIC\\.\\w+: ITEM IN\\(")
+                .doesNotContain("tableScan");
+    }
+
+    @Test
+    public void findAllByStatusAndStartIsBeforeOrderByStart_returnEarliestWaitingStartedBookings_byIndexOfStatusAndStart() {
+
+        Booking staleBooking = bookingJPARepository.save(waitingBooking.toBuilder()
+                .id(null)
+                .start(LocalDateTime.of(2020, 1, 1, 1, 1, 1))
+                .build());
+        LocalDateTime now = LocalDateTime.of(2030, 1, 1, 2, 0);
+
+        List<Booking> result = bookingJPARepository.findAllByStatusAndStartIsBeforeOrderByStart(BookingStatus.WAITING,
+                now, PageRequest.of(0, 1));
+        List<String> plans = explain(() -> bookingJPARepository.findAllByStatusAndStartIsBeforeOrderByStart(
+                BookingStatus.WAITING, now, PageRequest.of(0, 1)));
+
+        AssertionsForClassTypes.assertThat(result).asList()
+                .containsExactly(staleBooking);
+        AssertionsForClassTypes.assertThat(plans).asList().hasSize(1);
+        assertThat(plans.get(0))
+                .contains("IDX_BOOKINGS_STATUS_START")
+                .doesNotContain("tableScan");
+    }
+
+    @Test
+    public void existsOverlapping() {
+
+        LocalDateTime pastEnd = pastBooking.getEnd();
+        LocalDateTime currentStart = currentBooking.getStart();
+
+        assertThat(bookingJPARepository.existsOverlapping(itemId, BookingStatus.APPROVED,
+                pastEnd, currentStart)).isFalse();
+        assertThat(bookingJPARepository.existsOverlapping(itemId, BookingStatus.APPROVED,
+                pastEnd.minusSeconds(1), currentStart)).isTrue();
+        assertThat(bookingJPARepository.existsOverlapping(itemId, BookingStatus.APPROVED,
+                currentStart.minusDays(1), currentStart.plusSeconds(1))).isTrue();
+        assertThat(bookingJPARepository.existsOverlapping(itemId, BookingStatus.REJECTED,
+                pastEnd, currentStart)).isFalse();
+    }
+
+    @Test
+    public void updateStatus_changeOnlyWaitingBookingOfOwnerItem_andIncrementVersion() {
+
+        Long bookingId = waitingBooking.getId();
+
+        assertThat(bookingJPARepository.updateStatus(bookingId, bookerId,
+                BookingStatus.WAITING, BookingStatus.APPROVED)).isEqualTo(0);
+        assertThat(bookingJPARepository.updateStatus(bookingId, ownerId,
+                BookingStatus.WAITING, BookingStatus.APPROVED)).isEqualTo(1);
+        assertThat(bookingJPARepository.updateStatus(bookingId, ownerId,
+                BookingStatus.WAITING, BookingStatus.REJECTED)).isEqualTo(0);
+
+        Booking updated = bookingJPARepository.findById(bookingId).orElseThrow();
+        assertThat(updated)
+                .hasFieldOrPropertyWithValue("status", BookingStatus.APPROVED)
+                .hasFieldOrPropertyWithValue("version", waitingBooking.getVersion() + 1);
+    }
+
+    @Test
+    public void countBookingsByState_ofOwnerAndBooker_countEveryStateByOneQuery() {
+        BookingSummaryDto expected = BookingSummaryDto.builder()
+                .all(5)
+                .current(1)
+                .past(1)
+                .future(3)
+                .waiting(1)
+                .rejected(1)
+                .build();
+
+        assertThat(bookingJPARepository.countBookingsByState(ownerFilter(BookingState.ALL))).isEqualTo(expected);
+        assertThat(bookingJPARepository.countBookingsByState(bookerFilter(BookingState.ALL))).isEqualTo(expected);
+        assertThat(bookingJPARepository.countBookingsByState(bookerFilter(BookingState.ALL).toBuilder()
+                .bookerId(ownerId)
+                .build()))
+                .isEqualTo(BookingSummaryDto.builder().build());
+    }
+
+    @Test
+    public void updateStatuses_changeOnlyWaitingBookingsOfOwnerItems_andIncrementVersions() {
+
+        Booking anotherWaitingBooking = bookingJPARepository.save(waitingBooking.toBuilder()
+                .id(null)
+                .version(null)
+                .build());
+        List<Long> bookingIds = List.of(waitingBooking.getId(), anotherWaitingBooking.getId(), approvedBooking.getId());
+
+        assertThat(bookingJPARepository.updateStatuses(bookingIds, bookerId,
+                BookingStatus.WAITING, BookingStatus.REJECTED)).isEqualTo(0);
+        assertThat(bookingJPARepository.updateStatuses(bookingIds, ownerId,
+                BookingStatus.WAITING, BookingStatus.REJECTED)).isEqualTo(2);
+
+        List<String> versions = bookingJPARepository.findVersionsByIdIn(bookingIds).stream()
+                .map(view -> view.getId() + ":" + view.getStatus() + ":" + view.getVersion())
+                .sorted()
+                .collect(Collectors.toList());
+        assertThat(versions).isEqualTo(Stream.of(
+                        waitingBooking.getId() + ":REJECTED:1",
+                        anotherWaitingBooking.getId() + ":REJECTED:1",
+                        approvedBooking.getId() + ":APPROVED:0")
+                .sorted()
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    public void findArchivableIds_returnOldFinalBookingsExceptLastStartedApprovedBookingOfItem() {
+
+        Booking oldRejectedBooking = bookingJPARepository.save(pastBooking.toBuilder()
+                .id(null)
+                .version(null)
+                .status(BookingStatus.REJECTED)
+                .build());
+        Booking oldWaitingBooking = bookingJPARepository.save(pastBooking.toBuilder()
+                .id(null)
+                .version(null)
+                .status(BookingStatus.WAITING)
+                .build());
+        LocalDateTime now = LocalDateTime.now();
+
+        List<Long> result = bookingJPARepository.findArchivableIds(BookingStatus.APPROVED,
+                List.of(BookingStatus.REJECTED, BookingStatus.CANCELED), now.minusDays(365), now, page);
+
+        AssertionsForClassTypes.assertThat(result).asList()
+                .containsExactly(pastBooking.getId(), oldRejectedBooking.getId())
+                .doesNotContain(oldWaitingBooking.getId());
+    }
+
+    @Test
+    public void findBookings_whenBookingIsArchived_mergeArchiveIntoAllAndPastStates() {
+
+        entityManager.flush();
+        List<Long> bookingIds = List.of(pastBooking.getId());
+
+        assertThat(archivedBookingJPARepository.copyFromBookings(bookingIds)).isEqualTo(1);
+        assertThat(bookingJPARepository.deleteAllByIdIn(bookingIds)).isEqualTo(1);
+        entityManager.clear();
+
+        assertThat(bookingJPARepository.count()).isEqualTo(4L);
+        AssertionsForClassTypes.assertThat(bookingJPARepository.findBookings(ownerFilter(BookingState.ALL), page)
+                        .stream()
+                        .map(Booking::getId)
+                        .collect(Collectors.toList())).asList()
+                .containsExactly(approvedBooking.getId(), waitingBooking.getId(), rejectedBooking.getId(),
+                        currentBooking.getId(), pastBooking.getId());
+        AssertionsForClassTypes.assertThat(bookingJPARepository.findBookings(bookerFilter(BookingState.PAST),
+                        null, 10)
+                        .stream()
+                        .map(booking -> booking.getId() + "/" + booking.getItem().getName())
+                        .collect(Collectors.toList())).asList()
+                .containsExactly(pastBooking.getId() + "/spoon");
+        assertThat(bookingJPARepository.countBookingsByState(ownerFilter(BookingState.ALL)))
+                .hasFieldOrPropertyWithValue("all", 5L)
+                .hasFieldOrPropertyWithValue("past", 1L);
+        assertThat(archivedBookingJPARepository.existsByItemIdAndBookerIdAndStatusAndStartIsBefore(itemId,
+                bookerId, BookingStatus.APPROVED, LocalDateTime.now())).isTrue();
+    }
+
+    @Test
+    public void save_whenBookingWasChangedAfterItWasRead_throwObjectOptimisticLockingFailureException() {
+
+        Booking stale = waitingBooking.toBuilder()
+                .status(BookingStatus.REJECTED)
+                .build();
+        bookingJPARepository.updateStatus(waitingBooking.getId(), ownerId, BookingStatus.WAITING, BookingStatus.APPROVED);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> bookingJPARepository.saveAndFlush(stale));
+    }
+
+    @Test
+    public void findBookings_whenCursorIsGiven_returnBookingsAfterCursorOrderedByStartAndIdDesc() {
+
+        Booking sameStartBooking = bookingJPARepository.save(approvedBooking.toBuilder()
+                .id(null)
+                .build());
+        BookingFilter filter = BookingFilter.builder()
+                .ownerId(ownerId)
+                .state(BookingState.ALL)
+                .now(LocalDateTime.now())
+                .build();
+
+        List<Booking> firstPage = bookingJPARepository.findBookings(filter, null, 2);
+        Booking lastOfFirstPage = firstPage.get(1);
+        List<Booking> secondPage = bookingJPARepository.findBookings(filter,
+                Cursor.of(lastOfFirstPage.getStart(), lastOfFirstPage.getId()), 3);
+
+        AssertionsForClassTypes.assertThat(firstPage).asList()
+                .containsExactly(sameStartBooking, approvedBooking);
+        AssertionsForClassTypes.assertThat(secondPage).asList()
+                .containsExactly(waitingBooking, rejectedBooking, currentBooking);
+    }
+
+    @Test
+    public void findBookings_whenStateIsGiven_returnBookingsOfBookerInThisState() {
+
+        BookingFilter filter = BookingFilter.builder()
+                .bookerId(bookerId)
+                .state(BookingState.CURRENT)
+                .now(LocalDateTime.now())
+                .build();
+
+        List<Booking> result = bookingJPARepository.findBookings(filter, null, 10);
+
+        AssertionsForClassTypes.assertThat(result).asList()
+                .containsExactly(currentBooking);
+    }
+
+    @Test
+    public void streamBookings_returnAllBookingsOrderedByStartAndIdDesc_withFetchedItemAndBooker() {
+
+        BookingFilter filter = BookingFilter.builder()
+                .ownerId(ownerId)
+                .state(BookingState.ALL)
+                .now(LocalDateTime.now())
+                .build();
+
+        List<Booking> result;
+        try (Stream<Booking> bookings = bookingJPARepository.streamBookings(filter, 2)) {
+            result = bookings.collect(Collectors.toList());
+        }
+
+        AssertionsForClassTypes.assertThat(result.stream().map(Booking::getId).collect(Collectors.toList())).asList()
+                .containsExactly(approvedBooking.getId(), waitingBooking.getId(), rejectedBooking.getId(),
+                        currentBooking.getId(), pastBooking.getId());
+        AssertionsForClassTypes.assertThat(result.stream()
+                        .map(booking -> booking.getItem().getOwner().getName() + "/" + booking.getBooker().getName())
+                        .distinct()
+                        .collect(Collectors.toList())).asList()
+                .containsExactly("Oleg/Peter");
+    }
+
+    @Test
+    public void streamBookings_ofOwner_joinItemsOnceForFilterAndSelection() {
+
+        List<String> plans = explain(() -> {
+            try (Stream<Booking> bookings = bookingJPARepository.streamBookings(ownerFilter(BookingState.ALL), 2)) {
+                bookings.forEach(booking -> {
+                });
+            }
+            try (Stream<BookingLeanResponseDto> bookings =
+                         bookingJPARepository.streamLeanBookings(ownerFilter(BookingState.ALL), 2)) {
+                bookings.forEach(booking -> {
+                });
+            }
+        });
+
+        // both streams and the newest start of the archive
+        AssertionsForClassTypes.assertThat(plans).asList()
+                .hasSize(3);
+        for (String plan : plans) {
+            assertThat(plan)
+                    .containsOnlyOnce("\"PUBLIC\".\"ITEMS\"");
+        }
+    }
+
+    @Test
+    public void findBookings_andMappingToResponses_stayWithinStatementBudget() {
+
+        User anotherOwner = userJPARepository.save(User.builder()
+                .name("Ivan")
+                .email("ivan@gmail.com")
+                .build());
+        ItemRequest request = itemRequestJPARepository.save(ItemRequest.builder()
+                .description("I need a fork")
+                .requester(owner)
+                .created(LocalDateTime.now())
+                .build());
+        Item requestedItem = itemJPARepository.save(Item.builder()
+                .name("fork")
+                .description("small")
+                .available(true)
+                .owner(anotherOwner)
+                .request(request)
+                .build());
+        for (int day = 1; day <= 5; day++) {
+            bookingJPARepository.save(waitingBooking.toBuilder()
+                    .id(null)
+                    .version(null)
+                    .start(LocalDateTime.of(2031, 1, day, 1, 1, 1))
+                    .end(LocalDateTime.of(2031, 1, day, 2, 1, 1))
+                    .item(requestedItem)
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        // the page and the newest start of the archive
+        long pageStatements = countStatements(statistics, () -> BookingMapper.toBookingResponseDtoList(
+                bookingJPARepository.findBookings(bookerFilter(BookingState.ALL), page)));
+        long cursorPageStatements = countStatements(statistics, () -> BookingMapper.toBookingResponseDtoList(
+                bookingJPARepository.findBookings(bookerFilter(BookingState.ALL), null, 10)));
+        long streamStatements = countStatements(statistics, () -> {
+            try (Stream<Booking> bookings = bookingJPARepository.streamBookings(bookerFilter(BookingState.ALL), 4)) {
+                return bookings.map(BookingMapper::toBookingResponseDto).collect(Collectors.toList());
+            }
+        });
+        long bookingStatements = countStatements(statistics, () -> BookingMapper.toBookingResponseDto(
+                bookingJPARepository.findById(pastBooking.getId()).orElseThrow()));
+        statistics.setStatisticsEnabled(false);
+
+        assertThat(pageStatements).isLessThanOrEqualTo(LISTING_STATEMENT_BUDGET);
+        assertThat(cursorPageStatements).isLessThanOrEqualTo(LISTING_STATEMENT_BUDGET);
+        assertThat(streamStatements).isLessThanOrEqualTo(LISTING_STATEMENT_BUDGET);
+        assertThat(bookingStatements).isEqualTo(1L);
+    }
+
+    @Test
+    public void findLeanBookings_returnSameBookingsAsEntityListing_inOneSelectIncludingArchive() {
+
+        entityManager.flush();
+        List<Long> bookingIds = List.of(pastBooking.getId());
+        archivedBookingJPARepository.copyFromBookings(bookingIds);
+        bookingJPARepository.deleteAllByIdIn(bookingIds);
+        entityManager.clear();
+        List<String> expected = bookingJPARepository.findBookings(ownerFilter(BookingState.ALL), page).stream()
+                .map(booking -> booking.getId() + "/" + booking.getStatus() + "/" + booking.getBooker().getId()
+                        + "/" + booking.getBooker().getName() + "/" + booking.getItem().getId()
+                        + "/" + booking.getItem().getName())
+                .collect(Collectors.toList());
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        List<BookingLeanResponseDto> pageResult = new ArrayList<>();
+        List<BookingLeanResponseDto> cursorResult = new ArrayList<>();
+        List<BookingLeanResponseDto> streamResult = new ArrayList<>();
+        // the active bookings only, the page ends before the archive
+        long pageStatements = countStatements(statistics, () -> pageResult.addAll(
+                bookingJPARepository.findLeanBookings(ownerFilter(BookingState.ALL), PageRequest.of(0, 4))));
+        countStatements(statistics, () -> cursorResult.addAll(
+                bookingJPARepository.findLeanBookings(ownerFilter(BookingState.ALL), null, 10)));
+        countStatements(statistics, () -> {
+            try (Stream<BookingLeanResponseDto> bookings =
+                         bookingJPARepository.streamLeanBookings(ownerFilter(BookingState.ALL), 2)) {
+                return streamResult.addAll(bookings.collect(Collectors.toList()));
+            }
+        });
+        statistics.setStatisticsEnabled(false);
+
+        AssertionsForClassTypes.assertThat(toLeanKeys(cursorResult)).asList()
+                .containsExactlyElementsOf(expected);
+        AssertionsForClassTypes.assertThat(toLeanKeys(streamResult)).asList()
+                .containsExactlyElementsOf(expected);
+        AssertionsForClassTypes.assertThat(toLeanKeys(pageResult)).asList()
+                .containsExactlyElementsOf(expected.subList(0, 4));
+        assertThat(pageStatements).isLessThanOrEqualTo(LISTING_STATEMENT_BUDGET);
+    }
+
+    @Test
+    public void findBookings_inEveryStateOfOwnerAndBooker_useIndexesOfBookings() {
+
+        for (BookingState state : BookingState.values()) {
+            for (BookingFilter filter : List.of(ownerFilter(state), bookerFilter(state))) {
+                List<String> plans = explain(() -> bookingJPARepository.findBookings(filter, page));
+
+                // ALL, PAST and REJECTED also look up the newest start in the archive to know whether to merge it
+                boolean readsArchive = state == BookingState.ALL || state == BookingState.PAST
+                        || state == BookingState.REJECTED;
+                AssertionsForClassTypes.assertThat(plans).asList()
+                        .as("plans of %s", filter)
+                        .hasSize(readsArchive ? 2 : 1);
+                for (String plan : plans) {
+                    assertThat(plan)
+                            .as("plan of %s", filter)
+                            .containsPattern("\"BOOKINGS(_ARCHIVE)?\" \"\\w+\"\\s+/\\* PUBLIC\\.\\w+: ")
+                            .doesNotContain("tableScan");
+                }
+            }
+        }
+    }
+
+    /**
+     * Plans of the statements reading bookings executed by the action, from H2 query statistics.
+     */
+    private List<String> explain(Runnable action) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET QUERY_STATISTICS FALSE");
+                statement.execute("SET QUERY_STATISTICS TRUE");
+            }
+
+            action.run();
+
+            List<String> statements = new ArrayList<>();
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(
+                         "SELECT SQL_STATEMENT FROM INFORMATION_SCHEMA.QUERY_STATISTICS " +
+                                 "WHERE LOWER(SQL_STATEMENT) LIKE '%from bookings%'")) {
+                while (resultSet.next()) {
+                    statements.add(resultSet.getString(1));
+                }
+            }
+
+            List<String> plans = new ArrayList<>();
+            for (String sql : statements) {
+                try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                    // the plan does not depend on the values of the parameters
+                    for (int i = 1; i <= statement.getParameterMetaData().getParameterCount(); i++) {
+                        statement.setObject(i, null);
+                    }
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        resultSet.next();
+                        plans.add(resultSet.getString(1));
+                    }
+                }
+            }
+
+            return plans;
+        });
+    }
+
+    private long countStatements(Statistics statistics, Supplier<?> listing) {
+        entityManager.clear();
+        statistics.clear();
+        Object responses = listing.get();
+
+        assertThat(responses).isNotNull();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private List<String> toLeanKeys(List<BookingLeanResponseDto> bookings) {
+        return bookings.stream()
+                .map(booking -> booking.getId() + "/" + booking.getStatus() + "/" + booking.getBooker().getId()
+                        + "/" + booking.getBooker().getName() + "/" + booking.getItem().getId()
+                        + "/" + booking.getItem().getName())
+                .collect(Collectors.toList());
+    }
+
+    private BookingFilter ownerFilter(BookingState state) {
+        return BookingFilter.builder()
+                .ownerId(ownerId)
+                .state(state)
+                .now(LocalDateTime.now())
+                .build();
+    }
+
+    private BookingFilter bookerFilter(BookingState state) {
+        return BookingFilter.builder()
+                .bookerId(bookerId)
+                .state(state)
+                .now(LocalDateTime.now())
+                .build();
+    }
+
     @AfterEach
     public void destroy() {
         userJPARepository.deleteAll();
@@ -4,19 +4,32 @@ import org.hamcrest.MatcherAssert;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InOrder;
+import org.mockito.ArgumentMatcher;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import ru.practicum.shareit.booking.BookingMapper;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingCreationView;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingStatusBatchDto;
+import ru.practicum.shareit.booking.dto.BookingStatusResultDto;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+import ru.practicum.shareit.booking.dto.BookingVersionView;
+import ru.practicum.shareit.booking.event.BookingOutbox;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.store.BookingFilter;
+import ru.practicum.shareit.booking.store.ArchivedBookingJPARepository;
 import ru.practicum.shareit.booking.store.BookingJPARepository;
 import ru.practicum.shareit.exception.*;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.ItemViewProjection;
 import ru.practicum.shareit.item.storage.ItemJPARepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserJPARepository;
@@ -24,6 +37,7 @@ import ru.practicum.shareit.user.storage.UserJPARepository;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.hamcrest.Matchers.hasItem;
@@ -41,6 +55,16 @@ public class BookingServiceImplTest {
     private ItemJPARepository itemRepository;
     @Mock
     private BookingJPARepository bookingRepository;
+    @Mock
+    private ArchivedBookingJPARepository archivedBookingRepository;
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+    @Mock
+    private ItemViewProjection itemViewProjection;
+    @Mock
+    private BookingConflictDetector bookingConflictDetector;
+    @Mock
+    private BookingOutbox bookingOutbox;
 
     @Test
     public void create_whenStartEndAreValid_ItemExists_ItemIsAvailable_UserExists_UserIsNotOwner_invokeSave_returnResult() {
@@ -85,16 +109,20 @@ public class BookingServiceImplTest {
 
         BookingResponseDto expectedBooking = BookingMapper.toBookingResponseDto(savedBooking);
 
-        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
-        when(userRepository.findById(bookerId)).thenReturn(Optional.of(booker));
+        when(bookingRepository.findCreationView(itemId, bookerId))
+                .thenReturn(Optional.of(toBookingCreationView(item, booker)));
         when(bookingRepository.save(booking)).thenReturn(savedBooking);
 
         BookingResponseDto result = bookingService.createBooking(bookingDto, bookerId);
 
-        InOrder inOrder = inOrder(itemRepository, userRepository, bookingRepository);
-        inOrder.verify(itemRepository).findById(itemId);
-        inOrder.verify(userRepository).findById(bookerId);
+        InOrder inOrder = inOrder(bookingRepository);
+        inOrder.verify(bookingRepository).findCreationView(itemId, bookerId);
         inOrder.verify(bookingRepository).save(booking);
+        verifyNoInteractions(itemRepository, userRepository);
+        verify(bookingConflictDetector).checkNoApprovedOverlap(item, start, endAfterStart);
+        verify(bookingIntervalIndex).onBookingSaved(savedBooking);
+        verify(itemViewProjection).onBookingSaved(savedBooking);
+        verify(bookingOutbox).add(savedBooking);
 
         assertEquals(result, expectedBooking);
 
@@ -171,14 +199,15 @@ public class BookingServiceImplTest {
                 .itemId(itemId)
                 .build();
 
-        when(itemRepository.findById(itemId)).thenReturn(Optional.empty());
+        when(bookingRepository.findCreationView(itemId, bookerId)).thenReturn(Optional.empty());
 
         assertThrows(ItemNotExistException.class,
                 () -> bookingService.createBooking(bookingDto, bookerId),
                 String.format("there is no item with id: %s", itemId));
 
-        verify(itemRepository).findById(itemId);
-        verifyNoInteractions(userRepository, bookingRepository);
+        verify(bookingRepository).findCreationView(itemId, bookerId);
+        verifyNoMoreInteractions(bookingRepository);
+        verifyNoInteractions(itemRepository, userRepository);
     }
 
     @Test
@@ -192,7 +221,8 @@ public class BookingServiceImplTest {
                 .available(false)
                 .build();
 
-        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
+        when(bookingRepository.findCreationView(itemId, bookerId))
+                .thenReturn(Optional.of(toBookingCreationView(item, User.builder().id(bookerId).build())));
 
         LocalDateTime start = LocalDateTime.of(2030, 1, 1, 1, 1, 1);
         LocalDateTime endAfterStart = start.plusWeeks(1);
@@ -207,8 +237,9 @@ public class BookingServiceImplTest {
                 () -> bookingService.createBooking(bookingDto, bookerId),
                 "the item is unavailable");
 
-        verify(itemRepository).findById(itemId);
-        verifyNoInteractions(userRepository, bookingRepository);
+        verify(bookingRepository).findCreationView(itemId, bookerId);
+        verifyNoMoreInteractions(bookingRepository);
+        verifyNoInteractions(itemRepository, userRepository);
     }
 
     @Test
@@ -222,8 +253,8 @@ public class BookingServiceImplTest {
                 .available(true)
                 .build();
 
-        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
-        when(userRepository.findById(bookerId)).thenReturn(Optional.empty());
+        when(bookingRepository.findCreationView(itemId, bookerId))
+                .thenReturn(Optional.of(toBookingCreationView(item, null)));
 
         LocalDateTime start = LocalDateTime.of(2030, 1, 1, 1, 1, 1);
         LocalDateTime endAfterStart = start.plusWeeks(1);
@@ -238,9 +269,9 @@ public class BookingServiceImplTest {
                 () -> bookingService.createBooking(bookingDto, bookerId),
                 String.format("there is no user with id: %s", bookerId));
 
-        verify(itemRepository).findById(itemId);
-        verify(userRepository).findById(bookerId);
-        verifyNoInteractions(bookingRepository);
+        verify(bookingRepository).findCreationView(itemId, bookerId);
+        verifyNoMoreInteractions(bookingRepository);
+        verifyNoInteractions(itemRepository, userRepository);
     }
 
     @Test
@@ -260,8 +291,8 @@ public class BookingServiceImplTest {
                 .available(true)
                 .build();
 
-        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
-        when(userRepository.findById(ownerId)).thenReturn(Optional.of(owner));
+        when(bookingRepository.findCreationView(itemId, ownerId))
+                .thenReturn(Optional.of(toBookingCreationView(item, owner)));
 
         LocalDateTime start = LocalDateTime.of(2030, 1, 1, 1, 1, 1);
         LocalDateTime endAfterStart = start.plusWeeks(1);
@@ -276,9 +307,9 @@ public class BookingServiceImplTest {
                 () -> bookingService.createBooking(bookingDto, ownerId),
                 "the owner can not book his/her own thing");
 
-        verify(itemRepository).findById(itemId);
-        verify(userRepository).findById(ownerId);
-        verifyNoInteractions(bookingRepository);
+        verify(bookingRepository).findCreationView(itemId, ownerId);
+        verifyNoMoreInteractions(bookingRepository);
+        verifyNoInteractions(itemRepository, userRepository);
     }
 
     @Test
@@ -461,6 +492,376 @@ public class BookingServiceImplTest {
         verify(bookingRepository).findById(bookingId);
     }
 
+    @Test
+    public void create_whenItemIsBookedForOverlappingPeriod_thenThrowsItemNotAvailableException_NotInvokeSave() {
+
+        User owner = User.builder()
+                .id(1L)
+                .name("Peter")
+                .email("Peter@yandex.ru")
+                .build();
+
+        Long bookerId = 2L;
+        User booker = User.builder()
+                .id(bookerId)
+                .name("Oleg")
+                .email("Oleg@yandex.ru")
+                .build();
+
+        Long itemId = 1L;
+        Item item = Item.builder()
+                .id(itemId)
+                .name("a spoon")
+                .description("silver")
+                .available(true)
+                .owner(owner)
+                .build();
+
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 1, 1, 1);
+        BookingDto bookingDto = BookingDto.builder()
+                .start(start)
+                .end(start.plusWeeks(1))
+                .itemId(itemId)
+                .build();
+
+        when(bookingRepository.findCreationView(itemId, bookerId))
+                .thenReturn(Optional.of(toBookingCreationView(item, booker)));
+        doThrow(new ItemNotAvailableException("the item with id: 1 is already booked"))
+                .when(bookingConflictDetector).checkNoApprovedOverlap(item, start, start.plusWeeks(1));
+
+        assertThrows(ItemNotAvailableException.class,
+                () -> bookingService.createBooking(bookingDto, bookerId));
+
+        verify(bookingRepository, never()).save(any());
+        verifyNoInteractions(bookingIntervalIndex, itemViewProjection);
+    }
+
+    @Test
+    public void createBatch_whenSomeEntriesAreInvalid_saveOthersInOneCall_returnResultForEveryEntry() {
+
+        User owner = User.builder()
+                .id(1L)
+                .name("Peter")
+                .email("Peter@yandex.ru")
+                .build();
+
+        Long bookerId = 2L;
+        User booker = User.builder()
+                .id(bookerId)
+                .name("Oleg")
+                .email("Oleg@yandex.ru")
+                .build();
+
+        Item item = Item.builder()
+                .id(1L)
+                .name("a spoon")
+                .description("silver")
+                .available(true)
+                .owner(owner)
+                .build();
+        Item itemOfBooker = item.toBuilder()
+                .id(2L)
+                .owner(booker)
+                .build();
+
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 1, 1, 1);
+        LocalDateTime bookedStart = start.plusWeeks(2);
+        List<BookingDto> bookingDtos = List.of(
+                BookingDto.builder().start(start).end(start.plusDays(1)).itemId(1L).build(),
+                BookingDto.builder().start(start).end(start.plusDays(1)).itemId(2L).build(),
+                BookingDto.builder().start(start).end(start.plusDays(1)).itemId(99L).build(),
+                BookingDto.builder().start(bookedStart).end(bookedStart.plusDays(1)).itemId(1L).build(),
+                BookingDto.builder().start(start).end(start.minusDays(1)).itemId(1L).build());
+
+        Booking booking = BookingMapper.toBooking(bookingDtos.get(0), booker, item, BookingStatus.WAITING);
+        Booking savedBooking = booking.toBuilder().id(1L).build();
+
+        when(userRepository.findById(bookerId)).thenReturn(Optional.of(booker));
+        when(itemRepository.findAllById(Set.of(1L, 2L, 99L))).thenReturn(List.of(item, itemOfBooker));
+        when(bookingConflictDetector.loadApprovedOverlaps(Set.of(1L), start, bookedStart.plusDays(1)))
+                .thenReturn((conflictingItem, conflictingStart, end) -> {
+                    if (conflictingStart.equals(bookedStart)) {
+                        throw new ItemNotAvailableException("the item with id: 1 is already booked");
+                    }
+                });
+        when(bookingRepository.saveAll(List.of(booking))).thenReturn(List.of(savedBooking));
+
+        List<BookingBatchResultDto> results = bookingService.createBookings(bookingDtos, bookerId);
+
+        verify(userRepository).findById(bookerId);
+        verify(itemRepository, never()).findById(any());
+        verify(itemRepository, never()).findAllByIdInOrderById(any());
+        verify(bookingRepository, never()).save(any());
+        verify(bookingIntervalIndex).onBookingSaved(savedBooking);
+        verify(itemViewProjection).onBookingSaved(savedBooking);
+        verify(bookingOutbox).addAll(List.of(savedBooking));
+
+        assertEquals(5, results.size());
+        assertEquals(BookingMapper.toBookingResponseDto(savedBooking), results.get(0).getBooking());
+        assertThat(results.get(1))
+                .hasFieldOrPropertyWithValue("index", 1)
+                .hasFieldOrPropertyWithValue("booking", null)
+                .hasFieldOrPropertyWithValue("error", "the owner can not book his/her own thing");
+        assertThat(results.get(2))
+                .hasFieldOrPropertyWithValue("index", 2)
+                .hasFieldOrPropertyWithValue("error", "there is no item with id: 99");
+        assertThat(results.get(3))
+                .hasFieldOrPropertyWithValue("index", 3)
+                .hasFieldOrPropertyWithValue("error", "the item with id: 1 is already booked");
+        assertThat(results.get(4))
+                .hasFieldOrPropertyWithValue("index", 4)
+                .hasFieldOrPropertyWithValue("error", "incorrect date and time for start and end of the booking");
+    }
+
+    @Test
+    public void createBatch_whenBookerDoesNotExist_thenThrowsUserNotExistException_NotInvokeAnyMore() {
+
+        Long bookerId = 2L;
+        List<BookingDto> bookingDtos = List.of(BookingDto.builder()
+                .start(LocalDateTime.of(2030, 1, 1, 1, 1, 1))
+                .end(LocalDateTime.of(2030, 1, 2, 1, 1, 1))
+                .itemId(1L)
+                .build());
+
+        when(userRepository.findById(bookerId)).thenReturn(Optional.empty());
+
+        assertThrows(UserNotExistException.class,
+                () -> bookingService.createBookings(bookingDtos, bookerId));
+
+        verifyNoInteractions(itemRepository, bookingRepository, bookingConflictDetector);
+    }
+
+    @Test
+    public void updateStatuses_whenApproving_updateNonOverlappingOnesByOneUpdate_reportEveryId() {
+
+        Long ownerId = 1L;
+        User owner = User.builder()
+                .id(ownerId)
+                .name("Peter")
+                .email("Peter@yandex.ru")
+                .build();
+        User booker = User.builder()
+                .id(2L)
+                .name("Oleg")
+                .email("Oleg@yandex.ru")
+                .build();
+        Item item = Item.builder()
+                .id(1L)
+                .name("a spoon")
+                .description("silver")
+                .available(true)
+                .owner(owner)
+                .build();
+
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 1, 1, 1);
+        Booking first = Booking.builder()
+                .id(1L)
+                .start(start)
+                .end(start.plusDays(2))
+                .item(item)
+                .booker(booker)
+                .status(BookingStatus.WAITING)
+                .version(0L)
+                .build();
+        Booking overlappingFirst = first.toBuilder()
+                .id(2L)
+                .start(start.plusDays(1))
+                .end(start.plusDays(3))
+                .build();
+        Booking overlappingApproved = first.toBuilder()
+                .id(3L)
+                .start(start.plusDays(10))
+                .end(start.plusDays(11))
+                .build();
+        List<Long> bookingIds = List.of(3L, 2L, 1L, 4L);
+
+        when(userRepository.findById(ownerId)).thenReturn(Optional.of(owner));
+        when(bookingRepository.findBookings(argThat((BookingFilter filter) -> ownerId.equals(filter.getOwnerId())
+                        && filter.getState() == BookingState.WAITING && bookingIds.equals(filter.getBookingIds())),
+                eq(PageRequest.of(0, 1000))))
+                .thenReturn(List.of(overlappingApproved, overlappingFirst, first));
+        when(bookingConflictDetector.loadApprovedOverlaps(Set.of(1L), start, start.plusDays(11)))
+                .thenReturn((conflictingItem, conflictingStart, end) -> {
+                    if (conflictingStart.equals(overlappingApproved.getStart())) {
+                        throw new ItemNotAvailableException("the item with id: 1 is already booked");
+                    }
+                });
+        when(bookingRepository.updateStatuses(List.of(1L), ownerId, BookingStatus.WAITING, BookingStatus.APPROVED))
+                .thenReturn(1);
+
+        List<BookingStatusResultDto> results = bookingService.approveBookingStatuses(true,
+                BookingStatusBatchDto.builder().bookingIds(bookingIds).build(), ownerId);
+
+        verify(itemRepository).findAllByIdInOrderById(Set.of(1L));
+        verify(bookingRepository, never()).findVersionsByIdIn(any());
+        verify(bookingIntervalIndex).onBookingSaved(first);
+        verify(itemViewProjection).onBookingSaved(first);
+        verify(bookingOutbox).addAll(List.of(first));
+        verifyNoMoreInteractions(bookingIntervalIndex, itemViewProjection);
+
+        assertEquals(4, results.size());
+        assertThat(results.get(0))
+                .hasFieldOrPropertyWithValue("bookingId", 3L)
+                .hasFieldOrPropertyWithValue("error", "the item with id: 1 is already booked");
+        assertThat(results.get(1))
+                .hasFieldOrPropertyWithValue("bookingId", 2L)
+                .hasFieldOrPropertyWithValue("error", "the booking overlaps the booking with id: 1 approved in the batch");
+        assertThat(results.get(2))
+                .hasFieldOrPropertyWithValue("bookingId", 1L)
+                .hasFieldOrPropertyWithValue("booking.status", BookingStatus.APPROVED)
+                .hasFieldOrPropertyWithValue("error", null);
+        assertThat(results.get(3))
+                .hasFieldOrPropertyWithValue("bookingId", 4L)
+                .hasFieldOrPropertyWithValue("error", "there is no WAITING booking with id: 4 of items of the owner");
+    }
+
+    @Test
+    public void updateStatuses_whenRejectingAndSomeBookingWasChangedConcurrently_reportItAsNotChanged() {
+
+        Long ownerId = 1L;
+        User owner = User.builder()
+                .id(ownerId)
+                .name("Peter")
+                .email("Peter@yandex.ru")
+                .build();
+        Item item = Item.builder()
+                .id(1L)
+                .name("a spoon")
+                .description("silver")
+                .available(true)
+                .owner(owner)
+                .build();
+
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 1, 1, 1);
+        Booking first = Booking.builder()
+                .id(1L)
+                .start(start)
+                .end(start.plusDays(2))
+                .item(item)
+                .booker(User.builder().id(2L).build())
+                .status(BookingStatus.WAITING)
+                .version(0L)
+                .build();
+        Booking second = first.toBuilder()
+                .id(2L)
+                .build();
+        BookingVersionView firstVersion = mock(BookingVersionView.class);
+        when(firstVersion.getId()).thenReturn(1L);
+        when(firstVersion.getStatus()).thenReturn(BookingStatus.REJECTED);
+        when(firstVersion.getVersion()).thenReturn(1L);
+        BookingVersionView secondVersion = mock(BookingVersionView.class);
+        when(secondVersion.getId()).thenReturn(2L);
+        when(secondVersion.getStatus()).thenReturn(BookingStatus.APPROVED);
+
+        when(userRepository.findById(ownerId)).thenReturn(Optional.of(owner));
+        when(bookingRepository.findBookings(argThat((BookingFilter filter) -> Long.valueOf(1L).equals(filter.getItemId())
+                        && filter.getBookingIds() == null), eq(PageRequest.of(0, 1000))))
+                .thenReturn(List.of(second, first));
+        when(bookingRepository.updateStatuses(List.of(1L, 2L), ownerId, BookingStatus.WAITING, BookingStatus.REJECTED))
+                .thenReturn(1);
+        when(bookingRepository.findVersionsByIdIn(List.of(1L, 2L))).thenReturn(List.of(firstVersion, secondVersion));
+
+        List<BookingStatusResultDto> results = bookingService.approveBookingStatuses(false,
+                BookingStatusBatchDto.builder().itemId(1L).build(), ownerId);
+
+        verifyNoInteractions(bookingConflictDetector);
+        verify(bookingIntervalIndex).onBookingSaved(first);
+        verifyNoMoreInteractions(bookingIntervalIndex);
+
+        assertEquals(2, results.size());
+        assertThat(results.get(0))
+                .hasFieldOrPropertyWithValue("bookingId", 1L)
+                .hasFieldOrPropertyWithValue("booking.status", BookingStatus.REJECTED);
+        assertThat(results.get(1))
+                .hasFieldOrPropertyWithValue("bookingId", 2L)
+                .hasFieldOrPropertyWithValue("booking", null)
+                .hasFieldOrPropertyWithValue("error",
+                        "you can not change booking status: it was changed by another request");
+    }
+
+    @Test
+    public void updateStatus_whenApprovedBookingOverlapsAnotherApproved_thenThrowsItemNotAvailableException_NotInvokeSave() {
+
+        Long ownerId = 1L;
+        User owner = User.builder()
+                .id(ownerId)
+                .name("Peter")
+                .email("Peter@yandex.ru")
+                .build();
+
+        Item item = Item.builder()
+                .id(1L)
+                .name("a spoon")
+                .description("silver")
+                .available(true)
+                .owner(owner)
+                .build();
+
+        Long bookingId = 1L;
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 1, 1, 1);
+        Booking booking = Booking.builder()
+                .id(bookingId)
+                .start(start)
+                .end(start.plusWeeks(1))
+                .item(item)
+                .booker(User.builder().id(2L).build())
+                .status(BookingStatus.WAITING)
+                .build();
+
+        when(userRepository.findById(ownerId)).thenReturn(Optional.of(owner));
+        when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
+        doThrow(new ItemNotAvailableException("the item with id: 1 is already booked"))
+                .when(bookingConflictDetector).lockAndCheckNoApprovedOverlap(item, start, start.plusWeeks(1));
+
+        assertThrows(ItemNotAvailableException.class,
+                () -> bookingService.approveBookingStatus(true, bookingId, ownerId));
+
+        assertEquals(BookingStatus.WAITING, booking.getStatus());
+        verify(bookingRepository, never()).updateStatus(any(), any(), any(), any());
+        verifyNoInteractions(bookingIntervalIndex, itemViewProjection);
+    }
+
+    @Test
+    public void updateStatus_whenStatusWasChangedByAnotherRequest_thenThrowsItemNotAvailableException() {
+
+        Long ownerId = 1L;
+        User owner = User.builder()
+                .id(ownerId)
+                .name("Peter")
+                .email("Peter@yandex.ru")
+                .build();
+
+        Item item = Item.builder()
+                .id(1L)
+                .name("a spoon")
+                .description("silver")
+                .available(true)
+                .owner(owner)
+                .build();
+
+        Long bookingId = 1L;
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 1, 1, 1);
+        Booking booking = Booking.builder()
+                .id(bookingId)
+                .start(start)
+                .end(start.plusWeeks(1))
+                .item(item)
+                .booker(User.builder().id(2L).build())
+                .status(BookingStatus.WAITING)
+                .build();
+
+        when(userRepository.findById(ownerId)).thenReturn(Optional.of(owner));
+        when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
+        when(bookingRepository.updateStatus(bookingId, ownerId, BookingStatus.WAITING, BookingStatus.REJECTED))
+                .thenReturn(0);
+
+        assertThrows(ItemNotAvailableException.class,
+                () -> bookingService.approveBookingStatus(false, bookingId, ownerId));
+
+        assertEquals(BookingStatus.WAITING, booking.getStatus());
+        verifyNoInteractions(bookingIntervalIndex, itemViewProjection);
+    }
+
     @Test
     public void updateStatus_whenUserExists_bookingFound_userIsOwner_statusIsWaiting_saveAndReturnApproved() {
 
@@ -509,13 +910,21 @@ public class BookingServiceImplTest {
 
         when(userRepository.findById(ownerId)).thenReturn(Optional.of(owner));
         when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
+        when(bookingRepository.updateStatus(bookingId, ownerId, BookingStatus.WAITING, BookingStatus.APPROVED))
+                .thenReturn(1);
 
         BookingResponseDto result = bookingService.approveBookingStatus(approved, bookingId, ownerId);
 
         InOrder inOrder = inOrder(userRepository, bookingRepository);
         inOrder.verify(userRepository).findById(ownerId);
         inOrder.verify(bookingRepository).findById(bookingId);
-        inOrder.verify(bookingRepository).save(approvedBooking);
+        inOrder.verify(bookingRepository)
+                .updateStatus(bookingId, ownerId, BookingStatus.WAITING, BookingStatus.APPROVED);
+        verify(bookingRepository, never()).save(any());
+        verify(bookingConflictDetector).lockAndCheckNoApprovedOverlap(item, start, end);
+        verify(bookingIntervalIndex).onBookingSaved(approvedBooking);
+        verify(itemViewProjection).onBookingSaved(approvedBooking);
+        verify(bookingOutbox).add(approvedBooking);
 
         assertEquals(result, expectedBooking);
 
@@ -584,13 +993,22 @@ public class BookingServiceImplTest {
 
         when(userRepository.findById(ownerId)).thenReturn(Optional.of(owner));
         when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
+        when(bookingRepository.updateStatus(bookingId, ownerId, BookingStatus.WAITING, BookingStatus.REJECTED))
+                .thenReturn(1);
 
         BookingResponseDto result = bookingService.approveBookingStatus(approved, bookingId, ownerId);
 
-        InOrder inOrder = inOrder(userRepository, bookingRepository);
+        InOrder inOrder = inOrder(userRepository, bookingRepository, itemRepository);
         inOrder.verify(userRepository).findById(ownerId);
         inOrder.verify(bookingRepository).findById(bookingId);
-        inOrder.verify(bookingRepository).save(rejectedBooking);
+        inOrder.verify(itemRepository).findAllByIdInOrderById(Set.of(item.getId()));
+        inOrder.verify(bookingRepository)
+                .updateStatus(bookingId, ownerId, BookingStatus.WAITING, BookingStatus.REJECTED);
+        verify(bookingRepository, never()).save(any());
+        verifyNoInteractions(bookingConflictDetector);
+        verify(bookingIntervalIndex).onBookingSaved(rejectedBooking);
+        verify(itemViewProjection).onBookingSaved(rejectedBooking);
+        verify(bookingOutbox).add(rejectedBooking);
 
         assertEquals(result, expectedBooking);
 
@@ -774,7 +1192,7 @@ public class BookingServiceImplTest {
 
         when(userRepository.findById(ownerId))
                 .thenReturn(Optional.of(owner));
-        when(bookingRepository.findAllByItemOwnerIdOrderByStartDesc(ownerId, page))
+        when(bookingRepository.findBookings(argThat(isOwnerFilter(ownerId, BookingState.ALL)), eq(page)))
                 .thenReturn(bookings);
 
         List<BookingResponseDto> result = bookingService.getBookingsByOwner(ownerId, state, from, size);
@@ -782,7 +1200,8 @@ public class BookingServiceImplTest {
         InOrder inOrder = inOrder(userRepository, bookingRepository);
 
         inOrder.verify(userRepository).findById(ownerId);
-        inOrder.verify(bookingRepository).findAllByItemOwnerIdOrderByStartDesc(ownerId, page);
+        inOrder.verify(bookingRepository)
+                .findBookings(argThat(isOwnerFilter(ownerId, BookingState.ALL)), eq(page));
 
         assertEquals(result, expectedList);
 
@@ -830,16 +1249,16 @@ public class BookingServiceImplTest {
         List<BookingResponseDto> expectedList = BookingMapper.toBookingResponseDtoList(bookings);
 
         when(userRepository.findById(ownerId)).thenReturn(Optional.of(owner));
-        when(bookingRepository.findAllByItemOwnerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(eq(ownerId),
-                any(), any(), eq(page))).thenReturn(bookings);
+        when(bookingRepository.findBookings(argThat(isOwnerFilter(ownerId, BookingState.CURRENT)), eq(page)))
+                .thenReturn(bookings);
 
         List<BookingResponseDto> result = bookingService.getBookingsByOwner(ownerId, state, from, size);
 
         InOrder inOrder = inOrder(userRepository, bookingRepository);
 
         inOrder.verify(userRepository).findById(ownerId);
-        inOrder.verify(bookingRepository).findAllByItemOwnerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(
-                eq(ownerId), any(), any(), eq(page));
+        inOrder.verify(bookingRepository)
+                .findBookings(argThat(isOwnerFilter(ownerId, BookingState.CURRENT)), eq(page));
 
         assertEquals(result, expectedList);
 
@@ -887,16 +1306,16 @@ public class BookingServiceImplTest {
         List<BookingResponseDto> expectedList = BookingMapper.toBookingResponseDtoList(bookings);
 
         when(userRepository.findById(ownerId)).thenReturn(Optional.of(owner));
-        when(bookingRepository.findAllByItemOwnerIdAndEndIsBeforeOrderByStartDesc(eq(ownerId),
-                any(), eq(page))).thenReturn(bookings);
+        when(bookingRepository.findBookings(argThat(isOwnerFilter(ownerId, BookingState.PAST)), eq(page)))
+                .thenReturn(bookings);
 
         List<BookingResponseDto> result = bookingService.getBookingsByOwner(ownerId, state, from, size);
 
         InOrder inOrder = inOrder(userRepository, bookingRepository);
 
         inOrder.verify(userRepository).findById(ownerId);
-        inOrder.verify(bookingRepository).findAllByItemOwnerIdAndEndIsBeforeOrderByStartDesc(
-                eq(ownerId), any(), eq(page));
+        inOrder.verify(bookingRepository)
+                .findBookings(argThat(isOwnerFilter(ownerId, BookingState.PAST)), eq(page));
 
         assertEquals(result, expectedList);
 
@@ -944,16 +1363,16 @@ public class BookingServiceImplTest {
         List<BookingResponseDto> expectedList = BookingMapper.toBookingResponseDtoList(bookings);
 
         when(userRepository.findById(ownerId)).thenReturn(Optional.of(owner));
-        when(bookingRepository.findAllByItemOwnerIdAndStartIsAfterOrderByStartDesc(eq(ownerId),
-                any(), eq(page))).thenReturn(bookings);
+        when(bookingRepository.findBookings(argThat(isOwnerFilter(ownerId, BookingState.FUTURE)), eq(page)))
+                .thenReturn(bookings);
 
         List<BookingResponseDto> result = bookingService.getBookingsByOwner(ownerId, state, from, size);
 
         InOrder inOrder = inOrder(userRepository, bookingRepository);
 
         inOrder.verify(userRepository).findById(ownerId);
-        inOrder.verify(bookingRepository).findAllByItemOwnerIdAndStartIsAfterOrderByStartDesc(
-                eq(ownerId), any(), eq(page));
+        inOrder.verify(bookingRepository)
+                .findBookings(argThat(isOwnerFilter(ownerId, BookingState.FUTURE)), eq(page));
         assertEquals(result, expectedList);
 
         assertThat(result).asList()
@@ -981,8 +1400,6 @@ public class BookingServiceImplTest {
 
         String state = "REJECTED";
 
-        List<BookingStatus> notApprovedStatus = List.of(BookingStatus.REJECTED, BookingStatus.CANCELED);
-
         int from = 10;
         int size = 10;
         Pageable page = PageRequest.of(from / size, size);
@@ -1002,7 +1419,7 @@ public class BookingServiceImplTest {
         List<BookingResponseDto> expectedList = BookingMapper.toBookingResponseDtoList(bookings);
 
         when(userRepository.findById(ownerId)).thenReturn(Optional.of(owner));
-        when(bookingRepository.findAllByItemOwnerIdAndStatusInOrderByStartDesc(ownerId, notApprovedStatus, page))
+        when(bookingRepository.findBookings(argThat(isOwnerFilter(ownerId, BookingState.REJECTED)), eq(page)))
                 .thenReturn(bookings);
 
         List<BookingResponseDto> result = bookingService.getBookingsByOwner(ownerId, state, from, size);
@@ -1011,7 +1428,7 @@ public class BookingServiceImplTest {
 
         inOrder.verify(userRepository).findById(ownerId);
         inOrder.verify(bookingRepository)
-                .findAllByItemOwnerIdAndStatusInOrderByStartDesc(ownerId, notApprovedStatus, page);
+                .findBookings(argThat(isOwnerFilter(ownerId, BookingState.REJECTED)), eq(page));
 
         assertEquals(result, expectedList);
 
@@ -1041,8 +1458,6 @@ public class BookingServiceImplTest {
 
         String state = "WAITING";
 
-        BookingStatus status = BookingStatus.WAITING;
-
         int from = 10;
         int size = 10;
         Pageable page = PageRequest.of(from / size, size);
@@ -1063,7 +1478,7 @@ public class BookingServiceImplTest {
 
         when(userRepository.findById(ownerId))
                 .thenReturn(Optional.of(owner));
-        when(bookingRepository.findAllByItemOwnerIdAndStatusOrderByStartDesc(ownerId, status, page))
+        when(bookingRepository.findBookings(argThat(isOwnerFilter(ownerId, BookingState.WAITING)), eq(page)))
                 .thenReturn(bookings);
 
         List<BookingResponseDto> result = bookingService.getBookingsByOwner(ownerId, state, from, size);
@@ -1072,7 +1487,7 @@ public class BookingServiceImplTest {
 
         inOrder.verify(userRepository).findById(ownerId);
         inOrder.verify(bookingRepository)
-                .findAllByItemOwnerIdAndStatusOrderByStartDesc(ownerId, status, page);
+                .findBookings(argThat(isOwnerFilter(ownerId, BookingState.WAITING)), eq(page));
 
         assertEquals(result, expectedList);
 
@@ -1089,6 +1504,34 @@ public class BookingServiceImplTest {
         assertEquals(result.get(1).getStatus(), BookingStatus.WAITING);
     }
 
+    @Test
+    public void getSummaryByOwner_whenUserExists_countByOwnerFilter_andReturnResult() {
+
+        Long ownerId = 1L;
+        BookingSummaryDto summary = BookingSummaryDto.builder()
+                .all(2)
+                .future(2)
+                .waiting(2)
+                .build();
+
+        when(userRepository.findById(ownerId)).thenReturn(Optional.of(User.builder().id(ownerId).build()));
+        when(bookingRepository.countBookingsByState(argThat(isOwnerFilter(ownerId, BookingState.ALL))))
+                .thenReturn(summary);
+
+        assertEquals(summary, bookingService.getBookingSummaryByOwner(ownerId));
+    }
+
+    @Test
+    public void getSummaryByBooker_whenUserDoesNotExist_thenThrowsUserNotExistException_NotInvokeAnyMore() {
+
+        Long bookerId = 2L;
+        when(userRepository.findById(bookerId)).thenReturn(Optional.empty());
+
+        assertThrows(UserNotExistException.class, () -> bookingService.getBookingSummaryByBooker(bookerId));
+
+        verifyNoInteractions(bookingRepository);
+    }
+
     @Test
     public void getListByOwner_whenUserDoesNotExist_thenThrowsUserNotExistException_NotInvokeAnyMore() {
 
@@ -1165,14 +1608,16 @@ public class BookingServiceImplTest {
         List<BookingResponseDto> expectedList = BookingMapper.toBookingResponseDtoList(bookings);
 
         when(userRepository.findById(bookerId)).thenReturn(Optional.of(booker));
-        when(bookingRepository.findAllByBookerIdOrderByStartDesc(bookerId, page)).thenReturn(bookings);
+        when(bookingRepository.findBookings(argThat(isBookerFilter(bookerId, BookingState.ALL)), eq(page)))
+                .thenReturn(bookings);
 
         List<BookingResponseDto> result = bookingService.getBookingsByBooker(bookerId, state, from, size);
 
         InOrder inOrder = inOrder(userRepository, bookingRepository);
 
         inOrder.verify(userRepository).findById(bookerId);
-        inOrder.verify(bookingRepository).findAllByBookerIdOrderByStartDesc(bookerId, page);
+        inOrder.verify(bookingRepository)
+                .findBookings(argThat(isBookerFilter(bookerId, BookingState.ALL)), eq(page));
 
         assertEquals(result, expectedList);
 
@@ -1218,16 +1663,16 @@ public class BookingServiceImplTest {
         List<BookingResponseDto> expectedList = BookingMapper.toBookingResponseDtoList(bookings);
 
         when(userRepository.findById(bookerId)).thenReturn(Optional.of(booker));
-        when(bookingRepository.findAllByBookerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(eq(bookerId),
-                any(), any(), eq(page))).thenReturn(bookings);
+        when(bookingRepository.findBookings(argThat(isBookerFilter(bookerId, BookingState.CURRENT)), eq(page)))
+                .thenReturn(bookings);
 
         List<BookingResponseDto> result = bookingService.getBookingsByBooker(bookerId, state, from, size);
 
         InOrder inOrder = inOrder(userRepository, bookingRepository);
 
         inOrder.verify(userRepository).findById(bookerId);
-        inOrder.verify(bookingRepository).findAllByBookerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(
-                eq(bookerId), any(), any(), eq(page));
+        inOrder.verify(bookingRepository)
+                .findBookings(argThat(isBookerFilter(bookerId, BookingState.CURRENT)), eq(page));
 
         assertEquals(result, expectedList);
 
@@ -1275,16 +1720,16 @@ public class BookingServiceImplTest {
         List<BookingResponseDto> expectedList = BookingMapper.toBookingResponseDtoList(bookings);
 
         when(userRepository.findById(bookerId)).thenReturn(Optional.of(booker));
-        when(bookingRepository.findAllByBookerIdAndEndIsBeforeOrderByStartDesc(eq(bookerId),
-                any(), eq(page))).thenReturn(bookings);
+        when(bookingRepository.findBookings(argThat(isBookerFilter(bookerId, BookingState.PAST)), eq(page)))
+                .thenReturn(bookings);
 
         List<BookingResponseDto> result = bookingService.getBookingsByBooker(bookerId, state, from, size);
 
         InOrder inOrder = inOrder(userRepository, bookingRepository);
 
         inOrder.verify(userRepository).findById(bookerId);
-        inOrder.verify(bookingRepository).findAllByBookerIdAndEndIsBeforeOrderByStartDesc(
-                eq(bookerId), any(), eq(page));
+        inOrder.verify(bookingRepository)
+                .findBookings(argThat(isBookerFilter(bookerId, BookingState.PAST)), eq(page));
 
         assertEquals(result, expectedList);
 
@@ -1330,16 +1775,16 @@ public class BookingServiceImplTest {
         List<BookingResponseDto> expectedList = BookingMapper.toBookingResponseDtoList(bookings);
 
         when(userRepository.findById(bookerId)).thenReturn(Optional.of(booker));
-        when(bookingRepository.findAllByBookerIdAndStartIsAfterOrderByStartDesc(eq(bookerId),
-                any(), eq(page))).thenReturn(bookings);
+        when(bookingRepository.findBookings(argThat(isBookerFilter(bookerId, BookingState.FUTURE)), eq(page)))
+                .thenReturn(bookings);
 
         List<BookingResponseDto> result = bookingService.getBookingsByBooker(bookerId, state, from, size);
 
         InOrder inOrder = inOrder(userRepository, bookingRepository);
 
         inOrder.verify(userRepository).findById(bookerId);
-        inOrder.verify(bookingRepository).findAllByBookerIdAndStartIsAfterOrderByStartDesc(
-                eq(bookerId), any(), eq(page));
+        inOrder.verify(bookingRepository)
+                .findBookings(argThat(isBookerFilter(bookerId, BookingState.FUTURE)), eq(page));
         assertEquals(result, expectedList);
 
         assertThat(result).asList()
@@ -1366,8 +1811,6 @@ public class BookingServiceImplTest {
 
         String state = "REJECTED";
 
-        List<BookingStatus> notApprovedStatus = List.of(BookingStatus.REJECTED, BookingStatus.CANCELED);
-
         int from = 10;
         int size = 10;
         Pageable page = PageRequest.of(from / size, size);
@@ -1387,7 +1830,7 @@ public class BookingServiceImplTest {
         List<BookingResponseDto> expectedList = BookingMapper.toBookingResponseDtoList(bookings);
 
         when(userRepository.findById(bookerId)).thenReturn(Optional.of(booker));
-        when(bookingRepository.findAllByBookerIdAndStatusInOrderByStartDesc(bookerId, notApprovedStatus, page))
+        when(bookingRepository.findBookings(argThat(isBookerFilter(bookerId, BookingState.REJECTED)), eq(page)))
                 .thenReturn(bookings);
 
         List<BookingResponseDto> result = bookingService.getBookingsByBooker(bookerId, state, from, size);
@@ -1396,7 +1839,7 @@ public class BookingServiceImplTest {
 
         inOrder.verify(userRepository).findById(bookerId);
         inOrder.verify(bookingRepository)
-                .findAllByBookerIdAndStatusInOrderByStartDesc(bookerId, notApprovedStatus, page);
+                .findBookings(argThat(isBookerFilter(bookerId, BookingState.REJECTED)), eq(page));
         assertEquals(result, expectedList);
 
         assertThat(result).asList()
@@ -1423,8 +1866,6 @@ public class BookingServiceImplTest {
 
         String state = "WAITING";
 
-        BookingStatus status = BookingStatus.WAITING;
-
         int from = 10;
         int size = 10;
         Pageable page = PageRequest.of(from / size, size);
@@ -1444,7 +1885,7 @@ public class BookingServiceImplTest {
         List<BookingResponseDto> expectedList = BookingMapper.toBookingResponseDtoList(bookings);
 
         when(userRepository.findById(bookerId)).thenReturn(Optional.of(booker));
-        when(bookingRepository.findAllByBookerIdAndStatusOrderByStartDesc(bookerId, status, page))
+        when(bookingRepository.findBookings(argThat(isBookerFilter(bookerId, BookingState.WAITING)), eq(page)))
                 .thenReturn(bookings);
 
         List<BookingResponseDto> result = bookingService.getBookingsByBooker(bookerId, state, from, size);
@@ -1453,7 +1894,7 @@ public class BookingServiceImplTest {
 
         inOrder.verify(userRepository).findById(bookerId);
         inOrder.verify(bookingRepository)
-                .findAllByBookerIdAndStatusOrderByStartDesc(bookerId, status, page);
+                .findBookings(argThat(isBookerFilter(bookerId, BookingState.WAITING)), eq(page));
 
         assertEquals(result, expectedList);
 
@@ -1517,4 +1958,27 @@ public class BookingServiceImplTest {
         verifyNoInteractions(bookingRepository);
     }
 
+    private static ArgumentMatcher<BookingFilter> isOwnerFilter(Long ownerId, BookingState state) {
+        return filter -> ownerId.equals(filter.getOwnerId()) && filter.getBookerId() == null
+                && filter.getState() == state && filter.getNow() != null;
+    }
+
+    private static ArgumentMatcher<BookingFilter> isBookerFilter(Long bookerId, BookingState state) {
+        return filter -> bookerId.equals(filter.getBookerId()) && filter.getOwnerId() == null
+                && filter.getState() == state && filter.getNow() != null;
+    }
+
+    private static BookingCreationView toBookingCreationView(Item item, User booker) {
+        return new BookingCreationView() {
+            @Override
+            public Item getItem() {
+                return item;
+            }
+
+            @Override
+            public User getBooker() {
+                return booker;
+            }
+        };
+    }
 }
@@ -1,18 +1,36 @@
 package ru.practicum.shareit.booking.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
 import org.hamcrest.MatcherAssert;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.practicum.shareit.booking.BookingMapper;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingStatusBatchDto;
+import ru.practicum.shareit.booking.dto.BookingStatusResultDto;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+import ru.practicum.shareit.booking.event.BookingOutbox;
+import ru.practicum.shareit.booking.index.BookingInterval;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.store.ArchivedBookingJPARepository;
+import ru.practicum.shareit.booking.store.BookingJPARepository;
 import ru.practicum.shareit.exception.*;
+import ru.practicum.shareit.item.dto.CommentRequestDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.service.ItemJPAService;
+import ru.practicum.shareit.item.storage.ItemJPARepository;
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.request.ItemRequestMapper;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestResponseDto;
@@ -22,15 +40,28 @@ import ru.practicum.shareit.user.UserMapper;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserJPAService;
+import ru.practicum.shareit.user.storage.UserJPARepository;
 
+import javax.persistence.EntityManagerFactory;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.hamcrest.Matchers.hasItem;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+@Slf4j
 @SpringBootTest
 @DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
 public class BookingServiceIntegrationTest {
@@ -43,6 +74,22 @@ public class BookingServiceIntegrationTest {
     BookingJPAService bookingService;
     @Autowired
     ItemRequestJPAService itemRequestService;
+    @Autowired
+    BookingJPARepository bookingJPARepository;
+    @Autowired
+    ArchivedBookingJPARepository archivedBookingJPARepository;
+    @Autowired
+    ItemJPARepository itemJPARepository;
+    @Autowired
+    UserJPARepository userJPARepository;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    BookingIntervalIndex bookingIntervalIndex;
+    @Autowired
+    BookingOutbox bookingOutbox;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
 
     @Test
     public void shouldCreateBooking() {
@@ -1487,4 +1534,665 @@ public class BookingServiceIntegrationTest {
                 () -> bookingService.getBookingsByBooker(bookerId, state, from, size),
                 "Unknown state: UNSUPPORTED_STATUS");
     }
+
+    @Test
+    public void shouldGetListByOwnerPageByPageWithCursor() {
+
+        Long ownerId = 1L;
+        userService.createUser(UserDto.builder()
+                .name("Peter")
+                .email("Peter@yandex.ru")
+                .build());
+
+        Long bookerId = 2L;
+        userService.createUser(UserDto.builder()
+                .name("Oleg")
+                .email("Oleg@yandex.ru")
+                .build());
+
+        Long itemId = 1L;
+        itemService.createItem(ItemDto.builder()
+                .name("a spoon")
+                .description("new")
+                .available(true)
+                .build(), ownerId);
+
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 1, 1, 1);
+        for (int i = 0; i < 7; i++) {
+            bookingService.createBooking(BookingDto.builder()
+                    .start(start.plusDays(i))
+                    .end(start.plusDays(i).plusHours(1))
+                    .itemId(itemId)
+                    .build(), bookerId);
+        }
+
+        List<BookingResponseDto> pagedWithCursor = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        String cursor = "";
+        do {
+            CursorPage<BookingResponseDto> page = bookingService.getBookingsByOwnerAfter(ownerId, "ALL", cursor, 3);
+            pagedWithCursor.addAll(page.getContent());
+            pageSizes.add(page.getContent().size());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(List.of(3, 3, 1), pageSizes);
+        assertEquals(bookingService.getBookingsByOwner(ownerId, "ALL", 0, 10), pagedWithCursor);
+    }
+
+    @Test
+    public void shouldStreamByBookerSameBookingsAsListed() {
+
+        Long ownerId = 1L;
+        userService.createUser(UserDto.builder()
+                .name("Peter")
+                .email("Peter@yandex.ru")
+                .build());
+
+        Long bookerId = 2L;
+        userService.createUser(UserDto.builder()
+                .name("Oleg")
+                .email("Oleg@yandex.ru")
+                .build());
+
+        Long itemId = 1L;
+        itemService.createItem(ItemDto.builder()
+                .name("a spoon")
+                .description("new")
+                .available(true)
+                .build(), ownerId);
+
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 1, 1, 1);
+        for (int i = 0; i < 7; i++) {
+            bookingService.createBooking(BookingDto.builder()
+                    .start(start.plusDays(i))
+                    .end(start.plusDays(i).plusHours(1))
+                    .itemId(itemId)
+                    .build(), bookerId);
+        }
+
+        List<BookingResponseDto> streamed = new ArrayList<>();
+        bookingService.streamBookingsByBooker(bookerId, "FUTURE", streamed::add);
+
+        assertEquals(7, streamed.size());
+        assertEquals(bookingService.getBookingsByBooker(bookerId, "FUTURE", 0, 10), streamed);
+        assertThrows(UserNotExistException.class,
+                () -> bookingService.streamBookingsByOwner(99L, "ALL", streamed::add));
+    }
+
+    @Test
+    public void shouldCreateValidBookingsOfBatchAndReportTheRest() {
+
+        Long ownerId = 1L;
+        userService.createUser(UserDto.builder()
+                .name("Peter")
+                .email("Peter@yandex.ru")
+                .build());
+
+        Long bookerId = 2L;
+        userService.createUser(UserDto.builder()
+                .name("Oleg")
+                .email("Oleg@yandex.ru")
+                .build());
+
+        Long spoonId = 1L;
+        itemService.createItem(ItemDto.builder()
+                .name("a spoon")
+                .description("new")
+                .available(true)
+                .build(), ownerId);
+        Long forkId = 2L;
+        itemService.createItem(ItemDto.builder()
+                .name("a fork")
+                .description("old")
+                .available(true)
+                .build(), ownerId);
+
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 1, 1, 1);
+        BookingResponseDto approved = bookingService.createBooking(BookingDto.builder()
+                .start(start)
+                .end(start.plusDays(3))
+                .itemId(forkId)
+                .build(), bookerId);
+        bookingService.approveBookingStatus(true, approved.getId(), ownerId);
+
+        List<BookingBatchResultDto> results = bookingService.createBookings(List.of(
+                BookingDto.builder().start(start).end(start.plusDays(1)).itemId(spoonId).build(),
+                BookingDto.builder().start(start.plusDays(1)).end(start.plusDays(2)).itemId(forkId).build(),
+                BookingDto.builder().start(start.plusDays(5)).end(start.plusDays(6)).itemId(forkId).build(),
+                BookingDto.builder().start(start).end(start.plusDays(1)).itemId(99L).build()), bookerId);
+
+        assertEquals(4, results.size());
+        assertThat(results.get(0).getBooking())
+                .hasFieldOrPropertyWithValue("item.id", spoonId)
+                .hasFieldOrPropertyWithValue("booker.id", bookerId)
+                .hasFieldOrPropertyWithValue("status", BookingStatus.WAITING);
+        assertThat(results.get(1))
+                .hasFieldOrPropertyWithValue("booking", null)
+                .hasFieldOrPropertyWithValue("error", String.format("the item with id: %d is already booked from %s to %s",
+                        forkId, start, start.plusDays(3)));
+        assertThat(results.get(2).getBooking())
+                .hasFieldOrPropertyWithValue("item.id", forkId)
+                .hasFieldOrPropertyWithValue("start", start.plusDays(5));
+        assertThat(results.get(3))
+                .hasFieldOrPropertyWithValue("error", "there is no item with id: 99");
+        assertEquals(3, bookingService.getBookingsByBooker(bookerId, "ALL", 0, 10).size());
+        assertEquals(results.get(2).getBooking(), bookingService.getBooking(results.get(2).getBooking().getId(), ownerId));
+        assertThrows(UserNotExistException.class,
+                () -> bookingService.createBookings(List.of(BookingDto.builder()
+                        .start(start)
+                        .end(start.plusDays(1))
+                        .itemId(spoonId)
+                        .build()), 99L));
+    }
+
+    @Test
+    public void shouldApproveAllWaitingBookingsOfItemExceptOverlappingOnes() {
+
+        Long ownerId = 1L;
+        userService.createUser(UserDto.builder()
+                .name("Peter")
+                .email("Peter@yandex.ru")
+                .build());
+
+        Long bookerId = 2L;
+        userService.createUser(UserDto.builder()
+                .name("Oleg")
+                .email("Oleg@yandex.ru")
+                .build());
+
+        Long spoonId = 1L;
+        itemService.createItem(ItemDto.builder()
+                .name("a spoon")
+                .description("new")
+                .available(true)
+                .build(), ownerId);
+        Long forkId = 2L;
+        itemService.createItem(ItemDto.builder()
+                .name("a fork")
+                .description("old")
+                .available(true)
+                .build(), ownerId);
+
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 1, 1, 1);
+        List<BookingBatchResultDto> created = bookingService.createBookings(List.of(
+                BookingDto.builder().start(start).end(start.plusDays(2)).itemId(spoonId).build(),
+                BookingDto.builder().start(start.plusDays(1)).end(start.plusDays(3)).itemId(spoonId).build(),
+                BookingDto.builder().start(start.plusDays(5)).end(start.plusDays(6)).itemId(spoonId).build(),
+                BookingDto.builder().start(start).end(start.plusDays(2)).itemId(forkId).build()), bookerId);
+        Long forkBookingId = created.get(3).getBooking().getId();
+
+        List<BookingStatusResultDto> approved = bookingService.approveBookingStatuses(true,
+                BookingStatusBatchDto.builder().itemId(spoonId).build(), ownerId);
+
+        assertEquals(3, approved.size());
+        assertEquals(List.of(1L, 2L, 3L),
+                approved.stream().map(BookingStatusResultDto::getBookingId).collect(Collectors.toList()));
+        assertEquals(BookingStatus.APPROVED, approved.get(0).getBooking().getStatus());
+        assertEquals("the booking overlaps the booking with id: 1 approved in the batch", approved.get(1).getError());
+        assertEquals(BookingStatus.APPROVED, approved.get(2).getBooking().getStatus());
+        assertEquals(BookingStatus.WAITING, bookingService.getBooking(2L, ownerId).getStatus());
+        assertEquals(BookingStatus.WAITING, bookingService.getBooking(forkBookingId, ownerId).getStatus());
+
+        List<BookingStatusResultDto> rejected = bookingService.approveBookingStatuses(false,
+                BookingStatusBatchDto.builder().bookingIds(List.of(1L, 2L, forkBookingId)).build(), ownerId);
+
+        assertEquals("there is no WAITING booking with id: 1 of items of the owner", rejected.get(0).getError());
+        assertEquals(BookingStatus.REJECTED, rejected.get(1).getBooking().getStatus());
+        assertEquals(BookingStatus.REJECTED, rejected.get(2).getBooking().getStatus());
+        assertEquals(2, bookingService.getBookingsByOwner(ownerId, "REJECTED", 0, 10).size());
+        assertEquals(BookingStatus.APPROVED, bookingService.getBooking(1L, bookerId).getStatus());
+        assertEquals("there is no WAITING booking with id: 3 of items of the owner",
+                bookingService.approveBookingStatuses(true,
+                        BookingStatusBatchDto.builder().bookingIds(List.of(3L)).build(), bookerId).get(0).getError());
+    }
+
+    @Test
+    public void shouldCountBookingsInEveryStateAsListed() {
+
+        Long ownerId = 1L;
+        userService.createUser(UserDto.builder()
+                .name("Peter")
+                .email("Peter@yandex.ru")
+                .build());
+
+        Long bookerId = 2L;
+        userService.createUser(UserDto.builder()
+                .name("Oleg")
+                .email("Oleg@yandex.ru")
+                .build());
+
+        Long itemId = 1L;
+        itemService.createItem(ItemDto.builder()
+                .name("a spoon")
+                .description("new")
+                .available(true)
+                .build(), ownerId);
+
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 1, 1, 1);
+        for (int i = 0; i < 4; i++) {
+            bookingService.createBooking(BookingDto.builder()
+                    .start(start.plusDays(i))
+                    .end(start.plusDays(i).plusHours(1))
+                    .itemId(itemId)
+                    .build(), bookerId);
+        }
+        bookingService.approveBookingStatus(true, 1L, ownerId);
+        bookingService.approveBookingStatus(false, 2L, ownerId);
+
+        BookingSummaryDto byOwner = bookingService.getBookingSummaryByOwner(ownerId);
+        BookingSummaryDto byBooker = bookingService.getBookingSummaryByBooker(bookerId);
+
+        assertThat(byOwner)
+                .hasFieldOrPropertyWithValue("all", 4L)
+                .hasFieldOrPropertyWithValue("future", 4L)
+                .hasFieldOrPropertyWithValue("waiting", 2L)
+                .hasFieldOrPropertyWithValue("rejected", 1L);
+        assertEquals(byOwner, byBooker);
+        assertEquals(List.of(byOwner.getAll(), byOwner.getCurrent(), byOwner.getPast(), byOwner.getFuture(),
+                        byOwner.getWaiting(), byOwner.getRejected()),
+                Stream.of("ALL", "CURRENT", "PAST", "FUTURE", "WAITING", "REJECTED")
+                        .map(state -> (long) bookingService.getBookingsByOwner(ownerId, state, 0, 100).size())
+                        .collect(Collectors.toList()));
+        assertEquals(BookingSummaryDto.builder().build(), bookingService.getBookingSummaryByBooker(ownerId));
+        assertThrows(UserNotExistException.class, () -> bookingService.getBookingSummaryByOwner(99L));
+    }
+
+    @Test
+    public void shouldApproveOnlyOneOfOverlappingBookingsApprovedConcurrently() throws Exception {
+
+        Long ownerId = 1L;
+        userService.createUser(UserDto.builder()
+                .name("Peter")
+                .email("Peter@yandex.ru")
+                .build());
+
+        Long bookerId = 2L;
+        userService.createUser(UserDto.builder()
+                .name("Oleg")
+                .email("Oleg@yandex.ru")
+                .build());
+
+        Long itemId = 1L;
+        itemService.createItem(ItemDto.builder()
+                .name("a spoon")
+                .description("new")
+                .available(true)
+                .build(), ownerId);
+
+        int threads = 8;
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 1, 1, 1);
+        List<Long> bookingIds = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            bookingIds.add(bookingService.createBooking(BookingDto.builder()
+                    .start(start.plusHours(i))
+                    .end(start.plusDays(1).plusHours(i))
+                    .itemId(itemId)
+                    .build(), bookerId).getId());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch ready = new CountDownLatch(threads);
+        List<Future<Boolean>> approvals = new ArrayList<>();
+        for (Long bookingId : bookingIds) {
+            approvals.add(executor.submit(() -> {
+                ready.countDown();
+                ready.await();
+                try {
+                    bookingService.approveBookingStatus(true, bookingId, ownerId);
+                    return true;
+                } catch (ItemNotAvailableException e) {
+                    return false;
+                }
+            }));
+        }
+
+        int approved = 0;
+        for (Future<Boolean> approval : approvals) {
+            if (approval.get(30, TimeUnit.SECONDS)) {
+                approved++;
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(1, approved);
+        assertEquals(1, bookingService.getBookingsByOwner(ownerId, "ALL", 0, threads).stream()
+                .filter(booking -> booking.getStatus() == BookingStatus.APPROVED)
+                .count());
+        assertThrows(ItemNotAvailableException.class,
+                () -> bookingService.createBooking(BookingDto.builder()
+                        .start(start.plusHours(12))
+                        .end(start.plusDays(3))
+                        .itemId(itemId)
+                        .build(), bookerId));
+        assertEquals(BookingStatus.WAITING, bookingService.createBooking(BookingDto.builder()
+                .start(start.plusDays(10))
+                .end(start.plusDays(11))
+                .itemId(itemId)
+                .build(), bookerId).getStatus());
+    }
+
+    @Test
+    public void shouldChangeStatusOfEveryBookingOnceWhenApproveRacesReject() throws Exception {
+
+        Long ownerId = 1L;
+        userService.createUser(UserDto.builder()
+                .name("Peter")
+                .email("Peter@yandex.ru")
+                .build());
+
+        Long bookerId = 2L;
+        userService.createUser(UserDto.builder()
+                .name("Oleg")
+                .email("Oleg@yandex.ru")
+                .build());
+
+        int itemsCount = 4;
+        int bookingsPerItem = 25;
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 1, 1, 1);
+        List<Long> bookingIds = new ArrayList<>();
+        for (long itemId = 1; itemId <= itemsCount; itemId++) {
+            itemService.createItem(ItemDto.builder()
+                    .name("a spoon " + itemId)
+                    .description("new")
+                    .available(true)
+                    .build(), ownerId);
+            for (int i = 0; i < bookingsPerItem; i++) {
+                bookingIds.add(bookingService.createBooking(BookingDto.builder()
+                        .start(start.plusDays(i))
+                        .end(start.plusDays(i).plusHours(1))
+                        .itemId(itemId)
+                        .build(), bookerId).getId());
+            }
+        }
+
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        AtomicInteger changed = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+        List<Future<?>> transitions = new ArrayList<>();
+        long startedAt = System.nanoTime();
+        for (Long bookingId : bookingIds) {
+            for (boolean approved : List.of(true, false)) {
+                transitions.add(executor.submit(() -> {
+                    try {
+                        bookingService.approveBookingStatus(approved, bookingId, ownerId);
+                        changed.incrementAndGet();
+                    } catch (ItemNotAvailableException e) {
+                        refused.incrementAndGet();
+                    }
+                }));
+            }
+        }
+        for (Future<?> transition : transitions) {
+            transition.get(30, TimeUnit.SECONDS);
+        }
+        long elapsedNanos = System.nanoTime() - startedAt;
+        executor.shutdown();
+
+        log.info("{} status transitions by {} threads took {} ms, {} transitions/s",
+                transitions.size(), threads, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                transitions.size() * TimeUnit.SECONDS.toNanos(1) / elapsedNanos);
+        assertEquals(bookingIds.size(), changed.get());
+        assertEquals(bookingIds.size(), refused.get());
+        assertEquals(0, bookingService.getBookingsByOwner(ownerId, "WAITING", 0, bookingIds.size()).size());
+    }
+
+    @Test
+    public void shouldListSameBookingsAfterOldBookingsAreMovedToArchive() {
+
+        Long ownerId = 1L;
+        userService.createUser(UserDto.builder()
+                .name("Peter")
+                .email("Peter@yandex.ru")
+                .build());
+
+        Long bookerId = 2L;
+        userService.createUser(UserDto.builder()
+                .name("Oleg")
+                .email("Oleg@yandex.ru")
+                .build());
+
+        Long formerBookerId = 3L;
+        userService.createUser(UserDto.builder()
+                .name("Ivan")
+                .email("Ivan@yandex.ru")
+                .build());
+
+        Long itemId = 1L;
+        itemService.createItem(ItemDto.builder()
+                .name("a spoon")
+                .description("new")
+                .available(true)
+                .build(), ownerId);
+
+        Item item = itemJPARepository.findById(itemId).orElseThrow();
+        User booker = userJPARepository.findById(bookerId).orElseThrow();
+        User formerBooker = userJPARepository.findById(formerBookerId).orElseThrow();
+        Booking oldBooking = Booking.builder()
+                .start(LocalDateTime.of(2010, 1, 1, 1, 1, 1))
+                .end(LocalDateTime.of(2010, 1, 8, 1, 1, 1))
+                .item(item)
+                .booker(booker)
+                .status(BookingStatus.APPROVED)
+                .build();
+        Long firstOldBookingId = bookingJPARepository.save(oldBooking.toBuilder().build()).getId();
+        for (int year = 2011; year <= 2015; year++) {
+            bookingJPARepository.save(oldBooking.toBuilder()
+                    .start(oldBooking.getStart().withYear(year))
+                    .end(oldBooking.getEnd().withYear(year))
+                    .build());
+        }
+        bookingJPARepository.save(oldBooking.toBuilder()
+                .start(oldBooking.getStart().withYear(2009))
+                .end(oldBooking.getEnd().withYear(2009))
+                .booker(formerBooker)
+                .build());
+        bookingJPARepository.save(oldBooking.toBuilder()
+                .start(oldBooking.getStart().withYear(2016))
+                .end(oldBooking.getEnd().withYear(2016))
+                .status(BookingStatus.REJECTED)
+                .build());
+        // never archived, so it stays in bookings between the archived ones
+        bookingJPARepository.save(oldBooking.toBuilder()
+                .start(oldBooking.getStart().withYear(2012).withMonth(7))
+                .end(oldBooking.getEnd().withYear(2012).withMonth(7))
+                .status(BookingStatus.WAITING)
+                .build());
+        bookingJPARepository.save(oldBooking.toBuilder()
+                .start(LocalDateTime.now().minusDays(1))
+                .end(LocalDateTime.now().plusDays(1))
+                .build());
+        bookingService.createBooking(BookingDto.builder()
+                .start(LocalDateTime.of(2030, 1, 1, 1, 1, 1))
+                .end(LocalDateTime.of(2030, 1, 8, 1, 1, 1))
+                .itemId(itemId)
+                .build(), bookerId);
+
+        List<List<BookingResponseDto>> listingsBefore = listBookingsInEveryWay(ownerId, bookerId);
+        BookingSummaryDto ownerSummaryBefore = bookingService.getBookingSummaryByOwner(ownerId);
+        BookingSummaryDto bookerSummaryBefore = bookingService.getBookingSummaryByBooker(bookerId);
+        BookingResponseDto firstOldBookingBefore = bookingService.getBooking(firstOldBookingId, bookerId);
+
+        BookingArchiver archiver = new BookingArchiver(bookingJPARepository, archivedBookingJPARepository,
+                transactionTemplate, Duration.ofDays(365), 4);
+
+        assertEquals(8, archiver.archive());
+        assertEquals(0, archiver.archive());
+        assertEquals(3L, bookingJPARepository.count());
+        assertEquals(8L, archivedBookingJPARepository.count());
+        assertEquals(11, listingsBefore.get(0).size());
+        assertEquals(listingsBefore, listBookingsInEveryWay(ownerId, bookerId));
+        assertEquals(ownerSummaryBefore, bookingService.getBookingSummaryByOwner(ownerId));
+        assertEquals(bookerSummaryBefore, bookingService.getBookingSummaryByBooker(bookerId));
+        assertEquals(firstOldBookingBefore, bookingService.getBooking(firstOldBookingId, bookerId));
+        assertThat(itemService.addComment(formerBookerId, itemId, CommentRequestDto.builder()
+                        .text("it was a good spoon")
+                        .build()))
+                .hasFieldOrPropertyWithValue("authorName", "Ivan");
+    }
+
+    @Test
+    public void shouldCreateBookingLoadingItemWithOwnerAndRequestAndBookerByOneQuery() {
+
+        Long ownerId = 1L;
+        userService.createUser(UserDto.builder()
+                .name("Peter")
+                .email("Peter@yandex.ru")
+                .build());
+
+        Long bookerId = 2L;
+        userService.createUser(UserDto.builder()
+                .name("Oleg")
+                .email("Oleg@yandex.ru")
+                .build());
+
+        Long requesterId = 3L;
+        userService.createUser(UserDto.builder()
+                .name("Ivan")
+                .email("Ivan@yandex.ru")
+                .build());
+
+        Long requestId = 1L;
+        itemRequestService.createRequest(requesterId, ItemRequestDto.builder()
+                .description("I would like to book a spoon")
+                .build());
+
+        Long itemId = 1L;
+        itemService.createItem(ItemDto.builder()
+                .name("a spoon")
+                .description("new")
+                .available(true)
+                .requestId(requestId)
+                .build(), ownerId);
+
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 1, 1, 1);
+        bookingService.createBooking(BookingDto.builder()
+                .start(start)
+                .end(start.plusWeeks(1))
+                .itemId(itemId)
+                .build(), bookerId);
+
+        List<BookingResponseDto> created = new ArrayList<>();
+        long statements = countStatements(() -> created.add(bookingService.createBooking(BookingDto.builder()
+                .start(start.plusWeeks(2))
+                .end(start.plusWeeks(3))
+                .itemId(itemId)
+                .build(), bookerId)));
+
+        // the item with the booker, the overlap check without a lock of the item, the id and the booking,
+        // the id and the event
+        assertEquals(6, statements);
+        assertThat(created.get(0))
+                .hasFieldOrPropertyWithValue("booker.name", "Oleg")
+                .hasFieldOrPropertyWithValue("item.owner.name", "Peter")
+                .hasFieldOrPropertyWithValue("item.request.requester.name", "Ivan");
+    }
+
+    @Test
+    public void shouldCancelWaitingBookingsStartedInPastByBatches_andDropThemFromIntervalIndex() {
+
+        Long ownerId = 1L;
+        userService.createUser(UserDto.builder()
+                .name("Peter")
+                .email("Peter@yandex.ru")
+                .build());
+
+        Long bookerId = 2L;
+        userService.createUser(UserDto.builder()
+                .name("Oleg")
+                .email("Oleg@yandex.ru")
+                .build());
+
+        Long itemId = 1L;
+        itemService.createItem(ItemDto.builder()
+                .name("a spoon")
+                .description("new")
+                .available(true)
+                .build(), ownerId);
+
+        LocalDateTime now = LocalDateTime.now();
+        Booking staleBooking = Booking.builder()
+                .end(now.plusDays(1))
+                .item(itemJPARepository.findById(itemId).orElseThrow())
+                .booker(userJPARepository.findById(bookerId).orElseThrow())
+                .status(BookingStatus.WAITING)
+                .build();
+        for (int days = 1; days <= 5; days++) {
+            bookingJPARepository.save(staleBooking.toBuilder()
+                    .start(now.minusDays(days))
+                    .build());
+        }
+        Long approvedBookingId = bookingJPARepository.save(staleBooking.toBuilder()
+                .start(now.minusDays(6))
+                .status(BookingStatus.APPROVED)
+                .build()).getId();
+        Long futureBookingId = bookingService.createBooking(BookingDto.builder()
+                .start(now.plusDays(2))
+                .end(now.plusDays(3))
+                .itemId(itemId)
+                .build(), bookerId).getId();
+
+        assertEquals(7, bookingIntervalIndex.findOverlapping(itemId, now.minusDays(10), now.plusDays(10)).size());
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        BookingExpirer expirer = new BookingExpirer(bookingJPARepository, bookingIntervalIndex, bookingOutbox,
+                itemJPARepository, transactionTemplate, 2, meterRegistry);
+
+        assertEquals(5, expirer.expire());
+        assertEquals(0, expirer.expire());
+        assertEquals(List.of(approvedBookingId, futureBookingId),
+                bookingIntervalIndex.findOverlapping(itemId, now.minusDays(10), now.plusDays(10)).stream()
+                        .map(BookingInterval::getId)
+                        .collect(Collectors.toList()));
+        assertEquals(List.of(futureBookingId), bookingService.getBookingsByBooker(bookerId, "WAITING", 0, 10).stream()
+                .map(BookingResponseDto::getId)
+                .collect(Collectors.toList()));
+        assertEquals(5L, bookingJPARepository.findAll().stream()
+                .filter(booking -> booking.getStatus() == BookingStatus.CANCELED)
+                .count());
+        assertEquals(5.0, meterRegistry.get("shareit.booking.expiry.canceled").counter().count());
+        // 2 + 2 + 1 by the first run and an empty batch by the second one
+        assertEquals(4L, meterRegistry.get("shareit.booking.expiry.batch").timer().count());
+    }
+
+    private List<List<BookingResponseDto>> listBookingsInEveryWay(Long ownerId, Long bookerId) {
+        List<BookingResponseDto> pagedWithOffset = new ArrayList<>();
+        for (int from = 0; from < 12; from += 4) {
+            pagedWithOffset.addAll(bookingService.getBookingsByOwner(ownerId, "ALL", from, 4));
+        }
+
+        List<BookingResponseDto> pagedWithOtherOffset = new ArrayList<>();
+        for (int from = 0; from < 12; from += 3) {
+            pagedWithOtherOffset.addAll(bookingService.getBookingsByBooker(bookerId, "ALL", from, 3));
+        }
+
+        List<BookingResponseDto> pagedWithCursor = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<BookingResponseDto> page = bookingService.getBookingsByBookerAfter(bookerId, "PAST", cursor, 3);
+            pagedWithCursor.addAll(page.getContent());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        List<BookingResponseDto> streamed = new ArrayList<>();
+        bookingService.streamBookingsByOwner(ownerId, "ALL", streamed::add);
+
+        return List.of(pagedWithOffset,
+                pagedWithOtherOffset,
+                bookingService.getBookingsByOwner(ownerId, "PAST", 0, 20),
+                bookingService.getBookingsByOwner(ownerId, "REJECTED", 0, 20),
+                pagedWithCursor,
+                streamed);
+    }
+
+    private long countStatements(Runnable action) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        action.run();
+        long prepareStatementCount = statistics.getPrepareStatementCount();
+        statistics.setStatisticsEnabled(false);
+        return prepareStatementCount;
+    }
 }
@@ -15,13 +15,20 @@ import ru.practicum.shareit.item.CommentMapper;
 import ru.practicum.shareit.item.ItemController;
 import ru.practicum.shareit.item.dto.CommentRequestDto;
 import ru.practicum.shareit.item.dto.CommentResponseDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemResponseDto;
 import ru.practicum.shareit.item.service.ItemJPAService;
 import ru.practicum.shareit.item.ItemMapper;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.util.NdjsonWriter;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
@@ -324,6 +331,34 @@ public class ItemControllerTest {
         assertEquals(result, expectedItemsListString);
     }
 
+    @Test
+    @SneakyThrows
+    public void getListByUser_whenCursorIsGiven_isStatusOk_andReturnNextCursorInHeader() {
+        ItemResponseDto item = ItemMapper.toItemResponseDto(ItemDto.builder()
+                .id(itemId)
+                .name("a spoon")
+                .description("description")
+                .available(true)
+                .build());
+        String cursor = Cursor.of(1L).encode();
+        String nextCursor = Cursor.of(itemId).encode();
+
+        when(itemService.getItemsOfOwnerAfter(userId, cursor, 1))
+                .thenReturn(new CursorPage<>(List.of(item), nextCursor));
+
+        mockMvc.perform(get("/items")
+                        .header(header, userId)
+                        .param("cursor", cursor)
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CursorPage.NEXT_CURSOR_HEADER, nextCursor))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$.[0].id", is(itemId), Long.class));
+
+        verify(itemService).getItemsOfOwnerAfter(userId, cursor, 1);
+        verify(itemService, never()).getItemsOfOwner(any(), any(), any());
+    }
+
     @Test
     @SneakyThrows
     public void searchItemsBySubstring_isStatusOk_andInvokeService() {
@@ -372,6 +407,55 @@ public class ItemControllerTest {
         assertEquals(result, itemsString);
     }
 
+    @Test
+    @SneakyThrows
+    public void streamItemsByText_whenAcceptIsNdjson_isStatusOk_andWriteEveryItemOnItsLine() {
+        ItemResponseDto item1 = ItemResponseDto.builder()
+                .id(1L)
+                .name("Drill")
+                .description("power drill")
+                .available(true)
+                .build();
+        ItemResponseDto item2 = ItemResponseDto.builder()
+                .id(2L)
+                .name("Hand drill")
+                .description("old")
+                .available(true)
+                .build();
+
+        doAnswer(invocation -> {
+            Consumer<ItemResponseDto> consumer = invocation.getArgument(1);
+            consumer.accept(item1);
+            consumer.accept(item2);
+            return null;
+        }).when(itemService).streamItemsByText(eq("drill"), any());
+
+        String result = mockMvc.perform(get("/items/search")
+                        .param("text", "drill")
+                        .accept(NdjsonWriter.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(NdjsonWriter.MEDIA_TYPE))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        verify(itemService, never()).findItemsByText(anyString(), anyInt(), anyInt());
+        assertEquals(objectMapper.writeValueAsString(item1) + "\n"
+                + objectMapper.writeValueAsString(item2) + "\n", result);
+    }
+
+    @Test
+    @SneakyThrows
+    public void streamItemsOfOwner_whenAcceptIsNdjson_isStatusOk_andInvokeService() {
+        mockMvc.perform(get("/items")
+                        .header(header, userId)
+                        .accept(NdjsonWriter.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(NdjsonWriter.MEDIA_TYPE));
+
+        verify(itemService).streamItemsOfOwner(eq(userId), any());
+    }
+
     @Test
     @SneakyThrows
     public void searchItemsBySubstring_whenParameterNameIsInvalid_isStatusInternalServerError_AndInvokeService() {
@@ -498,5 +582,101 @@ public class ItemControllerTest {
 
     }
 
+    @Test
+    @SneakyThrows
+    public void getComments_isStatusOk_andReturnNextCursorInHeader() {
+        CommentResponseDto comment = CommentResponseDto.builder()
+                .id(2L)
+                .text("commentText")
+                .authorName("Johny")
+                .itemId(itemId)
+                .created(LocalDateTime.of(2030, 1, 1, 12, 0))
+                .build();
+        String nextCursor = Cursor.of(comment.getCreated(), comment.getId()).encode();
+
+        when(itemService.getComments(itemId, null, 1))
+                .thenReturn(new CursorPage<>(List.of(comment), nextCursor));
+
+        mockMvc.perform(get("/items/{itemId}/comments", itemId)
+                        .header(header, userId)
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CursorPage.NEXT_CURSOR_HEADER, nextCursor))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$.[0].id", is(comment.getId()), Long.class));
+
+        verify(itemService).getComments(itemId, null, 1);
+    }
 
+    @Test
+    @SneakyThrows
+    public void getComments_whenSizeIsNotPositive_isStatusBadRequest_NotInvokeService() {
+        mockMvc.perform(get("/items/{itemId}/comments", itemId)
+                        .header(header, userId)
+                        .param("size", "0"))
+                .andExpect(status().isBadRequest());
+
+        verify(itemService, never()).getComments(any(), any(), any());
+    }
+
+    @Test
+    @SneakyThrows
+    public void getAvailability_IsStatusOk_AndInvokeServiceForOneItem() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2030, 1, 10, 0, 0);
+        ItemAvailabilityDto availability = new ItemAvailabilityDto(itemId,
+                List.of(new ItemAvailabilityDto.Slot(from.plusDays(2), to)));
+
+        when(itemService.getAvailability(List.of(itemId), from, to)).thenReturn(List.of(availability));
+
+        mockMvc.perform(get("/items/{itemId}/availability", itemId)
+                        .param("from", "2030-01-01T00:00:00")
+                        .param("to", "2030-01-10T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.itemId", is(itemId.intValue())))
+                .andExpect(jsonPath("$.free", hasSize(1)))
+                .andExpect(jsonPath("$.free[0].start", is("2030-01-03T00:00:00")))
+                .andExpect(jsonPath("$.free[0].end", is("2030-01-10T00:00:00")));
+
+        verify(itemService).getAvailability(List.of(itemId), from, to);
+    }
+
+    @Test
+    @SneakyThrows
+    public void getAvailabilityOfItems_IsStatusOk_AndInvokeServiceOnceForAllItems() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2030, 1, 10, 0, 0);
+        List<ItemAvailabilityDto> availability = List.of(
+                new ItemAvailabilityDto(1L, List.of()),
+                new ItemAvailabilityDto(2L, List.of(new ItemAvailabilityDto.Slot(from, to))));
+
+        when(itemService.getAvailability(List.of(1L, 2L), from, to)).thenReturn(availability);
+
+        mockMvc.perform(get("/items/availability")
+                        .param("ids", "1,2")
+                        .param("from", "2030-01-01T00:00:00")
+                        .param("to", "2030-01-10T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].free", hasSize(0)))
+                .andExpect(jsonPath("$[1].itemId", is(2)));
+
+        verify(itemService).getAvailability(List.of(1L, 2L), from, to);
+    }
+
+    @Test
+    @SneakyThrows
+    public void getAvailabilityOfItems_WhenTooManyItems_IsStatusBadRequest() {
+        String ids = LongStream.rangeClosed(1, 101)
+                .mapToObj(String::valueOf)
+                .collect(Collectors.joining(","));
+
+        mockMvc.perform(get("/items/availability")
+                        .param("ids", ids)
+                        .param("from", "2030-01-01T00:00:00")
+                        .param("to", "2030-01-10T00:00:00"))
+                .andExpect(status().isBadRequest());
+
+        verify(itemService, never()).getAvailability(any(), any(), any());
+    }
 }
@@ -5,7 +5,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.item.dto.CommentCountView;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.storage.CommentJPARepository;
@@ -15,7 +17,10 @@ import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserJPARepository;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 
@@ -134,4 +139,37 @@ public class CommentRepositoryTest {
                 .contains(comment1toItem2);
     }
 
+    @Test
+    public void findAllByItemIdOrderByCreatedDescIdDesc_andFindAllByItemIdBefore() {
+
+        List<Comment> firstPage = commentJPARepository
+                .findAllByItemIdOrderByCreatedDescIdDesc(item1Id, PageRequest.of(0, 1));
+        LocalDateTime storedCreated = firstPage.get(0).getCreated().truncatedTo(ChronoUnit.MICROS);
+        List<Comment> secondPage = commentJPARepository.findAllByItemIdBefore(item1Id,
+                storedCreated, firstPage.get(0).getId(), PageRequest.of(0, 1));
+
+        assertThat(firstPage).asList().containsExactly(comment1toItem1);
+        assertThat(secondPage).asList().containsExactly(comment2toItem1);
+        assertThat(commentJPARepository.countByItemId(item1Id)).isEqualTo(2L);
+    }
+
+    @Test
+    public void findLatestCommentsOfItems_returnLimitedCommentsOfEveryItemInChronologicalOrder() {
+
+        List<Comment> latest = commentJPARepository.findLatestCommentsOfItems(List.of(item1Id, item2.getId()), 1);
+        List<Comment> all = commentJPARepository.findLatestCommentsOfItems(List.of(item1Id), 10);
+
+        assertThat(latest).asList().containsExactly(comment1toItem1, comment1toItem2);
+        assertThat(all).asList().containsExactly(comment2toItem1, comment1toItem1);
+    }
+
+    @Test
+    public void countCommentsOfItems() {
+
+        List<CommentCountView> result = commentJPARepository.countCommentsOfItems(List.of(item1Id, item2.getId()));
+
+        assertThat(result.stream()
+                .collect(Collectors.toMap(CommentCountView::getItemId, CommentCountView::getCount)))
+                .isEqualTo(Map.of(item1Id, 2L, item2.getId(), 1L));
+    }
 }
@@ -1,5 +1,7 @@
 package ru.practicum.shareit.item.repository;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -8,6 +10,7 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.item.dto.ItemTextView;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.storage.ItemJPARepository;
 import ru.practicum.shareit.request.model.ItemRequest;
@@ -15,7 +18,9 @@ import ru.practicum.shareit.request.store.ItemRequestJPARepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserJPARepository;
 
+import javax.persistence.EntityManagerFactory;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
@@ -29,6 +34,8 @@ public class ItemRepositoryTest {
     ItemJPARepository itemRepository;
     @Autowired
     ItemRequestJPARepository itemRequestRepository;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
     User owner;
     User requester;
     Item item1;
@@ -112,9 +119,12 @@ public class ItemRepositoryTest {
         List<Item> resultTwoItems = itemRepository.searchItemBySubstring("e", page);
 
         assertThat(resultTwoItems).asList()
-                .hasSize(2)
-                .contains(item1)
-                .contains(item2);
+                .containsExactly(item1, item2);
+
+        List<Item> resultSecondPage = itemRepository.searchItemBySubstring("e", PageRequest.of(1, 1));
+
+        assertThat(resultSecondPage).asList()
+                .containsExactly(item2);
 
         List<Item> resultOneItem = itemRepository.searchItemBySubstring("spOOn", page);
 
@@ -128,6 +138,44 @@ public class ItemRepositoryTest {
                 .isEmpty();
     }
 
+    @Test
+    public void findAllByOwnerIdAndIdGreaterThanOrderById() {
+
+        List<Item> firstPage = itemRepository.findAllByOwnerIdAndIdGreaterThanOrderById(ownerId, 0L,
+                PageRequest.of(0, 1));
+        List<Item> secondPage = itemRepository.findAllByOwnerIdAndIdGreaterThanOrderById(ownerId,
+                firstPage.get(0).getId(), page);
+
+        assertThat(firstPage).asList().containsExactly(item1);
+        assertThat(secondPage).asList().containsExactly(item2);
+    }
+
+    @Test
+    public void searchItemBySubstringAfter() {
+
+        List<Item> result = itemRepository.searchItemBySubstringAfter("E", item1.getId(), page);
+
+        assertThat(result).asList().containsExactly(item2);
+    }
+
+    @Test
+    public void findAvailableItemTexts() {
+
+        itemRepository.save(item2.toBuilder().available(false).build());
+
+        List<ItemTextView> result = itemRepository.findAvailableItemTexts(0L, page);
+
+        assertThat(result).asList().hasSize(1);
+        assertThat(result.get(0))
+                .hasFieldOrPropertyWithValue("id", item1.getId())
+                .hasFieldOrPropertyWithValue("name", "spoon")
+                .hasFieldOrPropertyWithValue("description", "steal big spoon, never used");
+
+        List<ItemTextView> resultAfterLastId = itemRepository.findAvailableItemTexts(item1.getId(), page);
+
+        assertThat(resultAfterLastId).asList().isEmpty();
+    }
+
     @Test
     public void findAllByRequestIn() {
 
@@ -159,6 +207,42 @@ public class ItemRepositoryTest {
                 .doesNotContain(item2);
     }
 
+    @Test
+    public void findAllByIdInOrderById() {
+
+        List<Item> result = itemRepository.findAllByIdInOrderById(List.of(item2.getId(), item1.getId(), 99L));
+
+        assertThat(result).asList().containsExactly(item1, item2);
+    }
+
+    @Test
+    public void saveAll_whenManyItems_insertThemInBatches() {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            items.add(Item.builder()
+                    .name("fork " + i)
+                    .description("imported")
+                    .available(true)
+                    .owner(owner)
+                    .build());
+        }
+        itemRepository.flush();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        itemRepository.saveAll(items);
+        itemRepository.flush();
+
+        long insertCount = statistics.getEntityInsertCount();
+        long prepareStatementCount = statistics.getPrepareStatementCount();
+        statistics.setStatisticsEnabled(false);
+        assertThat(insertCount).isEqualTo(120);
+        assertThat(prepareStatementCount).isLessThan(10);
+        assertThat(items.stream().map(Item::getId).distinct().count()).isEqualTo(120);
+        assertThat(itemRepository.findAllByOwnerId(ownerId, PageRequest.of(0, 200))).asList().hasSize(122);
+    }
+
     @AfterEach
     public void destroy() {
         userRepository.deleteAll();
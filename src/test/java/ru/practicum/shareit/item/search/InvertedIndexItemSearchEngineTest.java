@@ -0,0 +1,170 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.item.dto.ItemTextView;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemJPARepository;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class InvertedIndexItemSearchEngineTest {
+    @InjectMocks
+    private InvertedIndexItemSearchEngine searchEngine;
+    @Mock
+    private ItemJPARepository itemRepository;
+
+    private Item drill;
+    private Item saw;
+    private Item hammer;
+
+    @BeforeEach
+    public void init() {
+        drill = Item.builder()
+                .id(1L)
+                .name("Дрель аккумуляторная")
+                .description("Мощная, два аккумулятора")
+                .available(true)
+                .build();
+        saw = Item.builder()
+                .id(2L)
+                .name("Пила")
+                .description("Аккумуляторная цепная пила")
+                .available(true)
+                .build();
+        hammer = Item.builder()
+                .id(3L)
+                .name("Молоток")
+                .description("Тяжелый")
+                .available(true)
+                .build();
+
+        when(itemRepository.findAvailableItemTexts(eq(0L), any()))
+                .thenReturn(List.of(toItemTextView(drill), toItemTextView(saw), toItemTextView(hammer)));
+        searchEngine.rebuild();
+    }
+
+    @Test
+    public void search_whenTextIsPrefixOfWord_returnMatchingItems() {
+        when(itemRepository.findAllByIdInOrder(List.of(1L))).thenReturn(List.of(drill));
+
+        List<Item> result = searchEngine.search("дрел", PageRequest.of(0, 10));
+
+        assertEquals(List.of(drill), result);
+    }
+
+    @Test
+    public void search_whenTextHasSeveralWords_returnItemsMatchingAllOfThem() {
+        when(itemRepository.findAllByIdInOrder(List.of(2L))).thenReturn(List.of(saw));
+
+        List<Item> result = searchEngine.search("Аккумуляторная ЦЕПНАЯ", PageRequest.of(0, 10));
+
+        assertEquals(List.of(saw), result);
+    }
+
+    @Test
+    public void search_returnRequestedPageOrderedById() {
+        when(itemRepository.findAllByIdInOrder(List.of(2L))).thenReturn(List.of(saw));
+
+        List<Item> result = searchEngine.search("аккумулятор", PageRequest.of(1, 1));
+
+        assertEquals(List.of(saw), result);
+    }
+
+    @Test
+    public void searchAfter_returnMatchesWithIdGreaterThanLastId() {
+        when(itemRepository.findAllByIdInOrder(List.of(2L))).thenReturn(List.of(saw));
+
+        List<Item> result = searchEngine.searchAfter("аккумулятор", 1L, 1);
+
+        assertEquals(List.of(saw), result);
+    }
+
+    @Test
+    public void searchAfter_whenPrefixMatchesSeveralWordsOfItem_returnItemOnce() {
+        when(itemRepository.findAllByIdInOrder(List.of(1L, 2L))).thenReturn(List.of(drill, saw));
+
+        List<Item> result = searchEngine.searchAfter("акк", 0L, 10);
+
+        assertEquals(List.of(drill, saw), result);
+    }
+
+    @Test
+    public void search_whenOffsetIsPastLastMatch_returnEmptyList() {
+        when(itemRepository.findAllByIdInOrder(Collections.emptyList())).thenReturn(Collections.emptyList());
+
+        List<Item> result = searchEngine.search("аккумулятор", PageRequest.of(1, 2));
+
+        assertEquals(Collections.emptyList(), result);
+    }
+
+    @Test
+    public void search_whenTextHasNoWords_returnEmptyList() {
+        when(itemRepository.findAllByIdInOrder(Collections.emptyList())).thenReturn(Collections.emptyList());
+
+        List<Item> result = searchEngine.search(" , ", PageRequest.of(0, 10));
+
+        assertEquals(Collections.emptyList(), result);
+        verify(itemRepository).findAllByIdInOrder(Collections.emptyList());
+    }
+
+    @Test
+    public void onItemSaved_whenItemIsRenamed_reindexItem() {
+        Item renamedHammer = hammer.toBuilder().name("Кувалда").build();
+        when(itemRepository.findAllByIdInOrder(List.of(3L))).thenReturn(List.of(renamedHammer));
+        when(itemRepository.findAllByIdInOrder(Collections.emptyList())).thenReturn(Collections.emptyList());
+
+        searchEngine.onItemSaved(renamedHammer);
+
+        assertEquals(Collections.emptyList(), searchEngine.search("молоток", PageRequest.of(0, 10)));
+        assertEquals(List.of(renamedHammer), searchEngine.search("кувалда", PageRequest.of(0, 10)));
+    }
+
+    @Test
+    public void onItemSaved_whenItemBecomesUnavailable_removeItemFromIndex() {
+        searchEngine.onItemSaved(drill.toBuilder().available(false).build());
+        when(itemRepository.findAllByIdInOrder(Collections.emptyList())).thenReturn(Collections.emptyList());
+
+        List<Item> result = searchEngine.search("дрель", PageRequest.of(0, 10));
+
+        assertEquals(Collections.emptyList(), result);
+        verify(itemRepository).findAllByIdInOrder(Collections.emptyList());
+    }
+
+    @Test
+    public void rebuild_loadItemsInBatchesUntilLastBatchIsIncomplete() {
+        verify(itemRepository).findAvailableItemTexts(anyLong(), any());
+    }
+
+    private ItemTextView toItemTextView(Item item) {
+        return new ItemTextView() {
+            @Override
+            public Long getId() {
+                return item.getId();
+            }
+
+            @Override
+            public String getName() {
+                return item.getName();
+            }
+
+            @Override
+            public String getDescription() {
+                return item.getDescription();
+            }
+        };
+    }
+}
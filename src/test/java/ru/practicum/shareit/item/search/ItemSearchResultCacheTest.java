@@ -0,0 +1,149 @@
+package ru.practicum.shareit.item.search;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ItemSearchResultCacheTest {
+    private MeterRegistry meterRegistry;
+    private ItemSearchResultCache cache;
+    private Pageable firstPage;
+
+    @BeforeEach
+    public void init() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new ItemSearchResultCache(new JpaItemSearchEngine(null), 2, Duration.ofMinutes(1), meterRegistry);
+        firstPage = PageRequest.of(0, 10);
+    }
+
+    @Test
+    public void get_whenPutWithSameTextIgnoringCaseAndPage_returnCachedIds() {
+        cache.put("Дрель", firstPage, List.of(1L, 2L), cache.getVersion());
+
+        assertEquals(Optional.of(List.of(1L, 2L)), cache.get("дРЕЛЬ", firstPage));
+        assertEquals(Optional.empty(), cache.get("дрель", PageRequest.of(1, 10)));
+        assertEquals(1.0, requests("hit"));
+        assertEquals(1.0, requests("miss"));
+    }
+
+    @Test
+    public void put_whenCacheIsFull_evictLeastRecentlyUsedEntry() {
+        cache.put("drill", firstPage, List.of(1L), cache.getVersion());
+        cache.put("saw", firstPage, List.of(2L), cache.getVersion());
+        cache.get("drill", firstPage);
+
+        cache.put("hammer", firstPage, List.of(3L), cache.getVersion());
+
+        assertEquals(Optional.of(List.of(1L)), cache.get("drill", firstPage));
+        assertEquals(Optional.empty(), cache.get("saw", firstPage));
+        assertEquals(1.0, evictions("size"));
+    }
+
+    @Test
+    public void get_whenEntryIsExpired_returnEmpty() {
+        cache = new ItemSearchResultCache(new JpaItemSearchEngine(null), 2, Duration.ZERO, meterRegistry);
+        cache.put("drill", firstPage, List.of(1L), cache.getVersion());
+
+        assertEquals(Optional.empty(), cache.get("drill", firstPage));
+        assertEquals(1.0, evictions("expired"));
+    }
+
+    @Test
+    public void onItemSaved_invalidateOnlyEntriesMatchingOldOrNewText() {
+        cache.put("drill", firstPage, List.of(1L), cache.getVersion());
+        cache.put("saw", firstPage, List.of(2L), cache.getVersion());
+        Item item = Item.builder()
+                .id(3L)
+                .name("Hammer")
+                .description("big")
+                .available(true)
+                .build();
+
+        cache.onItemSaved(item, item.toBuilder().name("Power drill").build());
+
+        assertEquals(Optional.empty(), cache.get("drill", firstPage));
+        assertEquals(Optional.of(List.of(2L)), cache.get("saw", firstPage));
+        assertEquals(1.0, evictions("invalidated"));
+    }
+
+    @Test
+    public void onItemSaved_whenItemIsUnavailableBeforeAndAfter_keepEntries() {
+        cache.put("drill", firstPage, List.of(1L), cache.getVersion());
+        Item item = Item.builder()
+                .id(3L)
+                .name("drill")
+                .description("old")
+                .available(false)
+                .build();
+
+        cache.onItemSaved(null, item);
+
+        assertEquals(Optional.of(List.of(1L)), cache.get("drill", firstPage));
+    }
+
+    @Test
+    public void put_whenItemWasSavedAfterVersionWasTaken_doNotCache() {
+        long version = cache.getVersion();
+        cache.onItemSaved(null, Item.builder()
+                .id(3L)
+                .name("drill")
+                .description("new")
+                .available(true)
+                .build());
+
+        cache.put("drill", firstPage, List.of(1L), version);
+
+        assertEquals(Optional.empty(), cache.get("drill", firstPage));
+    }
+
+    @Test
+    public void onItemSaved_withInvertedIndexEngine_invalidateEntriesWhoseWordsMatchNameAndDescription() {
+        cache = new ItemSearchResultCache(new InvertedIndexItemSearchEngine(null), 2, Duration.ofMinutes(1),
+                meterRegistry);
+        cache.put("pow dri", firstPage, List.of(1L), cache.getVersion());
+        cache.put("saw", firstPage, List.of(2L), cache.getVersion());
+
+        cache.onItemSaved(null, Item.builder()
+                .id(3L)
+                .name("Drill")
+                .description("powerful")
+                .available(true)
+                .build());
+
+        assertEquals(Optional.empty(), cache.get("pow dri", firstPage));
+        assertEquals(Optional.of(List.of(2L)), cache.get("saw", firstPage));
+    }
+
+    @Test
+    public void put_whenOtherItemWasSavedAfterVersionWasTaken_cache() {
+        long version = cache.getVersion();
+        cache.onItemSaved(null, Item.builder()
+                .id(3L)
+                .name("hammer")
+                .description("new")
+                .available(true)
+                .build());
+
+        cache.put("drill", firstPage, List.of(1L), version);
+
+        assertEquals(Optional.of(List.of(1L)), cache.get("drill", firstPage));
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("shareit.item.search.cache.requests").tag("result", result).counter().count();
+    }
+
+    private double evictions(String cause) {
+        return meterRegistry.get("shareit.item.search.cache.evictions").tag("cause", cause).counter().count();
+    }
+}
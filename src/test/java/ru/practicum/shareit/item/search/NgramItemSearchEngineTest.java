@@ -0,0 +1,129 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemJPARepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserJPARepository;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+public class NgramItemSearchEngineTest {
+    private static final List<String> WORDS = List.of(
+            "Дрель", "аккумуляторная", "отвёртка", "пила", "цепная", "молоток", "дрель-шуруповёрт",
+            "Spoon", "silver", "big", "drill", "Saw", "hammer", "new", "old", "б/у", "100%", "x_y");
+    private static final String QUERY_ALPHABET = "дрельпиаксотdrilsaw_% ";
+
+    @Autowired
+    UserJPARepository userRepository;
+    @Autowired
+    ItemJPARepository itemRepository;
+
+    NgramItemSearchEngine searchEngine;
+    Random random;
+    List<Item> items;
+    Pageable everything;
+
+    @BeforeEach
+    public void init() {
+        random = new Random(42);
+        everything = PageRequest.of(0, 1000);
+        User owner = userRepository.save(User.builder()
+                .name("Oleg")
+                .email("Oleg@yandex.ru")
+                .build());
+
+        items = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            items.add(itemRepository.save(Item.builder()
+                    .name(randomText(1 + random.nextInt(3)))
+                    .description(randomText(1 + random.nextInt(6)))
+                    .available(random.nextInt(4) != 0)
+                    .owner(owner)
+                    .build()));
+        }
+
+        searchEngine = new NgramItemSearchEngine(itemRepository);
+        searchEngine.rebuild();
+    }
+
+    @Test
+    public void search_returnSameItemsAsSearchItemBySubstring() {
+        List<String> queries = new ArrayList<>(List.of("дрел", "ДРЕЛ", "рель", "ль а", "a", "%", "_", "0%", "x_y"));
+        for (int i = 0; i < 300; i++) {
+            queries.add(randomSubstringOfCatalogue());
+            queries.add(randomQuery());
+        }
+
+        for (String query : queries) {
+            assertEquals(idsOf(itemRepository.searchItemBySubstring(query, everything)),
+                    idsOf(searchEngine.search(query, everything)),
+                    "different results for query: " + query);
+        }
+    }
+
+    @Test
+    public void search_returnRequestedPageOfMatchesOrderedById() {
+        List<Long> allMatches = searchEngine.search("е", everything).stream()
+                .map(Item::getId)
+                .collect(Collectors.toList());
+
+        List<Long> secondPage = searchEngine.search("е", PageRequest.of(1, 5)).stream()
+                .map(Item::getId)
+                .collect(Collectors.toList());
+
+        assertEquals(allMatches.subList(5, 10), secondPage);
+    }
+
+    @Test
+    public void searchAfter_returnSameItemsAsSearchItemBySubstringAfter() {
+        for (int i = 0; i < 100; i++) {
+            String query = randomSubstringOfCatalogue();
+            Long lastId = items.get(random.nextInt(items.size())).getId();
+            assertEquals(itemRepository.searchItemBySubstringAfter(query, lastId, PageRequest.of(0, 5)),
+                    searchEngine.searchAfter(query, lastId, 5),
+                    "different results for query: " + query + " after id: " + lastId);
+        }
+    }
+
+    private String randomText(int words) {
+        return random.ints(words, 0, WORDS.size())
+                .mapToObj(WORDS::get)
+                .collect(Collectors.joining(" "));
+    }
+
+    private String randomSubstringOfCatalogue() {
+        Item item = items.get(random.nextInt(items.size()));
+        String text = random.nextBoolean() ? item.getName() : item.getDescription();
+        int start = random.nextInt(text.length());
+        int end = start + 1 + random.nextInt(Math.min(8, text.length() - start));
+        String substring = text.substring(start, end);
+        return random.nextBoolean() ? substring.toUpperCase() : substring;
+    }
+
+    private String randomQuery() {
+        StringBuilder query = new StringBuilder();
+        int length = 1 + random.nextInt(5);
+        for (int i = 0; i < length; i++) {
+            query.append(QUERY_ALPHABET.charAt(random.nextInt(QUERY_ALPHABET.length())));
+        }
+        return query.toString();
+    }
+
+    private Set<Long> idsOf(List<Item> items) {
+        return items.stream()
+                .map(Item::getId)
+                .collect(Collectors.toCollection(TreeSet::new));
+    }
+}
@@ -9,27 +9,41 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import ru.practicum.shareit.booking.BookingMapper;
+import ru.practicum.shareit.booking.dto.BookingItemIntervalView;
 import ru.practicum.shareit.booking.dto.BookingItemResponseDto;
+import ru.practicum.shareit.booking.dto.BookingShortView;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.store.BookingJPARepository;
 import ru.practicum.shareit.exception.*;
 import ru.practicum.shareit.item.CommentMapper;
 import ru.practicum.shareit.item.ItemMapper;
+import ru.practicum.shareit.item.dto.CommentCountView;
+import ru.practicum.shareit.item.dto.CommentCreationView;
 import ru.practicum.shareit.item.dto.CommentRequestDto;
 import ru.practicum.shareit.item.dto.CommentResponseDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareit.item.dto.ItemAvailableView;
+import ru.practicum.shareit.item.dto.ItemCreationView;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemResponseDto;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemView;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.item.search.ItemSearchResultCache;
 import ru.practicum.shareit.item.storage.CommentJPARepository;
 import ru.practicum.shareit.item.storage.ItemJPARepository;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.store.ItemRequestJPARepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserJPARepository;
 
+import javax.persistence.EntityManager;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -53,6 +67,14 @@ public class ItemServiceImplTest {
     private ItemRequestJPARepository itemRequestRepository;
     @Mock
     private CommentJPARepository commentRepository;
+    @Mock
+    private ItemSearchEngine itemSearchEngine;
+    @Mock
+    private ItemSearchResultCache itemSearchResultCache;
+    @Mock
+    private ItemViewProjection itemViewProjection;
+    @Mock
+    private EntityManager entityManager;
 
     @Test
     public void create_whenUserExists_whenRequestIdIsNull_InvokeSave_AndReturnSavedItem() {
@@ -77,15 +99,20 @@ public class ItemServiceImplTest {
                 .build();
         ItemDto expectedItem = ItemMapper.toItemDto(savedItemWithoutRequest);
 
-        when(userRepository.findById(ownerId)).thenReturn(Optional.of(owner));
+        when(itemRepository.findCreationView(ownerId, null)).thenReturn(Optional.of(toItemCreationView(ownerId, null)));
+        when(userRepository.getReferenceById(ownerId)).thenReturn(owner);
         when(itemRepository.save(itemWithoutRequest)).thenReturn(savedItemWithoutRequest);
 
         ItemDto result = itemService.createItem(itemDto, ownerId);
 
         assertEquals(expectedItem, result);
 
-        verify(userRepository).findById(ownerId);
+        verify(itemRepository).findCreationView(ownerId, null);
         verify(itemRepository).save(itemWithoutRequest);
+        verifyNoInteractions(itemRequestRepository);
+        verify(itemSearchEngine).onItemSaved(savedItemWithoutRequest);
+        verify(itemSearchResultCache).onItemSaved(null, savedItemWithoutRequest);
+        verify(itemViewProjection).onItemCreated(savedItemWithoutRequest);
     }
 
     @Test
@@ -125,15 +152,18 @@ public class ItemServiceImplTest {
         Item savedItem = item.toBuilder().id(itemId).build();
         ItemDto expectedItem = ItemMapper.toItemDto(savedItem);
 
-        when(userRepository.findById(ownerId)).thenReturn(Optional.of(owner));
-        when(itemRequestRepository.findById(requestId)).thenReturn(Optional.of(itemRequest));
+        when(itemRepository.findCreationView(ownerId, requestId))
+                .thenReturn(Optional.of(toItemCreationView(ownerId, requestId)));
+        when(userRepository.getReferenceById(ownerId)).thenReturn(owner);
+        when(itemRequestRepository.getReferenceById(requestId)).thenReturn(itemRequest);
         when(itemRepository.save(item)).thenReturn(savedItem);
 
         ItemDto result = itemService.createItem(itemDto, ownerId);
 
         InOrder inOrder = inOrder(userRepository, itemRequestRepository, itemRepository);
-        inOrder.verify(userRepository).findById(ownerId);
-        inOrder.verify(itemRequestRepository).findById(requestId);
+        inOrder.verify(itemRepository).findCreationView(ownerId, requestId);
+        inOrder.verify(userRepository).getReferenceById(ownerId);
+        inOrder.verify(itemRequestRepository).getReferenceById(requestId);
         inOrder.verify(itemRepository).save(item);
         inOrder.verifyNoMoreInteractions();
 
@@ -151,15 +181,15 @@ public class ItemServiceImplTest {
                 .available(true)
                 .build();
 
-        when(userRepository.findById(ownerId)).thenReturn(Optional.empty());
+        when(itemRepository.findCreationView(ownerId, null)).thenReturn(Optional.empty());
 
         assertThrows(UserNotExistException.class,
                 () -> itemService.createItem(itemDto, ownerId),
                 String.format("there is no user with id:%s", ownerId));
 
-        verify(userRepository).findById(ownerId);
-        verifyNoMoreInteractions(userRepository);
+        verify(itemRepository).findCreationView(ownerId, null);
         verifyNoMoreInteractions(itemRepository);
+        verifyNoInteractions(userRepository);
     }
 
     @Test
@@ -181,18 +211,16 @@ public class ItemServiceImplTest {
                 .available(true)
                 .build();
 
-        when(userRepository.findById(ownerId))
-                .thenReturn(Optional.of(owner));
-        when(itemRequestRepository.findById(requestId))
-                .thenReturn(Optional.empty());
+        when(itemRepository.findCreationView(ownerId, requestId))
+                .thenReturn(Optional.of(toItemCreationView(owner.getId(), null)));
 
         assertThrows(ItemRequestNotExistException.class,
                 () -> itemService.createItem(itemDto, ownerId),
                 String.format("there is no item request with id: %s", requestId));
 
-        InOrder inOrder = inOrder(userRepository, itemRequestRepository);
-        inOrder.verify(userRepository).findById(ownerId);
-        inOrder.verify(itemRequestRepository).findById(requestId);
+        verify(itemRepository).findCreationView(ownerId, requestId);
+        verifyNoMoreInteractions(itemRepository);
+        verifyNoInteractions(userRepository, itemRequestRepository);
     }
 
     @Test
@@ -247,22 +275,17 @@ public class ItemServiceImplTest {
         ItemResponseDto expectedItemForNotOwner = ItemMapper
                 .toItemResponseDto(savedItem, null, null, commentsOut);
 
-        when(itemRepository.findById(itemId))
-                .thenReturn(Optional.of(savedItem));
-        when(commentRepository.findAllByItemId(itemId))
-                .thenReturn(comments);
+        when(itemViewProjection.getItemView(eq(itemId), any()))
+                .thenReturn(Optional.of(toItemView(savedItem, null, null, 2L)));
+        when(commentRepository.findAllByItemIdOrderByCreatedDescIdDesc(itemId, PageRequest.of(0, 10)))
+                .thenReturn(List.of(comment2, comment1));
 
         ItemResponseDto result = itemService.getItemById(notOwnerId, itemId);
 
-        InOrder inOrder = inOrder(itemRepository, commentRepository);
-        inOrder.verify(itemRepository).findById(itemId);
-        verify(bookingRepository, never())
-                .findFirstByItemIdAndStatusAndStartIsAfterOrStartEqualsOrderByStart(eq(itemId),
-                        eq(BookingStatus.APPROVED), any(), any());
-        verify(bookingRepository, never())
-                .findFirstByItemIdAndStatusAndStartIsAfterOrStartEqualsOrderByStart(eq(itemId),
-                        eq(BookingStatus.APPROVED), any(), any());
-        inOrder.verify(commentRepository).findAllByItemId(itemId);
+        InOrder inOrder = inOrder(itemViewProjection, commentRepository);
+        inOrder.verify(itemViewProjection).getItemView(eq(itemId), any());
+        inOrder.verify(commentRepository).findAllByItemIdOrderByCreatedDescIdDesc(itemId, PageRequest.of(0, 10));
+        verify(commentRepository, never()).countByItemId(any());
 
         assertEquals(result, expectedItemForNotOwner);
         assertThat(result).hasFieldOrPropertyWithValue("id", 1L)
@@ -339,28 +362,17 @@ public class ItemServiceImplTest {
         ItemResponseDto expectedItemForOwner =
                 ItemMapper.toItemResponseDto(savedItem, lastBookingDto, nextBookingDto, commentsOut);
 
-        when(itemRepository.findById(itemId))
-                .thenReturn(Optional.of(savedItem));
-        when(bookingRepository.findFirstByItemIdAndStatusAndStartIsAfterOrStartEqualsOrderByStart(eq(itemId),
-                eq(BookingStatus.APPROVED), any(), any()))
-                .thenReturn(Optional.of(nextBooking));
-        when(bookingRepository.findFirstByItemIdAndStatusAndStartIsBeforeOrStartEqualsOrderByEndDesc(eq(itemId),
-                eq(BookingStatus.APPROVED), any(), any()))
-                .thenReturn(Optional.of(lastBooking));
-        when(commentRepository.findAllByItemId(itemId))
-                .thenReturn(comments);
+        when(itemViewProjection.getItemView(eq(itemId), any()))
+                .thenReturn(Optional.of(toItemView(savedItem, lastBooking, nextBooking, 2L)));
+        when(commentRepository.findAllByItemIdOrderByCreatedDescIdDesc(itemId, PageRequest.of(0, 10)))
+                .thenReturn(List.of(comment2, comment1));
 
         ItemResponseDto result = itemService.getItemById(ownerId, itemId);
 
-        InOrder inOrder = inOrder(itemRepository, commentRepository);
-        inOrder.verify(itemRepository).findById(itemId);
-        verify(bookingRepository)
-                .findFirstByItemIdAndStatusAndStartIsAfterOrStartEqualsOrderByStart(any(),
-                        any(), any(), any());
-        verify(bookingRepository)
-                .findFirstByItemIdAndStatusAndStartIsAfterOrStartEqualsOrderByStart(any(),
-                        any(), any(), any());
-        inOrder.verify(commentRepository).findAllByItemId(itemId);
+        InOrder inOrder = inOrder(itemViewProjection, commentRepository);
+        inOrder.verify(itemViewProjection).getItemView(eq(itemId), any());
+        inOrder.verify(commentRepository).findAllByItemIdOrderByCreatedDescIdDesc(itemId, PageRequest.of(0, 10));
+        verify(commentRepository, never()).countByItemId(any());
 
         assertEquals(result, expectedItemForOwner);
         assertThat(result).hasFieldOrPropertyWithValue("id", 1L)
@@ -424,24 +436,17 @@ public class ItemServiceImplTest {
         ItemResponseDto expectedItemForOwner =
                 ItemMapper.toItemResponseDto(savedItem, null, null, commentsOut);
 
-        when(itemRepository.findById(itemId)).thenReturn(Optional.of(savedItem));
-        when(bookingRepository.findFirstByItemIdAndStatusAndStartIsAfterOrStartEqualsOrderByStart(anyLong(),
-                any(), any(), any())).thenReturn(Optional.empty());
-        when(bookingRepository.findFirstByItemIdAndStatusAndStartIsBeforeOrStartEqualsOrderByEndDesc(anyLong(),
-                any(), any(), any())).thenReturn(Optional.empty());
-        when(commentRepository.findAllByItemId(itemId)).thenReturn(comments);
+        when(itemViewProjection.getItemView(eq(itemId), any()))
+                .thenReturn(Optional.of(toItemView(savedItem, null, null, 2L)));
+        when(commentRepository.findAllByItemIdOrderByCreatedDescIdDesc(itemId, PageRequest.of(0, 10)))
+                .thenReturn(List.of(comment2, comment1));
 
         ItemResponseDto result = itemService.getItemById(ownerId, itemId);
 
-        InOrder inOrder = inOrder(itemRepository, commentRepository);
-        inOrder.verify(itemRepository).findById(itemId);
-        verify(bookingRepository)
-                .findFirstByItemIdAndStatusAndStartIsAfterOrStartEqualsOrderByStart(any(),
-                        any(), any(), any());
-        verify(bookingRepository)
-                .findFirstByItemIdAndStatusAndStartIsAfterOrStartEqualsOrderByStart(any(),
-                        any(), any(), any());
-        inOrder.verify(commentRepository).findAllByItemId(itemId);
+        InOrder inOrder = inOrder(itemViewProjection, commentRepository);
+        inOrder.verify(itemViewProjection).getItemView(eq(itemId), any());
+        inOrder.verify(commentRepository).findAllByItemIdOrderByCreatedDescIdDesc(itemId, PageRequest.of(0, 10));
+        verify(commentRepository, never()).countByItemId(any());
 
         assertEquals(result, expectedItemForOwner);
         assertThat(result).hasFieldOrPropertyWithValue("id", 1L)
@@ -460,14 +465,15 @@ public class ItemServiceImplTest {
 
         Long itemId = 1L;
 
-        when(itemRepository.findById(itemId))
+        when(itemViewProjection.getItemView(eq(itemId), any()))
                 .thenReturn(Optional.empty());
 
         assertThrows(ItemNotExistException.class,
                 () -> itemService.getItemById(ownerId, itemId),
                 String.format("there is no item with id:%s", itemId));
 
-        verify(itemRepository).findById(itemId);
+        verify(itemViewProjection).getItemView(eq(itemId), any());
+        verifyNoInteractions(commentRepository);
     }
 
     @Test
@@ -531,6 +537,9 @@ public class ItemServiceImplTest {
         inOrder.verify(userRepository).findById(ownerId);
         inOrder.verify(itemRepository).findById(ownerId);
         inOrder.verify(itemRepository).save(updatedItem);
+        verify(itemSearchEngine).onItemSaved(updatedItem);
+        verify(itemSearchResultCache).onItemSaved(savedItem, updatedItem);
+        verify(itemViewProjection).onItemUpdated(updatedItem);
 
         assertEquals(result, updatedItemDto);
         assertThat(result)
@@ -1008,22 +1017,23 @@ public class ItemServiceImplTest {
 
         when(itemRepository.findAllByOwnerId(ownerId, pageRequest))
                 .thenReturn(items);
-        when(commentRepository.findAllByItemIn(items))
+        when(commentRepository.findLatestCommentsOfItems(List.of(item1Id, item2Id), 10))
                 .thenReturn(comments);
-        when(bookingRepository
-                .findFirstByItemIdAndStatusAndStartIsBeforeOrStartEqualsOrderByEndDesc(any(), any(), any(), any()))
-                .thenReturn(Optional.of(lastBooking));
-        when(bookingRepository
-                .findFirstByItemIdAndStatusAndStartIsAfterOrStartEqualsOrderByStart(any(), any(), any(), any()))
-                .thenReturn(Optional.of(nextBooking));
+        when(bookingRepository.findLastApprovedBookingsOfItems(eq(List.of(item1Id, item2Id)), any()))
+                .thenReturn(List.of(toBookingShortView(item1Id, lastBooking), toBookingShortView(item2Id, lastBooking)));
+        when(bookingRepository.findNextApprovedBookingsOfItems(eq(List.of(item1Id, item2Id)), any()))
+                .thenReturn(List.of(toBookingShortView(item1Id, nextBooking), toBookingShortView(item2Id, nextBooking)));
 
         List<ItemResponseDto> result = itemService.getItemsOfOwner(ownerId, from, size);
 
         verify(itemRepository).findAllByOwnerId(ownerId, pageRequest);
-        verify(commentRepository).findAllByItemIn(items);
-        verify(bookingRepository, atLeast(1))
+        verify(commentRepository).findLatestCommentsOfItems(List.of(item1Id, item2Id), 10);
+        verify(commentRepository, never()).countCommentsOfItems(any());
+        verify(bookingRepository).findLastApprovedBookingsOfItems(eq(List.of(item1Id, item2Id)), any());
+        verify(bookingRepository).findNextApprovedBookingsOfItems(eq(List.of(item1Id, item2Id)), any());
+        verify(bookingRepository, never())
                 .findFirstByItemIdAndStatusAndStartIsBeforeOrStartEqualsOrderByEndDesc(any(), any(), any(), any());
-        verify(bookingRepository, atLeast(1))
+        verify(bookingRepository, never())
                 .findFirstByItemIdAndStatusAndStartIsAfterOrStartEqualsOrderByStart(any(), any(), any(), any());
 
         assertEquals(result, expectedItemsListByUser);
@@ -1062,17 +1072,13 @@ public class ItemServiceImplTest {
 
         when(itemRepository.findAllByOwnerId(notOwnerId, pageRequest))
                 .thenReturn(Collections.emptyList());
-        when(commentRepository.findAllByItemIn(Collections.emptyList()))
-                .thenReturn(Collections.emptyList());
 
         List<ItemResponseDto> result = itemService.getItemsOfOwner(notOwnerId, from, size);
 
         verify(itemRepository).findAllByOwnerId(notOwnerId, pageRequest);
-        verify(commentRepository).findAllByItemIn(Collections.emptyList());
-        verify(bookingRepository, never())
-                .findFirstByItemIdAndStatusAndStartIsAfterOrStartEqualsOrderByStart(any(), any(), any(), any());
-        verify(bookingRepository, never())
-                .findFirstByItemIdAndStatusAndStartIsAfterOrStartEqualsOrderByStart(any(), any(), any(), any());
+        verify(commentRepository, never()).findLatestCommentsOfItems(any(), anyInt());
+        verify(bookingRepository, never()).findLastApprovedBookingsOfItems(any(), any());
+        verify(bookingRepository, never()).findNextApprovedBookingsOfItems(any(), any());
 
         assertEquals(result, listByUser);
         assertEquals(result.size(), 0);
@@ -1164,24 +1170,26 @@ public class ItemServiceImplTest {
         int size = 10;
         Pageable pageRequest = PageRequest.of(from / size, size);
 
-        when(itemRepository.searchItemBySubstring("text", pageRequest))
+        when(itemSearchEngine.search("text", pageRequest))
                 .thenReturn(items);
-        when(commentRepository.findAllByItemIn(items))
+        when(commentRepository.findLatestCommentsOfItems(List.of(item1Id, item2Id), 10))
                 .thenReturn(comments);
-        when(bookingRepository
-                .findFirstByItemIdAndStatusAndStartIsBeforeOrStartEqualsOrderByEndDesc(any(), any(), any(), any()))
-                .thenReturn(Optional.of(lastBooking));
-        when(bookingRepository
-                .findFirstByItemIdAndStatusAndStartIsAfterOrStartEqualsOrderByStart(any(), any(), any(), any()))
-                .thenReturn(Optional.of(nextBooking));
+        when(bookingRepository.findLastApprovedBookingsOfItems(eq(List.of(item1Id, item2Id)), any()))
+                .thenReturn(List.of(toBookingShortView(item1Id, lastBooking), toBookingShortView(item2Id, lastBooking)));
+        when(bookingRepository.findNextApprovedBookingsOfItems(eq(List.of(item1Id, item2Id)), any()))
+                .thenReturn(List.of(toBookingShortView(item1Id, nextBooking), toBookingShortView(item2Id, nextBooking)));
 
         List<ItemResponseDto> result = itemService.findItemsByText("text", from, size);
 
-        verify(itemRepository).searchItemBySubstring("text", pageRequest);
-        verify(commentRepository).findAllByItemIn(items);
-        verify(bookingRepository, atLeast(1))
-                .findFirstByItemIdAndStatusAndStartIsAfterOrStartEqualsOrderByStart(any(), any(), any(), any());
-        verify(bookingRepository, atLeast(1))
+        verify(itemSearchEngine).search("text", pageRequest);
+        verify(itemSearchResultCache).put("text", pageRequest, List.of(item1Id, item2Id), 0L);
+        verify(commentRepository).findLatestCommentsOfItems(List.of(item1Id, item2Id), 10);
+        verify(commentRepository, never()).countCommentsOfItems(any());
+        verify(bookingRepository).findLastApprovedBookingsOfItems(eq(List.of(item1Id, item2Id)), any());
+        verify(bookingRepository).findNextApprovedBookingsOfItems(eq(List.of(item1Id, item2Id)), any());
+        verify(bookingRepository, never())
+                .findFirstByItemIdAndStatusAndStartIsBeforeOrStartEqualsOrderByEndDesc(any(), any(), any(), any());
+        verify(bookingRepository, never())
                 .findFirstByItemIdAndStatusAndStartIsAfterOrStartEqualsOrderByStart(any(), any(), any(), any());
 
         assertEquals(result, expectedItemsListBySearch);
@@ -1217,24 +1225,57 @@ public class ItemServiceImplTest {
 
         List<ItemResponseDto> expectedListBySearch = Collections.emptyList();
 
-        when(itemRepository.searchItemBySubstring("text", pageRequest))
-                .thenReturn(Collections.emptyList());
-        when(commentRepository.findAllByItemIn(Collections.emptyList()))
+        when(itemSearchEngine.search("text", pageRequest))
                 .thenReturn(Collections.emptyList());
 
         List<ItemResponseDto> result = itemService.findItemsByText("text", from, size);
 
-        verify(itemRepository).searchItemBySubstring("text", pageRequest);
-        verify(commentRepository).findAllByItemIn(Collections.emptyList());
-        verify(bookingRepository, never())
-                .findFirstByItemIdAndStatusAndStartIsAfterOrStartEqualsOrderByStart(any(), any(), any(), any());
-        verify(bookingRepository, never())
-                .findFirstByItemIdAndStatusAndStartIsAfterOrStartEqualsOrderByStart(any(), any(), any(), any());
+        verify(itemSearchEngine).search("text", pageRequest);
+        verify(commentRepository, never()).findLatestCommentsOfItems(any(), anyInt());
+        verify(bookingRepository, never()).findLastApprovedBookingsOfItems(any(), any());
+        verify(bookingRepository, never()).findNextApprovedBookingsOfItems(any(), any());
 
         assertEquals(result, expectedListBySearch);
         assertEquals(result.size(), 0);
     }
 
+    @Test
+    public void searchItemsBySubstring_whenResultIsCached_returnCachedItemsWithoutSearch() {
+
+        User owner = User.builder()
+                .id(1L)
+                .name("Oleg")
+                .email("Oleg@yandex.ru")
+                .build();
+
+        Long itemId = 1L;
+        Item item = Item.builder()
+                .id(itemId)
+                .name("a spoon")
+                .description("new")
+                .available(true)
+                .owner(owner)
+                .build();
+
+        int from = 0;
+        int size = 10;
+        Pageable pageRequest = PageRequest.of(from / size, size);
+
+        when(itemSearchResultCache.get("text", pageRequest))
+                .thenReturn(Optional.of(List.of(itemId)));
+        when(itemRepository.findAllByIdInOrder(List.of(itemId)))
+                .thenReturn(List.of(item));
+
+        List<ItemResponseDto> result = itemService.findItemsByText("text", from, size);
+
+        verify(itemRepository).findAllByIdInOrder(List.of(itemId));
+        verify(itemSearchEngine, never()).search(any(), any());
+        verify(itemSearchResultCache, never()).put(any(), any(), any(), anyLong());
+
+        assertEquals(result.size(), 1);
+        assertEquals(result.get(0).getId(), itemId);
+    }
+
     @Test
     public void addComment_whenItemExists_AndUserExists_AndUserIsNotOwner_AndUserHasPastOrCurrentApprovedBookings() {
 
@@ -1272,17 +1313,6 @@ public class ItemServiceImplTest {
                 .id(itemId)
                 .build();
 
-        Long lastBookingId = 1L;
-        Booking lastBooking = Booking.builder()
-                .id(lastBookingId)
-                .booker(notOwner)
-                .build();
-        Long nextBookingId = 2L;
-        Booking nextBooking = Booking.builder()
-                .id(nextBookingId)
-                .booker(notOwner)
-                .build();
-
         Long commentId = 1L;
         CommentRequestDto commentRequestDto = CommentRequestDto.builder()
                 .itemId(itemId)
@@ -1295,24 +1325,23 @@ public class ItemServiceImplTest {
                 .build();
         CommentResponseDto savedCommentRequestDto = CommentMapper.toCommentResponseDto(savedComment);
 
-        when(userRepository.findById(notOwnerId))
-                .thenReturn(Optional.of(notOwner));
-        when(itemRepository.findById(itemId))
-                .thenReturn(Optional.of(savedItem));
-        when(bookingRepository.findAllByItemIdAndBookerIdAndStatusAndStartIsBefore(anyLong(), any(), any(), any()))
-                .thenReturn(List.of(lastBooking, nextBooking));
+        when(commentRepository.findCreationView(eq(notOwnerId), eq(itemId), eq(BookingStatus.APPROVED), any()))
+                .thenReturn(Optional.of(toCommentCreationView(notOwner.getName(), itemId, ownerId, true)));
+        when(userRepository.getReferenceById(notOwnerId))
+                .thenReturn(notOwner);
+        when(itemRepository.getReferenceById(itemId))
+                .thenReturn(savedItem);
         when(commentRepository.save(any(Comment.class)))
                 .thenReturn(savedComment);
 
         CommentResponseDto result = itemService.addComment(notOwnerId, itemId, commentRequestDto);
 
-        InOrder inOrder = inOrder(userRepository, itemRepository, bookingRepository, commentRepository);
-
-        inOrder.verify(userRepository).findById(notOwnerId);
-        inOrder.verify(itemRepository).findById(itemId);
-        inOrder.verify(bookingRepository).findAllByItemIdAndBookerIdAndStatusAndStartIsBefore(anyLong(),
-                any(), any(), any());
+        InOrder inOrder = inOrder(commentRepository);
+        inOrder.verify(commentRepository).findCreationView(eq(notOwnerId), eq(itemId), eq(BookingStatus.APPROVED),
+                any());
         inOrder.verify(commentRepository).save(any(Comment.class));
+        verify(itemViewProjection).onCommentAdded(savedComment);
+        verifyNoInteractions(bookingRepository);
 
         assertEquals(result, savedCommentRequestDto);
         assertThat(result)
@@ -1342,18 +1371,16 @@ public class ItemServiceImplTest {
                 .text("broken spoon!")
                 .build();
 
-        when(userRepository.findById(notOwnerId))
-                .thenReturn(Optional.of(notOwner));
-        when(itemRepository.findById(itemId))
-                .thenReturn(Optional.empty());
+        when(commentRepository.findCreationView(eq(notOwnerId), eq(itemId), eq(BookingStatus.APPROVED), any()))
+                .thenReturn(Optional.of(toCommentCreationView(notOwner.getName(), null, null, false)));
 
         assertThrows(ItemNotExistException.class,
                 () -> itemService.addComment(notOwnerId, itemId, commentRequestDto),
                 String.format("there is no item with id:%s", itemId));
 
-        verify(userRepository).findById(notOwnerId);
-        verify(itemRepository).findById(itemId);
-        verifyNoMoreInteractions(userRepository, bookingRepository, commentRepository);
+        verify(commentRepository).findCreationView(eq(notOwnerId), eq(itemId), eq(BookingStatus.APPROVED), any());
+        verifyNoMoreInteractions(commentRepository);
+        verifyNoInteractions(userRepository, itemRepository, bookingRepository);
 
 
     }
@@ -1379,15 +1406,16 @@ public class ItemServiceImplTest {
                 .text("broken spoon!")
                 .build();
 
-        when(userRepository.findById(notOwnerId))
+        when(commentRepository.findCreationView(eq(notOwnerId), eq(itemId), eq(BookingStatus.APPROVED), any()))
                 .thenReturn(Optional.empty());
 
         assertThrows(UserNotExistException.class,
                 () -> itemService.addComment(notOwnerId, itemId, commentRequestDto),
                 String.format("there is no user with id:%s", notOwnerId));
 
-        verify(userRepository).findById(notOwnerId);
-        verifyNoMoreInteractions(itemRepository, bookingRepository, commentRepository);
+        verify(commentRepository).findCreationView(eq(notOwnerId), eq(itemId), eq(BookingStatus.APPROVED), any());
+        verifyNoMoreInteractions(commentRepository);
+        verifyNoInteractions(userRepository, itemRepository, bookingRepository);
 
     }
 
@@ -1413,16 +1441,17 @@ public class ItemServiceImplTest {
                 .text("broken spoon!")
                 .build();
 
-        when(itemRepository.findById(itemId)).thenReturn(Optional.of(savedItem));
-        when(userRepository.findById(ownerId)).thenReturn(Optional.of(owner));
+        when(commentRepository.findCreationView(eq(ownerId), eq(itemId), eq(BookingStatus.APPROVED), any()))
+                .thenReturn(Optional.of(toCommentCreationView(owner.getName(), itemId,
+                        savedItem.getOwner().getId(), false)));
 
         assertThrows(ValidationException.class,
                 () -> itemService.addComment(ownerId, itemId, commentRequestDto),
                 "it's forbidden to comment your own item");
 
-        verify(itemRepository).findById(itemId);
-        verify(userRepository).findById(ownerId);
-        verifyNoMoreInteractions(bookingRepository, commentRepository);
+        verify(commentRepository).findCreationView(eq(ownerId), eq(itemId), eq(BookingStatus.APPROVED), any());
+        verifyNoMoreInteractions(commentRepository);
+        verifyNoInteractions(userRepository, itemRepository, bookingRepository);
 
     }
 
@@ -1455,21 +1484,419 @@ public class ItemServiceImplTest {
                 .text("broken spoon!")
                 .build();
 
-        when(itemRepository.findById(itemId))
-                .thenReturn(Optional.of(savedItem));
-        when(userRepository.findById(notOwnerId))
-                .thenReturn(Optional.of(notOwner));
-        when(bookingRepository.findAllByItemIdAndBookerIdAndStatusAndStartIsBefore(anyLong(), any(), any(), any()))
-                .thenReturn(Collections.emptyList());
+        when(commentRepository.findCreationView(eq(notOwnerId), eq(itemId), eq(BookingStatus.APPROVED), any()))
+                .thenReturn(Optional.of(toCommentCreationView(notOwner.getName(), itemId,
+                        savedItem.getOwner().getId(), false)));
 
         assertThrows(ValidationException.class,
                 () -> itemService.addComment(notOwnerId, itemId, commentRequestDto),
                 "it's forbidden to comment item you've never booked");
 
-        verify(itemRepository).findById(itemId);
-        verify(userRepository).findById(notOwnerId);
-        verify(bookingRepository).findAllByItemIdAndBookerIdAndStatusAndStartIsBefore(anyLong(),
-                any(), any(), any());
+        verify(commentRepository).findCreationView(eq(notOwnerId), eq(itemId), eq(BookingStatus.APPROVED), any());
         verifyNoMoreInteractions(commentRepository);
+        verifyNoInteractions(userRepository, itemRepository, bookingRepository);
+    }
+
+    @Test
+    public void getById_whenItemHasMoreCommentsThanLimit_returnLatestCommentsAndTotalCount() {
+        Long ownerId = 1L;
+        User owner = User.builder()
+                .id(ownerId)
+                .name("Oleg")
+                .email("Oleg@yandex.ru")
+                .build();
+        Long itemId = 1L;
+        Item item = Item.builder()
+                .id(itemId)
+                .name("a spoon")
+                .description("new")
+                .available(true)
+                .owner(owner)
+                .build();
+        LocalDateTime now = LocalDateTime.now();
+        List<Comment> latestComments = new ArrayList<>();
+        for (long i = 15; i > 5; i--) {
+            latestComments.add(Comment.builder()
+                    .id(i)
+                    .item(item)
+                    .author(owner)
+                    .text("comment " + i)
+                    .created(now.minusDays(20 - i))
+                    .build());
+        }
+
+        when(itemViewProjection.getItemView(eq(itemId), any()))
+                .thenReturn(Optional.of(toItemView(item, null, null, 15L)));
+        when(commentRepository.findAllByItemIdOrderByCreatedDescIdDesc(itemId, PageRequest.of(0, 10)))
+                .thenReturn(latestComments);
+
+        ItemResponseDto result = itemService.getItemById(2L, itemId);
+
+        verify(commentRepository, never()).countByItemId(any());
+        assertEquals(15L, result.getCommentCount());
+        assertEquals(10, result.getComments().size());
+        assertEquals(6L, result.getComments().get(0).getId());
+        assertEquals(15L, result.getComments().get(9).getId());
+    }
+
+    @Test
+    public void getById_whenItemViewHasNoComments_doNotQueryComments() {
+        User owner = User.builder()
+                .id(1L)
+                .name("Oleg")
+                .email("Oleg@yandex.ru")
+                .build();
+        Long itemId = 1L;
+        Item item = Item.builder()
+                .id(itemId)
+                .name("a spoon")
+                .description("new")
+                .available(true)
+                .owner(owner)
+                .build();
+
+        when(itemViewProjection.getItemView(eq(itemId), any()))
+                .thenReturn(Optional.of(toItemView(item, null, null, 0L)));
+
+        ItemResponseDto result = itemService.getItemById(2L, itemId);
+
+        assertEquals(0L, result.getCommentCount());
+        assertEquals(Collections.emptyList(), result.getComments());
+        verifyNoInteractions(commentRepository, itemRepository, bookingRepository);
+    }
+
+    @Test
+    public void getListByUser_whenItemHasMoreCommentsThanLimit_countOnlyThisItemComments() {
+        Long ownerId = 1L;
+        User owner = User.builder()
+                .id(ownerId)
+                .name("Oleg")
+                .email("Oleg@yandex.ru")
+                .build();
+        Item item1 = Item.builder().id(1L).name("a spoon").description("new").owner(owner).available(true).build();
+        Item item2 = Item.builder().id(2L).name("pram").description("old").owner(owner).available(true).build();
+        List<Comment> comments = new ArrayList<>();
+        for (long i = 1; i <= 10; i++) {
+            comments.add(Comment.builder()
+                    .id(i)
+                    .item(item1)
+                    .author(owner)
+                    .text("comment " + i)
+                    .created(LocalDateTime.now())
+                    .build());
+        }
+        comments.add(Comment.builder()
+                .id(11L)
+                .item(item2)
+                .author(owner)
+                .text("comment 11")
+                .created(LocalDateTime.now())
+                .build());
+        Pageable pageRequest = PageRequest.of(0, 10);
+        CommentCountView item1Count = new CommentCountView() {
+            @Override
+            public Long getItemId() {
+                return 1L;
+            }
+
+            @Override
+            public Long getCount() {
+                return 25L;
+            }
+        };
+
+        when(itemRepository.findAllByOwnerId(ownerId, pageRequest)).thenReturn(List.of(item1, item2));
+        when(commentRepository.findLatestCommentsOfItems(List.of(1L, 2L), 10)).thenReturn(comments);
+        when(commentRepository.countCommentsOfItems(List.of(1L))).thenReturn(List.of(item1Count));
+
+        List<ItemResponseDto> result = itemService.getItemsOfOwner(ownerId, 0, 10);
+
+        assertEquals(25L, result.get(0).getCommentCount());
+        assertEquals(10, result.get(0).getComments().size());
+        assertEquals(1L, result.get(1).getCommentCount());
+        assertEquals(1, result.get(1).getComments().size());
+    }
+
+    @Test
+    public void getComments_whenCursorIsGiven_returnPageBeforeCursorAndNextCursor() {
+        Long itemId = 1L;
+        Item item = Item.builder()
+                .id(itemId)
+                .build();
+        LocalDateTime created = LocalDateTime.of(2030, 1, 1, 12, 0);
+        Comment comment3 = Comment.builder().id(3L).item(item).text("3").created(created.minusDays(1)).build();
+        Comment comment2 = Comment.builder().id(2L).item(item).text("2").created(created.minusDays(2)).build();
+        Comment comment1 = Comment.builder().id(1L).item(item).text("1").created(created.minusDays(3)).build();
+        String cursor = Cursor.of(created, 4L).encode();
+
+        when(itemRepository.existsById(itemId)).thenReturn(true);
+        when(commentRepository.findAllByItemIdBefore(itemId, created, 4L, PageRequest.of(0, 3)))
+                .thenReturn(List.of(comment3, comment2, comment1));
+
+        CursorPage<CommentResponseDto> result = itemService.getComments(itemId, cursor, 2);
+
+        assertEquals(CommentMapper.toCommentResponseDtoList(List.of(comment3, comment2)), result.getContent());
+        assertEquals(Cursor.of(comment2.getCreated(), 2L).encode(), result.getNextCursor());
+        verify(commentRepository, never()).findAllByItemIdOrderByCreatedDescIdDesc(any(), any());
+    }
+
+    @Test
+    public void getComments_whenItemDoesNotExist_thenThrowsItemNotExistException() {
+        Long itemId = 1L;
+        when(itemRepository.existsById(itemId)).thenReturn(false);
+
+        assertThrows(ItemNotExistException.class,
+                () -> itemService.getComments(itemId, null, 10),
+                "there is no item with id: " + itemId);
+
+        verifyNoInteractions(commentRepository);
+    }
+
+    @Test
+    public void streamItemsOfOwner_whenChunkIsFull_readNextChunkAfterLastId_andClearContextAfterEveryChunk() {
+        Long ownerId = 1L;
+        User owner = User.builder()
+                .id(ownerId)
+                .name("Oleg")
+                .email("Oleg@yandex.ru")
+                .build();
+        List<Item> firstChunk = new ArrayList<>();
+        for (long i = 1; i <= 100; i++) {
+            firstChunk.add(Item.builder().id(i).name("item " + i).description("new").owner(owner).available(true).build());
+        }
+        Item last = Item.builder().id(101L).name("item 101").description("new").owner(owner).available(true).build();
+        Pageable chunk = PageRequest.of(0, 100);
+
+        when(itemRepository.findAllByOwnerIdAndIdGreaterThanOrderById(ownerId, 0L, chunk)).thenReturn(firstChunk);
+        when(itemRepository.findAllByOwnerIdAndIdGreaterThanOrderById(ownerId, 100L, chunk)).thenReturn(List.of(last));
+
+        List<ItemResponseDto> result = new ArrayList<>();
+        itemService.streamItemsOfOwner(ownerId, result::add);
+
+        assertEquals(101, result.size());
+        assertEquals(1L, result.get(0).getId());
+        assertEquals(101L, result.get(100).getId());
+        InOrder inOrder = inOrder(itemRepository, entityManager);
+        inOrder.verify(itemRepository).findAllByOwnerIdAndIdGreaterThanOrderById(ownerId, 0L, chunk);
+        inOrder.verify(entityManager).clear();
+        inOrder.verify(itemRepository).findAllByOwnerIdAndIdGreaterThanOrderById(ownerId, 100L, chunk);
+        inOrder.verify(entityManager).clear();
+    }
+
+    @Test
+    public void streamItemsByText_whenTextIsBlank_notInvokeSearch() {
+        List<ItemResponseDto> result = new ArrayList<>();
+
+        itemService.streamItemsByText(" ", result::add);
+
+        assertEquals(0, result.size());
+        verifyNoInteractions(itemSearchEngine, entityManager);
+    }
+
+    private ItemView toItemView(Item item, Booking lastBooking, Booking nextBooking, long commentCount) {
+        return ItemView.builder()
+                .itemId(item.getId())
+                .name(item.getName())
+                .description(item.getDescription())
+                .available(item.getAvailable())
+                .ownerId(item.getOwner().getId())
+                .requestId(item.getRequest() == null ? null : item.getRequest().getId())
+                .lastBookingId(lastBooking == null ? null : lastBooking.getId())
+                .lastBookerId(lastBooking == null ? null : lastBooking.getBooker().getId())
+                .nextBookingId(nextBooking == null ? null : nextBooking.getId())
+                .nextBookerId(nextBooking == null ? null : nextBooking.getBooker().getId())
+                .commentCount(commentCount)
+                .build();
+    }
+
+    @Test
+    public void getAvailability_whenBookingsOverlap_returnGapsBetweenMergedBookingsOfEveryItem() {
+
+        Long item1Id = 1L;
+        Long item2Id = 2L;
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2030, 1, 10, 0, 0);
+        List<BookingStatus> statuses = List.of(BookingStatus.APPROVED, BookingStatus.WAITING);
+
+        when(itemRepository.findAvailableViews(List.of(item1Id, item2Id)))
+                .thenReturn(List.of(toItemAvailableView(item2Id, true), toItemAvailableView(item1Id, true)));
+        when(bookingRepository.findOverlappingIntervalsOfItemsInStatuses(List.of(item1Id, item2Id), statuses, from, to))
+                .thenReturn(List.of(
+                        toBookingItemIntervalView(item1Id, from.minusDays(1), from.plusDays(1)),
+                        toBookingItemIntervalView(item1Id, from.plusDays(3), from.plusDays(6)),
+                        toBookingItemIntervalView(item1Id, from.plusDays(4), from.plusDays(5)),
+                        toBookingItemIntervalView(item1Id, from.plusDays(6), from.plusDays(7))));
+
+        List<ItemAvailabilityDto> result = itemService.getAvailability(List.of(item1Id, item2Id, item1Id), from, to);
+
+        assertEquals(List.of(
+                new ItemAvailabilityDto(item1Id, List.of(
+                        new ItemAvailabilityDto.Slot(from.plusDays(1), from.plusDays(3)),
+                        new ItemAvailabilityDto.Slot(from.plusDays(7), to))),
+                new ItemAvailabilityDto(item2Id, List.of(new ItemAvailabilityDto.Slot(from, to)))), result);
+        verify(bookingRepository).findOverlappingIntervalsOfItemsInStatuses(List.of(item1Id, item2Id), statuses,
+                from, to);
+    }
+
+    @Test
+    public void getAvailability_whenPeriodIsInPast_returnNoFreeSlots_andNotReadBookings() {
+
+        Long itemId = 1L;
+        LocalDateTime from = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+        when(itemRepository.findAvailableViews(List.of(itemId))).thenReturn(List.of(toItemAvailableView(itemId, true)));
+
+        List<ItemAvailabilityDto> result = itemService.getAvailability(List.of(itemId), from, from.plusDays(1));
+
+        assertEquals(List.of(new ItemAvailabilityDto(itemId, List.of())), result);
+        verify(bookingRepository, never()).findOverlappingIntervalsOfItemsInStatuses(any(), any(), any(), any());
+    }
+
+    @Test
+    public void getAvailability_whenItemIsNotAvailable_returnNoFreeSlots_andNotReadItsBookings() {
+
+        Long item1Id = 1L;
+        Long item2Id = 2L;
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2030, 1, 10, 0, 0);
+        List<BookingStatus> statuses = List.of(BookingStatus.APPROVED, BookingStatus.WAITING);
+
+        when(itemRepository.findAvailableViews(List.of(item1Id, item2Id)))
+                .thenReturn(List.of(toItemAvailableView(item1Id, false), toItemAvailableView(item2Id, true)));
+        when(bookingRepository.findOverlappingIntervalsOfItemsInStatuses(List.of(item2Id), statuses, from, to))
+                .thenReturn(List.of());
+
+        List<ItemAvailabilityDto> result = itemService.getAvailability(List.of(item1Id, item2Id), from, to);
+
+        assertEquals(List.of(
+                new ItemAvailabilityDto(item1Id, List.of()),
+                new ItemAvailabilityDto(item2Id, List.of(new ItemAvailabilityDto.Slot(from, to)))), result);
+    }
+
+    @Test
+    public void getAvailability_whenNoItemIsAvailable_notReadBookings() {
+
+        Long itemId = 1L;
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+        when(itemRepository.findAvailableViews(List.of(itemId)))
+                .thenReturn(List.of(toItemAvailableView(itemId, false)));
+
+        List<ItemAvailabilityDto> result = itemService.getAvailability(List.of(itemId), from, from.plusDays(1));
+
+        assertEquals(List.of(new ItemAvailabilityDto(itemId, List.of())), result);
+        verify(bookingRepository, never()).findOverlappingIntervalsOfItemsInStatuses(any(), any(), any(), any());
+    }
+
+    @Test
+    public void getAvailability_whenItemDoesNotExist_throwItemNotExistException() {
+
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+        when(itemRepository.findAvailableViews(List.of(1L, 2L))).thenReturn(List.of(toItemAvailableView(1L, true)));
+
+        assertThrows(ItemNotExistException.class,
+                () -> itemService.getAvailability(List.of(1L, 2L), from, from.plusDays(1)));
+        verify(bookingRepository, never()).findOverlappingIntervalsOfItemsInStatuses(any(), any(), any(), any());
+    }
+
+    @Test
+    public void getAvailability_whenPeriodEndsBeforeStart_throwInvalidLocalDateTimeException() {
+
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+        assertThrows(InvalidLocalDateTimeException.class,
+                () -> itemService.getAvailability(List.of(1L), from, from));
+        verify(itemRepository, never()).findAvailableViews(any());
+    }
+
+    private ItemCreationView toItemCreationView(Long ownerId, Long requestId) {
+        return new ItemCreationView() {
+            @Override
+            public Long getOwnerId() {
+                return ownerId;
+            }
+
+            @Override
+            public Long getRequestId() {
+                return requestId;
+            }
+        };
+    }
+
+    private CommentCreationView toCommentCreationView(String authorName, Long itemId, Long ownerId, boolean booked) {
+        return new CommentCreationView() {
+            @Override
+            public String getAuthorName() {
+                return authorName;
+            }
+
+            @Override
+            public Long getItemId() {
+                return itemId;
+            }
+
+            @Override
+            public Long getOwnerId() {
+                return ownerId;
+            }
+
+            @Override
+            public Boolean getBooked() {
+                return booked;
+            }
+        };
+    }
+
+    private ItemAvailableView toItemAvailableView(Long itemId, Boolean available) {
+        return new ItemAvailableView() {
+            @Override
+            public Long getId() {
+                return itemId;
+            }
+
+            @Override
+            public Boolean getAvailable() {
+                return available;
+            }
+        };
+    }
+
+    private BookingItemIntervalView toBookingItemIntervalView(Long itemId, LocalDateTime start, LocalDateTime end) {
+        return new BookingItemIntervalView() {
+            @Override
+            public Long getItemId() {
+                return itemId;
+            }
+
+            @Override
+            public LocalDateTime getStart() {
+                return start;
+            }
+
+            @Override
+            public LocalDateTime getEnd() {
+                return end;
+            }
+        };
+    }
+
+    private BookingShortView toBookingShortView(Long itemId, Booking booking) {
+        return new BookingShortView() {
+            @Override
+            public Long getItemId() {
+                return itemId;
+            }
+
+            @Override
+            public Long getId() {
+                return booking.getId();
+            }
+
+            @Override
+            public Long getBookerId() {
+                return booking.getBooker().getId();
+            }
+        };
     }
 }
@@ -3,19 +3,28 @@ package ru.practicum.shareit.item.service;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.practicum.shareit.booking.BookingMapper;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingItemResponseDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.service.BookingJPAService;
+import ru.practicum.shareit.booking.store.BookingJPARepository;
 import ru.practicum.shareit.exception.*;
 import ru.practicum.shareit.item.ItemMapper;
 import ru.practicum.shareit.item.dto.CommentRequestDto;
+import ru.practicum.shareit.item.dto.CommentResponseDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemResponseDto;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemView;
+import ru.practicum.shareit.item.storage.ItemJPARepository;
+import ru.practicum.shareit.item.storage.ItemViewJPARepository;
 import ru.practicum.shareit.request.ItemRequestMapper;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestResponseDto;
@@ -25,8 +34,11 @@ import ru.practicum.shareit.user.UserMapper;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserJPAService;
+import ru.practicum.shareit.user.storage.UserJPARepository;
 
+import javax.persistence.EntityManagerFactory;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -44,6 +56,20 @@ public class ItemServiceIntegrationTest {
     BookingJPAService bookingService;
     @Autowired
     ItemRequestJPAService itemRequestService;
+    @Autowired
+    ItemViewProjection itemViewProjection;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+    @Autowired
+    BookingJPARepository bookingJPARepository;
+    @Autowired
+    ItemJPARepository itemJPARepository;
+    @Autowired
+    UserJPARepository userJPARepository;
+    @Autowired
+    ItemViewJPARepository itemViewJPARepository;
+    @Autowired
+    TransactionTemplate transactionTemplate;
 
     @Test
     public void shouldCreateItemWithRequest() {
@@ -846,6 +872,94 @@ public class ItemServiceIntegrationTest {
         assertEquals(result.size(), 0);
     }
 
+    @Test
+    public void shouldCreateItemCheckingOwnerAndRequestByOneQuery() {
+
+        Long ownerId = 1L;
+        userService.createUser(UserDto.builder()
+                .name("Oleg")
+                .email("Oleg@yandex.ru")
+                .build());
+
+        Long requesterId = 2L;
+        userService.createUser(UserDto.builder()
+                .name("Jorge")
+                .email("Jorge@yandex.ru")
+                .build());
+
+        Long requestId = 1L;
+        itemRequestService.createRequest(requesterId, ItemRequestDto.builder()
+                .description("I would like to rent knife")
+                .build());
+        itemService.createItem(ItemDto.builder()
+                .name("knife")
+                .description("new")
+                .available(true)
+                .build(), ownerId);
+
+        ItemDto itemDto = ItemDto.builder()
+                .name("fork")
+                .description("new")
+                .available(true)
+                .requestId(requestId)
+                .build();
+        List<ItemDto> created = new ArrayList<>();
+        long statements = countStatements(() -> created.add(itemService.createItem(itemDto, ownerId)));
+
+        // the check, the id, the item, the view read and insert: the owner and the request are not loaded
+        assertEquals(5, statements);
+        assertEquals(requestId, created.get(0).getRequestId());
+        assertEquals(ownerId, itemViewProjection.getItemView(created.get(0).getId(), LocalDateTime.now())
+                .orElseThrow()
+                .getOwnerId());
+    }
+
+    @Test
+    public void shouldAddCommentCheckingAuthorItemAndBookingByOneQuery() {
+
+        Long ownerId = 1L;
+        userService.createUser(UserDto.builder()
+                .name("Oleg")
+                .email("Oleg@yandex.ru")
+                .build());
+
+        Long bookerId = 2L;
+        userService.createUser(UserDto.builder()
+                .name("Jorge")
+                .email("Jorge@yandex.ru")
+                .build());
+
+        Long itemId = 1L;
+        itemService.createItem(ItemDto.builder()
+                .name("knife")
+                .description("new")
+                .available(true)
+                .build(), ownerId);
+        bookingJPARepository.save(Booking.builder()
+                .start(LocalDateTime.now().minusWeeks(2))
+                .end(LocalDateTime.now().minusWeeks(1))
+                .item(itemJPARepository.findById(itemId).orElseThrow())
+                .booker(userJPARepository.findById(bookerId).orElseThrow())
+                .status(BookingStatus.APPROVED)
+                .build());
+        itemService.addComment(bookerId, itemId, CommentRequestDto.builder()
+                .text("sharp knife!")
+                .build());
+
+        List<CommentResponseDto> created = new ArrayList<>();
+        long statements = countStatements(() -> created.add(itemService.addComment(bookerId, itemId,
+                CommentRequestDto.builder()
+                        .text("still sharp!")
+                        .build())));
+
+        // the check, the id, the comment, the count of the view: the author and the item are not loaded
+        assertEquals(4, statements);
+        assertThat(created.get(0))
+                .hasFieldOrPropertyWithValue("authorName", "Jorge")
+                .hasFieldOrPropertyWithValue("itemId", itemId);
+        assertEquals(2L, itemService.getItemById(bookerId, itemId).getCommentCount());
+    }
+
     @Test
     public void shouldFailAddCommentWhenItemDoesNotExist() {
 
@@ -968,4 +1082,215 @@ public class ItemServiceIntegrationTest {
                 () -> itemService.addComment(notOwnerId, itemId, commentDto),
                 "it's forbidden to comment item you've never booked");
     }
+
+    @Test
+    public void shouldGetItemsOfOwnerWithFixedNumberOfQueries() {
+
+        Long ownerId = 1L;
+        UserDto ownerDto = UserDto.builder()
+                .name("Oleg")
+                .email("Oleg@yandex.ru")
+                .build();
+        userService.createUser(ownerDto);
+
+        Long bookerId = 2L;
+        UserDto bookerDto = UserDto.builder()
+                .name("Jorge")
+                .email("Jorge@yandex.ru")
+                .build();
+        userService.createUser(bookerDto);
+
+        int itemsCount = 30;
+        for (long itemId = 1; itemId <= itemsCount; itemId++) {
+            ItemDto itemDto = ItemDto.builder()
+                    .name("knife " + itemId)
+                    .description("new")
+                    .available(true)
+                    .build();
+            itemService.createItem(itemDto, ownerId);
+
+            BookingDto bookingDto = BookingDto.builder()
+                    .itemId(itemId)
+                    .start(LocalDateTime.of(2030, 1, 1, 1, 1, 1))
+                    .end(LocalDateTime.of(2030, 2, 1, 1, 1, 1))
+                    .build();
+            BookingResponseDto booking = bookingService.createBooking(bookingDto, bookerId);
+            bookingService.approveBookingStatus(true, booking.getId(), ownerId);
+        }
+
+        long smallPageStatements = countStatements(() -> itemService.getItemsOfOwner(ownerId, 0, 2));
+        long largePageStatements = countStatements(() -> itemService.getItemsOfOwner(ownerId, 0, itemsCount));
+        List<ItemResponseDto> largePage = itemService.getItemsOfOwner(ownerId, 0, itemsCount);
+
+        assertEquals(smallPageStatements, largePageStatements);
+        assertEquals(largePage.size(), itemsCount);
+        largePage.forEach(item -> assertEquals(item.getNextBooking().getBookerId(), bookerId));
+    }
+
+    @Test
+    public void shouldGetItemByIdFromItemViewWithSinglePrimaryKeyRead() {
+
+        Long ownerId = 1L;
+        UserDto ownerDto = UserDto.builder()
+                .name("Oleg")
+                .email("Oleg@yandex.ru")
+                .build();
+        userService.createUser(ownerDto);
+
+        Long bookerId = 2L;
+        UserDto bookerDto = UserDto.builder()
+                .name("Jorge")
+                .email("Jorge@yandex.ru")
+                .build();
+        userService.createUser(bookerDto);
+
+        Long itemId = 1L;
+        ItemDto itemDto = ItemDto.builder()
+                .name("knife")
+                .description("new")
+                .available(true)
+                .build();
+        itemService.createItem(itemDto, ownerId);
+
+        BookingDto bookingDto = BookingDto.builder()
+                .itemId(itemId)
+                .start(LocalDateTime.of(2030, 1, 1, 1, 1, 1))
+                .end(LocalDateTime.of(2030, 2, 1, 1, 1, 1))
+                .build();
+        BookingResponseDto booking = bookingService.createBooking(bookingDto, bookerId);
+        bookingService.approveBookingStatus(true, booking.getId(), ownerId);
+        itemService.updateItem(ItemDto.builder().name("sharp knife").build(), ownerId, itemId);
+
+        ItemResponseDto result = itemService.getItemById(ownerId, itemId);
+        long statements = countStatements(() -> itemService.getItemById(ownerId, itemId));
+
+        assertEquals(1, statements);
+        assertThat(result).hasFieldOrPropertyWithValue("name", "sharp knife")
+                .hasFieldOrPropertyWithValue("lastBooking", null)
+                .hasFieldOrPropertyWithValue("nextBooking", new BookingItemResponseDto(booking.getId(), bookerId))
+                .hasFieldOrPropertyWithValue("commentCount", 0L);
+    }
+
+    @Test
+    public void shouldTakeBookingsOfItemViewFromIndexWhenNextBookingHasStarted() {
+
+        Long ownerId = 1L;
+        UserDto ownerDto = UserDto.builder()
+                .name("Oleg")
+                .email("Oleg@yandex.ru")
+                .build();
+        userService.createUser(ownerDto);
+
+        Long bookerId = 2L;
+        UserDto bookerDto = UserDto.builder()
+                .name("Jorge")
+                .email("Jorge@yandex.ru")
+                .build();
+        userService.createUser(bookerDto);
+
+        Long itemId = 1L;
+        ItemDto itemDto = ItemDto.builder()
+                .name("knife")
+                .description("new")
+                .available(true)
+                .build();
+        itemService.createItem(itemDto, ownerId);
+
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 1, 1, 1);
+        BookingDto bookingDto = BookingDto.builder()
+                .itemId(itemId)
+                .start(start)
+                .end(start.plusMonths(1))
+                .build();
+        BookingResponseDto booking = bookingService.createBooking(bookingDto, bookerId);
+        bookingService.approveBookingStatus(true, booking.getId(), ownerId);
+
+        ItemView viewAfterStart = itemViewProjection.getItemView(itemId, start.plusDays(1)).orElseThrow();
+
+        assertEquals(booking.getId(), viewAfterStart.getLastBookingId());
+        assertEquals(bookerId, viewAfterStart.getLastBookerId());
+        assertNull(viewAfterStart.getNextBookingId());
+        assertNull(viewAfterStart.getBookingsValidUntil());
+        ItemView storedView = itemViewJPARepository.findById(itemId).orElseThrow();
+        assertEquals(booking.getId(), storedView.getNextBookingId());
+        assertEquals(start, storedView.getBookingsValidUntil());
+    }
+
+    @Test
+    public void shouldKeepBookingsOfItemViewWhenItemIsUpdatedWithEntityLoadedBeforeApproval() {
+
+        Long ownerId = 1L;
+        userService.createUser(UserDto.builder()
+                .name("Oleg")
+                .email("Oleg@yandex.ru")
+                .build());
+
+        Long bookerId = 2L;
+        userService.createUser(UserDto.builder()
+                .name("Jorge")
+                .email("Jorge@yandex.ru")
+                .build());
+
+        Long itemId = 1L;
+        itemService.createItem(ItemDto.builder()
+                .name("knife")
+                .description("new")
+                .available(true)
+                .build(), ownerId);
+        Item loadedBeforeApproval = itemJPARepository.findById(itemId).orElseThrow();
+
+        BookingResponseDto booking = bookingService.createBooking(BookingDto.builder()
+                .itemId(itemId)
+                .start(LocalDateTime.of(2030, 1, 1, 1, 1, 1))
+                .end(LocalDateTime.of(2030, 2, 1, 1, 1, 1))
+                .build(), bookerId);
+        bookingService.approveBookingStatus(true, booking.getId(), ownerId);
+        transactionTemplate.executeWithoutResult(status -> itemViewProjection.onItemUpdated(
+                loadedBeforeApproval.toBuilder().name("sharp knife").build()));
+
+        ItemView storedView = itemViewJPARepository.findById(itemId).orElseThrow();
+        assertEquals("sharp knife", storedView.getName());
+        assertEquals(booking.getId(), storedView.getNextBookingId());
+        assertEquals(bookerId, storedView.getNextBookerId());
+    }
+
+    @Test
+    public void shouldStreamAllItemsOfOwnerAndFoundBySearchInChunks() {
+
+        Long ownerId = 1L;
+        UserDto ownerDto = UserDto.builder()
+                .name("Oleg")
+                .email("Oleg@yandex.ru")
+                .build();
+        userService.createUser(ownerDto);
+
+        int itemsCount = 150;
+        for (long itemId = 1; itemId <= itemsCount; itemId++) {
+            ItemDto itemDto = ItemDto.builder()
+                    .name((itemId % 2 == 0 ? "knife " : "fork ") + itemId)
+                    .description("new")
+                    .available(true)
+                    .build();
+            itemService.createItem(itemDto, ownerId);
+        }
+
+        List<ItemResponseDto> streamedOfOwner = new ArrayList<>();
+        itemService.streamItemsOfOwner(ownerId, streamedOfOwner::add);
+        List<ItemResponseDto> streamedBySearch = new ArrayList<>();
+        itemService.streamItemsByText("kNiFe", streamedBySearch::add);
+
+        assertEquals(itemService.getItemsOfOwner(ownerId, 0, itemsCount), streamedOfOwner);
+        assertEquals(itemService.findItemsByText("knife", 0, itemsCount), streamedBySearch);
+        assertEquals(itemsCount / 2, streamedBySearch.size());
+    }
+
+    private long countStatements(Runnable action) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        action.run();
+        long prepareStatementCount = statistics.getPrepareStatementCount();
+        statistics.setStatisticsEnabled(false);
+        return prepareStatementCount;
+    }
 }
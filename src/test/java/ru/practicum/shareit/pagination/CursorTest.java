@@ -0,0 +1,60 @@
+package ru.practicum.shareit.pagination;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.exception.ValidationException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CursorTest {
+
+    @Test
+    public void decodeWithTime_whenCursorIsEncoded_returnSameCursor() {
+        Cursor cursor = Cursor.of(LocalDateTime.of(2030, 1, 1, 1, 1, 0, 123456789), 42L);
+
+        assertEquals(Optional.of(cursor), Cursor.decodeWithTime(cursor.encode()));
+    }
+
+    @Test
+    public void decode_whenCursorIsEncoded_returnSameCursor() {
+        Cursor cursor = Cursor.of(42L);
+
+        assertEquals(Optional.of(cursor), Cursor.decode(cursor.encode()));
+    }
+
+    @Test
+    public void decode_whenValueIsBlank_returnEmpty() {
+        assertEquals(Optional.empty(), Cursor.decode(""));
+        assertEquals(Optional.empty(), Cursor.decodeWithTime(" "));
+    }
+
+    @Test
+    public void decode_whenValueIsInvalid_throwValidationException() {
+        String cursorWithTime = Cursor.of(LocalDateTime.of(2030, 1, 1, 1, 1), 42L).encode();
+
+        assertThrows(ValidationException.class, () -> Cursor.decode("not a cursor"));
+        assertThrows(ValidationException.class, () -> Cursor.decode(cursorWithTime));
+        assertThrows(ValidationException.class, () -> Cursor.decodeWithTime(Cursor.of(42L).encode()));
+    }
+
+    @Test
+    public void pageOf_whenThereIsExtraRow_returnPageWithNextCursor() {
+        CursorPage<Long> page = CursorPage.of(List.of(1L, 2L, 3L), 2, Cursor::of);
+
+        assertEquals(List.of(1L, 2L), page.getContent());
+        assertEquals(Cursor.of(2L).encode(), page.getNextCursor());
+    }
+
+    @Test
+    public void pageOf_whenThereIsNoExtraRow_returnLastPage() {
+        CursorPage<Long> page = CursorPage.of(List.of(1L, 2L), 2, Cursor::of);
+
+        assertEquals(List.of(1L, 2L), page.getContent());
+        assertNull(page.getNextCursor());
+    }
+}
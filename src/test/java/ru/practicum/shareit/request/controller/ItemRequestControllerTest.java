@@ -12,6 +12,8 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.request.ItemRequestController;
 import ru.practicum.shareit.request.ItemRequestMapper;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
@@ -20,6 +22,7 @@ import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.service.ItemRequestJPAService;
 import ru.practicum.shareit.user.model.User;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -245,6 +248,34 @@ public class ItemRequestControllerTest {
         assertThat(expectedItemRequestString, is(result));
     }
 
+    @Test
+    @SneakyThrows
+    void getAllOtherRequests_WhenCursorIsGiven_IsStatusOk_andReturnNextCursorInHeader() {
+
+        ItemRequestResponseDto itemRequestResponseDto = ItemRequestResponseDto.builder()
+                .id(itemRequestId)
+                .description("I want to rent a spoon")
+                .created(LocalDateTime.of(2030, 1, 1, 1, 1, 1))
+                .build();
+        String cursor = Cursor.of(LocalDateTime.of(2040, 1, 1, 1, 1, 1), 2L).encode();
+        String nextCursor = Cursor.of(itemRequestResponseDto.getCreated(), itemRequestId).encode();
+
+        when(itemRequestService.getAllOtherRequestsAfter(userId, cursor, 1))
+                .thenReturn(new CursorPage<>(List.of(itemRequestResponseDto), nextCursor));
+
+        mockMvc.perform(get("/requests/all")
+                        .header(header, userId)
+                        .param("cursor", cursor)
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CursorPage.NEXT_CURSOR_HEADER, nextCursor))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$.[0].id", is(itemRequestId), Long.class));
+
+        verify(itemRequestService).getAllOtherRequestsAfter(userId, cursor, 1);
+        verify(itemRequestService, never()).getAllOtherRequests(anyLong(), anyInt(), anyInt());
+    }
+
     @Test
     @SneakyThrows
     void getAllOtherRequests_WhenFromIsNegative_IsStatusBadRequest_NotInvokeService() {
@@ -152,4 +152,22 @@ public class ItemRequestRepositoryTest {
                 .doesNotContain(item2Request)
                 .isEmpty();
     }
+
+    @Test
+    public void findAllByRequesterIdIsNotBefore_returnRequestsAfterCursorOrderedByCreatedAndIdDesc() {
+
+        ItemRequest sameCreatedRequest = itemRequestRepository.save(item2Request.toBuilder()
+                .id(null)
+                .build());
+
+        List<ItemRequest> firstPage = itemRequestRepository
+                .findAllByRequesterIdIsNotOrderByCreatedDescIdDesc(ownerId, pageWithSize1);
+        List<ItemRequest> secondPage = itemRequestRepository
+                .findAllByRequesterIdIsNotBefore(ownerId, firstPage.get(0).getCreated(), firstPage.get(0).getId(), page);
+
+        AssertionsForClassTypes.assertThat(firstPage).asList()
+                .containsExactly(sameCreatedRequest);
+        AssertionsForClassTypes.assertThat(secondPage).asList()
+                .containsExactly(item2Request, item1Request);
+    }
 }
@@ -0,0 +1,45 @@
+package ru.practicum.shareit.user.index;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EmailBloomFilterTest {
+
+    @Test
+    public void mightContain_whenValueIsAdded_returnTrue() {
+        EmailBloomFilter filter = new EmailBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("user" + i + "@mail.ru");
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("user" + i + "@mail.ru"));
+        }
+    }
+
+    @Test
+    public void mightContain_whenValueIsNotAdded_returnFalseForMostValues() {
+        EmailBloomFilter filter = new EmailBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("user" + i + "@mail.ru");
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("other" + i + "@gmail.com")) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+    }
+
+    @Test
+    public void mightContain_whenFilterIsEmpty_returnFalse() {
+        EmailBloomFilter filter = new EmailBloomFilter(0, 0.01);
+
+        assertFalse(filter.mightContain("griffin@gmail.com"));
+    }
+}
@@ -6,12 +6,17 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import ru.practicum.shareit.exception.UserAlreadyExistException;
 import ru.practicum.shareit.exception.UserNotExistException;
 import ru.practicum.shareit.user.UserMapper;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.index.UserEmailIndex;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserJPARepository;
 
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -29,6 +34,8 @@ public class UserServiceImplTest {
     UserJPAServiceImpl userService;
     @Mock
     UserJPARepository userRepository;
+    @Mock
+    UserEmailIndex userEmailIndex;
 
     @Test
     public void createUser_returnSavedUser() {
@@ -47,12 +54,13 @@ public class UserServiceImplTest {
 
         UserDto expectedUserDto = UserMapper.toUserDto(savedUser);
 
-        when(userRepository.save(user))
+        when(userRepository.saveAndFlush(user))
                 .thenReturn(savedUser);
 
         UserDto result = userService.createUser(userDto);
 
-        verify(userRepository).save(user);
+        verify(userRepository).saveAndFlush(user);
+        verify(userEmailIndex).add("griffin@gmail.com");
 
         assertThat(result, is(expectedUserDto));
     }
@@ -120,9 +128,14 @@ public class UserServiceImplTest {
 
         UserDto expectedUserDto = UserMapper.toUserDto(updatedUser);
 
+        when(userEmailIndex.mightExist("New@Email"))
+                .thenReturn(true);
+        when(userRepository.existsByEmailIgnoreCaseAndIdNot("New@Email", userId))
+                .thenReturn(false);
+
         UserDto result = userService.updateUserById(validNew, userId);
 
-        verify(userRepository).save(updatedUser);
+        verify(userRepository).saveAndFlush(updatedUser);
 
         assertThat(result, is(expectedUserDto));
         AssertionsForClassTypes.assertThat(expectedUserDto)
@@ -178,7 +191,7 @@ public class UserServiceImplTest {
 
         UserDto result = userService.updateUserById(validNew, userId);
 
-        verify(userRepository).save(updatedUser);
+        verify(userRepository).saveAndFlush(updatedUser);
 
         assertThat(result, is(expectedUserDto));
         AssertionsForClassTypes.assertThat(expectedUserDto)
@@ -210,10 +223,13 @@ public class UserServiceImplTest {
 
         when(userRepository.findById(userId))
                 .thenReturn(Optional.of(user));
+        when(userEmailIndex.mightExist("new@mail.ru"))
+                .thenReturn(false);
 
         UserDto result = userService.updateUserById(validNew, userId);
 
-        verify(userRepository).save(updatedUser);
+        verify(userRepository).saveAndFlush(updatedUser);
+        verify(userRepository, never()).existsByEmailIgnoreCaseAndIdNot(anyString(), anyLong());
 
         assertEquals(result, expectedUserDto);
         AssertionsForClassTypes.assertThat(expectedUserDto)
@@ -222,6 +238,77 @@ public class UserServiceImplTest {
                 .hasFieldOrPropertyWithValue("email", "new@mail.ru");
     }
 
+    @Test
+    public void updateUser_WhenEmailMightExist_AndIsTakenByOtherUser_ThenThrowUserAlreadyExist() {
+
+        Long userId = 1L;
+        User user = User.builder()
+                .id(userId)
+                .name("Peter")
+                .email("griffin@gmail.com")
+                .build();
+
+        UserDto invalidNew = UserDto.builder()
+                .email("LIPA@yandex.ru")
+                .build();
+
+        when(userRepository.findById(userId))
+                .thenReturn(Optional.of(user));
+        when(userEmailIndex.mightExist("LIPA@yandex.ru"))
+                .thenReturn(true);
+        when(userRepository.existsByEmailIgnoreCaseAndIdNot("LIPA@yandex.ru", userId))
+                .thenReturn(true);
+
+        assertThrows(UserAlreadyExistException.class,
+                () -> userService.updateUserById(invalidNew, userId));
+
+        verify(userRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    public void updateUser_WhenEmailIsTakenConcurrently_ThenThrowUserAlreadyExist() {
+
+        Long userId = 1L;
+        User user = User.builder()
+                .id(userId)
+                .name("Peter")
+                .email("griffin@gmail.com")
+                .build();
+
+        UserDto validNew = UserDto.builder()
+                .email("lipa@yandex.ru")
+                .build();
+
+        when(userRepository.findById(userId))
+                .thenReturn(Optional.of(user));
+        when(userEmailIndex.mightExist("lipa@yandex.ru"))
+                .thenReturn(false);
+        when(userRepository.saveAndFlush(any()))
+                .thenThrow(constraintViolation("PUBLIC.UNIQUE_USER_EMAIL_INDEX_4"));
+
+        assertThrows(UserAlreadyExistException.class,
+                () -> userService.updateUserById(validNew, userId),
+                "user is ALREADY exist with email: lipa@yandex.ru");
+    }
+
+    @Test
+    public void createUser_WhenOtherConstraintIsViolated_ThenRethrow() {
+
+        UserDto userDto = UserDto.builder()
+                .name("Peter")
+                .email("griffin@gmail.com")
+                .build();
+
+        DataIntegrityViolationException violation = constraintViolation("users_pkey");
+        when(userRepository.saveAndFlush(any()))
+                .thenThrow(violation);
+
+        DataIntegrityViolationException result = assertThrows(DataIntegrityViolationException.class,
+                () -> userService.createUser(userDto));
+
+        assertThat(result, is(violation));
+    }
+
     @Test
     public void deleteUser_WhenUserExists_InvokeRepository() {
 
@@ -288,4 +375,8 @@ public class UserServiceImplTest {
         assertEquals(result.get(1).getName(), "Dua");
     }
 
+    private static DataIntegrityViolationException constraintViolation(String constraintName) {
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", new SQLException(), constraintName));
+    }
 }
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.user.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -8,7 +9,9 @@ import ru.practicum.shareit.exception.UserAlreadyExistException;
 import ru.practicum.shareit.exception.UserNotExistException;
 import ru.practicum.shareit.user.UserMapper;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.index.UserEmailIndex;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserJPARepository;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -22,6 +25,8 @@ public class UserServiceIntegrationTest {
 
     @Autowired
     UserJPAService userService;
+    @Autowired
+    UserJPARepository userRepository;
 
     @Test
     public void shouldCreateUser_andGetByExistingId() {
@@ -219,6 +224,86 @@ public class UserServiceIntegrationTest {
                 String.format("user is ALREADY exist with email: %s", invalidNew.getEmail()));
     }
 
+    @Test
+    public void shouldFailUpdateWithOtherUserEmailInOtherCase() {
+
+        UserDto userDto = UserDto.builder()
+                .name("Defor")
+                .email("fedja@yandex.ru")
+                .build();
+        Long userId2 = 2L;
+        UserDto otherUserDto = UserDto.builder()
+                .name("Jordan")
+                .email("mj32@gmail.com")
+                .build();
+
+        userService.createUser(userDto);
+        userService.createUser(otherUserDto);
+
+        UserDto invalidNew = UserDto.builder()
+                .email("Fedja@Yandex.ru")
+                .build();
+
+        assertThrows(UserAlreadyExistException.class,
+                () -> userService.updateUserById(invalidNew, userId2),
+                String.format("user is ALREADY exist with email: %s", invalidNew.getEmail()));
+    }
+
+    @Test
+    public void shouldFailCreateWithExistingEmail() {
+
+        UserDto userDto = UserDto.builder()
+                .name("Defor")
+                .email("fedja@yandex.ru")
+                .build();
+        UserDto userWithSameEmailDto = UserDto.builder()
+                .name("Jordan")
+                .email("fedja@yandex.ru")
+                .build();
+
+        userService.createUser(userDto);
+
+        assertThrows(UserAlreadyExistException.class,
+                () -> userService.createUser(userWithSameEmailDto),
+                String.format("user is ALREADY exist with email: %s", userWithSameEmailDto.getEmail()));
+        assertEquals(1, userService.getAllUsers().size());
+    }
+
+    @Test
+    public void shouldCreateUserWithEmailDifferingOnlyInCase() {
+
+        userService.createUser(UserDto.builder()
+                .name("Defor")
+                .email("fedja@yandex.ru")
+                .build());
+
+        userService.createUser(UserDto.builder()
+                .name("Jordan")
+                .email("Fedja@Yandex.ru")
+                .build());
+
+        assertEquals(2, userService.getAllUsers().size());
+    }
+
+    @Test
+    public void shouldLoadEmailFilterWithSavedEmails() {
+
+        userService.createUser(UserDto.builder()
+                .name("Defor")
+                .email("fedja@yandex.ru")
+                .build());
+        UserEmailIndex emailIndex = new UserEmailIndex(userRepository, 1000, 0.01, new SimpleMeterRegistry());
+
+        assertTrue(emailIndex.mightExist("free@mail.ru"));
+
+        emailIndex.load();
+
+        assertTrue(emailIndex.mightExist("FEDJA@yandex.ru "));
+        assertFalse(emailIndex.mightExist("free@mail.ru"));
+        emailIndex.add("Free@Mail.ru");
+        assertTrue(emailIndex.mightExist("free@mail.ru"));
+    }
+
     @Test
     public void shouldDeleteUser() {
 